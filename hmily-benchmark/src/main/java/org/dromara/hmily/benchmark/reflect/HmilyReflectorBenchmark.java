@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.benchmark.reflect;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.reflect.MethodUtils;
+import org.dromara.hmily.core.reflect.HmilyInvokerCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Confirm invocation through the cached method handle against the reflective path it replaced,
+ * run with the main method of this module, which is only built by the benchmark profile.
+ *
+ * @author xiaoyu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HmilyReflectorBenchmark {
+    
+    private static final String CLASS_NAME = ConfirmService.class.getName();
+    
+    private static final Class<?>[] PARAMETER_TYPES = {String.class, int.class};
+    
+    private final Object[] args = {"order", 1};
+    
+    private final Object bean = new ConfirmService();
+    
+    /**
+     * The reflective path, class loading and accessible method scan on every call.
+     *
+     * @return the result
+     * @throws Exception the exception
+     */
+    @Benchmark
+    public Object reflection() throws Exception {
+        Class.forName(CLASS_NAME);
+        return MethodUtils.invokeMethod(bean, "confirm", args, PARAMETER_TYPES);
+    }
+    
+    /**
+     * The cached method handle path.
+     *
+     * @return the result
+     * @throws Exception the exception
+     */
+    @Benchmark
+    public Object methodHandle() throws Exception {
+        HmilyInvokerCache.forName(CLASS_NAME);
+        return HmilyInvokerCache.invoke(bean, "confirm", PARAMETER_TYPES, args);
+    }
+    
+    /**
+     * Main.
+     *
+     * @param args the args
+     * @throws RunnerException the runner exception
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HmilyReflectorBenchmark.class.getSimpleName()).build()).run();
+    }
+    
+    /**
+     * A confirm method like the ones of a tcc participant.
+     */
+    public static class ConfirmService {
+        
+        /**
+         * Confirm.
+         *
+         * @param orderNo the order no
+         * @param count   the count
+         * @return the result
+         */
+        public String confirm(final String orderNo, final int count) {
+            return orderNo;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.common.concurrent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hashed timing wheel, schedules many one shot timers at O(1) cost per schedule and cancel.
+ * Timers are bucketed by tick on a single worker thread, so they fire up to one tick late
+ * and their tasks should only hand work over to another executor.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyTimingWheel implements AutoCloseable {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(HmilyTimingWheel.class);
+    
+    private final long tickMillis;
+    
+    private final int mask;
+    
+    private final List<Queue<Timeout>> buckets;
+    
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    
+    private final long startTime;
+    
+    private final Thread worker;
+    
+    private volatile boolean running = true;
+    
+    private long tick;
+    
+    /**
+     * Instantiates a new timing wheel and starts its worker.
+     *
+     * @param name          the worker thread name prefix
+     * @param tickMillis    the tick duration in millis
+     * @param ticksPerWheel the bucket count, rounded up to a power of two
+     */
+    public HmilyTimingWheel(final String name, final long tickMillis, final int ticksPerWheel) {
+        this.tickMillis = Math.max(1L, tickMillis);
+        int size = Integer.highestOneBit(Math.max(1, ticksPerWheel - 1)) << 1;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        this.startTime = System.currentTimeMillis();
+        this.worker = HmilyThreadFactory.create(name, true).newThread(this::work);
+        worker.start();
+    }
+    
+    /**
+     * Schedule a task to run once after the delay.
+     *
+     * @param task  the task, run on the wheel worker
+     * @param delay the delay
+     * @param unit  the delay unit
+     * @return the timeout, used to cancel the task
+     */
+    public Timeout schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        Timeout timeout = new Timeout(task, System.currentTimeMillis() + Math.max(0L, unit.toMillis(delay)));
+        pending.add(timeout);
+        return timeout;
+    }
+    
+    private void work() {
+        while (running) {
+            long sleep = startTime + tickMillis * (tick + 1) - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            transferPending();
+            expire(buckets.get((int) (tick & mask)));
+            tick++;
+        }
+    }
+    
+    private void transferPending() {
+        Timeout timeout;
+        while (Objects.nonNull(timeout = pending.poll())) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long expireTick = Math.max((timeout.deadline - startTime) / tickMillis, tick);
+            timeout.rounds = (expireTick - tick) / buckets.size();
+            buckets.get((int) (expireTick & mask)).add(timeout);
+        }
+    }
+    
+    private void expire(final Queue<Timeout> bucket) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.rounds <= 0) {
+                iterator.remove();
+                try {
+                    timeout.task.run();
+                } catch (Throwable e) {
+                    LOGGER.error("hmily timing wheel task is error:", e);
+                }
+            } else {
+                timeout.rounds--;
+            }
+        }
+    }
+    
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+    
+    /**
+     * A scheduled task of the wheel.
+     */
+    public static final class Timeout {
+        
+        private final Runnable task;
+        
+        private final long deadline;
+        
+        private volatile boolean cancelled;
+        
+        private long rounds;
+        
+        private Timeout(final Runnable task, final long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+        
+        /**
+         * Cancel the task if it has not run yet, the wheel drops it when its bucket comes round.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
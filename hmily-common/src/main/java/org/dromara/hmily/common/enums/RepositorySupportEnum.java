@@ -71,7 +71,22 @@ public enum RepositorySupportEnum {
     /**
      * Zookeeper compensate cache type enum.
      */
-    ZOOKEEPER("zookeeper");
+    ZOOKEEPER("zookeeper"),
+    
+    /**
+     * Sharding compensate cache type enum.
+     */
+    SHARDING("sharding"),
+    
+    /**
+     * Tiered compensate cache type enum.
+     */
+    TIERED("tiered"),
+    
+    /**
+     * Memory compensate cache type enum.
+     */
+    MEMORY("memory");
 
     private final String support;
     
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.common.concurrent;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The timing wheel test.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyTimingWheelTest {
+    
+    private final HmilyTimingWheel wheel = new HmilyTimingWheel("hmily-timing-wheel-test", 10L, 8);
+    
+    @After
+    public void tearDown() {
+        wheel.close();
+    }
+    
+    @Test
+    public void assertTaskFiresOnTickAfterDelay() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicLong firedAt = new AtomicLong();
+        long start = System.currentTimeMillis();
+        wheel.schedule(() -> {
+            firedAt.set(System.currentTimeMillis());
+            latch.countDown();
+        }, 30L, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue(firedAt.get() - start >= 30L);
+    }
+    
+    @Test
+    public void assertTaskBeyondOneWheelWaitsForItsRound() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicLong firedAt = new AtomicLong();
+        long start = System.currentTimeMillis();
+        // 8 buckets of 10 millis, so the task lands in a bucket that comes round twice before it is due.
+        wheel.schedule(() -> {
+            firedAt.set(System.currentTimeMillis());
+            latch.countDown();
+        }, 200L, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(firedAt.get() - start >= 200L);
+    }
+    
+    @Test
+    public void assertCancelledTaskNeverRuns() throws InterruptedException {
+        AtomicBoolean fired = new AtomicBoolean();
+        wheel.schedule(() -> fired.set(true), 30L, TimeUnit.MILLISECONDS).cancel();
+        CountDownLatch latch = new CountDownLatch(1);
+        wheel.schedule(latch::countDown, 100L, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertFalse(fired.get());
+    }
+    
+    @Test
+    public void assertTaskArmedAfterItsBucketPassedFiresOnNextTick() throws InterruptedException {
+        Thread.sleep(100L);
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        wheel.schedule(latch::countDown, -50L, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start < 500L);
+    }
+}
@@ -63,6 +63,16 @@ public final class PrefixConstants {
      */
     public static final String ETCD_PREFIX = "repository.etcd";
     
+    /**
+     * The constant SHARDING_PREFIX.
+     */
+    public static final String SHARDING_PREFIX = "repository.sharding";
+    
+    /**
+     * The constant TIERED_PREFIX.
+     */
+    public static final String TIERED_PREFIX = "repository.tiered";
+    
     /**
      * The constant METRICS_PREFIX.
      */
@@ -42,6 +42,16 @@ public class HmilyConfig extends AbstractConfig {
      */
     private String serializer = "kryo";
     
+    /**
+     * log compression, none, lz4 or deflate.
+     */
+    private String compression = "none";
+    
+    /**
+     * serialized logs smaller than this many bytes are stored uncompressed.
+     */
+    private int compressionThreshold = 1024;
+    
     /**
      * contextTransmittalMode.
      */
@@ -57,6 +67,17 @@ public class HmilyConfig extends AbstractConfig {
      */
     private int scheduledRecoveryDelay = 60;
     
+    /**
+     * recover the participants of this node from an in-process timer fired recoverDelayTime after their last status change,
+     * the recovery scans then only run every scheduledRecoverySafetyNetDelay as a safety net.
+     */
+    private boolean recoveryTimer;
+    
+    /**
+     * recovery scan delay while the recovery timer is enabled, unit SECONDS.
+     */
+    private int scheduledRecoverySafetyNetDelay = 600;
+    
     /**
      * scheduled clean delay.
      */
@@ -72,6 +93,31 @@ public class HmilyConfig extends AbstractConfig {
      */
     private int scheduledInitDelay = 30;
     
+    /**
+     * self recovery worker threads, shared by tcc and tac recovery.
+     */
+    private int recoveryThreads = Runtime.getRuntime().availableProcessors();
+    
+    /**
+     * max participants of the same target class recovered at once.
+     */
+    private int recoveryTargetConcurrency = 4;
+    
+    /**
+     * split self recovery among the live nodes of the application, needs a repository that keeps recovery members.
+     */
+    private boolean recoveryPartition;
+    
+    /**
+     * recovery member lease Unit seconds, a node that misses it hands its partition over.
+     */
+    private int recoveryLeaseTime = 30;
+    
+    /**
+     * recovery member heartbeat interval Unit seconds.
+     */
+    private int recoveryHeartbeatInterval = 10;
+    
     /**
      * recoverDelayTime Unit seconds
      * (note that this time represents how many seconds after the local transaction was created before execution).
@@ -94,6 +140,16 @@ public class HmilyConfig extends AbstractConfig {
      */
     private int retryMax = 10;
     
+    /**
+     * first self recovery retry backoff Unit seconds, doubled after every failed attempt of a participant.
+     */
+    private int retryBackoffBase = 5;
+    
+    /**
+     * max self recovery retry backoff Unit seconds.
+     */
+    private int retryBackoffMax = 600;
+    
     /**
      * disruptor bufferSize.
      */
@@ -109,6 +165,38 @@ public class HmilyConfig extends AbstractConfig {
      */
     private boolean asyncRepository = true;
     
+    /**
+     * max repository writes in flight in the async repository pipeline, writes of one transaction are still applied in order.
+     */
+    private int asyncRepositoryMaxInFlight = 1024;
+    
+    /**
+     * threads that run blocking repositories for the async repository pipeline.
+     */
+    private int asyncRepositoryThreads = Runtime.getRuntime().availableProcessors() << 1;
+    
+    /**
+     * write the global transaction and the starter participant only once the first participant enlists,
+     * a remote call or a local tac undo log, so starters that stay local or fail early write nothing.
+     * A starter that crashes before enlisting anything leaves no record to recover its own try from.
+     */
+    private boolean lazyStarterLog;
+    
+    /**
+     * tcc confirm or cancel the remote participants of a transaction concurrently instead of one after another.
+     */
+    private boolean tccParallelPhaseTwo;
+    
+    /**
+     * threads that run the concurrent tcc confirm and cancel calls.
+     */
+    private int tccPhaseTwoThreads = Runtime.getRuntime().availableProcessors() << 1;
+    
+    /**
+     * timeout of the concurrent tcc confirm and cancel calls Unit milliseconds, a call that times out counts as failed.
+     */
+    private long tccPhaseTwoTimeout = 5000;
+    
     /**
      * autoSql.
      */
@@ -134,6 +222,56 @@ public class HmilyConfig extends AbstractConfig {
      */
     private String sqlParserType = "shardingsphere";
     
+    /**
+     * tac parsed statements kept per (database type, sql), 0 parses every statement.
+     */
+    private int sqlParserCacheSize = 1024;
+    
+    /**
+     * tac selects checked against the global locks: none, forUpdate or all, an unknown value is logged and read as forUpdate.
+     * The check never acquires the locks, and the other selects skip the image query.
+     * Only the MySQL statements carry their for update, so forUpdate checks no select on the other databases.
+     */
+    private String tacSelectLockCheck = "forUpdate";
+    
+    /**
+     * tac millis to wait for a global lock held by another transaction before the conflict fails, 0 fails at once.
+     */
+    private long tacLockWaitTimeout;
+    
+    /**
+     * tac first backoff millis between two lookups of a global lock held on another node.
+     */
+    private long tacLockRetryInterval = 10;
+    
+    /**
+     * tac revert statements of the same sql sent in one jdbc batch, 1 executes them one by one.
+     */
+    private int tacRevertBatchSize = 500;
+    
+    /**
+     * tac resources of one participant reverted in parallel on cancel.
+     */
+    private int tacRevertParallelism = 4;
+    
+    /**
+     * tac undo records inserted into the hmily_undo_log table of the business database inside the local transaction,
+     * instead of being written to the hmily repository after the local commit.
+     * The table ddl of mysql, postgresql, oracle and sqlserver ships in hmily-tac-common.
+     */
+    private boolean tacUndoLogColocated;
+    
+    /**
+     * tac tables whose metadata is loaded when the datasource starts, comma separated, * loads every table.
+     * The other tables are loaded on their first statement.
+     */
+    private String tacMetaDataPreloadTables = "";
+    
+    /**
+     * tac tables whose metadata is preloaded in parallel.
+     */
+    private int tacMetaDataPreloadParallelism = 4;
+    
     /**
      * tac sqlRevert.
      */
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.config.api.entity;
+
+import lombok.Data;
+import org.dromara.hmily.config.api.Config;
+
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * One shard of the sharding repository.
+ * A shard without a config of its own uses the global config of its repository type,
+ * so several shards of one type must each set theirs.
+ *
+ * @author xiaoyu
+ */
+@Data
+public class HmilyShardConfig {
+    
+    /**
+     * SPI name of the backing repository.
+     */
+    private String repository;
+    
+    /**
+     * config of a database shard.
+     */
+    private HmilyDatabaseConfig database;
+    
+    /**
+     * config of a mongodb shard.
+     */
+    private HmilyMongoConfig mongo;
+    
+    /**
+     * config of a redis shard.
+     */
+    private HmilyRedisConfig redis;
+    
+    /**
+     * config of a zookeeper shard.
+     */
+    private HmilyZookeeperConfig zookeeper;
+    
+    /**
+     * config of an etcd shard.
+     */
+    private HmilyEtcdConfig etcd;
+    
+    /**
+     * config of a file shard.
+     */
+    private HmilyFileConfig file;
+    
+    /**
+     * Get the config of this shard.
+     *
+     * @return the config, null when the shard uses the global config of its type
+     */
+    public Config findConfig() {
+        return Stream.of(database, mongo, redis, zookeeper, etcd, file).filter(Objects::nonNull).findFirst().orElse(null);
+    }
+}
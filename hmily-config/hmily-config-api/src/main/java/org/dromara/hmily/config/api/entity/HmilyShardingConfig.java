@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.config.api.entity;
+
+import lombok.Data;
+import org.dromara.hmily.config.api.AbstractConfig;
+import org.dromara.hmily.config.api.constant.PrefixConstants;
+import org.dromara.hmily.spi.HmilySPI;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The sharding repository config.
+ *
+ * @author xiaoyu
+ */
+@Data
+@HmilySPI("hmilyShardingConfig")
+public class HmilyShardingConfig extends AbstractConfig {
+    
+    /**
+     * the backing repositories, one per shard.
+     * The order is part of the routing and must not change while logs exist.
+     */
+    private List<HmilyShardConfig> shards = new ArrayList<>();
+    
+    /**
+     * thread size of the fan-out pool used for scans over all shards.
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    
+    /**
+     * fan-out timeout unit MILLISECONDS.
+     */
+    private long fanOutTimeout = 30000;
+    
+    @Override
+    public String prefix() {
+        return PrefixConstants.SHARDING_PREFIX;
+    }
+}
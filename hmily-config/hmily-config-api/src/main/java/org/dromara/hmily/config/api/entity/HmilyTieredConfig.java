@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.config.api.entity;
+
+import lombok.Data;
+import org.dromara.hmily.config.api.AbstractConfig;
+import org.dromara.hmily.config.api.constant.PrefixConstants;
+import org.dromara.hmily.spi.HmilySPI;
+
+/**
+ * The tiered (hot/cold) repository config.
+ *
+ * @author xiaoyu
+ */
+@Data
+@HmilySPI("hmilyTieredConfig")
+public class HmilyTieredConfig extends AbstractConfig {
+    
+    /**
+     * SPI name of the durable (cold) repository.
+     */
+    private String repository = "mysql";
+    
+    /**
+     * age after which a record is demoted to the durable repository unit MILLISECONDS.
+     * Records completed before this age never reach the durable repository.
+     */
+    private long demoteAge = 5000;
+    
+    /**
+     * delay between two demote runs unit MILLISECONDS.
+     */
+    private long demoteInterval = 1000;
+    
+    /**
+     * max records kept in the hot tier, writes above it go straight to the durable repository.
+     */
+    private int maxHotSize = 100000;
+    
+    @Override
+    public String prefix() {
+        return PrefixConstants.TIERED_PREFIX;
+    }
+}
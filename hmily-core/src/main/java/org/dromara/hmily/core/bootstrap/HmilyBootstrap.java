@@ -29,11 +29,13 @@ import org.dromara.hmily.core.holder.SingletonHolder;
 import org.dromara.hmily.core.logo.HmilyLogo;
 import org.dromara.hmily.core.provide.ObjectProvide;
 import org.dromara.hmily.core.provide.ReflectObject;
+import org.dromara.hmily.core.repository.HmilyCompressedSerializer;
 import org.dromara.hmily.core.repository.HmilyRepositoryFacade;
 import org.dromara.hmily.core.schedule.HmilyTransactionSelfRecoveryScheduled;
 import org.dromara.hmily.metrics.facade.MetricsTrackerFacade;
 import org.dromara.hmily.repository.spi.HmilyRepository;
 import org.dromara.hmily.serializer.spi.HmilySerializer;
+import org.dromara.hmily.serializer.spi.compress.CompressionTypeEnum;
 import org.dromara.hmily.spi.ExtensionLoaderFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -73,9 +75,9 @@ public final class HmilyBootstrap {
             HmilyConfig hmilyConfig = ConfigEnv.getInstance().getConfig(HmilyConfig.class);
             check(hmilyConfig);
             registerProvide();
+            initMetrics();
             loadHmilyRepository(hmilyConfig);
             registerAutoCloseable(new HmilyTransactionSelfRecoveryScheduled(), HmilyRepositoryEventPublisher.getInstance());
-            initMetrics();
         } catch (Exception e) {
             LOGGER.error(" hmily init exception:", e);
             System.exit(0);
@@ -111,7 +113,8 @@ public final class HmilyBootstrap {
     }
     
     private void loadHmilyRepository(final HmilyConfig hmilyConfig) {
-        HmilySerializer hmilySerializer = ExtensionLoaderFactory.load(HmilySerializer.class, hmilyConfig.getSerializer());
+        HmilySerializer hmilySerializer = new HmilyCompressedSerializer(ExtensionLoaderFactory.load(HmilySerializer.class, hmilyConfig.getSerializer()),
+                CompressionTypeEnum.acquire(hmilyConfig.getCompression()), hmilyConfig.getCompressionThreshold());
         HmilyRepository hmilyRepository = ExtensionLoaderFactory.load(HmilyRepository.class, hmilyConfig.getRepository());
         hmilyRepository.setSerializer(hmilySerializer);
         hmilyRepository.init(buildAppName(hmilyConfig));
@@ -4,18 +4,35 @@ import org.dromara.hmily.core.concurrent.ConsistentHashSelector;
 import org.dromara.hmily.core.disruptor.HmilyDisruptorConsumer;
 import org.dromara.hmily.core.repository.HmilyRepositoryEvent;
 import org.dromara.hmily.core.repository.HmilyRepositoryEventDispatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 
 /**
  * Hmily repository event consumer.
+ * Repository writes are issued without waiting for the previous ones, up to the in flight limit.
+ * Writes of the same transaction are chained on each other, so they still reach the repository in publish order.
  *
  * @author xiaoyu(Myth)
  */
 public class HmilyRepositoryEventConsumer implements HmilyDisruptorConsumer<HmilyRepositoryEvent> {
     
+    private static final Logger LOGGER = LoggerFactory.getLogger(HmilyRepositoryEventConsumer.class);
+    
     private ConsistentHashSelector executor;
     
-    public HmilyRepositoryEventConsumer(final ConsistentHashSelector executor) {
+    private final Map<Long, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    
+    private final Semaphore inFlight;
+    
+    public HmilyRepositoryEventConsumer(final ConsistentHashSelector executor, final int maxInFlight) {
         this.executor = executor;
+        this.inFlight = new Semaphore(maxInFlight);
     }
     
     @Override
@@ -27,9 +44,27 @@ public class HmilyRepositoryEventConsumer implements HmilyDisruptorConsumer<Hmil
     public void execute(final HmilyRepositoryEvent event) {
         Long transId = event.getTransId();
         executor.select(String.valueOf(transId)).execute(() -> {
-            HmilyRepositoryEventDispatcher.getInstance().doDispatch(event);
-            event.clear();
+            inFlight.acquireUninterruptibly();
+            // compute only links the write, a blocking repository must not write while the map bin is locked
+            CompletableFuture<Void> linked = new CompletableFuture<>();
+            CompletableFuture<Void> tail = tails.compute(transId, (key, previous) -> chain(previous, linked, event));
+            tail.whenComplete((result, throwable) -> {
+                tails.remove(transId, tail);
+                inFlight.release();
+            });
+            linked.complete(null);
         });
-       
+    }
+    
+    private CompletableFuture<Void> chain(final CompletableFuture<Void> previous, final CompletableFuture<Void> linked, final HmilyRepositoryEvent event) {
+        CompletableFuture<Void> start = Objects.isNull(previous) ? linked : previous.thenCombine(linked, (first, second) -> null);
+        return start.thenCompose(ignored -> HmilyRepositoryEventDispatcher.getInstance().doAsyncDispatch(event))
+                .handle((result, throwable) -> {
+                    if (Objects.nonNull(throwable)) {
+                        LOGGER.error("hmily repository async write exception, transId:{}", event.getTransId(), throwable);
+                    }
+                    event.clear();
+                    return null;
+                });
     }
 }
@@ -69,7 +69,7 @@ public final class HmilyRepositoryEventPublisher implements AutoCloseable {
         ConsistentHashSelector selector = new ConsistentHashSelector(selects);
         disruptor =
                 new HmilyDisruptor<>(
-                        new HmilyRepositoryEventConsumer(selector), 1, hmilyConfig.getBufferSize());
+                        new HmilyRepositoryEventConsumer(selector, hmilyConfig.getAsyncRepositoryMaxInFlight()), 1, hmilyConfig.getBufferSize());
         disruptor.startup();
     }
     
@@ -101,6 +101,20 @@ public final class HmilyRepositoryEventPublisher implements AutoCloseable {
         push(event);
     }
     
+    /**
+     * Publish event.
+     *
+     * @param hmilyParticipantUndos the hmily participant undo list
+     * @param type                  the type
+     */
+    public void publishEvent(final Collection<HmilyParticipantUndo> hmilyParticipantUndos, final int type) {
+        HmilyRepositoryEvent event = new HmilyRepositoryEvent();
+        event.setType(type);
+        event.setTransId(hmilyParticipantUndos.iterator().next().getTransId());
+        event.setHmilyParticipantUndos(hmilyParticipantUndos);
+        push(event);
+    }
+    
     /**
      * Publish event.
      *
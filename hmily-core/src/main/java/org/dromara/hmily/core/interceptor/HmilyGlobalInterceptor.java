@@ -18,18 +18,17 @@ package org.dromara.hmily.core.interceptor;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.dromara.hmily.annotation.HmilyTAC;
-import org.dromara.hmily.annotation.HmilyTCC;
-import org.dromara.hmily.annotation.HmilyXA;
 import org.dromara.hmily.annotation.TransTypeEnum;
 import org.dromara.hmily.core.context.HmilyTransactionContext;
 import org.dromara.hmily.core.mediator.LocalParameterLoader;
 import org.dromara.hmily.core.mediator.RpcParameterLoader;
+import org.dromara.hmily.core.reflect.HmilyMethodRegistry;
 import org.dromara.hmily.core.service.HmilyTransactionHandlerRegistry;
 import org.dromara.hmily.spi.ExtensionLoaderFactory;
 
 import java.lang.reflect.Method;
 import java.util.EnumMap;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -66,15 +65,7 @@ public class HmilyGlobalInterceptor implements HmilyTransactionInterceptor {
     }
 
     private HmilyTransactionHandlerRegistry getRegistry(final Method method) {
-        if (method.isAnnotationPresent(HmilyTCC.class)) {
-            return REGISTRY.get(TransTypeEnum.TCC);
-        } else if (method.isAnnotationPresent(HmilyTAC.class)) {
-            return REGISTRY.get(TransTypeEnum.TAC);
-        } else if (method.isAnnotationPresent(HmilyXA.class)) {
-            return REGISTRY.get(TransTypeEnum.XA);
-        } else {
-            return REGISTRY.get(TransTypeEnum.TAC);
-        }
-        //  return null != method.getAnnotation(HmilyTCC.class) ? REGISTRY.get(TransTypeEnum.TCC) : REGISTRY.get(TransTypeEnum.TAC);
+        TransTypeEnum transType = HmilyMethodRegistry.getInstance().find(method).getTransType();
+        return REGISTRY.get(Objects.isNull(transType) ? TransTypeEnum.TAC : transType);
     }
 }
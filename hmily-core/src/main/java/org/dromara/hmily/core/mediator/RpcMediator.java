@@ -24,6 +24,7 @@ import org.dromara.hmily.common.constant.CommonConstant;
 import org.dromara.hmily.common.utils.GsonUtils;
 import org.dromara.hmily.common.utils.StringUtils;
 import org.dromara.hmily.core.context.HmilyTransactionContext;
+import org.dromara.hmily.core.repository.HmilyRepositoryStorage;
 
 /**
  * The type RpcMediator.
@@ -51,6 +52,8 @@ public class RpcMediator {
      */
     public void transmit(final RpcTransmit rpcTransmit, final HmilyTransactionContext context) {
         if (Objects.nonNull(context)) {
+            // the remote participant is about to enlist, a lazily logged starter has to be recoverable from here on
+            HmilyRepositoryStorage.enlist();
             rpcTransmit.transmit(CommonConstant.HMILY_TRANSACTION_CONTEXT, GsonUtils.getInstance().toJson(context));
         }
     }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.core.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.reflect.MethodUtils;
+
+/**
+ * Confirm and cancel methods resolved once per (class, method name, parameter types) to a method handle,
+ * so the phase two and recovery calls skip the class loading and the accessible method scan of every reflective call.
+ * The handle is not bound to a bean, the bean is still provided per call since it may be scoped or created per call.
+ * The invokers hang off the bean class and the loaded classes are weakly held, so neither keeps a redeployed class loader alive.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyInvokerCache {
+    
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+    
+    private static final Map<String, WeakReference<Class<?>>> CLASSES = new ConcurrentHashMap<>();
+    
+    private static final ClassValue<Map<InvokerKey, Invoker>> INVOKERS = new ClassValue<Map<InvokerKey, Invoker>>() {
+        
+        @Override
+        protected Map<InvokerKey, Invoker> computeValue(final Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    
+    private HmilyInvokerCache() {
+    }
+    
+    /**
+     * Load a class by name once.
+     *
+     * @param className the class name
+     * @return the class
+     * @throws ClassNotFoundException the class not found exception
+     */
+    public static Class<?> forName(final String className) throws ClassNotFoundException {
+        WeakReference<Class<?>> reference = CLASSES.get(className);
+        Class<?> clazz = Objects.isNull(reference) ? null : reference.get();
+        if (Objects.isNull(clazz)) {
+            clazz = Class.forName(className);
+            CLASSES.put(className, new WeakReference<>(clazz));
+        }
+        return clazz;
+    }
+    
+    /**
+     * Invoke a method on the bean through the cached handle of the bean class, the class MethodUtils.invokeMethod looks it up on.
+     *
+     * @param bean           the bean
+     * @param methodName     the method name
+     * @param parameterTypes the parameter types
+     * @param args           the args
+     * @return the method result
+     * @throws NoSuchMethodException     no accessible method matches
+     * @throws IllegalAccessException    the method can not be accessed
+     * @throws IllegalArgumentException  the args do not fit the method, like a reflective call
+     * @throws InvocationTargetException the method threw, like a reflective call
+     */
+    public static Object invoke(final Object bean, final String methodName, final Class<?>[] parameterTypes, final Object[] args)
+            throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+        Class<?>[] types = Objects.isNull(parameterTypes) ? new Class<?>[0] : parameterTypes;
+        Class<?> clazz = bean.getClass();
+        Map<InvokerKey, Invoker> invokers = INVOKERS.get(clazz);
+        InvokerKey key = new InvokerKey(methodName, types);
+        Invoker invoker = invokers.get(key);
+        if (Objects.isNull(invoker)) {
+            invoker = resolve(clazz, methodName, types);
+            invokers.putIfAbsent(key, invoker);
+        }
+        Object[] arguments = Objects.isNull(args) ? new Object[0] : args;
+        // checked up front so that whatever the handle throws comes from the method itself
+        if (!ClassUtils.isAssignable(ClassUtils.toClass(arguments), invoker.parameterTypes, true)) {
+            throw new IllegalArgumentException("Arguments do not match method: " + methodName + "() on object: " + clazz.getName());
+        }
+        try {
+            return (Object) invoker.handle.invokeExact(bean, arguments);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+    
+    private static Invoker resolve(final Class<?> clazz, final String methodName, final Class<?>[] parameterTypes) throws NoSuchMethodException, IllegalAccessException {
+        // the same method MethodUtils.invokeMethod would pick, so the cache does not change which overload is called
+        Method method = MethodUtils.getMatchingAccessibleMethod(clazz, methodName, parameterTypes);
+        if (Objects.isNull(method)) {
+            throw new NoSuchMethodException("No such accessible method: " + methodName + "() on object: " + clazz.getName());
+        }
+        MethodHandle handle = MethodHandles.publicLookup().unreflect(method).asFixedArity();
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return new Invoker(handle.asSpreader(Object[].class, method.getParameterCount()).asType(INVOKER_TYPE), method.getParameterTypes());
+    }
+    
+    @RequiredArgsConstructor
+    private static final class Invoker {
+        
+        private final MethodHandle handle;
+        
+        private final Class<?>[] parameterTypes;
+    }
+    
+    @RequiredArgsConstructor
+    @EqualsAndHashCode
+    private static final class InvokerKey {
+        
+        private final String methodName;
+        
+        private final Class<?>[] parameterTypes;
+    }
+}
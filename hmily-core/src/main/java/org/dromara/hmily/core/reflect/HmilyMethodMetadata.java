@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.core.reflect;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.dromara.hmily.annotation.TransTypeEnum;
+
+/**
+ * The hmily annotations of a method, read once.
+ *
+ * @author xiaoyu
+ */
+@Getter
+@RequiredArgsConstructor
+public final class HmilyMethodMetadata {
+    
+    /**
+     * The metadata of a method without hmily annotations.
+     */
+    public static final HmilyMethodMetadata NONE = new HmilyMethodMetadata(false, null, "", "");
+    
+    /**
+     * the method is annotated with {@linkplain org.dromara.hmily.annotation.Hmily}, so rpc filters join it to the transaction.
+     */
+    private final boolean hmily;
+    
+    /**
+     * the trans type of a {@linkplain org.dromara.hmily.annotation.HmilyTCC}, {@linkplain org.dromara.hmily.annotation.HmilyTAC}
+     * or {@linkplain org.dromara.hmily.annotation.HmilyXA} method, null otherwise.
+     */
+    private final TransTypeEnum transType;
+    
+    /**
+     * the tcc confirm method.
+     */
+    private final String confirmMethod;
+    
+    /**
+     * the tcc cancel method.
+     */
+    private final String cancelMethod;
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.core.reflect;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.dromara.hmily.annotation.Hmily;
+import org.dromara.hmily.annotation.HmilyTAC;
+import org.dromara.hmily.annotation.HmilyTCC;
+import org.dromara.hmily.annotation.HmilyXA;
+import org.dromara.hmily.annotation.TransTypeEnum;
+
+/**
+ * The hmily annotations of the rpc interfaces and transactional beans, read once per class
+ * so the aspects and the rpc filters answer whether a call is part of a transaction with a single lookup.
+ * A class is scanned when it is registered at startup or on first sight, the result is never changed afterwards,
+ * and a class without any hmily method is answered without looking at the method at all.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyMethodRegistry {
+    
+    private static final HmilyMethodRegistry INSTANCE = new HmilyMethodRegistry();
+    
+    private final ClassValue<ClassMetadata> classes = new ClassValue<ClassMetadata>() {
+        
+        @Override
+        protected ClassMetadata computeValue(final Class<?> type) {
+            return scan(type);
+        }
+    };
+    
+    private final Map<Method, HmilyMethodMetadata> methods = new ConcurrentHashMap<>();
+    
+    private HmilyMethodRegistry() {
+    }
+    
+    /**
+     * Gets instance.
+     *
+     * @return the instance
+     */
+    public static HmilyMethodRegistry getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Scan a class ahead of its first call, its hmily methods are then answered by the method lookups too.
+     *
+     * @param clazz the class
+     * @return true if the class has any {@linkplain Hmily} method
+     */
+    public boolean register(final Class<?> clazz) {
+        return classes.get(clazz).hmily;
+    }
+    
+    /**
+     * Find the metadata of a method.
+     *
+     * @param method the method
+     * @return the metadata, {@linkplain HmilyMethodMetadata#NONE} for a method without hmily annotations
+     */
+    public HmilyMethodMetadata find(final Method method) {
+        HmilyMethodMetadata metadata = methods.get(method);
+        if (Objects.isNull(metadata)) {
+            metadata = build(method);
+            methods.putIfAbsent(method, metadata);
+        }
+        return metadata;
+    }
+    
+    /**
+     * Find the metadata of a public method of a class, as {@linkplain Class#getMethod(String, Class[])} would resolve it.
+     *
+     * @param clazz          the class
+     * @param methodName     the method name
+     * @param parameterTypes the parameter types
+     * @return the metadata, {@linkplain HmilyMethodMetadata#NONE} for a method without hmily annotations
+     */
+    public HmilyMethodMetadata find(final Class<?> clazz, final String methodName, final Class<?>[] parameterTypes) {
+        ClassMetadata classMetadata = classes.get(clazz);
+        if (!classMetadata.any) {
+            return HmilyMethodMetadata.NONE;
+        }
+        return classMetadata.signatures.getOrDefault(new Signature(methodName, Objects.isNull(parameterTypes) ? new Class<?>[0] : parameterTypes), HmilyMethodMetadata.NONE);
+    }
+    
+    /**
+     * Find the metadata of the first public method of a class with the name.
+     *
+     * @param clazz      the class
+     * @param methodName the method name
+     * @return the metadata, {@linkplain HmilyMethodMetadata#NONE} for a method without hmily annotations
+     */
+    public HmilyMethodMetadata find(final Class<?> clazz, final String methodName) {
+        ClassMetadata classMetadata = classes.get(clazz);
+        if (!classMetadata.any) {
+            return HmilyMethodMetadata.NONE;
+        }
+        return classMetadata.names.getOrDefault(methodName, HmilyMethodMetadata.NONE);
+    }
+    
+    /**
+     * The interface participants of a bean class are invoked through, its first one,
+     * or the class itself for a bean without interfaces, which is then looked up by its own class.
+     *
+     * @param clazz the bean class
+     * @return the interface, or the class without interfaces
+     */
+    public Class<?> findInterface(final Class<?> clazz) {
+        return classes.get(clazz).firstInterface;
+    }
+    
+    private ClassMetadata scan(final Class<?> clazz) {
+        Map<Signature, HmilyMethodMetadata> signatures = new HashMap<>();
+        Map<String, HmilyMethodMetadata> names = new HashMap<>();
+        for (Method method : clazz.getMethods()) {
+            HmilyMethodMetadata metadata = build(method);
+            // the first method of a name wins, like the name lookups this replaces
+            names.putIfAbsent(method.getName(), metadata);
+            if (metadata != HmilyMethodMetadata.NONE) {
+                methods.putIfAbsent(method, metadata);
+                signatures.put(new Signature(method.getName(), method.getParameterTypes()), metadata);
+            }
+        }
+        names.values().removeIf(each -> each == HmilyMethodMetadata.NONE);
+        Class<?>[] interfaces = clazz.getInterfaces();
+        boolean hmily = signatures.values().stream().anyMatch(HmilyMethodMetadata::isHmily);
+        return new ClassMetadata(!signatures.isEmpty(), hmily, Collections.unmodifiableMap(signatures), Collections.unmodifiableMap(names), interfaces.length > 0 ? interfaces[0] : clazz);
+    }
+    
+    private static HmilyMethodMetadata build(final Method method) {
+        boolean hmily = method.isAnnotationPresent(Hmily.class);
+        HmilyTCC hmilyTCC = method.getAnnotation(HmilyTCC.class);
+        TransTypeEnum transType = null;
+        if (Objects.nonNull(hmilyTCC)) {
+            transType = TransTypeEnum.TCC;
+        } else if (method.isAnnotationPresent(HmilyTAC.class)) {
+            transType = TransTypeEnum.TAC;
+        } else if (method.isAnnotationPresent(HmilyXA.class)) {
+            transType = TransTypeEnum.XA;
+        }
+        if (!hmily && Objects.isNull(transType)) {
+            return HmilyMethodMetadata.NONE;
+        }
+        return Objects.isNull(hmilyTCC) ? new HmilyMethodMetadata(hmily, transType, "", "")
+                : new HmilyMethodMetadata(hmily, transType, hmilyTCC.confirmMethod(), hmilyTCC.cancelMethod());
+    }
+    
+    @RequiredArgsConstructor
+    private static final class ClassMetadata {
+        
+        private final boolean any;
+        
+        private final boolean hmily;
+        
+        private final Map<Signature, HmilyMethodMetadata> signatures;
+        
+        private final Map<String, HmilyMethodMetadata> names;
+        
+        private final Class<?> firstInterface;
+    }
+    
+    @RequiredArgsConstructor
+    @EqualsAndHashCode
+    private static final class Signature {
+        
+        private final String name;
+        
+        private final Class<?>[] parameterTypes;
+    }
+}
@@ -17,7 +17,6 @@
 package org.dromara.hmily.core.reflect;
 
 import java.util.Objects;
-import org.apache.commons.lang3.reflect.MethodUtils;
 import org.dromara.hmily.common.enums.ExecutorTypeEnum;
 import org.dromara.hmily.common.enums.HmilyActionEnum;
 import org.dromara.hmily.common.enums.HmilyRoleEnum;
@@ -75,11 +74,11 @@ public class HmilyReflector {
         if (Objects.isNull(hmilyInvocation)) {
             return null;
         }
-        final Class<?> clazz = Class.forName(className);
+        final Class<?> clazz = HmilyInvokerCache.forName(className);
         final Object[] args = hmilyInvocation.getArgs();
         final Class<?>[] parameterTypes = hmilyInvocation.getParameterTypes();
         final Object bean = SingletonHolder.INST.get(ObjectProvide.class).provide(clazz);
-        return MethodUtils.invokeMethod(bean, methodName, args, parameterTypes);
+        return HmilyInvokerCache.invoke(bean, methodName, parameterTypes, args);
     }
     
     private static Object executeRpc(final HmilyInvocation hmilyInvocation) throws Exception {
@@ -91,6 +90,6 @@ public class HmilyReflector {
         final Object[] args = hmilyInvocation.getArgs();
         final Class<?>[] parameterTypes = hmilyInvocation.getParameterTypes();
         final Object bean = SingletonHolder.INST.get(ObjectProvide.class).provide(clazz);
-        return MethodUtils.invokeMethod(bean, method, args, parameterTypes);
+        return HmilyInvokerCache.invoke(bean, method, parameterTypes, args);
     }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.core.repository;
+
+import org.dromara.hmily.metrics.constant.LabelNames;
+import org.dromara.hmily.metrics.reporter.MetricsReporter;
+import org.dromara.hmily.serializer.spi.HmilySerializer;
+import org.dromara.hmily.serializer.spi.compress.CompressionTypeEnum;
+import org.dromara.hmily.serializer.spi.compress.HmilyCompressionFrame;
+import org.dromara.hmily.serializer.spi.exception.HmilySerializerException;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compresses what the repository serializer produces before it reaches the store.
+ * Payloads under the threshold are kept as is, and payloads that are not a compressed frame are read as is,
+ * so rows written before compression was enabled stay readable. Frames are always decoded, even with compression
+ * turned off, so switching the codec or turning it off never strands rows already written.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyCompressedSerializer implements HmilySerializer {
+    
+    private static final String RAW = "raw";
+    
+    private static final String COMPRESSED = "compressed";
+    
+    private static final String COMPRESS = "compress";
+    
+    private static final String DECOMPRESS = "decompress";
+    
+    private final HmilySerializer delegate;
+    
+    private final CompressionTypeEnum compressionType;
+    
+    private final int threshold;
+    
+    /**
+     * Instantiates a new Hmily compressed serializer.
+     *
+     * @param delegate        the serializer producing the raw bytes
+     * @param compressionType the compression type
+     * @param threshold       the minimal size in bytes to compress
+     */
+    public HmilyCompressedSerializer(final HmilySerializer delegate, final CompressionTypeEnum compressionType, final int threshold) {
+        this.delegate = delegate;
+        this.compressionType = compressionType;
+        this.threshold = threshold;
+        MetricsReporter.registerCounter(LabelNames.SERIALIZER_COMPRESSION_BYTES, new String[]{"type", "stage"}, "hmily serialized log bytes before and after compression");
+        MetricsReporter.registerHistogram(LabelNames.SERIALIZER_COMPRESSION_LATENCY, new String[]{"type", "operation"}, "hmily log compression latency histogram micros (us)");
+    }
+    
+    @Override
+    public byte[] serialize(final Object obj) throws HmilySerializerException {
+        byte[] raw = delegate.serialize(obj);
+        if (compressionType == CompressionTypeEnum.NONE || Objects.isNull(raw) || raw.length < threshold) {
+            return raw;
+        }
+        long start = System.nanoTime();
+        byte[] result = HmilyCompressionFrame.encode(compressionType, raw);
+        String type = compressionType.getType();
+        MetricsReporter.recordTime(LabelNames.SERIALIZER_COMPRESSION_LATENCY, new String[]{type, COMPRESS}, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        MetricsReporter.counterIncrement(LabelNames.SERIALIZER_COMPRESSION_BYTES, new String[]{type, RAW}, raw.length);
+        MetricsReporter.counterIncrement(LabelNames.SERIALIZER_COMPRESSION_BYTES, new String[]{type, COMPRESSED}, result.length);
+        return result;
+    }
+    
+    @Override
+    public <T> T deSerialize(final byte[] param, final Class<T> clazz) throws HmilySerializerException {
+        CompressionTypeEnum frameType = HmilyCompressionFrame.frameType(param);
+        if (Objects.isNull(frameType)) {
+            return delegate.deSerialize(param, clazz);
+        }
+        long start = System.nanoTime();
+        byte[] raw = HmilyCompressionFrame.decode(param);
+        MetricsReporter.recordTime(LabelNames.SERIALIZER_COMPRESSION_LATENCY, new String[]{frameType.getType(), DECOMPRESS}, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        return delegate.deSerialize(raw, clazz);
+    }
+}
@@ -39,6 +39,8 @@ public class HmilyRepositoryEvent implements Serializable {
     
     private HmilyParticipantUndo hmilyParticipantUndo;
     
+    private Collection<HmilyParticipantUndo> hmilyParticipantUndos;
+    
     private Collection<HmilyLock> hmilyLocks;
     
     private Long transId;
@@ -52,6 +54,7 @@ public class HmilyRepositoryEvent implements Serializable {
         hmilyTransaction = null;
         hmilyParticipant = null;
         hmilyParticipantUndo = null;
+        hmilyParticipantUndos = null;
         hmilyLocks = null;
         transId = null;
     }
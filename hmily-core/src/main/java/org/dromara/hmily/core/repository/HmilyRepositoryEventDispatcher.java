@@ -21,6 +21,8 @@ import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
 import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * The type Hmily repository event dispatcher.
  */
@@ -72,6 +74,9 @@ public final class HmilyRepositoryEventDispatcher {
             case CREATE_HMILY_PARTICIPANT_UNDO:
                 HmilyRepositoryFacade.getInstance().createHmilyParticipantUndo(hmilyParticipantUndo);
                 break;
+            case CREATE_HMILY_PARTICIPANT_UNDOS:
+                HmilyRepositoryFacade.getInstance().createHmilyParticipantUndos(event.getHmilyParticipantUndos());
+                break;
             case REMOVE_HMILY_PARTICIPANT_UNDO:
                 HmilyRepositoryFacade.getInstance().removeHmilyParticipantUndo(hmilyParticipantUndo.getUndoId());
                 break;
@@ -85,4 +90,41 @@ public final class HmilyRepositoryEventDispatcher {
                 break;
         }
     }
+    
+    /**
+     * Do event dispatch without blocking on the repository.
+     * Lock events stay synchronous, they are never published asynchronously.
+     *
+     * @param event the event
+     * @return the future completed once the repository applied the event
+     */
+    public CompletableFuture<Void> doAsyncDispatch(final HmilyRepositoryEvent event) {
+        EventTypeEnum eventTypeEnum = EventTypeEnum.buildByCode(event.getType());
+        HmilyTransaction hmilyTransaction = event.getHmilyTransaction();
+        HmilyParticipant hmilyParticipant = event.getHmilyParticipant();
+        HmilyParticipantUndo hmilyParticipantUndo = event.getHmilyParticipantUndo();
+        switch (eventTypeEnum) {
+            case CREATE_HMILY_TRANSACTION:
+                return HmilyRepositoryFacade.getInstance().createHmilyTransactionAsync(hmilyTransaction);
+            case REMOVE_HMILY_TRANSACTION:
+                return HmilyRepositoryFacade.getInstance().removeHmilyTransactionAsync(hmilyTransaction.getTransId());
+            case UPDATE_HMILY_TRANSACTION_STATUS:
+                return HmilyRepositoryFacade.getInstance().updateHmilyTransactionStatusAsync(hmilyTransaction.getTransId(), hmilyTransaction.getStatus());
+            case CREATE_HMILY_PARTICIPANT:
+                return HmilyRepositoryFacade.getInstance().createHmilyParticipantAsync(hmilyParticipant);
+            case UPDATE_HMILY_PARTICIPANT_STATUS:
+                return HmilyRepositoryFacade.getInstance().updateHmilyParticipantStatusAsync(hmilyParticipant.getParticipantId(), hmilyParticipant.getStatus());
+            case REMOVE_HMILY_PARTICIPANT:
+                return HmilyRepositoryFacade.getInstance().removeHmilyParticipantAsync(hmilyParticipant.getParticipantId());
+            case CREATE_HMILY_PARTICIPANT_UNDO:
+                return HmilyRepositoryFacade.getInstance().createHmilyParticipantUndoAsync(hmilyParticipantUndo);
+            case CREATE_HMILY_PARTICIPANT_UNDOS:
+                return HmilyRepositoryFacade.getInstance().createHmilyParticipantUndosAsync(event.getHmilyParticipantUndos());
+            case REMOVE_HMILY_PARTICIPANT_UNDO:
+                return HmilyRepositoryFacade.getInstance().removeHmilyParticipantUndoAsync(hmilyParticipantUndo.getUndoId());
+            default:
+                doDispatch(event);
+                return CompletableFuture.completedFuture(null);
+        }
+    }
 }
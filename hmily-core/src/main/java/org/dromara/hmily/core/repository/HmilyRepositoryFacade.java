@@ -17,10 +17,12 @@
 package org.dromara.hmily.core.repository;
 
 import lombok.Getter;
-import lombok.Setter;
 import org.dromara.hmily.common.enums.HmilyActionEnum;
+import org.dromara.hmily.common.hook.HmilyShutdownHook;
 import org.dromara.hmily.config.api.ConfigEnv;
 import org.dromara.hmily.config.api.entity.HmilyConfig;
+import org.dromara.hmily.repository.spi.HmilyAsyncRepository;
+import org.dromara.hmily.repository.spi.HmilyBlockingAsyncRepository;
 import org.dromara.hmily.repository.spi.HmilyRepository;
 import org.dromara.hmily.repository.spi.entity.HmilyLock;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
@@ -30,8 +32,13 @@ import org.dromara.hmily.repository.spi.exception.HmilyLockConflictException;
 import org.dromara.hmily.repository.spi.exception.HmilyRepositoryException;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * The type Hmily coordinator facade.
@@ -44,13 +51,51 @@ public final class HmilyRepositoryFacade {
     
     private final HmilyConfig hmilyConfig = ConfigEnv.getInstance().getConfig(HmilyConfig.class);
     
-    @Setter
     @Getter
     private HmilyRepository hmilyRepository;
     
+    private HmilyAsyncRepository hmilyAsyncRepository;
+    
+    private volatile HmilyUndoLogStore undoLogStore;
+    
     private HmilyRepositoryFacade() {
     }
     
+    /**
+     * Set hmily repository, with the async repository enabled a repository that is not natively asynchronous is adapted on a bounded pool.
+     *
+     * @param hmilyRepository the hmily repository
+     */
+    public void setHmilyRepository(final HmilyRepository hmilyRepository) {
+        this.hmilyRepository = hmilyRepository;
+        if (hmilyRepository instanceof HmilyAsyncRepository) {
+            hmilyAsyncRepository = (HmilyAsyncRepository) hmilyRepository;
+        } else if (hmilyConfig.isAsyncRepository()) {
+            HmilyBlockingAsyncRepository blockingAsyncRepository = new HmilyBlockingAsyncRepository(hmilyRepository,
+                    hmilyConfig.getAsyncRepositoryThreads(), hmilyConfig.getAsyncRepositoryMaxInFlight());
+            HmilyShutdownHook.getInstance().registerAutoCloseable(blockingAsyncRepository);
+            hmilyAsyncRepository = blockingAsyncRepository;
+        }
+    }
+    
+    /**
+     * Set the undo log store replacing the hmily repository for undo records.
+     *
+     * @param undoLogStore the undo log store
+     */
+    public void setUndoLogStore(final HmilyUndoLogStore undoLogStore) {
+        this.undoLogStore = undoLogStore;
+    }
+    
+    /**
+     * Get the undo log store replacing the hmily repository for undo records.
+     *
+     * @return the undo log store, empty when undo records live in the hmily repository
+     */
+    public Optional<HmilyUndoLogStore> getUndoLogStore() {
+        return Optional.ofNullable(undoLogStore);
+    }
+    
     /**
      * Gets instance.
      *
@@ -143,6 +188,15 @@ public final class HmilyRepositoryFacade {
         checkRows(hmilyRepository.createHmilyParticipantUndo(undo));
     }
     
+    /**
+     * Create hmily participant undo list in one write.
+     *
+     * @param undoList the undo list
+     */
+    public void createHmilyParticipantUndos(final Collection<HmilyParticipantUndo> undoList) {
+        checkRows(hmilyRepository.createHmilyParticipantUndos(undoList), undoList.size());
+    }
+    
     /**
      * Find undo by participant id list.
      *
@@ -150,6 +204,9 @@ public final class HmilyRepositoryFacade {
      * @return the list
      */
     public List<HmilyParticipantUndo> findUndoByParticipantId(final Long participantId) {
+        if (Objects.nonNull(undoLogStore)) {
+            return undoLogStore.findByParticipantIds(Collections.singletonList(participantId));
+        }
         return hmilyRepository.findHmilyParticipantUndoByParticipantId(participantId);
     }
     
@@ -208,6 +265,137 @@ public final class HmilyRepositoryFacade {
         return hmilyRepository.findHmilyLockById(lockId);
     }
     
+    /**
+     * Find the hmily lock held on the row of a lock.
+     *
+     * @param hmilyLock the lock of the row
+     * @return hmily lock
+     */
+    public Optional<HmilyLock> findHmilyLock(final HmilyLock hmilyLock) {
+        return hmilyRepository.findHmilyLock(hmilyLock);
+    }
+    
+    /**
+     * Create hmily transaction async.
+     *
+     * @param hmilyTransaction the hmily transaction
+     * @return the future
+     */
+    public CompletableFuture<Void> createHmilyTransactionAsync(final HmilyTransaction hmilyTransaction) {
+        return write(each -> each.createHmilyTransactionAsync(hmilyTransaction), () -> hmilyRepository.createHmilyTransaction(hmilyTransaction));
+    }
+    
+    /**
+     * Update hmily transaction status async.
+     *
+     * @param transId the trans id
+     * @param status  the status
+     * @return the future
+     */
+    public CompletableFuture<Void> updateHmilyTransactionStatusAsync(final Long transId, final Integer status) {
+        return write(each -> each.updateHmilyTransactionStatusAsync(transId, status), () -> hmilyRepository.updateHmilyTransactionStatus(transId, status));
+    }
+    
+    /**
+     * Remove hmily transaction async.
+     *
+     * @param transId the trans id
+     * @return the future
+     */
+    public CompletableFuture<Void> removeHmilyTransactionAsync(final Long transId) {
+        if (hmilyConfig.isPhyDeleted()) {
+            return write(each -> each.removeHmilyTransactionAsync(transId), () -> hmilyRepository.removeHmilyTransaction(transId));
+        }
+        return updateHmilyTransactionStatusAsync(transId, HmilyActionEnum.DELETE.getCode());
+    }
+    
+    /**
+     * Create hmily participant async.
+     *
+     * @param hmilyParticipant the hmily participant
+     * @return the future
+     */
+    public CompletableFuture<Void> createHmilyParticipantAsync(final HmilyParticipant hmilyParticipant) {
+        return write(each -> each.createHmilyParticipantAsync(hmilyParticipant), () -> hmilyRepository.createHmilyParticipant(hmilyParticipant));
+    }
+    
+    /**
+     * Update hmily participant status async.
+     *
+     * @param participantId the participant id
+     * @param status        the status
+     * @return the future
+     */
+    public CompletableFuture<Void> updateHmilyParticipantStatusAsync(final Long participantId, final Integer status) {
+        return write(each -> each.updateHmilyParticipantStatusAsync(participantId, status), () -> hmilyRepository.updateHmilyParticipantStatus(participantId, status));
+    }
+    
+    /**
+     * Remove hmily participant async.
+     *
+     * @param participantId the participant id
+     * @return the future
+     */
+    public CompletableFuture<Void> removeHmilyParticipantAsync(final Long participantId) {
+        if (hmilyConfig.isPhyDeleted()) {
+            return write(each -> each.removeHmilyParticipantAsync(participantId), () -> hmilyRepository.removeHmilyParticipant(participantId));
+        }
+        return updateHmilyParticipantStatusAsync(participantId, HmilyActionEnum.DELETE.getCode());
+    }
+    
+    /**
+     * Create hmily participant undo async.
+     *
+     * @param undo the undo
+     * @return the future
+     */
+    public CompletableFuture<Void> createHmilyParticipantUndoAsync(final HmilyParticipantUndo undo) {
+        return write(each -> each.createHmilyParticipantUndoAsync(undo), () -> hmilyRepository.createHmilyParticipantUndo(undo));
+    }
+    
+    /**
+     * Create hmily participant undo list in one write async.
+     *
+     * @param undoList the undo list
+     * @return the future
+     */
+    public CompletableFuture<Void> createHmilyParticipantUndosAsync(final Collection<HmilyParticipantUndo> undoList) {
+        return write(each -> each.createHmilyParticipantUndosAsync(undoList), () -> hmilyRepository.createHmilyParticipantUndos(undoList), undoList.size());
+    }
+    
+    /**
+     * Remove hmily participant undo async.
+     *
+     * @param undoId the undo id
+     * @return the future
+     */
+    public CompletableFuture<Void> removeHmilyParticipantUndoAsync(final Long undoId) {
+        if (hmilyConfig.isPhyDeleted()) {
+            return write(each -> each.removeHmilyParticipantUndoAsync(undoId), () -> hmilyRepository.removeHmilyParticipantUndo(undoId));
+        }
+        Integer status = HmilyActionEnum.DELETE.getCode();
+        return write(each -> each.updateHmilyParticipantUndoStatusAsync(undoId, status), () -> hmilyRepository.updateHmilyParticipantUndoStatus(undoId, status));
+    }
+    
+    private CompletableFuture<Void> write(final Function<HmilyAsyncRepository, CompletableFuture<Integer>> async, final Supplier<Integer> blocking) {
+        return write(async, blocking, 1);
+    }
+    
+    private CompletableFuture<Void> write(final Function<HmilyAsyncRepository, CompletableFuture<Integer>> async, final Supplier<Integer> blocking, final int expected) {
+        if (Objects.nonNull(hmilyAsyncRepository)) {
+            return async.apply(hmilyAsyncRepository).thenAccept(rows -> checkRows(rows, expected));
+        }
+        // without the async repository the calling thread writes the record itself.
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            checkRows(blocking.get(), expected);
+            result.complete(null);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+    
     private void checkRows(final int rows) {
         checkRows(rows, 1);
     }
@@ -18,6 +18,8 @@ package org.dromara.hmily.core.repository;
 
 import org.dromara.hmily.common.enums.EventTypeEnum;
 import org.dromara.hmily.core.disruptor.publisher.HmilyRepositoryEventPublisher;
+import org.dromara.hmily.core.holder.HmilyTransactionHolder;
+import org.dromara.hmily.core.schedule.HmilyRecoveryTimer;
 import org.dromara.hmily.repository.spi.entity.HmilyLock;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
@@ -25,6 +27,7 @@ import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
 
 import java.util.Collection;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * The type Hmily repository storage.
@@ -39,7 +42,7 @@ public class HmilyRepositoryStorage {
      * @param hmilyTransaction the hmily transaction
      */
     public static void createHmilyTransaction(final HmilyTransaction hmilyTransaction) {
-        if (Objects.nonNull(hmilyTransaction)) {
+        if (Objects.nonNull(hmilyTransaction) && !hmilyTransaction.isDeferred()) {
             PUBLISHER.publishEvent(hmilyTransaction, EventTypeEnum.CREATE_HMILY_TRANSACTION.getCode());
         }
     }
@@ -50,7 +53,7 @@ public class HmilyRepositoryStorage {
      * @param hmilyTransaction the hmily transaction
      */
     public static void updateHmilyTransactionStatus(final HmilyTransaction hmilyTransaction) {
-        if (Objects.nonNull(hmilyTransaction)) {
+        if (Objects.nonNull(hmilyTransaction) && !hmilyTransaction.isDeferred()) {
             PUBLISHER.publishEvent(hmilyTransaction, EventTypeEnum.UPDATE_HMILY_TRANSACTION_STATUS.getCode());
         }
     }
@@ -61,8 +64,9 @@ public class HmilyRepositoryStorage {
      * @param hmilyParticipant the hmily participant
      */
     public static void createHmilyParticipant(final HmilyParticipant hmilyParticipant) {
-        if (Objects.nonNull(hmilyParticipant)) {
+        if (Objects.nonNull(hmilyParticipant) && !hmilyParticipant.isDeferred()) {
             PUBLISHER.publishEvent(hmilyParticipant, EventTypeEnum.CREATE_HMILY_PARTICIPANT.getCode());
+            HmilyRecoveryTimer.getInstance().arm(hmilyParticipant);
         }
     }
     
@@ -72,8 +76,9 @@ public class HmilyRepositoryStorage {
      * @param hmilyParticipant the hmily participant
      */
     public static void updateHmilyParticipantStatus(final HmilyParticipant hmilyParticipant) {
-        if (Objects.nonNull(hmilyParticipant)) {
+        if (Objects.nonNull(hmilyParticipant) && !hmilyParticipant.isDeferred()) {
             PUBLISHER.publishEvent(hmilyParticipant, EventTypeEnum.UPDATE_HMILY_PARTICIPANT_STATUS.getCode());
+            HmilyRecoveryTimer.getInstance().arm(hmilyParticipant);
         }
     }
     
@@ -83,8 +88,9 @@ public class HmilyRepositoryStorage {
      * @param hmilyParticipant the hmily participant
      */
     public static void removeHmilyParticipant(final HmilyParticipant hmilyParticipant) {
-        if (Objects.nonNull(hmilyParticipant)) {
+        if (Objects.nonNull(hmilyParticipant) && !hmilyParticipant.isDeferred()) {
             PUBLISHER.publishEvent(hmilyParticipant, EventTypeEnum.REMOVE_HMILY_PARTICIPANT.getCode());
+            HmilyRecoveryTimer.getInstance().disarm(hmilyParticipant.getParticipantId());
         }
     }
     
@@ -94,11 +100,37 @@ public class HmilyRepositoryStorage {
      * @param hmilyTransaction the hmily transaction
      */
     public static void removeHmilyTransaction(final HmilyTransaction hmilyTransaction) {
-        if (Objects.nonNull(hmilyTransaction)) {
+        if (Objects.nonNull(hmilyTransaction) && !hmilyTransaction.isDeferred()) {
             PUBLISHER.asyncPublishEvent(hmilyTransaction, EventTypeEnum.REMOVE_HMILY_TRANSACTION.getCode());
         }
     }
     
+    /**
+     * Write the deferred records of the transaction started on this thread, before its first participant enlists.
+     */
+    public static void enlist() {
+        enlist(HmilyTransactionHolder.getInstance().getCurrentTransaction());
+    }
+    
+    /**
+     * Write the deferred records of a starter transaction, its global transaction and starter participant.
+     *
+     * @param hmilyTransaction the hmily transaction
+     */
+    public static void enlist(final HmilyTransaction hmilyTransaction) {
+        if (Objects.isNull(hmilyTransaction) || !hmilyTransaction.isDeferred()) {
+            return;
+        }
+        hmilyTransaction.setDeferred(false);
+        createHmilyTransaction(hmilyTransaction);
+        for (HmilyParticipant hmilyParticipant : hmilyTransaction.getHmilyParticipants()) {
+            if (hmilyParticipant.isDeferred()) {
+                hmilyParticipant.setDeferred(false);
+                createHmilyParticipant(hmilyParticipant);
+            }
+        }
+    }
+    
     /**
      * Create hmily participant undo.
      *
@@ -106,17 +138,35 @@ public class HmilyRepositoryStorage {
      */
     public static void createHmilyParticipantUndo(final HmilyParticipantUndo hmilyParticipantUndo) {
         if (Objects.nonNull(hmilyParticipantUndo)) {
+            enlist();
             PUBLISHER.publishEvent(hmilyParticipantUndo, EventTypeEnum.CREATE_HMILY_PARTICIPANT_UNDO.getCode());
         }
     }
     
+    /**
+     * Create the hmily participant undo list of one local commit with a single write.
+     *
+     * @param hmilyParticipantUndos the hmily participant undo list
+     */
+    public static void createHmilyParticipantUndos(final Collection<HmilyParticipantUndo> hmilyParticipantUndos) {
+        if (hmilyParticipantUndos.size() == 1) {
+            createHmilyParticipantUndo(hmilyParticipantUndos.iterator().next());
+        } else if (!hmilyParticipantUndos.isEmpty()) {
+            enlist();
+            PUBLISHER.publishEvent(hmilyParticipantUndos, EventTypeEnum.CREATE_HMILY_PARTICIPANT_UNDOS.getCode());
+        }
+    }
+    
     /**
      * Remove hmily participant undo.
      *
      * @param hmilyParticipantUndo the hmily participant undo
      */
     public static void removeHmilyParticipantUndo(final HmilyParticipantUndo hmilyParticipantUndo) {
-        if (Objects.nonNull(hmilyParticipantUndo)) {
+        Optional<HmilyUndoLogStore> undoLogStore = HmilyRepositoryFacade.getInstance().getUndoLogStore();
+        if (Objects.nonNull(hmilyParticipantUndo) && undoLogStore.isPresent()) {
+            undoLogStore.get().remove(hmilyParticipantUndo);
+        } else if (Objects.nonNull(hmilyParticipantUndo)) {
             PUBLISHER.publishEvent(hmilyParticipantUndo, EventTypeEnum.REMOVE_HMILY_PARTICIPANT_UNDO.getCode());
         }
     }
@@ -128,6 +178,7 @@ public class HmilyRepositoryStorage {
      */
     public static void writeHmilyLocks(final Collection<HmilyLock> hmilyLocks) {
         if (!hmilyLocks.isEmpty()) {
+            enlist();
             PUBLISHER.syncPublishEvent(hmilyLocks, EventTypeEnum.WRITE_HMILY_LOCKS.getCode());
         }
     }
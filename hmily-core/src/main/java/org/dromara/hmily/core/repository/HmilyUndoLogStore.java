@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.core.repository;
+
+import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Undo log kept apart from the hmily repository, such as the tac undo log co-located with the business data.
+ * Once registered on {@link HmilyRepositoryFacade}, undo records are read and removed through it.
+ *
+ * @author xiaoyu
+ */
+public interface HmilyUndoLogStore {
+    
+    /**
+     * Find the undo records of participants, a store that cannot be read throws instead of returning part of them.
+     *
+     * @param participantIds the participant ids
+     * @return the undo records
+     */
+    List<HmilyParticipantUndo> findByParticipantIds(Collection<Long> participantIds);
+    
+    /**
+     * Remove an undo record, removing one that is already gone is not an error, a failed removal throws.
+     *
+     * @param hmilyParticipantUndo the hmily participant undo
+     */
+    void remove(HmilyParticipantUndo hmilyParticipantUndo);
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.core.schedule;
+
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.dromara.hmily.common.concurrent.HmilyThreadFactory;
+import org.dromara.hmily.repository.spi.HmilyRepository;
+import org.dromara.hmily.repository.spi.entity.HmilyRecoveryPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The recovery membership of this node.
+ * It keeps a lease in the repository and hashes participants onto the live members, so every node only recovers its own share.
+ * A node whose lease expires drops out of the member list and the others take its share over on their next pass.
+ *
+ * @author xiaoyu
+ */
+public class HmilyRecoveryMembership implements AutoCloseable {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(HmilyRecoveryMembership.class);
+    
+    private final HmilyRepository hmilyRepository;
+    
+    private final String memberId = ManagementFactory.getRuntimeMXBean().getName();
+    
+    private final long leaseMillis;
+    
+    private final ScheduledExecutorService heartbeatExecutor;
+    
+    private volatile boolean registered;
+    
+    public HmilyRecoveryMembership(final HmilyRepository hmilyRepository, final int leaseTime, final int heartbeatInterval) {
+        this.hmilyRepository = hmilyRepository;
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(leaseTime);
+        this.heartbeatExecutor = new ScheduledThreadPoolExecutor(1, HmilyThreadFactory.create("hmily-recovery-heartbeat", true));
+        heartbeat();
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, heartbeatInterval, heartbeatInterval, TimeUnit.SECONDS);
+    }
+    
+    private void heartbeat() {
+        boolean renewed;
+        try {
+            renewed = hmilyRepository.heartbeatRecoveryMember(memberId, new Date(System.currentTimeMillis() + leaseMillis)) > 0;
+        } catch (Exception e) {
+            renewed = false;
+            LOGGER.error("hmily recovery member heartbeat is error:", e);
+        }
+        if (registered && !renewed) {
+            LOGGER.warn("hmily recovery member {} lost its lease, this node recovers every participant until it renews it", memberId);
+        }
+        registered = renewed;
+    }
+    
+    /**
+     * The partition of this node among the live members.
+     *
+     * @return the partition, null when this node holds no lease and has to scan everything
+     */
+    public HmilyRecoveryPartition partition() {
+        if (!registered) {
+            return null;
+        }
+        List<String> members = hmilyRepository.listRecoveryMembers(new Date()).stream().sorted().collect(Collectors.toList());
+        int index = members.indexOf(memberId);
+        return index < 0 ? null : new HmilyRecoveryPartition(index, members.size());
+    }
+    
+    @Override
+    public void close() {
+        heartbeatExecutor.shutdown();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.core.schedule;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.dromara.hmily.common.utils.CollectionUtils;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
+import org.dromara.hmily.repository.spi.entity.HmilyScanCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The self recovery pipeline: a fetch stage walks the due participants page by page in (update_time, participant_id) order
+ * while the worker pool recovers the participants already fetched.
+ * The fetch only waits once two pages of participants are in flight, and a pass ends when all of its participants are recovered.
+ *
+ * @author xiaoyu
+ */
+final class HmilyRecoveryPipeline {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(HmilyRecoveryPipeline.class);
+    
+    private final Executor executor;
+    
+    private final int targetConcurrency;
+    
+    private final Map<String, TargetLane> targetLanes = new ConcurrentHashMap<>();
+    
+    HmilyRecoveryPipeline(final Executor executor, final int targetConcurrency) {
+        this.executor = executor;
+        this.targetConcurrency = Math.max(1, targetConcurrency);
+    }
+    
+    /**
+     * Recover every due participant once.
+     *
+     * @param fetch fetches the page after the cursor, null for the first page
+     * @param limit the page size
+     * @param recovery builds the recovery of a page, together with the records it needs fetched in batch
+     * @return the participants fetched by the pass, the backlog of this node
+     * @throws InterruptedException the interrupted exception
+     */
+    long drain(final Function<HmilyScanCursor, List<HmilyParticipant>> fetch, final int limit,
+               final Function<List<HmilyParticipant>, Consumer<HmilyParticipant>> recovery) throws InterruptedException {
+        // one page is recovered while the next one is fetched
+        int maxInFlight = Math.max(1, limit) << 1;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        HmilyScanCursor cursor = null;
+        List<HmilyParticipant> page;
+        long result = 0;
+        try {
+            do {
+                page = fetch.apply(cursor);
+                if (CollectionUtils.isEmpty(page)) {
+                    break;
+                }
+                result += page.size();
+                cursor = HmilyScanCursor.of(page.get(page.size() - 1));
+                Consumer<HmilyParticipant> pageRecovery = recovery.apply(page);
+                for (HmilyParticipant each : page) {
+                    inFlight.acquire();
+                    dispatch(each, pageRecovery, inFlight);
+                }
+            } while (page.size() >= limit && Objects.nonNull(cursor.getUpdateTime()));
+        } finally {
+            // the next pass would otherwise fetch the participants still being recovered
+            inFlight.acquireUninterruptibly(maxInFlight);
+        }
+        return result;
+    }
+    
+    private void dispatch(final HmilyParticipant hmilyParticipant, final Consumer<HmilyParticipant> recovery, final Semaphore inFlight) {
+        TargetLane lane = targetLanes.computeIfAbsent(Objects.toString(hmilyParticipant.getTargetClass(), ""), key -> new TargetLane(executor, targetConcurrency));
+        try {
+            executor.execute(() -> lane.run(() -> {
+                try {
+                    recovery.accept(hmilyParticipant);
+                } catch (Exception e) {
+                    LOGGER.error("hmily self recovery participant {} is error:", hmilyParticipant.getParticipantId(), e);
+                } finally {
+                    inFlight.release();
+                }
+            }));
+        } catch (final RejectedExecutionException ex) {
+            inFlight.release();
+            throw ex;
+        }
+    }
+    
+    /**
+     * Caps the participants of one target class recovered at once. A worker that finds no permit parks the
+     * participant in the lane and moves on, and the lane hands it back to the pool once a permit is released,
+     * so a slow target class neither blocks the fetch of the others nor parks the workers.
+     */
+    private static final class TargetLane {
+        
+        private final Executor executor;
+        
+        private final Semaphore permits;
+        
+        private final Queue<Runnable> deferred = new ConcurrentLinkedQueue<>();
+        
+        TargetLane(final Executor executor, final int concurrency) {
+            this.executor = executor;
+            this.permits = new Semaphore(concurrency);
+        }
+        
+        void run(final Runnable task) {
+            if (!permits.tryAcquire()) {
+                deferred.add(task);
+                // a permit released between the failed try and the add would otherwise miss this task.
+                drain();
+                return;
+            }
+            runAndRelease(task);
+        }
+        
+        private void runAndRelease(final Runnable task) {
+            try {
+                task.run();
+            } finally {
+                permits.release();
+                drain();
+            }
+        }
+        
+        private void drain() {
+            while (!deferred.isEmpty() && permits.tryAcquire()) {
+                Runnable next = deferred.poll();
+                if (Objects.isNull(next)) {
+                    permits.release();
+                } else {
+                    executor.execute(() -> runAndRelease(next));
+                }
+            }
+        }
+    }
+}
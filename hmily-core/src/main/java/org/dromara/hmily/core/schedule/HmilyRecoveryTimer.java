@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.core.schedule;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.dromara.hmily.common.concurrent.HmilyTimingWheel;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
+
+/**
+ * The recovery timers of the participants in flight on this node.
+ * A participant is armed when it is created, re-armed on every status change and disarmed once it is removed,
+ * so a participant left behind by a failed confirm or cancel is recovered when its timer fires instead of waiting for the next scan.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyRecoveryTimer {
+    
+    private static final HmilyRecoveryTimer INSTANCE = new HmilyRecoveryTimer();
+    
+    private static final long TICK_MILLIS = 1000L;
+    
+    private static final int TICKS_PER_WHEEL = 512;
+    
+    private final Map<Long, HmilyTimingWheel.Timeout> timeouts = new ConcurrentHashMap<>();
+    
+    private volatile HmilyTimingWheel wheel;
+    
+    private volatile Consumer<HmilyParticipant> handler;
+    
+    private volatile long delayMillis;
+    
+    private HmilyRecoveryTimer() {
+    }
+    
+    /**
+     * Gets instance.
+     *
+     * @return the instance
+     */
+    public static HmilyRecoveryTimer getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Start the timers, until then arming is a no-op.
+     *
+     * @param delay   the quiet time after the last status change before a participant is recovered
+     * @param unit    the delay unit
+     * @param handler the recovery of a participant whose timer fired
+     */
+    public synchronized void start(final long delay, final TimeUnit unit, final Consumer<HmilyParticipant> handler) {
+        if (Objects.nonNull(wheel)) {
+            return;
+        }
+        this.delayMillis = unit.toMillis(delay);
+        this.handler = handler;
+        this.wheel = new HmilyTimingWheel("hmily-recovery-timer", TICK_MILLIS, TICKS_PER_WHEEL);
+    }
+    
+    /**
+     * Arm the timer of a participant, replacing its previous one.
+     *
+     * @param hmilyParticipant the hmily participant
+     */
+    public void arm(final HmilyParticipant hmilyParticipant) {
+        arm(hmilyParticipant, delayMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Arm the timer of a participant with an explicit delay, replacing its previous one.
+     *
+     * @param hmilyParticipant the hmily participant
+     * @param delay            the delay
+     * @param unit             the delay unit
+     */
+    public void arm(final HmilyParticipant hmilyParticipant, final long delay, final TimeUnit unit) {
+        HmilyTimingWheel current = wheel;
+        if (Objects.isNull(current) || Objects.isNull(hmilyParticipant.getParticipantId())) {
+            return;
+        }
+        Long participantId = hmilyParticipant.getParticipantId();
+        timeouts.compute(participantId, (key, previous) -> {
+            if (Objects.nonNull(previous)) {
+                previous.cancel();
+            }
+            HmilyTimingWheel.Timeout[] timeout = new HmilyTimingWheel.Timeout[1];
+            timeout[0] = current.schedule(() -> fire(participantId, timeout[0], hmilyParticipant), delay, unit);
+            return timeout[0];
+        });
+    }
+    
+    /**
+     * Disarm the timer of a participant.
+     *
+     * @param participantId the participant id
+     */
+    public void disarm(final Long participantId) {
+        if (Objects.isNull(participantId)) {
+            return;
+        }
+        HmilyTimingWheel.Timeout timeout = timeouts.remove(participantId);
+        if (Objects.nonNull(timeout)) {
+            timeout.cancel();
+        }
+    }
+    
+    private void fire(final Long participantId, final HmilyTimingWheel.Timeout timeout, final HmilyParticipant hmilyParticipant) {
+        // only drop our own entry, the participant may have been armed again meanwhile
+        timeouts.remove(participantId, timeout);
+        handler.accept(hmilyParticipant);
+    }
+    
+    /**
+     * Stop the timers, the participants still armed are left to the recovery scans.
+     */
+    public synchronized void stop() {
+        if (Objects.nonNull(wheel)) {
+            wheel.close();
+            wheel = null;
+        }
+        timeouts.clear();
+    }
+}
@@ -18,23 +18,41 @@ package org.dromara.hmily.core.schedule;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.dromara.hmily.annotation.TransTypeEnum;
 import org.dromara.hmily.common.concurrent.HmilyThreadFactory;
 import org.dromara.hmily.common.enums.HmilyActionEnum;
+import org.dromara.hmily.common.exception.HmilyRuntimeException;
 import org.dromara.hmily.common.utils.CollectionUtils;
 import org.dromara.hmily.common.utils.LogUtil;
 import org.dromara.hmily.config.api.ConfigEnv;
 import org.dromara.hmily.config.api.entity.HmilyConfig;
 import org.dromara.hmily.core.hook.UndoHook;
+import org.dromara.hmily.core.repository.HmilyRepositoryFacade;
+import org.dromara.hmily.core.repository.HmilyUndoLogStore;
+import org.dromara.hmily.metrics.constant.LabelNames;
+import org.dromara.hmily.metrics.reporter.MetricsReporter;
 import org.dromara.hmily.repository.spi.HmilyRepository;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.entity.HmilyRecoveryPartition;
 import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
 import org.dromara.hmily.spi.ExtensionLoaderFactory;
 import org.slf4j.Logger;
@@ -61,6 +79,12 @@ public class HmilyTransactionSelfRecoveryScheduled implements AutoCloseable {
     
     private ScheduledExecutorService phyDeletedExecutor;
     
+    private final ExecutorService recoveryExecutor;
+    
+    private final HmilyRecoveryPipeline recoveryPipeline;
+    
+    private HmilyRecoveryMembership recoveryMembership;
+    
     private final HmilyTransactionRecoveryService hmilyTransactionRecoveryService;
     
     public HmilyTransactionSelfRecoveryScheduled() {
@@ -68,7 +92,21 @@ public class HmilyTransactionSelfRecoveryScheduled implements AutoCloseable {
         this.selfTccRecoveryExecutor = new ScheduledThreadPoolExecutor(1, HmilyThreadFactory.create("hmily-tcc-self-recovery", true));
         this.selfTacRecoveryExecutor = new ScheduledThreadPoolExecutor(1, HmilyThreadFactory.create("hmily-tac-self-recovery", true));
         this.cleanHmilyTransactionExecutor = new ScheduledThreadPoolExecutor(1, HmilyThreadFactory.create("hmily-transaction-clean", true));
+        int recoveryThreads = Math.max(1, hmilyConfig.getRecoveryThreads());
+        this.recoveryExecutor = new ThreadPoolExecutor(recoveryThreads, recoveryThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), HmilyThreadFactory.create("hmily-self-recovery-worker", true));
+        this.recoveryPipeline = new HmilyRecoveryPipeline(recoveryExecutor, hmilyConfig.getRecoveryTargetConcurrency());
         hmilyTransactionRecoveryService = new HmilyTransactionRecoveryService();
+        if (hmilyConfig.isRecoveryPartition()) {
+            if (!hmilyRepository.isRecoveryPartitionSupported()) {
+                throw new HmilyRuntimeException("hmily repository " + hmilyConfig.getRepository() + " does not support recoveryPartition, it keeps no recovery members or can not resume a scan");
+            }
+            recoveryMembership = new HmilyRecoveryMembership(hmilyRepository, hmilyConfig.getRecoveryLeaseTime(), hmilyConfig.getRecoveryHeartbeatInterval());
+        }
+        MetricsReporter.registerGauge(LabelNames.RECOVERY_BACKLOG, new String[]{"type"}, "hmily participants due for self recovery found by the last recovery pass");
+        if (hmilyConfig.isRecoveryTimer()) {
+            HmilyRecoveryTimer.getInstance().start(hmilyConfig.getRecoverDelayTime(), TimeUnit.SECONDS, this::recoverOnTimer);
+        }
         selfTccRecovery();
         selfTacRecovery();
         cleanHmilyTransaction();
@@ -96,85 +134,127 @@ public class HmilyTransactionSelfRecoveryScheduled implements AutoCloseable {
         selfTccRecoveryExecutor
                 .scheduleWithFixedDelay(() -> {
                     try {
-                        List<HmilyParticipant> hmilyParticipantList =
-                                hmilyRepository.listHmilyParticipant(acquireDelayData(hmilyConfig.getRecoverDelayTime()), TransTypeEnum.TCC.name(), hmilyConfig.getLimit());
-                        if (CollectionUtils.isEmpty(hmilyParticipantList)) {
-                            return;
-                        }
-                        for (HmilyParticipant hmilyParticipant : hmilyParticipantList) {
-                            // if the try is not completed, no compensation will be provided (to prevent various exceptions in the try phase)
-                            if (hmilyParticipant.getRetry() > hmilyConfig.getRetryMax()) {
-                                LogUtil.error(LOGGER, "This hmily tcc transaction exceeds the maximum number of retries and no retries will occur：{}", () -> hmilyParticipant);
-                                hmilyRepository.updateHmilyParticipantStatus(hmilyParticipant.getParticipantId(), HmilyActionEnum.DEATH.getCode());
-                                continue;
-                            }
-                            if (hmilyParticipant.getStatus() == HmilyActionEnum.PRE_TRY.getCode()) {
-                                //try not complete
-                                continue;
-                            }
-                            final boolean successful = hmilyRepository.lockHmilyParticipant(hmilyParticipant);
-                            // determine that rows > 0 is executed to prevent concurrency when the business side is in cluster mode
-                            if (successful) {
-                                LOGGER.info("hmily tcc transaction begin self recovery: {}", hmilyParticipant.toString());
-                                HmilyTransaction globalHmilyTransaction = hmilyRepository.findByTransId(hmilyParticipant.getTransId());
-                                if (Objects.isNull(globalHmilyTransaction)) {
-                                    tccRecovery(hmilyParticipant.getStatus(), hmilyParticipant);
-                                } else {
-                                    tccRecovery(globalHmilyTransaction.getStatus(), hmilyParticipant);
-                                }
-                            }
-                        }
+                        drain(TransTypeEnum.TCC, page -> {
+                            Map<Long, HmilyTransaction> globals = findGlobals(page);
+                            return each -> recoverTcc(each, globals.get(each.getTransId()));
+                        });
                     } catch (Exception e) {
                         LOGGER.error("hmily scheduled transaction log is error:", e);
                     }
-                }, hmilyConfig.getScheduledInitDelay(), hmilyConfig.getScheduledRecoveryDelay(), TimeUnit.SECONDS);
+                }, hmilyConfig.getScheduledInitDelay(), scanDelay(), TimeUnit.SECONDS);
+    }
+    
+    private int scanDelay() {
+        return hmilyConfig.isRecoveryTimer() ? hmilyConfig.getScheduledRecoverySafetyNetDelay() : hmilyConfig.getScheduledRecoveryDelay();
+    }
+    
+    /**
+     * Recover a participant whose timer fired, reloaded by id instead of scanning the repository for it,
+     * so the version and retry state are the stored ones rather than those of the in-process copy the timer was armed with.
+     * The participant lock keeps it from being recovered twice when a scan or another node gets there first,
+     * and a failed tcc recovery is armed again for its next retry time.
+     */
+    private void recoverOnTimer(final HmilyParticipant armed) {
+        recoveryExecutor.execute(() -> {
+            try {
+                HmilyParticipant hmilyParticipant = hmilyRepository.findHmilyParticipant(armed.getParticipantId()).stream()
+                        .filter(each -> armed.getParticipantId().equals(each.getParticipantId()))
+                        .filter(each -> !Objects.equals(HmilyActionEnum.DELETE.getCode(), each.getStatus()) && !Objects.equals(HmilyActionEnum.DEATH.getCode(), each.getStatus()))
+                        .findFirst().orElse(null);
+                if (Objects.isNull(hmilyParticipant)) {
+                    return;
+                }
+                if (TransTypeEnum.TCC.name().equals(hmilyParticipant.getTransType())) {
+                    if (!recoverTcc(hmilyParticipant, hmilyRepository.findByTransId(hmilyParticipant.getTransId()))) {
+                        long delay = Objects.isNull(hmilyParticipant.getNextRetryTime()) ? 0L : hmilyParticipant.getNextRetryTime().getTime() - System.currentTimeMillis();
+                        HmilyRecoveryTimer.getInstance().arm(hmilyParticipant, Math.max(0L, delay), TimeUnit.MILLISECONDS);
+                    }
+                } else if (TransTypeEnum.TAC.name().equals(hmilyParticipant.getTransType())) {
+                    recoverTac(hmilyParticipant, hmilyRepository.findByTransId(hmilyParticipant.getTransId()),
+                            findUndos(Collections.singletonList(hmilyParticipant.getParticipantId())));
+                }
+            } catch (Exception e) {
+                LOGGER.error("hmily timer recovery participant {} is error:", armed.getParticipantId(), e);
+            }
+        });
+    }
+    
+    /**
+     * Recover tcc.
+     *
+     * @return false while the participant is still left for a later retry
+     */
+    private boolean recoverTcc(final HmilyParticipant hmilyParticipant, final HmilyTransaction globalHmilyTransaction) {
+        // if the try is not completed, no compensation will be provided (to prevent various exceptions in the try phase)
+        if (hmilyParticipant.getRetry() > hmilyConfig.getRetryMax()) {
+            LogUtil.error(LOGGER, "This hmily tcc transaction exceeds the maximum number of retries and no retries will occur：{}", () -> hmilyParticipant);
+            hmilyRepository.updateHmilyParticipantStatus(hmilyParticipant.getParticipantId(), HmilyActionEnum.DEATH.getCode());
+            return true;
+        }
+        if (hmilyParticipant.getStatus() == HmilyActionEnum.PRE_TRY.getCode()) {
+            //try not complete
+            return true;
+        }
+        hmilyParticipant.setNextRetryTime(nextRetryTime(hmilyParticipant.getRetry()));
+        final boolean successful = hmilyRepository.lockHmilyParticipant(hmilyParticipant);
+        // determine that rows > 0 is executed to prevent concurrency when the business side is in cluster mode
+        if (!successful) {
+            // recovered by a scan or another node
+            return true;
+        }
+        LOGGER.info("hmily tcc transaction begin self recovery: {}", hmilyParticipant.toString());
+        if (Objects.isNull(globalHmilyTransaction)) {
+            return tccRecovery(hmilyParticipant.getStatus(), hmilyParticipant);
+        }
+        return tccRecovery(globalHmilyTransaction.getStatus(), hmilyParticipant);
     }
     
-    private void tccRecovery(final int status, final HmilyParticipant hmilyParticipant) {
+    private boolean tccRecovery(final int status, final HmilyParticipant hmilyParticipant) {
         if (status == HmilyActionEnum.TRYING.getCode() || status == HmilyActionEnum.CANCELING.getCode()) {
-            hmilyTransactionRecoveryService.cancel(hmilyParticipant);
+            return hmilyTransactionRecoveryService.cancel(hmilyParticipant);
         } else if (status == HmilyActionEnum.CONFIRMING.getCode()) {
-            hmilyTransactionRecoveryService.confirm(hmilyParticipant);
+            return hmilyTransactionRecoveryService.confirm(hmilyParticipant);
         }
+        return true;
     }
     
     private void selfTacRecovery() {
         selfTacRecoveryExecutor
                 .scheduleWithFixedDelay(() -> {
                     try {
-                        List<HmilyParticipant> hmilyParticipantList =
-                                hmilyRepository.listHmilyParticipant(acquireDelayData(hmilyConfig.getRecoverDelayTime()), TransTypeEnum.TAC.name(), hmilyConfig.getLimit());
-                        
-                        if (CollectionUtils.isEmpty(hmilyParticipantList)) {
-                            return;
-                        }
-                        for (HmilyParticipant hmilyParticipant : hmilyParticipantList) {
-                            // if the try is not completed, no compensation will be provided (to prevent various exceptions in the try phase)
-                            if (hmilyParticipant.getRetry() > hmilyConfig.getRetryMax()) {
-                                LogUtil.error(LOGGER, "This tac transaction exceeds the maximum number of retries and no retries will occur：{}", () -> hmilyParticipant);
-                                hmilyRepository.updateHmilyParticipantStatus(hmilyParticipant.getParticipantId(), HmilyActionEnum.DEATH.getCode());
-                                continue;
-                            }
-                            final boolean successful = hmilyRepository.lockHmilyParticipant(hmilyParticipant);
-                            // determine that rows > 0 is executed to prevent concurrency when the business side is in cluster mode
-                            if (successful) {
-                                List<HmilyParticipantUndo> participantUndoList = hmilyRepository.findHmilyParticipantUndoByParticipantId(hmilyParticipant.getParticipantId());
-                                if (CollectionUtils.isEmpty(participantUndoList)) {
-                                    continue;
-                                }
-                                HmilyTransaction globalHmilyTransaction = hmilyRepository.findByTransId(hmilyParticipant.getTransId());
-                                if (Objects.isNull(globalHmilyTransaction)) {
-                                    tacRecovery(hmilyParticipant.getStatus(), participantUndoList);
-                                } else {
-                                    tacRecovery(globalHmilyTransaction.getStatus(), participantUndoList);
-                                }
-                            }
-                            hmilyRepository.removeHmilyParticipant(hmilyParticipant.getParticipantId());
-                        }
+                        drain(TransTypeEnum.TAC, page -> {
+                            Map<Long, HmilyTransaction> globals = findGlobals(page);
+                            Map<Long, List<HmilyParticipantUndo>> undos = findUndos(page.stream().map(HmilyParticipant::getParticipantId).collect(Collectors.toList()))
+                                    .stream().collect(Collectors.groupingBy(HmilyParticipantUndo::getParticipantId));
+                            return each -> recoverTac(each, globals.get(each.getTransId()), undos.get(each.getParticipantId()));
+                        });
                     } catch (Exception e) {
                         LOGGER.error("hmily scheduled transaction log is error:", e);
                     }
-                }, hmilyConfig.getScheduledInitDelay(), hmilyConfig.getScheduledRecoveryDelay(), TimeUnit.SECONDS);
+                }, hmilyConfig.getScheduledInitDelay(), scanDelay(), TimeUnit.SECONDS);
+    }
+    
+    private void recoverTac(final HmilyParticipant hmilyParticipant, final HmilyTransaction globalHmilyTransaction, final List<HmilyParticipantUndo> participantUndoList) {
+        // if the try is not completed, no compensation will be provided (to prevent various exceptions in the try phase)
+        if (hmilyParticipant.getRetry() > hmilyConfig.getRetryMax()) {
+            LogUtil.error(LOGGER, "This tac transaction exceeds the maximum number of retries and no retries will occur：{}", () -> hmilyParticipant);
+            hmilyRepository.updateHmilyParticipantStatus(hmilyParticipant.getParticipantId(), HmilyActionEnum.DEATH.getCode());
+            return;
+        }
+        hmilyParticipant.setNextRetryTime(nextRetryTime(hmilyParticipant.getRetry()));
+        final boolean successful = hmilyRepository.lockHmilyParticipant(hmilyParticipant);
+        // determine that rows > 0 is executed to prevent concurrency when the business side is in cluster mode
+        if (successful) {
+            if (CollectionUtils.isEmpty(participantUndoList)) {
+                return;
+            }
+            if (Objects.isNull(globalHmilyTransaction)) {
+                tacRecovery(hmilyParticipant.getStatus(), participantUndoList);
+            } else {
+                tacRecovery(globalHmilyTransaction.getStatus(), participantUndoList);
+            }
+        }
+        hmilyRepository.removeHmilyParticipant(hmilyParticipant.getParticipantId());
     }
     
     private void tacRecovery(final int status, final List<HmilyParticipantUndo> participantUndoList) {
@@ -182,36 +262,72 @@ public class HmilyTransactionSelfRecoveryScheduled implements AutoCloseable {
             for (HmilyParticipantUndo undo : participantUndoList) {
                 boolean success = UndoHook.INSTANCE.run(undo);
                 if (success) {
-                    hmilyRepository.removeHmilyParticipantUndo(undo.getUndoId());
+                    removeUndo(undo);
                 }
             }
         } else if (status == HmilyActionEnum.CONFIRMING.getCode()) {
             for (HmilyParticipantUndo undo : participantUndoList) {
-                hmilyRepository.removeHmilyParticipantUndo(undo.getUndoId());
+                removeUndo(undo);
             }
         }
     }
     
+    private List<HmilyParticipantUndo> findUndos(final Collection<Long> participantIds) {
+        Optional<HmilyUndoLogStore> undoLogStore = HmilyRepositoryFacade.getInstance().getUndoLogStore();
+        return undoLogStore.isPresent() ? undoLogStore.get().findByParticipantIds(participantIds) : hmilyRepository.findHmilyParticipantUndoByParticipantIds(participantIds);
+    }
+    
+    private void removeUndo(final HmilyParticipantUndo undo) {
+        Optional<HmilyUndoLogStore> undoLogStore = HmilyRepositoryFacade.getInstance().getUndoLogStore();
+        if (undoLogStore.isPresent()) {
+            undoLogStore.get().remove(undo);
+        } else {
+            hmilyRepository.removeHmilyParticipantUndo(undo.getUndoId());
+        }
+    }
+    
     private void cleanHmilyTransaction() {
         cleanHmilyTransactionExecutor
                 .scheduleWithFixedDelay(() -> {
                     try {
-                        List<HmilyTransaction> hmilyTransactionList = hmilyRepository.listLimitByDelay(acquireDelayData(hmilyConfig.getCleanDelayTime()), hmilyConfig.getLimit());
-                        if (CollectionUtils.isEmpty(hmilyTransactionList)) {
-                            return;
-                        }
-                        for (HmilyTransaction hmilyTransaction : hmilyTransactionList) {
-                            boolean exist = hmilyRepository.existHmilyParticipantByTransId(hmilyTransaction.getTransId());
-                            if (!exist) {
-                                hmilyRepository.removeHmilyTransaction(hmilyTransaction.getTransId());
-                            }
-                        }
+                        hmilyRepository.removeHmilyTransactionWithoutParticipant(acquireDelayData(hmilyConfig.getCleanDelayTime()), hmilyConfig.getLimit());
                     } catch (Exception e) {
                         LOGGER.error(" scheduled clean hmily transaction log is error:", e);
                     }
                 }, hmilyConfig.getScheduledInitDelay(), hmilyConfig.getScheduledCleanDelay(), TimeUnit.SECONDS);
     }
     
+    /**
+     * Walks the due participants of a type through the recovery pipeline, skipped ones do not hide the rest.
+     */
+    private void drain(final TransTypeEnum transType, final Function<List<HmilyParticipant>, Consumer<HmilyParticipant>> recovery) throws InterruptedException {
+        Date date = acquireDelayData(hmilyConfig.getRecoverDelayTime());
+        HmilyRecoveryPartition partition = Objects.isNull(recoveryMembership) ? null : recoveryMembership.partition();
+        long due = recoveryPipeline.drain(cursor -> Objects.isNull(partition)
+                ? hmilyRepository.listHmilyParticipant(date, transType.name(), hmilyConfig.getLimit(), cursor)
+                : hmilyRepository.listHmilyParticipant(date, transType.name(), hmilyConfig.getLimit(), cursor, partition), hmilyConfig.getLimit(), recovery);
+        // a pass walks every due participant, so the participants it fetched are the backlog of this node.
+        MetricsReporter.gaugeSet(LabelNames.RECOVERY_BACKLOG, new String[]{transType.name()}, due);
+    }
+    
+    /**
+     * Fetch the global transactions of a whole page in one repository call instead of one per participant.
+     */
+    private Map<Long, HmilyTransaction> findGlobals(final List<HmilyParticipant> hmilyParticipantList) {
+        Set<Long> transIds = hmilyParticipantList.stream().map(HmilyParticipant::getTransId).collect(Collectors.toSet());
+        return hmilyRepository.findByTransIds(transIds).stream().collect(Collectors.toMap(HmilyTransaction::getTransId, Function.identity(), (first, second) -> first));
+    }
+    
+    /**
+     * Exponential backoff with equal jitter, persisted by the participant lock and skipped by the recovery scans until it elapses,
+     * so participants failing on the same broken target are spread out instead of being retried in lock step.
+     */
+    private Date nextRetryTime(final int retry) {
+        long backoff = Math.min((long) hmilyConfig.getRetryBackoffMax(), (long) hmilyConfig.getRetryBackoffBase() << Math.min(retry, 30)) * 1000L;
+        long half = backoff / 2;
+        return new Date(System.currentTimeMillis() + half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+    
     private Date acquireDelayData(final int delayTime) {
         return new Date(LocalDateTime.now().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() - (delayTime * 1000));
     }
@@ -221,6 +337,11 @@ public class HmilyTransactionSelfRecoveryScheduled implements AutoCloseable {
         selfTccRecoveryExecutor.shutdown();
         selfTacRecoveryExecutor.shutdown();
         cleanHmilyTransactionExecutor.shutdown();
+        HmilyRecoveryTimer.getInstance().stop();
+        recoveryExecutor.shutdown();
+        if (Objects.nonNull(recoveryMembership)) {
+            recoveryMembership.close();
+        }
         if (Objects.nonNull(phyDeletedExecutor)) {
             phyDeletedExecutor.shutdown();
         }
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.core.reflect;
+
+import java.lang.reflect.InvocationTargetException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The type Hmily invoker cache test.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyInvokerCacheTest {
+    
+    private final ConfirmService bean = new ConfirmService();
+    
+    @Test
+    public void assertForNameReturnsTheLoadedClass() throws ClassNotFoundException {
+        assertSame(ConfirmService.class, HmilyInvokerCache.forName(ConfirmService.class.getName()));
+        assertSame(ConfirmService.class, HmilyInvokerCache.forName(ConfirmService.class.getName()));
+    }
+    
+    @Test
+    public void assertInvokeKeepsTheReflectiveOverload() throws Exception {
+        assertEquals("string:order", HmilyInvokerCache.invoke(bean, "confirm", new Class<?>[]{String.class}, new Object[]{"order"}));
+        assertEquals("object:1", HmilyInvokerCache.invoke(bean, "confirm", new Class<?>[]{Integer.class}, new Object[]{1}));
+        assertEquals("string:order", HmilyInvokerCache.invoke(bean, "confirm", new Class<?>[]{String.class}, new Object[]{"order"}));
+    }
+    
+    @Test
+    public void assertInvokeWithoutParameters() throws Exception {
+        assertEquals("none", HmilyInvokerCache.invoke(bean, "confirm", null, null));
+    }
+    
+    @Test
+    public void assertInvokeWidensPrimitiveArguments() throws Exception {
+        assertEquals(3L, HmilyInvokerCache.invoke(bean, "count", new Class<?>[]{long.class}, new Object[]{3}));
+    }
+    
+    @Test
+    public void assertInvokeStaticMethod() throws Exception {
+        assertEquals("static:order", HmilyInvokerCache.invoke(bean, "staticConfirm", new Class<?>[]{String.class}, new Object[]{"order"}));
+    }
+    
+    @Test
+    public void assertInvokeWrapsTheMethodException() throws Exception {
+        try {
+            HmilyInvokerCache.invoke(bean, "cancel", new Class<?>[]{String.class}, new Object[]{"order"});
+            fail();
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        try {
+            HmilyInvokerCache.invoke(bean, "cast", new Class<?>[]{Object.class}, new Object[]{1});
+            fail();
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof ClassCastException);
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void assertInvokeRejectsWrongArgumentCount() throws Exception {
+        HmilyInvokerCache.invoke(bean, "confirm", new Class<?>[]{String.class}, new Object[]{"order", 1});
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void assertInvokeRejectsWrongArgumentType() throws Exception {
+        HmilyInvokerCache.invoke(bean, "confirm", new Class<?>[]{String.class}, new Object[]{1});
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void assertInvokeRejectsNullPrimitiveArgument() throws Exception {
+        HmilyInvokerCache.invoke(bean, "count", new Class<?>[]{long.class}, new Object[]{null});
+    }
+    
+    @Test(expected = NoSuchMethodException.class)
+    public void assertInvokeUnknownMethod() throws Exception {
+        HmilyInvokerCache.invoke(bean, "unknown", new Class<?>[0], new Object[0]);
+    }
+    
+    /**
+     * A participant like the ones of a tcc transaction.
+     */
+    public static class ConfirmService {
+        
+        /**
+         * Confirm.
+         *
+         * @return the result
+         */
+        public String confirm() {
+            return "none";
+        }
+        
+        /**
+         * Confirm.
+         *
+         * @param orderNo the order no
+         * @return the result
+         */
+        public String confirm(final String orderNo) {
+            return "string:" + orderNo;
+        }
+        
+        /**
+         * Confirm.
+         *
+         * @param orderNo the order no
+         * @return the result
+         */
+        public String confirm(final Object orderNo) {
+            return "object:" + orderNo;
+        }
+        
+        /**
+         * Count.
+         *
+         * @param count the count
+         * @return the count
+         */
+        public long count(final long count) {
+            return count;
+        }
+        
+        /**
+         * Cancel.
+         *
+         * @param orderNo the order no
+         * @return never
+         */
+        public String cancel(final String orderNo) {
+            throw new IllegalStateException(orderNo);
+        }
+        
+        /**
+         * Cast.
+         *
+         * @param orderNo the order no
+         * @return never
+         */
+        public String cast(final Object orderNo) {
+            return (String) orderNo;
+        }
+        
+        /**
+         * Static confirm.
+         *
+         * @param orderNo the order no
+         * @return the result
+         */
+        public static String staticConfirm(final String orderNo) {
+            return "static:" + orderNo;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.core.reflect;
+
+import org.dromara.hmily.annotation.HmilyTCC;
+import org.dromara.hmily.annotation.TransTypeEnum;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+/**
+ * The type Hmily method registry test.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyMethodRegistryTest {
+    
+    @Test
+    public void assertFindInterfaceReturnsTheFirstInterface() {
+        assertSame(AccountService.class, HmilyMethodRegistry.getInstance().findInterface(AccountServiceImpl.class));
+    }
+    
+    @Test
+    public void assertFindInterfaceFallsBackToTheClassWithoutInterfaces() {
+        assertSame(PlainAccountService.class, HmilyMethodRegistry.getInstance().findInterface(PlainAccountService.class));
+    }
+    
+    @Test
+    public void assertFindReadsTheTccAnnotation() throws NoSuchMethodException {
+        HmilyMethodMetadata metadata = HmilyMethodRegistry.getInstance().find(PlainAccountService.class, "pay", new Class<?>[]{String.class});
+        assertEquals(TransTypeEnum.TCC, metadata.getTransType());
+        assertEquals("confirm", metadata.getConfirmMethod());
+        assertSame(metadata, HmilyMethodRegistry.getInstance().find(PlainAccountService.class.getMethod("pay", String.class)));
+        assertFalse(HmilyMethodRegistry.getInstance().register(PlainAccountService.class));
+        assertSame(HmilyMethodMetadata.NONE, HmilyMethodRegistry.getInstance().find(PlainAccountService.class, "confirm"));
+    }
+    
+    /**
+     * An rpc interface.
+     */
+    public interface AccountService {
+        
+        /**
+         * Pay.
+         *
+         * @param accountId the account id
+         */
+        void pay(String accountId);
+    }
+    
+    /**
+     * A bean implementing the rpc interface.
+     */
+    public static class AccountServiceImpl implements AccountService {
+        
+        @Override
+        public void pay(final String accountId) {
+        }
+    }
+    
+    /**
+     * A tcc bean without interfaces.
+     */
+    public static class PlainAccountService {
+        
+        /**
+         * Pay.
+         *
+         * @param accountId the account id
+         */
+        @HmilyTCC(confirmMethod = "confirm", cancelMethod = "cancel")
+        public void pay(final String accountId) {
+        }
+        
+        /**
+         * Confirm.
+         *
+         * @param accountId the account id
+         */
+        public void confirm(final String accountId) {
+        }
+    }
+}
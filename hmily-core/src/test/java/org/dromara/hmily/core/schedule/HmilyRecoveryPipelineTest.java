@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.core.schedule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
+import org.dromara.hmily.repository.spi.entity.HmilyScanCursor;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Hmily recovery pipeline test.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyRecoveryPipelineTest {
+    
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+    
+    @Test
+    public void assertDrainWalksEveryPageAfterTheCursor() throws InterruptedException {
+        List<HmilyParticipant> due = participants(5, "a");
+        List<HmilyScanCursor> cursors = Collections.synchronizedList(new ArrayList<>());
+        List<Long> recovered = Collections.synchronizedList(new ArrayList<>());
+        long backlog = new HmilyRecoveryPipeline(executor, 4).drain(cursor -> {
+            cursors.add(cursor);
+            return page(due, cursor, 2);
+        }, 2, page -> each -> recovered.add(each.getParticipantId()));
+        assertEquals(5L, backlog);
+        assertEquals(3, cursors.size());
+        assertNull(cursors.get(0));
+        assertEquals(Long.valueOf(2L), cursors.get(1).getId());
+        assertEquals(Long.valueOf(4L), cursors.get(2).getId());
+        Collections.sort(recovered);
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), recovered);
+    }
+    
+    @Test
+    public void assertDrainReturnsTheBacklogOfAnEmptyPass() throws InterruptedException {
+        assertEquals(0L, new HmilyRecoveryPipeline(executor, 4).drain(cursor -> Collections.emptyList(), 2, page -> each -> { }));
+    }
+    
+    @Test
+    public void assertNextPageIsFetchedWhileAPageRecovers() throws InterruptedException {
+        List<HmilyParticipant> due = participants(4, "a");
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch secondFetched = new CountDownLatch(1);
+        Thread fetcher = drainInBackground(new HmilyRecoveryPipeline(executor, 4), cursor -> {
+            if (cursor != null) {
+                secondFetched.countDown();
+            }
+            return page(due, cursor, 2);
+        }, 2, each -> await(release));
+        assertTrue(secondFetched.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        fetcher.join(5000L);
+        assertFalse(fetcher.isAlive());
+    }
+    
+    @Test
+    public void assertFetchWaitsOnceTwoPagesAreInFlight() throws InterruptedException {
+        List<HmilyParticipant> due = participants(6, "a");
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger fetches = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        Thread fetcher = drainInBackground(new HmilyRecoveryPipeline(executor, 4), cursor -> {
+            fetches.incrementAndGet();
+            return page(due, cursor, 1);
+        }, 1, each -> {
+            running.incrementAndGet();
+            await(release);
+        });
+        TimeUnit.MILLISECONDS.sleep(300L);
+        assertEquals(2, running.get());
+        assertEquals(3, fetches.get());
+        release.countDown();
+        fetcher.join(5000L);
+        assertFalse(fetcher.isAlive());
+        assertEquals(6, running.get());
+    }
+    
+    @Test
+    public void assertTargetClassConcurrencyIsCapped() throws InterruptedException {
+        List<HmilyParticipant> due = participants(8, "a");
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger recovered = new AtomicInteger();
+        new HmilyRecoveryPipeline(executor, 1).drain(cursor -> page(due, cursor, 8), 8, page -> each -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(20L);
+            running.decrementAndGet();
+            recovered.incrementAndGet();
+        });
+        assertEquals(1, maxRunning.get());
+        assertEquals(8, recovered.get());
+    }
+    
+    @Test
+    public void assertSlowTargetClassDoesNotHoldBackTheOthers() throws InterruptedException {
+        List<HmilyParticipant> due = participants(2, "slow");
+        due.addAll(participants(2, "fast"));
+        due.get(2).setParticipantId(3L);
+        due.get(3).setParticipantId(4L);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fastRecovered = new CountDownLatch(2);
+        Thread fetcher = drainInBackground(new HmilyRecoveryPipeline(executor, 1), cursor -> page(due, cursor, 4), 4, each -> {
+            if ("slow".equals(each.getTargetClass())) {
+                await(release);
+            } else {
+                fastRecovered.countDown();
+            }
+        });
+        assertTrue(fastRecovered.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        fetcher.join(5000L);
+        assertFalse(fetcher.isAlive());
+    }
+    
+    @Test
+    public void assertDrainReturnsOnceThePassIsRecovered() throws InterruptedException {
+        List<HmilyParticipant> due = participants(6, "a");
+        AtomicInteger recovered = new AtomicInteger();
+        new HmilyRecoveryPipeline(executor, 4).drain(cursor -> page(due, cursor, 2), 2, page -> each -> {
+            sleep(50L);
+            recovered.incrementAndGet();
+        });
+        assertEquals(6, recovered.get());
+    }
+    
+    @Test
+    public void assertFailedParticipantDoesNotStopThePass() throws InterruptedException {
+        List<HmilyParticipant> due = participants(3, "a");
+        AtomicLong recovered = new AtomicLong();
+        long backlog = new HmilyRecoveryPipeline(executor, 4).drain(cursor -> page(due, cursor, 3), 3, page -> each -> {
+            if (each.getParticipantId() == 2L) {
+                throw new IllegalStateException("failed");
+            }
+            recovered.incrementAndGet();
+        });
+        assertEquals(3L, backlog);
+        assertEquals(2L, recovered.get());
+    }
+    
+    private Thread drainInBackground(final HmilyRecoveryPipeline pipeline, final Function<HmilyScanCursor, List<HmilyParticipant>> fetch,
+                                     final int limit, final Consumer<HmilyParticipant> recovery) {
+        Thread result = new Thread(() -> {
+            try {
+                pipeline.drain(fetch, limit, page -> recovery);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        result.setDaemon(true);
+        result.start();
+        return result;
+    }
+    
+    private static List<HmilyParticipant> participants(final int count, final String targetClass) {
+        List<HmilyParticipant> result = new ArrayList<>(count);
+        for (long i = 1; i <= count; i++) {
+            HmilyParticipant each = new HmilyParticipant();
+            each.setParticipantId(i);
+            each.setTargetClass(targetClass);
+            each.setUpdateTime(new Date(1000L));
+            result.add(each);
+        }
+        return result;
+    }
+    
+    private static List<HmilyParticipant> page(final List<HmilyParticipant> due, final HmilyScanCursor cursor, final int limit) {
+        return HmilyScanCursor.page(due, HmilyParticipant::getUpdateTime, HmilyParticipant::getParticipantId, cursor, limit);
+    }
+    
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static void sleep(final long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -35,4 +35,34 @@ public final class LabelNames {
      * The constant TRANSACTION_LATENCY.
      */
     public static final String TRANSACTION_LATENCY = "hmily_transaction_latency_histogram_millis";
+    
+    /**
+     * The constant SERIALIZER_COMPRESSION_BYTES.
+     */
+    public static final String SERIALIZER_COMPRESSION_BYTES = "hmily_serializer_compression_bytes";
+    
+    /**
+     * The constant SERIALIZER_COMPRESSION_LATENCY.
+     */
+    public static final String SERIALIZER_COMPRESSION_LATENCY = "hmily_serializer_compression_latency_histogram_micros";
+    
+    /**
+     * The constant RECOVERY_BACKLOG.
+     */
+    public static final String RECOVERY_BACKLOG = "hmily_recovery_backlog";
+    
+    /**
+     * The constant SQL_PARSER_CACHE.
+     */
+    public static final String SQL_PARSER_CACHE = "hmily_sql_parser_cache";
+    
+    /**
+     * The constant TAC_LOCK_TOTAL.
+     */
+    public static final String TAC_LOCK_TOTAL = "hmily_tac_lock_total";
+    
+    /**
+     * The constant TAC_LOCK_LATENCY.
+     */
+    public static final String TAC_LOCK_LATENCY = "hmily_tac_lock_latency_histogram_millis";
 }
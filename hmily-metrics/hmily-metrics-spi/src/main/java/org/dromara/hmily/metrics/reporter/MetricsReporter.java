@@ -193,6 +193,17 @@ public final class MetricsReporter {
         gaugeDecrement(name, null);
     }
     
+    /**
+     * Gauge set.
+     *
+     * @param name name
+     * @param labelValues label values
+     * @param value value
+     */
+    public static void gaugeSet(final String name, final String[] labelValues, final double value) {
+        Optional.ofNullable(metricsRegister).ifPresent(register -> register.gaugeSet(name, labelValues, value));
+    }
+    
     /**
      * Record time by duration.
      *
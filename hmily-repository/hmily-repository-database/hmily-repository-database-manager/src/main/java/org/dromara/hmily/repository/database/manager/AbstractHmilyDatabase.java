@@ -17,11 +17,13 @@
 package org.dromara.hmily.repository.database.manager;
 
 import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.zaxxer.hikari.HikariDataSource;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.hmily.common.exception.HmilyRuntimeException;
 import org.dromara.hmily.common.utils.CollectionUtils;
+import org.dromara.hmily.config.api.Config;
 import org.dromara.hmily.config.api.ConfigEnv;
 import org.dromara.hmily.config.api.entity.HmilyConfig;
 import org.dromara.hmily.config.api.entity.HmilyDatabaseConfig;
@@ -31,6 +33,8 @@ import org.dromara.hmily.repository.spi.entity.HmilyInvocation;
 import org.dromara.hmily.repository.spi.entity.HmilyLock;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.entity.HmilyRecoveryPartition;
+import org.dromara.hmily.repository.spi.entity.HmilyScanCursor;
 import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
 import org.dromara.hmily.repository.spi.exception.HmilyRepositoryException;
 import org.dromara.hmily.serializer.spi.HmilySerializer;
@@ -38,10 +42,14 @@ import org.dromara.hmily.serializer.spi.exception.HmilySerializerException;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -53,6 +61,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * The type Abstract hmily database.
@@ -69,18 +78,29 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
     /**
      * The constant SELECT_HMILY_TRANSACTION_COMMON.
      */
-    protected static final String SELECT_HMILY_TRANSACTION_COMMON = "select trans_id, app_name, status, trans_type, retry, version from hmily_transaction_global ";
+    protected static final String SELECT_HMILY_TRANSACTION_COMMON = "select trans_id, app_name, status, trans_type, retry, version, update_time from hmily_transaction_global ";
     
     /**
      * The constant SELECT_HMILY_TRANSACTION_DELAY.
      */
     protected static final String SELECT_HMILY_TRANSACTION_DELAY = SELECT_HMILY_TRANSACTION_COMMON + " where update_time < ? and app_name = ?";
     
+    /**
+     * The constant SELECT_HMILY_TRANSACTION_DELAY_AFTER_CURSOR.
+     */
+    protected static final String SELECT_HMILY_TRANSACTION_DELAY_AFTER_CURSOR = SELECT_HMILY_TRANSACTION_DELAY
+            + " and (update_time > ? or (update_time = ? and trans_id > ?)) order by update_time, trans_id";
+    
     /**
      * The constant SELECT_HMILY_TRANSACTION_WITH_TRANS_ID.
      */
     protected static final String SELECT_HMILY_TRANSACTION_WITH_TRANS_ID = SELECT_HMILY_TRANSACTION_COMMON + " where trans_id = ?";
     
+    /**
+     * The constant SELECT_HMILY_TRANSACTION_IN_TRANS_IDS, completed with the in list.
+     */
+    protected static final String SELECT_HMILY_TRANSACTION_IN_TRANS_IDS = SELECT_HMILY_TRANSACTION_COMMON + " where trans_id in ";
+    
     /**
      * The constant UPDATE_HMILY_TRANSACTION_STATUS.
      */
@@ -94,7 +114,7 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
     /**
      * The constant UPDATE_HMILY_PARTICIPANT_LOCK.
      */
-    protected static final String UPDATE_HMILY_PARTICIPANT_LOCK = "update hmily_transaction_participant set version =?, retry =? where participant_id = ? and version = ? ";
+    protected static final String UPDATE_HMILY_PARTICIPANT_LOCK = "update hmily_transaction_participant set version =?, retry =?, next_retry_time = ? where participant_id = ? and version = ? ";
     
     /**
      * The constant DELETE_HMILY_TRANSACTION.
@@ -106,18 +126,29 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
      */
     protected static final String DELETE_HMILY_TRANSACTION_WITH_DATA = "delete from hmily_transaction_global where update_time < ? and status = 4";
     
+    /**
+     * The constant HMILY_TRANSACTION_WITHOUT_PARTICIPANT_CONDITION.
+     */
+    protected static final String HMILY_TRANSACTION_WITHOUT_PARTICIPANT_CONDITION = " where update_time < ? and app_name = ?"
+            + " and not exists (select 1 from hmily_transaction_participant where hmily_transaction_participant.trans_id = hmily_transaction_global.trans_id)";
+    
+    /**
+     * The constant DELETE_HMILY_TRANSACTION_WITHOUT_PARTICIPANT.
+     */
+    protected static final String DELETE_HMILY_TRANSACTION_WITHOUT_PARTICIPANT = "delete from hmily_transaction_global" + HMILY_TRANSACTION_WITHOUT_PARTICIPANT_CONDITION;
+    
     /**
      * The constant INSERT_HMILY_PARTICIPANT.
      */
     protected static final String INSERT_HMILY_PARTICIPANT = "INSERT INTO hmily_transaction_participant (participant_id, participant_ref_id, trans_id, trans_type, status, app_name,"
-            + "role, retry, target_class, target_method, confirm_method, cancel_method, confirm_invocation, cancel_invocation, version, create_time, update_time)"
-            + " VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ? ,? , ? , ?, ?)";
+            + "role, retry, target_class, target_method, confirm_method, cancel_method, confirm_invocation, cancel_invocation, version, create_time, update_time, next_retry_time)"
+            + " VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ? ,? , ? , ?, ?, ?)";
     
     /**
      * The constant SELECTOR_HMILY_PARTICIPANT_COMMON.
      */
     protected static final String SELECTOR_HMILY_PARTICIPANT_COMMON = "select participant_id, participant_ref_id, trans_id, trans_type, status, app_name,"
-            + "role, retry, target_class, target_method, confirm_method, cancel_method, confirm_invocation, cancel_invocation, version from hmily_transaction_participant ";
+            + "role, retry, target_class, target_method, confirm_method, cancel_method, confirm_invocation, cancel_invocation, version, update_time, next_retry_time from hmily_transaction_participant ";
     
     /**
      * The constant SELECTOR_HMILY_PARTICIPANT_WITH_KEY.
@@ -143,7 +174,39 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
      * The constant SELECTOR_HMILY_PARTICIPANT_WITH_DELAY_AND_APP_NAME_TRANS_TYPE.
      */
     protected static final String SELECTOR_HMILY_PARTICIPANT_WITH_DELAY_AND_APP_NAME_TRANS_TYPE = SELECTOR_HMILY_PARTICIPANT_COMMON
-            + " where update_time < ? and app_name = ?  and trans_type = ? and status not in (4, 8) ";
+            + " where update_time < ? and app_name = ?  and trans_type = ? and status not in (4, 8) and next_retry_time <= ? ";
+    
+    /**
+     * The constant SELECTOR_HMILY_PARTICIPANT_WITH_DELAY_AND_APP_NAME_TRANS_TYPE_AFTER_CURSOR.
+     */
+    protected static final String SELECTOR_HMILY_PARTICIPANT_WITH_DELAY_AND_APP_NAME_TRANS_TYPE_AFTER_CURSOR = SELECTOR_HMILY_PARTICIPANT_WITH_DELAY_AND_APP_NAME_TRANS_TYPE
+            + " and (update_time > ? or (update_time = ? and participant_id > ?)) order by update_time, participant_id";
+    
+    /**
+     * The constant SELECTOR_HMILY_PARTICIPANT_IN_PARTITION_AFTER_CURSOR.
+     */
+    protected static final String SELECTOR_HMILY_PARTICIPANT_IN_PARTITION_AFTER_CURSOR = SELECTOR_HMILY_PARTICIPANT_WITH_DELAY_AND_APP_NAME_TRANS_TYPE
+            + " and (update_time > ? or (update_time = ? and participant_id > ?)) and mod(participant_id, ?) = ? order by update_time, participant_id";
+    
+    /**
+     * The constant UPDATE_HMILY_RECOVERY_MEMBER.
+     */
+    protected static final String UPDATE_HMILY_RECOVERY_MEMBER = "update hmily_recovery_member set expire_time = ? where app_name = ? and member_id = ?";
+    
+    /**
+     * The constant INSERT_HMILY_RECOVERY_MEMBER.
+     */
+    protected static final String INSERT_HMILY_RECOVERY_MEMBER = "insert into hmily_recovery_member (app_name, member_id, expire_time) values (?, ?, ?)";
+    
+    /**
+     * The constant SELECT_HMILY_RECOVERY_MEMBER_ALIVE.
+     */
+    protected static final String SELECT_HMILY_RECOVERY_MEMBER_ALIVE = "select member_id from hmily_recovery_member where app_name = ? and expire_time > ?";
+    
+    /**
+     * The constant DELETE_HMILY_RECOVERY_MEMBER_EXPIRED.
+     */
+    protected static final String DELETE_HMILY_RECOVERY_MEMBER_EXPIRED = "delete from hmily_recovery_member where app_name = ? and expire_time < ?";
     
     /**
      * The constant UPDATE_HMILY_PARTICIPANT_STATUS.
@@ -173,6 +236,12 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
     protected static final String SELECTOR_HMILY_PARTICIPANT_UNDO_WITH_PARTICIPANT_ID = " select undo_id, participant_id, trans_id, resource_id, data_snapshot, status "
             + "from hmily_participant_undo where participant_id =? ";
     
+    /**
+     * The constant SELECTOR_HMILY_PARTICIPANT_UNDO_IN_PARTICIPANT_IDS, completed with the in list.
+     */
+    protected static final String SELECTOR_HMILY_PARTICIPANT_UNDO_IN_PARTICIPANT_IDS = " select undo_id, participant_id, trans_id, resource_id, data_snapshot, status "
+            + "from hmily_participant_undo where participant_id in ";
+    
     /**
      * The constant REMOVE_HMILY_PARTICIPANT_UNDO.
      */
@@ -206,6 +275,11 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
     protected static final String SELECT_HMILY_LOCK_BY_PK = " select trans_id, participant_id, resource_id, target_table_name, target_table_pk from hmily_lock where "
         + "resource_id = ? and target_table_name = ? and target_table_pk = ?";
     
+    /**
+     * Ids bound per in list, well within the in list bound of every supported dialect.
+     */
+    private static final int IN_BATCH_SIZE = 500;
+    
     /**
      * The data source.
      */
@@ -237,6 +311,38 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
      */
     protected abstract String hmilyParticipantLimitSql(int limit);
     
+    /**
+     * Hmily transaction keyset page sql string, limiting {@link #SELECT_HMILY_TRANSACTION_DELAY_AFTER_CURSOR}.
+     *
+     * @param limit the limit
+     * @return the string
+     */
+    protected abstract String hmilyTransactionCursorSql(int limit);
+    
+    /**
+     * Hmily participant keyset page sql string, limiting {@link #SELECTOR_HMILY_PARTICIPANT_WITH_DELAY_AND_APP_NAME_TRANS_TYPE_AFTER_CURSOR}.
+     *
+     * @param limit the limit
+     * @return the string
+     */
+    protected abstract String hmilyParticipantCursorSql(int limit);
+    
+    /**
+     * Hmily participant keyset page sql string of one recovery partition, limiting {@link #SELECTOR_HMILY_PARTICIPANT_IN_PARTITION_AFTER_CURSOR}.
+     *
+     * @param limit the limit
+     * @return the string
+     */
+    protected abstract String hmilyParticipantPartitionSql(int limit);
+    
+    /**
+     * Hmily transaction without participant delete sql string, deleting at most limit rows of {@link #DELETE_HMILY_TRANSACTION_WITHOUT_PARTICIPANT}.
+     *
+     * @param limit the limit
+     * @return the string
+     */
+    protected abstract String hmilyTransactionWithoutParticipantDeleteSql(int limit);
+    
     /**
      * Execte schema.sql by different database.
      *
@@ -245,6 +351,14 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
      */
     protected abstract void initScript(HmilyDatabaseConfig hmilyDbConfig) throws Exception;
     
+    /**
+     * Statements adding the next_retry_time column and its index to a hmily_transaction_participant created before they existed,
+     * the create if not exists of schema.sql leaves such a table as it is.
+     *
+     * @return the statements
+     */
+    protected abstract List<String> nextRetryTimeMigrationSql();
+    
     /**
      * Convert data type object.
      *
@@ -255,9 +369,14 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
     
     @Override
     public void init(final String appName) {
+        init(appName, ConfigEnv.getInstance().getConfig(HmilyDatabaseConfig.class));
+    }
+    
+    @Override
+    public void init(final String appName, final Config config) {
         this.appName = appName;
         try {
-            HmilyDatabaseConfig hmilyDatabaseConfig = ConfigEnv.getInstance().getConfig(HmilyDatabaseConfig.class);
+            HmilyDatabaseConfig hmilyDatabaseConfig = (HmilyDatabaseConfig) config;
             HikariDataSource hikariDataSource = new HikariDataSource();
             hikariDataSource.setJdbcUrl(hmilyDatabaseConfig.getUrl());
             hikariDataSource.setDriverClassName(hmilyDatabaseConfig.getDriverClassName());
@@ -277,6 +396,7 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
             if (hmilyConfig.isAutoSql()) {
                 this.initScript(hmilyDatabaseConfig);
             }
+            migrateNextRetryTime(hmilyConfig.isAutoSql());
         } catch (Exception e) {
             log.error("hmily jdbc log init exception please check config:{}", e.getMessage());
             throw new HmilyRuntimeException(e.getMessage());
@@ -299,6 +419,18 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
         return null;
     }
     
+    @Override
+    public List<HmilyTransaction> findByTransIds(final Collection<Long> transIds) {
+        List<HmilyTransaction> result = new ArrayList<>(transIds.size());
+        for (List<Long> each : Lists.partition(new ArrayList<>(transIds), IN_BATCH_SIZE)) {
+            List<Map<String, Object>> list = executeQuery(inList(SELECT_HMILY_TRANSACTION_IN_TRANS_IDS, each.size()), each.toArray());
+            if (CollectionUtils.isNotEmpty(list)) {
+                list.stream().filter(Objects::nonNull).map(this::buildHmilyTransactionByResultMap).forEach(result::add);
+            }
+        }
+        return result;
+    }
+    
     @Override
     public int createHmilyTransaction(final HmilyTransaction hmilyTransaction) {
         return executeUpdate(INSERT_HMILY_TRANSACTION, hmilyTransaction.getTransId(), appName, hmilyTransaction.getStatus(),
@@ -318,7 +450,8 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
         Integer currentVersion = hmilyParticipant.getVersion();
         hmilyParticipant.setVersion(hmilyParticipant.getVersion() + 1);
         hmilyParticipant.setRetry(hmilyParticipant.getRetry() + 1);
-        return executeUpdate(UPDATE_HMILY_PARTICIPANT_LOCK, hmilyParticipant.getVersion(), hmilyParticipant.getRetry(), hmilyParticipant.getParticipantId(), currentVersion) > 0;
+        return executeUpdate(UPDATE_HMILY_PARTICIPANT_LOCK, hmilyParticipant.getVersion(), hmilyParticipant.getRetry(),
+                Optional.ofNullable(hmilyParticipant.getNextRetryTime()).orElseGet(Date::new), hmilyParticipant.getParticipantId(), currentVersion) > 0;
     }
     
     @Override
@@ -348,7 +481,20 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
     @Override
     public List<HmilyParticipant> listHmilyParticipant(final Date date, final String transType, final int limit) {
         String limitSql = hmilyParticipantLimitSql(limit);
-        List<Map<String, Object>> participantList = executeQuery(limitSql, date, appName, transType);
+        List<Map<String, Object>> participantList = executeQuery(limitSql, date, appName, transType, new Date());
+        if (CollectionUtils.isNotEmpty(participantList)) {
+            return participantList.stream()
+                    .filter(Objects::nonNull)
+                    .map(this::buildHmilyParticipantByResultMap)
+                    .collect(Collectors.toList());
+        }
+        return Collections.emptyList();
+    }
+    
+    @Override
+    public List<HmilyParticipant> listHmilyParticipant(final Date date, final String transType, final int limit, final HmilyScanCursor cursor) {
+        HmilyScanCursor after = Optional.ofNullable(cursor).orElseGet(HmilyScanCursor::first);
+        List<Map<String, Object>> participantList = executeQuery(hmilyParticipantCursorSql(limit), date, appName, transType, new Date(), after.getUpdateTime(), after.getUpdateTime(), after.getId());
         if (CollectionUtils.isNotEmpty(participantList)) {
             return participantList.stream()
                     .filter(Objects::nonNull)
@@ -358,6 +504,41 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
         return Collections.emptyList();
     }
     
+    @Override
+    public List<HmilyParticipant> listHmilyParticipant(final Date date, final String transType, final int limit, final HmilyScanCursor cursor, final HmilyRecoveryPartition partition) {
+        HmilyScanCursor after = Optional.ofNullable(cursor).orElseGet(HmilyScanCursor::first);
+        List<Map<String, Object>> participantList = executeQuery(hmilyParticipantPartitionSql(limit), date, appName, transType, new Date(),
+                after.getUpdateTime(), after.getUpdateTime(), after.getId(), partition.getTotal(), partition.getIndex());
+        if (CollectionUtils.isNotEmpty(participantList)) {
+            return participantList.stream()
+                    .filter(Objects::nonNull)
+                    .map(this::buildHmilyParticipantByResultMap)
+                    .collect(Collectors.toList());
+        }
+        return Collections.emptyList();
+    }
+    
+    @Override
+    public int heartbeatRecoveryMember(final String memberId, final Date expireTime) {
+        executeUpdate(DELETE_HMILY_RECOVERY_MEMBER_EXPIRED, appName, new Date());
+        int rows = executeUpdate(UPDATE_HMILY_RECOVERY_MEMBER, expireTime, appName, memberId);
+        return rows > 0 ? rows : executeUpdate(INSERT_HMILY_RECOVERY_MEMBER, appName, memberId, expireTime);
+    }
+    
+    @Override
+    public boolean isRecoveryPartitionSupported() {
+        return true;
+    }
+    
+    @Override
+    public List<String> listRecoveryMembers(final Date date) {
+        List<Map<String, Object>> list = executeQuery(SELECT_HMILY_RECOVERY_MEMBER_ALIVE, appName, date);
+        if (CollectionUtils.isNotEmpty(list)) {
+            return list.stream().filter(Objects::nonNull).map(each -> (String) each.get("member_id")).collect(Collectors.toList());
+        }
+        return Collections.emptyList();
+    }
+    
     @Override
     public List<HmilyTransaction> listLimitByDelay(final Date date, final int limit) {
         String limitSql = hmilyTransactionLimitSql(limit);
@@ -370,6 +551,18 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
         return Collections.emptyList();
     }
     
+    @Override
+    public List<HmilyTransaction> listLimitByDelay(final Date date, final int limit, final HmilyScanCursor cursor) {
+        HmilyScanCursor after = Optional.ofNullable(cursor).orElseGet(HmilyScanCursor::first);
+        List<Map<String, Object>> list = executeQuery(hmilyTransactionCursorSql(limit), date, appName, after.getUpdateTime(), after.getUpdateTime(), after.getId());
+        if (CollectionUtils.isNotEmpty(list)) {
+            return list.stream().filter(Objects::nonNull)
+                    .map(this::buildHmilyTransactionByResultMap)
+                    .collect(Collectors.toList());
+        }
+        return Collections.emptyList();
+    }
+    
     @Override
     public int updateHmilyTransactionStatus(final Long transId, final Integer status) throws HmilyRepositoryException {
         return executeUpdate(UPDATE_HMILY_TRANSACTION_STATUS, status, transId);
@@ -394,7 +587,8 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
                 hmilyParticipant.getTransId(), hmilyParticipant.getTransType(), hmilyParticipant.getStatus(),
                 appName, hmilyParticipant.getRole(), hmilyParticipant.getRetry(), hmilyParticipant.getTargetClass(), hmilyParticipant.getTargetMethod(),
                 hmilyParticipant.getConfirmMethod(), hmilyParticipant.getCancelMethod(), confirmSerialize, cancelSerialize,
-                hmilyParticipant.getVersion(), hmilyParticipant.getCreateTime(), hmilyParticipant.getUpdateTime());
+                hmilyParticipant.getVersion(), hmilyParticipant.getCreateTime(), hmilyParticipant.getUpdateTime(),
+                Optional.ofNullable(hmilyParticipant.getNextRetryTime()).orElseGet(hmilyParticipant::getCreateTime));
     }
     
     @Override
@@ -427,6 +621,16 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
                 dataSnapshot, undo.getStatus(), undo.getCreateTime(), undo.getUpdateTime());
     }
     
+    @Override
+    public int createHmilyParticipantUndos(final Collection<HmilyParticipantUndo> undoList) {
+        List<List<Object>> params = new LinkedList<>();
+        for (HmilyParticipantUndo each : undoList) {
+            params.add(Stream.of(each.getUndoId(), each.getParticipantId(), each.getTransId(), each.getResourceId(),
+                    hmilySerializer.serialize(each.getDataSnapshot()), each.getStatus(), each.getCreateTime(), each.getUpdateTime()).map(this::convertDataType).collect(Collectors.toList()));
+        }
+        return batchExecuteUpdate(INSERT_HMILY_PARTICIPANT_UNDO, params);
+    }
+    
     @Override
     public List<HmilyParticipantUndo> findHmilyParticipantUndoByParticipantId(final Long participantId) {
         List<Map<String, Object>> results = executeQuery(SELECTOR_HMILY_PARTICIPANT_UNDO_WITH_PARTICIPANT_ID, participantId);
@@ -436,6 +640,18 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
         return results.stream().map(this::buildHmilyParticipantUndoByResultMap).collect(Collectors.toList());
     }
     
+    @Override
+    public List<HmilyParticipantUndo> findHmilyParticipantUndoByParticipantIds(final Collection<Long> participantIds) {
+        List<HmilyParticipantUndo> result = new ArrayList<>();
+        for (List<Long> each : Lists.partition(new ArrayList<>(participantIds), IN_BATCH_SIZE)) {
+            List<Map<String, Object>> results = executeQuery(inList(SELECTOR_HMILY_PARTICIPANT_UNDO_IN_PARTICIPANT_IDS, each.size()), each.toArray());
+            if (CollectionUtils.isNotEmpty(results)) {
+                results.stream().map(this::buildHmilyParticipantUndoByResultMap).forEach(result::add);
+            }
+        }
+        return result;
+    }
+    
     @Override
     public int updateHmilyParticipantUndoStatus(final Long undoId, final Integer status) {
         return executeUpdate(UPDATE_HMILY_PARTICIPANT_UNDO_STATUS, status, undoId);
@@ -446,6 +662,20 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
         return executeUpdate(DELETE_HMILY_TRANSACTION_WITH_DATA, date);
     }
     
+    @Override
+    public int removeHmilyTransactionWithoutParticipant(final Date date, final int limit) {
+        // short bounded deletes hold their locks briefly, a whole backlog is removed batch by batch
+        int batch = Math.max(1, limit);
+        String sql = hmilyTransactionWithoutParticipantDeleteSql(batch);
+        int result = 0;
+        int rows;
+        do {
+            rows = executeUpdate(sql, date, appName);
+            result += Math.max(0, rows);
+        } while (rows >= batch);
+        return result;
+    }
+    
     @Override
     public int removeHmilyParticipantByDate(final Date date) {
         return executeUpdate(DELETE_HMILY_PARTICIPANT_WITH_DATA, date);
@@ -503,13 +733,58 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
     
     @Override
     public Optional<HmilyLock> findHmilyLockById(final String lockId) {
-        List<Map<String, Object>> list = executeQuery(SELECT_HMILY_LOCK_BY_PK, Splitter.on(";;").splitToList(lockId).toArray());
+        return findHmilyLock(Splitter.on(";;").limit(3).splitToList(lockId).toArray());
+    }
+    
+    @Override
+    public Optional<HmilyLock> findHmilyLock(final HmilyLock hmilyLock) {
+        return findHmilyLock(hmilyLock.getResourceId(), hmilyLock.getTargetTableName(), hmilyLock.getTargetTablePk());
+    }
+    
+    private Optional<HmilyLock> findHmilyLock(final Object... lockColumns) {
+        List<Map<String, Object>> list = executeQuery(SELECT_HMILY_LOCK_BY_PK, lockColumns);
         if (CollectionUtils.isNotEmpty(list)) {
             return list.stream().filter(Objects::nonNull).map(this::buildHmilyLockByResultMap).findFirst();
         }
         return Optional.empty();
     }
     
+    private void migrateNextRetryTime(final boolean autoSql) throws SQLException {
+        try (Connection con = dataSource.getConnection()) {
+            if (!exists(con, "hmily_transaction_participant", null) || exists(con, "hmily_transaction_participant", "next_retry_time")) {
+                return;
+            }
+            List<String> migration = nextRetryTimeMigrationSql();
+            if (!autoSql) {
+                log.error("hmily_transaction_participant has no next_retry_time column, self recovery fails until it is added: {}", String.join("; ", migration));
+                return;
+            }
+            try (Statement statement = con.createStatement()) {
+                for (String each : migration) {
+                    statement.execute(each);
+                }
+            } catch (SQLException e) {
+                // another node migrated the table first
+                if (!exists(con, "hmily_transaction_participant", "next_retry_time")) {
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    private static boolean exists(final Connection con, final String table, final String column) throws SQLException {
+        DatabaseMetaData metaData = con.getMetaData();
+        String tableName = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase() : table;
+        if (Objects.isNull(column)) {
+            try (ResultSet tables = metaData.getTables(con.getCatalog(), null, tableName, null)) {
+                return tables.next();
+            }
+        }
+        try (ResultSet columns = metaData.getColumns(con.getCatalog(), null, tableName, metaData.storesUpperCaseIdentifiers() ? column.toUpperCase() : column)) {
+            return columns.next();
+        }
+    }
+    
     private int batchExecuteUpdate(final String sql, final List<List<Object>> params) {
         try (Connection con = dataSource.getConnection()) {
             con.setAutoCommit(false);
@@ -556,6 +831,10 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
         }
     }
     
+    private static String inList(final String sql, final int size) {
+        return sql + "(" + String.join(", ", Collections.nCopies(size, "?")) + ")";
+    }
+    
     private List<Map<String, Object>> executeQuery(final String sql, final Object... params) {
         List<Map<String, Object>> list = null;
         try (Connection con = dataSource.getConnection();
@@ -595,9 +874,20 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
         hmilyTransaction.setAppName((String) map.get("app_name"));
         hmilyTransaction.setRetry(Integer.parseInt(map.get("retry").toString()));
         hmilyTransaction.setVersion(Integer.parseInt((map.get("version")).toString()));
+        hmilyTransaction.setUpdateTime(toDate(map.get("update_time")));
         return hmilyTransaction;
     }
     
+    private Date toDate(final Object value) {
+        if (value instanceof Date) {
+            return new Date(((Date) value).getTime());
+        }
+        if (value instanceof LocalDateTime) {
+            return Date.from(((LocalDateTime) value).atZone(ZoneId.systemDefault()).toInstant());
+        }
+        return null;
+    }
+    
     private HmilyParticipantUndo buildHmilyParticipantUndoByResultMap(final Map<String, Object> map) {
         HmilyParticipantUndo undo = new HmilyParticipantUndo();
         undo.setUndoId((Long) map.get("undo_id"));
@@ -644,6 +934,8 @@ public abstract class AbstractHmilyDatabase implements HmilyRepository {
             log.error("hmilySerializer deSerialize have exception:{} ", e.getMessage());
         }
         hmilyParticipant.setVersion(Integer.parseInt((map.get("version")).toString()));
+        hmilyParticipant.setUpdateTime(toDate(map.get("update_time")));
+        hmilyParticipant.setNextRetryTime(toDate(map.get("next_retry_time")));
         return hmilyParticipant;
     }
     
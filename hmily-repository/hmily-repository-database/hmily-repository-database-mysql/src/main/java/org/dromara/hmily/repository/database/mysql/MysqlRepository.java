@@ -28,6 +28,8 @@ import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * The type Mysql repository.
@@ -50,6 +52,32 @@ public class MysqlRepository extends AbstractHmilyDatabase {
         return SELECTOR_HMILY_PARTICIPANT_WITH_DELAY_AND_APP_NAME_TRANS_TYPE + " limit " + limit;
     }
     
+    @Override
+    protected String hmilyTransactionCursorSql(final int limit) {
+        return SELECT_HMILY_TRANSACTION_DELAY_AFTER_CURSOR + " limit " + limit;
+    }
+    
+    @Override
+    protected String hmilyParticipantCursorSql(final int limit) {
+        return SELECTOR_HMILY_PARTICIPANT_WITH_DELAY_AND_APP_NAME_TRANS_TYPE_AFTER_CURSOR + " limit " + limit;
+    }
+    
+    @Override
+    protected String hmilyParticipantPartitionSql(final int limit) {
+        return SELECTOR_HMILY_PARTICIPANT_IN_PARTITION_AFTER_CURSOR + " limit " + limit;
+    }
+    
+    @Override
+    protected String hmilyTransactionWithoutParticipantDeleteSql(final int limit) {
+        return DELETE_HMILY_TRANSACTION_WITHOUT_PARTICIPANT + " limit " + limit;
+    }
+    
+    @Override
+    protected List<String> nextRetryTimeMigrationSql() {
+        return Arrays.asList("alter table hmily_transaction_participant add column next_retry_time datetime not null DEFAULT CURRENT_TIMESTAMP comment '下次自恢复重试时间'",
+                "create index idx_participant_next_retry on hmily_transaction_participant (app_name, trans_type, next_retry_time)");
+    }
+    
     @Override
     protected void initScript(final HmilyDatabaseConfig config) throws Exception {
         String jdbcUrl = StringUtils.replace(config.getUrl(), "/hmily", "/");
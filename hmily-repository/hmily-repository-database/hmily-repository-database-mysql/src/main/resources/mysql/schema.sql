@@ -62,11 +62,19 @@ create table if not exists `hmily_transaction_participant`
     `cancel_invocation`  longblob      null comment 'cancel调用点',
     `version`            int default 0 not null,
     `create_time`        datetime      not null comment '创建时间',
-    `update_time`        datetime      not null DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP comment '更新时间'
+    `update_time`        datetime      not null DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP comment '更新时间',
+    `next_retry_time`    datetime      not null DEFAULT CURRENT_TIMESTAMP comment '下次自恢复重试时间',
+    key `idx_participant_next_retry` (`app_name`, `trans_type`, `next_retry_time`)
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8mb4
   COLLATE = utf8mb4_unicode_ci comment 'hmily事务参与者';
 
-
-
-
+create table if not exists `hmily_recovery_member`
+(
+    `app_name`    varchar(128) not null comment '应用名称',
+    `member_id`   varchar(128) not null comment '自恢复节点id',
+    `expire_time` datetime     not null comment '租约过期时间',
+    primary key (`app_name`, `member_id`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_ci comment 'hmily自恢复节点租约';
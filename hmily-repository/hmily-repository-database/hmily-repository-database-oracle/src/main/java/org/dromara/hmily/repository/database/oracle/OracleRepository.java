@@ -32,7 +32,9 @@ import java.sql.SQLException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 
 /**
@@ -56,6 +58,32 @@ public class OracleRepository extends AbstractHmilyDatabase {
         return SELECTOR_HMILY_PARTICIPANT_WITH_DELAY_AND_APP_NAME_TRANS_TYPE + "and rownum <= " + limit;
     }
     
+    @Override
+    protected String hmilyTransactionCursorSql(final int limit) {
+        return "select * from (" + SELECT_HMILY_TRANSACTION_DELAY_AFTER_CURSOR + ") where rownum <= " + limit;
+    }
+    
+    @Override
+    protected String hmilyParticipantCursorSql(final int limit) {
+        return "select * from (" + SELECTOR_HMILY_PARTICIPANT_WITH_DELAY_AND_APP_NAME_TRANS_TYPE_AFTER_CURSOR + ") where rownum <= " + limit;
+    }
+    
+    @Override
+    protected String hmilyParticipantPartitionSql(final int limit) {
+        return "select * from (" + SELECTOR_HMILY_PARTICIPANT_IN_PARTITION_AFTER_CURSOR + ") where rownum <= " + limit;
+    }
+    
+    @Override
+    protected String hmilyTransactionWithoutParticipantDeleteSql(final int limit) {
+        return DELETE_HMILY_TRANSACTION_WITHOUT_PARTICIPANT + " and rownum <= " + limit;
+    }
+    
+    @Override
+    protected List<String> nextRetryTimeMigrationSql() {
+        return Arrays.asList("alter table hmily_transaction_participant add next_retry_time DATE DEFAULT SYSDATE NOT NULL",
+                "create index idx_participant_next_retry on hmily_transaction_participant (app_name, trans_type, next_retry_time)");
+    }
+    
     @Override
     protected void initScript(final HmilyDatabaseConfig config) throws Exception {
         String jdbcUrl = StringUtils.replace(config.getUrl(), "/hmily", "/");
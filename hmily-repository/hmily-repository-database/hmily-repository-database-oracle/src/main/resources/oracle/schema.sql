@@ -117,7 +117,8 @@ BEGIN
              cancel_invocation BLOB  NULL ,
              version INTEGER DEFAULT 0 NOT NULL ,
              create_time DATE  NOT NULL ,
-             update_time DATE  NOT NULL)';
+             update_time DATE  NOT NULL ,
+             next_retry_time DATE  DEFAULT SYSDATE  NOT NULL)';
 
 	  EXECUTE IMMEDIATE ' COMMENT ON TABLE hmily_transaction_participant IS ''' ||'hmily事务参与者' || '''';
 	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_transaction_participant.participant_id IS ''' ||'参与者事务id' || '''';
@@ -136,8 +137,28 @@ BEGIN
 	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_transaction_participant.cancel_invocation IS ''' ||'cancel调用点' || '''';
 	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_transaction_participant.create_time IS ''' ||'创建时间' || '''';
 	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_transaction_participant.update_time IS ''' ||'更新时间' || '''';
+	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_transaction_participant.next_retry_time IS ''' ||'下次自恢复重试时间' || '''';
+	  EXECUTE IMMEDIATE 'CREATE INDEX idx_participant_next_retry ON hmily_transaction_participant (app_name, trans_type, next_retry_time)';
 
 	END IF;
+
+    -- -----------------------------------------------------
+    -- create table hmily_recovery_member if not exist -----
+    -- -----------------------------------------------------
+    SELECT COUNT(1) INTO NUM FROM all_tables WHERE TABLE_NAME = UPPER('hmily_recovery_member') ;
+    IF NUM < 1 THEN
+      EXECUTE IMMEDIATE 'CREATE TABLE hmily_recovery_member (
+            app_name VARCHAR2(128 )  NOT NULL ,
+            member_id VARCHAR2(128 )  NOT NULL ,
+            expire_time DATE  NOT NULL ,
+            CONSTRAINT recovery_member_key PRIMARY KEY (app_name, member_id)
+            )';
+
+	  EXECUTE IMMEDIATE ' COMMENT ON TABLE hmily_recovery_member IS ''' ||'hmily自恢复节点租约' || '''';
+	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_recovery_member.app_name IS ''' ||'应用名称' || '''';
+	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_recovery_member.member_id IS ''' ||'自恢复节点id' || '''';
+	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_recovery_member.expire_time IS ''' ||'租约过期时间' || '''';
+    END IF;
 END;
 
 /
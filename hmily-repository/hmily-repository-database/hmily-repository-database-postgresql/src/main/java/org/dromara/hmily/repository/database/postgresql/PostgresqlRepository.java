@@ -26,7 +26,9 @@ import java.sql.DriverManager;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -57,6 +59,33 @@ public class PostgresqlRepository extends AbstractHmilyDatabase {
         return SELECTOR_HMILY_PARTICIPANT_WITH_DELAY_AND_APP_NAME_TRANS_TYPE + " limit " + limit;
     }
     
+    @Override
+    protected String hmilyTransactionCursorSql(final int limit) {
+        return SELECT_HMILY_TRANSACTION_DELAY_AFTER_CURSOR + " limit " + limit;
+    }
+    
+    @Override
+    protected String hmilyParticipantCursorSql(final int limit) {
+        return SELECTOR_HMILY_PARTICIPANT_WITH_DELAY_AND_APP_NAME_TRANS_TYPE_AFTER_CURSOR + " limit " + limit;
+    }
+    
+    @Override
+    protected String hmilyParticipantPartitionSql(final int limit) {
+        return SELECTOR_HMILY_PARTICIPANT_IN_PARTITION_AFTER_CURSOR + " limit " + limit;
+    }
+    
+    @Override
+    protected String hmilyTransactionWithoutParticipantDeleteSql(final int limit) {
+        return "delete from hmily_transaction_global where ctid in (select ctid from hmily_transaction_global"
+                + HMILY_TRANSACTION_WITHOUT_PARTICIPANT_CONDITION + " limit " + limit + ")";
+    }
+    
+    @Override
+    protected List<String> nextRetryTimeMigrationSql() {
+        return Arrays.asList("alter table hmily_transaction_participant add column next_retry_time TIMESTAMP(6) NOT NULL default current_timestamp",
+                "create index idx_participant_next_retry on hmily_transaction_participant (app_name, trans_type, next_retry_time)");
+    }
+    
     @Override
     protected void initScript(final HmilyDatabaseConfig config) throws Exception {
         String jdbcUrl = StringUtils.replace(config.getUrl(), "/hmily", "/");
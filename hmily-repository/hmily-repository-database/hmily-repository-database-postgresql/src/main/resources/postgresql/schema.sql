@@ -142,7 +142,8 @@ ELSE
     cancel_invocation BYTEA  NULL ,
     version INT2 DEFAULT 0 NOT NULL ,
     create_time TIMESTAMP(6) NOT NULL default current_timestamp,
-    update_time TIMESTAMP(6) NOT NULL default current_timestamp
+    update_time TIMESTAMP(6) NOT NULL default current_timestamp,
+    next_retry_time TIMESTAMP(6) NOT NULL default current_timestamp
     )');
 
     PERFORM public.dblink_exec('init_conn',  ' COMMENT ON TABLE hmily_transaction_participant IS ''' ||'hmily事务参与者' || '''');
@@ -162,10 +163,31 @@ ELSE
 	PERFORM public.dblink_exec('init_conn',  ' COMMENT ON COLUMN hmily_transaction_participant.cancel_invocation IS ''' ||'cancel调用点' || '''');
 	PERFORM public.dblink_exec('init_conn',  ' COMMENT ON COLUMN hmily_transaction_participant.create_time IS ''' ||'创建时间' || '''');
 	PERFORM public.dblink_exec('init_conn',  ' COMMENT ON COLUMN hmily_transaction_participant.update_time IS ''' ||'更新时间' || '''');
+	PERFORM public.dblink_exec('init_conn',  ' COMMENT ON COLUMN hmily_transaction_participant.next_retry_time IS ''' ||'下次自恢复重试时间' || '''');
+	PERFORM public.dblink_exec('init_conn',  ' CREATE INDEX idx_participant_next_retry ON hmily_transaction_participant (app_name, trans_type, next_retry_time)');
 	PERFORM public.dblink_exec('init_conn',  ' CREATE TRIGGER hmily_participant_tigger
 	                                           BEFORE UPDATE ON hmily_transaction_participant
 	                                           FOR EACH ROW EXECUTE PROCEDURE update_timestamp()');
 	PERFORM public.dblink_exec('init_conn', 'COMMIT');
+END IF;
+-- ---------------------------------------------------
+-- create table hmily_recovery_member if not exist ---
+-- ---------------------------------------------------
+IF (SELECT * FROM dblink('host=localhost user=' || _user || ' password=' || _password || ' dbname=' ||_db,'SELECT COUNT(1) FROM pg_class  WHERE relname  = ''' ||'hmily_recovery_member' || '''')AS t(count BIGINT) )> 0 THEN
+    RAISE NOTICE 'hmily_recovery_member already exists';
+ELSE
+    PERFORM public.dblink_exec('init_conn', 'BEGIN');
+    PERFORM public.dblink_exec('init_conn',  'CREATE TABLE hmily_recovery_member (
+    app_name VARCHAR(128 )  NOT NULL ,
+    member_id VARCHAR(128 )  NOT NULL ,
+    expire_time TIMESTAMP(6) NOT NULL ,
+    PRIMARY KEY (app_name, member_id)
+    )');
+	PERFORM public.dblink_exec('init_conn',  ' COMMENT ON TABLE hmily_recovery_member IS ''' ||'hmily自恢复节点租约' || '''');
+	PERFORM public.dblink_exec('init_conn',  ' COMMENT ON COLUMN hmily_recovery_member.app_name IS ''' ||'应用名称' || '''');
+	PERFORM public.dblink_exec('init_conn',  ' COMMENT ON COLUMN hmily_recovery_member.member_id IS ''' ||'自恢复节点id' || '''');
+	PERFORM public.dblink_exec('init_conn',  ' COMMENT ON COLUMN hmily_recovery_member.expire_time IS ''' ||'租约过期时间' || '''');
+	PERFORM public.dblink_exec('init_conn', 'COMMIT');
 END IF;
     PERFORM public.dblink_disconnect('init_conn');
 END
@@ -27,6 +27,8 @@ import org.dromara.hmily.repository.database.manager.AbstractHmilyDatabase;
 import org.dromara.hmily.spi.HmilySPI;
 
 import java.sql.DriverManager;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * The type Postgresql repository.
@@ -49,6 +51,32 @@ public class SqlserverRepository extends AbstractHmilyDatabase {
         return SELECTOR_HMILY_PARTICIPANT_WITH_DELAY_AND_APP_NAME_TRANS_TYPE.replace("select", "select top " + limit);
     }
     
+    @Override
+    protected String hmilyTransactionCursorSql(final int limit) {
+        return SELECT_HMILY_TRANSACTION_DELAY_AFTER_CURSOR.replace("select", "select top " + limit);
+    }
+    
+    @Override
+    protected String hmilyParticipantCursorSql(final int limit) {
+        return SELECTOR_HMILY_PARTICIPANT_WITH_DELAY_AND_APP_NAME_TRANS_TYPE_AFTER_CURSOR.replace("select", "select top " + limit);
+    }
+    
+    @Override
+    protected String hmilyParticipantPartitionSql(final int limit) {
+        return SELECTOR_HMILY_PARTICIPANT_IN_PARTITION_AFTER_CURSOR.replace("mod(participant_id, ?)", "participant_id % ?").replace("select", "select top " + limit);
+    }
+    
+    @Override
+    protected String hmilyTransactionWithoutParticipantDeleteSql(final int limit) {
+        return "delete top (" + limit + ") from hmily_transaction_global" + HMILY_TRANSACTION_WITHOUT_PARTICIPANT_CONDITION;
+    }
+    
+    @Override
+    protected List<String> nextRetryTimeMigrationSql() {
+        return Arrays.asList("alter table hmily_transaction_participant add next_retry_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP",
+                "create index idx_participant_next_retry on hmily_transaction_participant (app_name, trans_type, next_retry_time)");
+    }
+    
     @Override
     protected void initScript(final HmilyDatabaseConfig config) throws Exception {
         String jdbcUrl = StringUtils.replace(config.getUrl(), "database=hmily", "");
@@ -98,8 +98,10 @@ CREATE TABLE hmily_transaction_participant (
     cancel_invocation VARBINARY(MAX)  NULL ,
     version INT DEFAULT 0 NOT NULL ,
     create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    next_retry_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP
     );
+CREATE INDEX idx_participant_next_retry ON hmily_transaction_participant (app_name, trans_type, next_retry_time);
 EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'参与者事务id' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_transaction_participant', @level2type=N'COLUMN',@level2name=N'participant_id';
 EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'参与者关联id且套调用时候会存在' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_transaction_participant', @level2type=N'COLUMN',@level2name=N'participant_ref_id';
 EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'全局事务id' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_transaction_participant', @level2type=N'COLUMN',@level2name=N'trans_id';
@@ -116,8 +118,25 @@ EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'confirm调用
 EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'cancel调用点' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_transaction_participant', @level2type=N'COLUMN',@level2name=N'cancel_invocation';
 EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'创建时间' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_transaction_participant', @level2type=N'COLUMN',@level2name=N'create_time';
 EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'更新时间' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_transaction_participant', @level2type=N'COLUMN',@level2name=N'update_time';
+EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'下次自恢复重试时间' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_transaction_participant', @level2type=N'COLUMN',@level2name=N'next_retry_time';
 EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'hmily事务参与者' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_transaction_participant';
 END
+-- ---------------------------------------------------
+-- create table hmily_recovery_member if not exist ---
+-- ---------------------------------------------------
+IF NOT EXISTS(SELECT * FROM sysobjects WHERE name = 'hmily_recovery_member' )
+BEGIN
+CREATE TABLE hmily_recovery_member (
+    app_name VARCHAR(128 )  NOT NULL ,
+    member_id VARCHAR(128 )  NOT NULL ,
+    expire_time DATETIME NOT NULL ,
+    PRIMARY KEY (app_name, member_id)
+    );
+EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'应用名称' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_recovery_member', @level2type=N'COLUMN',@level2name=N'app_name';
+EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'自恢复节点id' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_recovery_member', @level2type=N'COLUMN',@level2name=N'member_id';
+EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'租约过期时间' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_recovery_member', @level2type=N'COLUMN',@level2name=N'expire_time';
+EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'hmily自恢复节点租约' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_recovery_member';
+END
 
 /
 -- ---------------------------------------------------------
@@ -27,8 +27,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.dromara.hmily.common.enums.HmilyActionEnum;
 import org.dromara.hmily.common.exception.HmilyException;
 import org.dromara.hmily.common.utils.CollectionUtils;
+import org.dromara.hmily.config.api.Config;
 import org.dromara.hmily.config.api.ConfigEnv;
 import org.dromara.hmily.config.api.entity.HmilyEtcdConfig;
+import org.dromara.hmily.repository.spi.HmilyAsyncRepository;
 import org.dromara.hmily.repository.spi.HmilyRepository;
 import org.dromara.hmily.repository.spi.HmilyRepositoryNode;
 import org.dromara.hmily.repository.spi.entity.HmilyLock;
@@ -46,16 +48,18 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 /**
  * etcd impl.
+ * Writes are native jetcd futures, the blocking methods wait on the same futures.
  *
  * @author dongzl
  */
 @HmilySPI("etcd")
 @Slf4j
-public class EtcdRepository implements HmilyRepository {
+public class EtcdRepository implements HmilyRepository, HmilyAsyncRepository {
     
     private Client client;
     
@@ -67,9 +71,14 @@ public class EtcdRepository implements HmilyRepository {
 
     @Override
     public void init(final String appName) {
+        init(appName, ConfigEnv.getInstance().getConfig(HmilyEtcdConfig.class));
+    }
+
+    @Override
+    public void init(final String appName, final Config config) {
         this.appName = appName;
         this.node = new HmilyRepositoryNode(appName);
-        HmilyEtcdConfig etcdConfig = ConfigEnv.getInstance().getConfig(HmilyEtcdConfig.class);
+        HmilyEtcdConfig etcdConfig = (HmilyEtcdConfig) config;
         client = Client.builder().endpoints(Util.toURIs(Splitter.on(",").trimResults()
                 .splitToList(etcdConfig.getHost()))).namespace(ByteSequence.from(etcdConfig.getRootPath(), Charsets.UTF_8)).build();
     }
@@ -81,11 +90,19 @@ public class EtcdRepository implements HmilyRepository {
 
     @Override
     public int createHmilyTransaction(final HmilyTransaction hmilyTransaction) throws HmilyRepositoryException {
-        String path = node.getHmilyTransactionRealPath(hmilyTransaction.getTransId());
         try {
-            boolean exist = isExist(path);
+            return createHmilyTransactionAsync(hmilyTransaction).get();
+        } catch (ExecutionException | InterruptedException e) {
+            throw new HmilyException(e);
+        }
+    }
+    
+    @Override
+    public CompletableFuture<Integer> createHmilyTransactionAsync(final HmilyTransaction hmilyTransaction) {
+        String path = node.getHmilyTransactionRealPath(hmilyTransaction.getTransId());
+        return getKeyValueAsync(path).thenCompose(keyValue -> {
             hmilyTransaction.setAppName(appName);
-            if (!exist) {
+            if (null == keyValue) {
                 hmilyTransaction.setRetry(0);
                 hmilyTransaction.setVersion(0);
                 hmilyTransaction.setCreateTime(new Date());
@@ -93,12 +110,8 @@ public class EtcdRepository implements HmilyRepository {
                 hmilyTransaction.setVersion(hmilyTransaction.getVersion() + 1);
             }
             hmilyTransaction.setUpdateTime(new Date());
-            client.getKVClient().put(ByteSequence.from(path, StandardCharsets.UTF_8),
-                    ByteSequence.from(hmilySerializer.serialize(hmilyTransaction)));
-            return HmilyRepository.ROWS;
-        } catch (ExecutionException | InterruptedException e) {
-            throw new HmilyException(e);
-        }
+            return putAsync(path, hmilyTransaction);
+        });
     }
 
     @Override
@@ -131,9 +144,27 @@ public class EtcdRepository implements HmilyRepository {
         return keyValues.isEmpty() ? null : keyValues.iterator().next();
     }
     
-    private boolean isExist(final String path) throws InterruptedException, ExecutionException {
+    private CompletableFuture<KeyValue> getKeyValueAsync(final String path) {
         return client.getKVClient().get(ByteSequence.from(path, StandardCharsets.UTF_8))
-                .get().getCount() > 0;
+                .thenApply(response -> response.getKvs().isEmpty() ? null : response.getKvs().iterator().next());
+    }
+    
+    private CompletableFuture<Integer> putAsync(final String path, final Object value) {
+        return client.getKVClient().put(ByteSequence.from(path, StandardCharsets.UTF_8), ByteSequence.from(hmilySerializer.serialize(value)))
+                .thenApply(response -> HmilyRepository.ROWS);
+    }
+    
+    private CompletableFuture<Integer> deleteAsync(final String path) {
+        return client.getKVClient().delete(ByteSequence.from(path, StandardCharsets.UTF_8)).thenApply(response -> HmilyRepository.ROWS);
+    }
+    
+    private int join(final CompletableFuture<Integer> future, final String operation) {
+        try {
+            return future.get();
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("{} occur a exception", operation, e);
+        }
+        return HmilyRepository.FAIL_ROWS;
     }
 
     @Override
@@ -168,34 +199,32 @@ public class EtcdRepository implements HmilyRepository {
 
     @Override
     public int updateHmilyTransactionStatus(final Long transId, final Integer status) throws HmilyRepositoryException {
+        return join(updateHmilyTransactionStatusAsync(transId, status), "updateHmilyTransactionStatus");
+    }
+    
+    @Override
+    public CompletableFuture<Integer> updateHmilyTransactionStatusAsync(final Long transId, final Integer status) {
         String path = node.getHmilyTransactionRealPath(transId);
-        try {
-            KeyValue keyValue = getKeyValue(path);
+        return getKeyValueAsync(path).thenCompose(keyValue -> {
             if (null == keyValue) {
-                return HmilyRepository.FAIL_ROWS;
+                return CompletableFuture.completedFuture(HmilyRepository.FAIL_ROWS);
             }
             HmilyTransaction hmilyTransaction = hmilySerializer.deSerialize(keyValue.getValue().getBytes(), HmilyTransaction.class);
             hmilyTransaction.setStatus(status);
             hmilyTransaction.setVersion(hmilyTransaction.getVersion() + 1);
             hmilyTransaction.setUpdateTime(new Date());
-            client.getKVClient().put(ByteSequence.from(path, StandardCharsets.UTF_8), ByteSequence.from(hmilySerializer.serialize(hmilyTransaction)));
-            return HmilyRepository.ROWS;
-        } catch (ExecutionException | InterruptedException e) {
-            log.error("updateHmilyTransactionStatus occur a exception", e);
-            return HmilyRepository.FAIL_ROWS;
-        }
+            return putAsync(path, hmilyTransaction);
+        });
     }
 
     @Override
     public int removeHmilyTransaction(final Long transId) {
-        String path = node.getHmilyTransactionRealPath(transId);
-        try {
-            client.getKVClient().delete(ByteSequence.from(path, StandardCharsets.UTF_8)).get();
-            return HmilyRepository.ROWS;
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("removeHmilyTransaction occur a exception", e);
-        }
-        return HmilyRepository.FAIL_ROWS;
+        return join(removeHmilyTransactionAsync(transId), "removeHmilyTransaction");
+    }
+    
+    @Override
+    public CompletableFuture<Integer> removeHmilyTransactionAsync(final Long transId) {
+        return deleteAsync(node.getHmilyTransactionRealPath(transId));
     }
 
     @Override
@@ -210,8 +239,16 @@ public class EtcdRepository implements HmilyRepository {
     @Override
     public int createHmilyParticipant(final HmilyParticipant hmilyParticipant) throws HmilyRepositoryException {
         try {
-            String path = node.getHmilyParticipantRealPath(hmilyParticipant.getParticipantId());
-            KeyValue keyValue = getKeyValue(path);
+            return createHmilyParticipantAsync(hmilyParticipant).get();
+        } catch (ExecutionException | InterruptedException e) {
+            throw new HmilyException(e);
+        }
+    }
+    
+    @Override
+    public CompletableFuture<Integer> createHmilyParticipantAsync(final HmilyParticipant hmilyParticipant) {
+        String path = node.getHmilyParticipantRealPath(hmilyParticipant.getParticipantId());
+        return getKeyValueAsync(path).thenCompose(keyValue -> {
             hmilyParticipant.setAppName(appName);
             if (null == keyValue) {
                 hmilyParticipant.setRetry(0);
@@ -221,12 +258,8 @@ public class EtcdRepository implements HmilyRepository {
                 hmilyParticipant.setVersion(hmilyParticipant.getVersion() + 1);
             }
             hmilyParticipant.setUpdateTime(new Date());
-            client.getKVClient().put(ByteSequence.from(path, StandardCharsets.UTF_8), 
-                    ByteSequence.from(hmilySerializer.serialize(hmilyParticipant)));
-            return HmilyRepository.ROWS;
-        } catch (ExecutionException | InterruptedException e) {
-            throw new HmilyException(e);
-        }
+            return putAsync(path, hmilyParticipant);
+        });
     }
 
     @Override
@@ -242,6 +275,7 @@ public class EtcdRepository implements HmilyRepository {
     @Override
     public List<HmilyParticipant> listHmilyParticipant(final Date date, final String transType, final int limit) {
         String path = node.getHmilyParticipantRootPath();
+        Date now = new Date();
         return listByFilter(path, HmilyParticipant.class, (hmilyParticipant, params) -> {
             Date dateParam = (Date) params[0];
             String transTypeParam = (String) params[1];
@@ -249,6 +283,7 @@ public class EtcdRepository implements HmilyRepository {
             boolean filterResult = dateParam.after(hmilyParticipant.getUpdateTime()) && appName.equals(hmilyParticipant.getAppName())
                     && transTypeParam.equals(hmilyParticipant.getTransType())
                     && (hmilyParticipant.getStatus().compareTo(HmilyActionEnum.DELETE.getCode()) != 0 && hmilyParticipant.getStatus().compareTo(HmilyActionEnum.DEATH.getCode()) != 0)
+                    && hmilyParticipant.dueForRetry(now)
                     && limitParam-- > 0;
             params[2] = limitParam;
             return filterResult;
@@ -272,34 +307,32 @@ public class EtcdRepository implements HmilyRepository {
     
     @Override
     public int updateHmilyParticipantStatus(final Long participantId, final Integer status) throws HmilyRepositoryException {
+        return join(updateHmilyParticipantStatusAsync(participantId, status), "updateHmilyParticipantStatus");
+    }
+    
+    @Override
+    public CompletableFuture<Integer> updateHmilyParticipantStatusAsync(final Long participantId, final Integer status) {
         String path = node.getHmilyParticipantRealPath(participantId);
-        try {
-            KeyValue keyValue = getKeyValue(path);
+        return getKeyValueAsync(path).thenCompose(keyValue -> {
             if (null == keyValue) {
-                return HmilyRepository.FAIL_ROWS;
+                return CompletableFuture.completedFuture(HmilyRepository.FAIL_ROWS);
             }
             HmilyParticipant hmilyParticipant = hmilySerializer.deSerialize(keyValue.getValue().getBytes(), HmilyParticipant.class);
             hmilyParticipant.setStatus(status);
             hmilyParticipant.setVersion(hmilyParticipant.getVersion() + 1);
             hmilyParticipant.setUpdateTime(new Date());
-            client.getKVClient().put(ByteSequence.from(path, StandardCharsets.UTF_8), ByteSequence.from(hmilySerializer.serialize(hmilyParticipant)));
-            return HmilyRepository.ROWS;
-        } catch (ExecutionException | InterruptedException e) {
-            log.error("updateHmilyParticipantStatus occur a exception", e);
-        }
-        return HmilyRepository.FAIL_ROWS;
+            return putAsync(path, hmilyParticipant);
+        });
     }
 
     @Override
     public int removeHmilyParticipant(final Long participantId) {
-        String path = node.getHmilyParticipantRealPath(participantId);
-        try {
-            client.getKVClient().delete(ByteSequence.from(path, StandardCharsets.UTF_8)).get();
-            return HmilyRepository.ROWS;
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("removeHmilyParticipant occur a exception", e);
-        }
-        return HmilyRepository.FAIL_ROWS;
+        return join(removeHmilyParticipantAsync(participantId), "removeHmilyParticipant");
+    }
+    
+    @Override
+    public CompletableFuture<Integer> removeHmilyParticipantAsync(final Long participantId) {
+        return deleteAsync(node.getHmilyParticipantRealPath(participantId));
     }
 
     @Override
@@ -338,18 +371,23 @@ public class EtcdRepository implements HmilyRepository {
 
     @Override
     public int createHmilyParticipantUndo(final HmilyParticipantUndo hmilyParticipantUndo) {
-        String path = node.getHmilyParticipantUndoRealPath(hmilyParticipantUndo.getUndoId());
         try {
-            KeyValue keyValue = getKeyValue(path);
+            return createHmilyParticipantUndoAsync(hmilyParticipantUndo).get();
+        } catch (ExecutionException | InterruptedException e) {
+            throw new HmilyException(e);
+        }
+    }
+    
+    @Override
+    public CompletableFuture<Integer> createHmilyParticipantUndoAsync(final HmilyParticipantUndo hmilyParticipantUndo) {
+        String path = node.getHmilyParticipantUndoRealPath(hmilyParticipantUndo.getUndoId());
+        return getKeyValueAsync(path).thenCompose(keyValue -> {
             if (null == keyValue) {
                 hmilyParticipantUndo.setCreateTime(new Date());
             }
             hmilyParticipantUndo.setUpdateTime(new Date());
-            client.getKVClient().put(ByteSequence.from(path, StandardCharsets.UTF_8), ByteSequence.from(hmilySerializer.serialize(hmilyParticipantUndo)));
-            return HmilyRepository.ROWS;
-        } catch (ExecutionException | InterruptedException e) {
-            throw new HmilyException(e);
-        }
+            return putAsync(path, hmilyParticipantUndo);
+        });
     }
 
     @Override
@@ -363,14 +401,12 @@ public class EtcdRepository implements HmilyRepository {
 
     @Override
     public int removeHmilyParticipantUndo(final Long undoId) {
-        String path = node.getHmilyParticipantUndoRealPath(undoId);
-        try {
-            client.getKVClient().delete(ByteSequence.from(path, StandardCharsets.UTF_8)).get();
-            return HmilyRepository.ROWS;
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("removeHmilyParticipantUndo occur a exception", e);
-        }
-        return HmilyRepository.FAIL_ROWS;
+        return join(removeHmilyParticipantUndoAsync(undoId), "removeHmilyParticipantUndo");
+    }
+    
+    @Override
+    public CompletableFuture<Integer> removeHmilyParticipantUndoAsync(final Long undoId) {
+        return deleteAsync(node.getHmilyParticipantUndoRealPath(undoId));
     }
 
     @Override
@@ -384,21 +420,21 @@ public class EtcdRepository implements HmilyRepository {
 
     @Override
     public int updateHmilyParticipantUndoStatus(final Long undoId, final Integer status) {
+        return join(updateHmilyParticipantUndoStatusAsync(undoId, status), "updateHmilyParticipantUndoStatus");
+    }
+    
+    @Override
+    public CompletableFuture<Integer> updateHmilyParticipantUndoStatusAsync(final Long undoId, final Integer status) {
         String path = node.getHmilyParticipantUndoRealPath(undoId);
-        try {
-            KeyValue keyValue = getKeyValue(path);
+        return getKeyValueAsync(path).thenCompose(keyValue -> {
             if (null == keyValue) {
-                return HmilyRepository.FAIL_ROWS;
+                return CompletableFuture.completedFuture(HmilyRepository.FAIL_ROWS);
             }
             HmilyParticipantUndo hmilyParticipantUndo = hmilySerializer.deSerialize(keyValue.getValue().getBytes(), HmilyParticipantUndo.class);
             hmilyParticipantUndo.setStatus(status);
             hmilyParticipantUndo.setUpdateTime(new Date());
-            client.getKVClient().put(ByteSequence.from(path, StandardCharsets.UTF_8), ByteSequence.from(hmilySerializer.serialize(hmilyParticipantUndo)));
-            return HmilyRepository.ROWS;
-        } catch (ExecutionException | InterruptedException e) {
-            log.error("updateHmilyParticipantStatus occur a exception", e);
-        }
-        return HmilyRepository.FAIL_ROWS;
+            return putAsync(path, hmilyParticipantUndo);
+        });
     }
     
     @Override
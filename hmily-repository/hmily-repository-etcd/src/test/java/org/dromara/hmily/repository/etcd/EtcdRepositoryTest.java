@@ -24,6 +24,7 @@ import io.etcd.jetcd.KV;
 import io.etcd.jetcd.KeyValue;
 import io.etcd.jetcd.kv.DeleteResponse;
 import io.etcd.jetcd.kv.GetResponse;
+import io.etcd.jetcd.kv.PutResponse;
 import io.etcd.jetcd.options.GetOption;
 import org.dromara.hmily.annotation.TransTypeEnum;
 import org.dromara.hmily.config.api.ConfigEnv;
@@ -78,17 +79,11 @@ public class EtcdRepositoryTest {
     @Mock
     private KV kv;
 
-    @Mock
-    private CompletableFuture getFuture;
-
     @Mock
     private GetResponse getResponse;
 
     @Mock
-    private CompletableFuture putFuture;
-    
-    @Mock
-    private CompletableFuture deleteFuture;
+    private PutResponse putResponse;
     
     @Mock
     private DeleteResponse deleteResponse;
@@ -108,13 +103,11 @@ public class EtcdRepositoryTest {
         hmilySerializer = new KryoSerializer();
         etcdRepository.setSerializer(hmilySerializer);
         when(client.getKVClient()).thenReturn(kv);
-        when(kv.get(any(ByteSequence.class))).thenReturn(getFuture);
-        when(kv.get(any(ByteSequence.class), any(GetOption.class))).thenReturn(getFuture);
-        when(kv.put(any(ByteSequence.class), any(ByteSequence.class))).thenReturn(putFuture);
-        when(kv.delete(any(ByteSequence.class))).thenReturn(deleteFuture);
-        when(getFuture.get()).thenReturn(getResponse);
+        when(kv.get(any(ByteSequence.class))).thenReturn(CompletableFuture.completedFuture(getResponse));
+        when(kv.get(any(ByteSequence.class), any(GetOption.class))).thenReturn(CompletableFuture.completedFuture(getResponse));
+        when(kv.put(any(ByteSequence.class), any(ByteSequence.class))).thenReturn(CompletableFuture.completedFuture(putResponse));
+        when(kv.delete(any(ByteSequence.class))).thenReturn(CompletableFuture.completedFuture(deleteResponse));
         when(getResponse.getKvs()).thenReturn(Lists.newArrayList(keyValue));
-        when(deleteFuture.get()).thenReturn(deleteResponse);
         when(getResponse.getCount()).thenReturn(0L);
         FieldSetter.setField(etcdRepository, etcdRepository.getClass().getDeclaredField("client"), client);
         FieldSetter.setField(etcdRepository, etcdRepository.getClass().getDeclaredField("appName"), appName);
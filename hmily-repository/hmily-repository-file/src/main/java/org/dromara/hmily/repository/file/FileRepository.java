@@ -24,6 +24,7 @@ import org.dromara.hmily.common.utils.AssertUtils;
 import org.dromara.hmily.common.utils.CollectionUtils;
 import org.dromara.hmily.common.utils.LogUtil;
 import org.dromara.hmily.common.utils.StringUtils;
+import org.dromara.hmily.config.api.Config;
 import org.dromara.hmily.config.api.ConfigEnv;
 import org.dromara.hmily.config.api.entity.HmilyFileConfig;
 import org.dromara.hmily.repository.spi.HmilyRepository;
@@ -63,7 +64,8 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 /**
- * file impl.
+ * file impl, a store for tests and local runs: every scan reads all files, so it keeps the cursor-less scans
+ * and its recovery only serves the first page of a pass.
  *
  * @author xiaoyu
  * @author choviwu
@@ -94,8 +96,13 @@ public class FileRepository implements HmilyRepository {
 
     @Override
     public void init(final String appName) {
+        init(appName, ConfigEnv.getInstance().getConfig(HmilyFileConfig.class));
+    }
+
+    @Override
+    public void init(final String appName, final Config config) {
         this.appName = appName;
-        HmilyFileConfig fileConfig = ConfigEnv.getInstance().getConfig(HmilyFileConfig.class);
+        HmilyFileConfig fileConfig = (HmilyFileConfig) config;
         filePath = StringUtils.isBlank(fileConfig.getPath()) ? System.getProperty("user.home") : fileConfig.getPath();
         Path workPath = Paths.get(filePath);
         AssertUtils.notNull(Files.isDirectory(workPath));
@@ -209,7 +216,7 @@ public class FileRepository implements HmilyRepository {
                 hmilyParticipant.setAppName(appName);
                 createFile(getParticipantPath(), HmilyParticipant.class, hmilyParticipant.getParticipantId(), hmilyParticipant);
             } else {
-                writeParticipantFile(getParticipantPath(), HmilyParticipant.class, hmilyParticipant.getParticipantId(), hmilyParticipant.getStatus(), 0);
+                writeParticipantFile(getParticipantPath(), HmilyParticipant.class, hmilyParticipant.getParticipantId(), hmilyParticipant.getStatus(), 0, null);
             }
             return HmilyRepository.ROWS;
         } catch (IOException e) {
@@ -228,6 +235,7 @@ public class FileRepository implements HmilyRepository {
 
     @Override
     public List<HmilyParticipant> listHmilyParticipant(final Date date, final String transType, final int limit) {
+        Date now = new Date();
         return listByFilter(getParticipantPath(), HmilyParticipant.class, (hmilyParticipant, params) -> {
             Date dateParam = (Date) params[0];
             String transTypeParam = (String) params[1];
@@ -237,6 +245,7 @@ public class FileRepository implements HmilyRepository {
                     && Objects.equals(transTypeParam, hmilyParticipant.getTransType())
                     && (hmilyParticipant.getStatus().compareTo(HmilyActionEnum.DELETE.getCode()) != 0
                     && hmilyParticipant.getStatus().compareTo(HmilyActionEnum.DEATH.getCode()) != 0)
+                    && hmilyParticipant.dueForRetry(now)
                     && limitParam-- > 0;
             params[2] = limitParam;
             return filterResult;
@@ -262,7 +271,7 @@ public class FileRepository implements HmilyRepository {
         if (!exsist) {
             return HmilyRepository.FAIL_ROWS;
         }
-        return writeParticipantFile(getParticipantPath(), HmilyParticipant.class, participantId, status, 0);
+        return writeParticipantFile(getParticipantPath(), HmilyParticipant.class, participantId, status, 0, null);
     }
 
     @Override
@@ -300,7 +309,8 @@ public class FileRepository implements HmilyRepository {
             LogUtil.warn(LOGGER, "path {} is not exists.", () -> getParticipantPath());
             return false;
         }
-        writeParticipantFile(getParticipantPath(), HmilyParticipant.class, hmilyParticipant.getParticipantId(), hmilyParticipant.getStatus(), 1);
+        writeParticipantFile(getParticipantPath(), HmilyParticipant.class, hmilyParticipant.getParticipantId(), hmilyParticipant.getStatus(), 1,
+                hmilyParticipant.getNextRetryTime());
         return true;
     }
 
@@ -519,7 +529,7 @@ public class FileRepository implements HmilyRepository {
     }
 
     @SneakyThrows
-    private int writeParticipantFile(final String absolutePath, final Class<HmilyParticipant> clazz, final Long participiantId, final int status, final int retryTimes) {
+    private int writeParticipantFile(final String absolutePath, final Class<HmilyParticipant> clazz, final Long participiantId, final int status, final int retryTimes, final Date nextRetryTime) {
 
         String filePath = concatPath(absolutePath, participiantId);
         if (!isRead(filePath)) {
@@ -533,6 +543,9 @@ public class FileRepository implements HmilyRepository {
             hmilyParticipant.setUpdateTime(new Date());
             hmilyParticipant.setVersion(hmilyParticipant.getVersion() + 1);
             hmilyParticipant.setRetry(hmilyParticipant.getRetry() + retryTimes);
+            if (Objects.nonNull(nextRetryTime)) {
+                hmilyParticipant.setNextRetryTime(nextRetryTime);
+            }
             byte[] serialize = hmilySerializer.serialize(hmilyParticipant);
             Files.write(Paths.get(filePath), serialize, StandardOpenOption.WRITE);
             return HmilyRepository.ROWS;
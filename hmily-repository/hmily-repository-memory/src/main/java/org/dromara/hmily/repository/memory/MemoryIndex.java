@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.repository.memory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary index from a long key to the ids of the records carrying it.
+ * Every mutation of a key happens inside {@link ConcurrentHashMap#compute}, so empty buckets can be dropped without losing a concurrent add.
+ *
+ * @author xiaoyu
+ */
+final class MemoryIndex {
+
+    private final Map<Long, Set<Long>> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Add id under key.
+     *
+     * @param key the key
+     * @param id  the id
+     */
+    void add(final Long key, final Long id) {
+        if (Objects.isNull(key)) {
+            return;
+        }
+        buckets.compute(key, (k, ids) -> {
+            Set<Long> result = Objects.isNull(ids) ? ConcurrentHashMap.newKeySet() : ids;
+            result.add(id);
+            return result;
+        });
+    }
+
+    /**
+     * Remove id from key.
+     *
+     * @param key the key
+     * @param id  the id
+     */
+    void remove(final Long key, final Long id) {
+        if (Objects.isNull(key)) {
+            return;
+        }
+        buckets.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Get the ids under key.
+     *
+     * @param key the key
+     * @return the ids, never null
+     */
+    Set<Long> get(final Long key) {
+        Set<Long> ids = buckets.get(key);
+        return Objects.isNull(ids) ? Collections.emptySet() : ids;
+    }
+}
@@ -0,0 +1,535 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.repository.memory;
+
+import com.google.common.util.concurrent.Striped;
+import org.dromara.hmily.common.enums.HmilyActionEnum;
+import org.dromara.hmily.repository.spi.HmilyXaRepository;
+import org.dromara.hmily.repository.spi.entity.HmilyLock;
+import org.dromara.hmily.repository.spi.entity.HmilyLockKey;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.entity.HmilyRecordCopier;
+import org.dromara.hmily.repository.spi.entity.HmilyScanCursor;
+import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
+import org.dromara.hmily.repository.spi.entity.HmilyXaRecovery;
+import org.dromara.hmily.repository.spi.exception.HmilyRepositoryException;
+import org.dromara.hmily.serializer.spi.HmilySerializer;
+import org.dromara.hmily.spi.HmilySPI;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Memory repository, keeps every hmily log in process memory.
+ * It needs no external service, so it suits single node use, tests and benchmarking the core pipeline,
+ * and is the reference for the semantics the other repositories implement.
+ * Records are copied in and out, so callers never share state with the store.
+ * Each transaction and all of its participants and undo logs are guarded by the stripe of its trans id.
+ *
+ * @author xiaoyu
+ */
+@HmilySPI("memory")
+public class MemoryRepository implements HmilyXaRepository {
+
+    private static final int LOCK_STRIPES = 256;
+
+    private final Map<Long, HmilyTransaction> transactions = new ConcurrentHashMap<>();
+
+    private final Map<Long, HmilyParticipant> participants = new ConcurrentHashMap<>();
+
+    private final Map<Long, HmilyParticipantUndo> undos = new ConcurrentHashMap<>();
+
+    private final Map<HmilyLockKey, HmilyLock> locks = new ConcurrentHashMap<>();
+
+    private final Map<String, Queue<HmilyXaRecovery>> xaRecoveries = new ConcurrentHashMap<>();
+
+    private final MemoryIndex participantsByTransId = new MemoryIndex();
+
+    private final MemoryIndex participantsByRefId = new MemoryIndex();
+
+    private final MemoryIndex undosByParticipantId = new MemoryIndex();
+
+    private final Map<String, Date> recoveryMembers = new ConcurrentHashMap<>();
+
+    private final UpdateTimeIndex transactionsByUpdateTime = new UpdateTimeIndex();
+
+    private final UpdateTimeIndex participantsByUpdateTime = new UpdateTimeIndex();
+
+    private final UpdateTimeIndex undosByUpdateTime = new UpdateTimeIndex();
+
+    private final Striped<Lock> transLocks = Striped.lock(LOCK_STRIPES);
+
+    private final Striped<Lock> lockIdLocks = Striped.lock(LOCK_STRIPES);
+
+    private String appName;
+
+    @Override
+    public void init(final String appName) {
+        this.appName = appName;
+    }
+
+    @Override
+    public void setSerializer(final HmilySerializer hmilySerializer) {
+        // records are kept as objects, nothing is serialized.
+    }
+
+    @Override
+    public int createHmilyTransaction(final HmilyTransaction hmilyTransaction) throws HmilyRepositoryException {
+        HmilyTransaction record = HmilyRecordCopier.copy(hmilyTransaction);
+        record.setAppName(appName);
+        return withTransLock(record.getTransId(), () -> {
+            HmilyTransaction previous = transactions.put(record.getTransId(), record);
+            if (Objects.nonNull(previous)) {
+                transactionsByUpdateTime.remove(previous.getUpdateTime(), previous.getTransId());
+            }
+            transactionsByUpdateTime.add(record.getUpdateTime(), record.getTransId());
+            return ROWS;
+        });
+    }
+
+    @Override
+    public int updateRetryByLock(final HmilyTransaction hmilyTransaction) {
+        final Integer currentVersion = hmilyTransaction.getVersion();
+        hmilyTransaction.setVersion(hmilyTransaction.getVersion() + 1);
+        hmilyTransaction.setRetry(hmilyTransaction.getRetry() + 1);
+        return withTransLock(hmilyTransaction.getTransId(), () -> {
+            HmilyTransaction record = transactions.get(hmilyTransaction.getTransId());
+            if (Objects.isNull(record) || !Objects.equals(record.getVersion(), currentVersion)) {
+                return FAIL_ROWS;
+            }
+            record.setVersion(hmilyTransaction.getVersion());
+            record.setRetry(hmilyTransaction.getRetry());
+            touch(record.getTransId(), record.getUpdateTime(), record::setUpdateTime, transactionsByUpdateTime);
+            return ROWS;
+        });
+    }
+
+    @Override
+    public HmilyTransaction findByTransId(final Long transId) {
+        return withTransLock(transId, () -> {
+            HmilyTransaction record = transactions.get(transId);
+            return Objects.isNull(record) ? null : HmilyRecordCopier.copy(record);
+        });
+    }
+
+    @Override
+    public List<HmilyTransaction> listLimitByDelay(final Date date, final int limit) {
+        return listLimitByDelay(date, limit, null);
+    }
+
+    @Override
+    public List<HmilyTransaction> listLimitByDelay(final Date date, final int limit, final HmilyScanCursor cursor) {
+        HmilyScanCursor after = Optional.ofNullable(cursor).orElseGet(HmilyScanCursor::first);
+        return transactionsByUpdateTime.between(after.getUpdateTime(), after.getId(), date)
+                .map(this::findByTransId)
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public int updateHmilyTransactionStatus(final Long transId, final Integer status) throws HmilyRepositoryException {
+        return withTransLock(transId, () -> {
+            HmilyTransaction record = transactions.get(transId);
+            if (Objects.isNull(record)) {
+                return FAIL_ROWS;
+            }
+            record.setStatus(status);
+            touch(transId, record.getUpdateTime(), record::setUpdateTime, transactionsByUpdateTime);
+            return ROWS;
+        });
+    }
+
+    @Override
+    public int removeHmilyTransaction(final Long transId) {
+        return withTransLock(transId, () -> {
+            HmilyTransaction record = transactions.remove(transId);
+            if (Objects.isNull(record)) {
+                return FAIL_ROWS;
+            }
+            transactionsByUpdateTime.remove(record.getUpdateTime(), transId);
+            return ROWS;
+        });
+    }
+
+    @Override
+    public int removeHmilyTransactionByDate(final Date date) {
+        List<Long> transIds = transactionsByUpdateTime.before(date).collect(Collectors.toList());
+        int rows = 0;
+        for (Long each : transIds) {
+            rows += withTransLock(each, () -> {
+                HmilyTransaction record = transactions.get(each);
+                if (Objects.isNull(record) || !date.after(record.getUpdateTime()) || record.getStatus() != HmilyActionEnum.DELETE.getCode()) {
+                    return FAIL_ROWS;
+                }
+                transactions.remove(each);
+                transactionsByUpdateTime.remove(record.getUpdateTime(), each);
+                return ROWS;
+            });
+        }
+        return rows;
+    }
+
+    @Override
+    public int removeHmilyTransactionWithoutParticipant(final Date date, final int limit) {
+        // the clean runs on a fixed delay, the rows beyond the limit are left to its next pass.
+        Iterator<Long> transIds = transactionsByUpdateTime.before(date).iterator();
+        int rows = 0;
+        while (rows < limit && transIds.hasNext()) {
+            Long each = transIds.next();
+            rows += withTransLock(each, () -> {
+                HmilyTransaction record = transactions.get(each);
+                if (Objects.isNull(record) || !date.after(record.getUpdateTime()) || !participantsByTransId.get(each).isEmpty()) {
+                    return FAIL_ROWS;
+                }
+                transactions.remove(each);
+                transactionsByUpdateTime.remove(record.getUpdateTime(), each);
+                return ROWS;
+            });
+        }
+        return rows;
+    }
+
+    @Override
+    public int createHmilyParticipant(final HmilyParticipant hmilyParticipant) throws HmilyRepositoryException {
+        HmilyParticipant record = HmilyRecordCopier.copy(hmilyParticipant);
+        record.setAppName(appName);
+        return withTransLock(record.getTransId(), () -> {
+            HmilyParticipant previous = participants.put(record.getParticipantId(), record);
+            if (Objects.nonNull(previous)) {
+                unindex(previous);
+            }
+            participantsByTransId.add(record.getTransId(), record.getParticipantId());
+            participantsByRefId.add(record.getParticipantRefId(), record.getParticipantId());
+            participantsByUpdateTime.add(record.getUpdateTime(), record.getParticipantId());
+            return ROWS;
+        });
+    }
+
+    @Override
+    public List<HmilyParticipant> findHmilyParticipant(final Long participantId) {
+        List<HmilyParticipant> result = new ArrayList<>();
+        findParticipant(participantId).ifPresent(result::add);
+        participantsByRefId.get(participantId).forEach(each -> findParticipant(each).ifPresent(result::add));
+        return result;
+    }
+
+    @Override
+    public List<HmilyParticipant> listHmilyParticipant(final Date date, final String transType, final int limit) {
+        return listHmilyParticipant(date, transType, limit, null);
+    }
+
+    @Override
+    public List<HmilyParticipant> listHmilyParticipant(final Date date, final String transType, final int limit, final HmilyScanCursor cursor) {
+        HmilyScanCursor after = Optional.ofNullable(cursor).orElseGet(HmilyScanCursor::first);
+        Date now = new Date();
+        return participantsByUpdateTime.between(after.getUpdateTime(), after.getId(), date)
+                .map(this::findParticipant)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .filter(each -> Objects.equals(transType, each.getTransType()) && isLive(each.getStatus()) && each.dueForRetry(now))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<HmilyParticipant> listHmilyParticipantByTransId(final Long transId) {
+        return withTransLock(transId, () -> participantsByTransId.get(transId).stream()
+                .map(participants::get)
+                .filter(Objects::nonNull)
+                .map(HmilyRecordCopier::copy)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public boolean existHmilyParticipantByTransId(final Long transId) {
+        return !participantsByTransId.get(transId).isEmpty();
+    }
+
+    @Override
+    public int updateHmilyParticipantStatus(final Long participantId, final Integer status) throws HmilyRepositoryException {
+        return withParticipant(participantId, record -> {
+            record.setStatus(status);
+            touch(participantId, record.getUpdateTime(), record::setUpdateTime, participantsByUpdateTime);
+            return ROWS;
+        });
+    }
+
+    @Override
+    public int removeHmilyParticipant(final Long participantId) {
+        return withParticipant(participantId, record -> {
+            participants.remove(participantId);
+            unindex(record);
+            return ROWS;
+        });
+    }
+
+    @Override
+    public int removeHmilyParticipantByDate(final Date date) {
+        List<Long> participantIds = participantsByUpdateTime.before(date).collect(Collectors.toList());
+        int rows = 0;
+        for (Long each : participantIds) {
+            rows += withParticipant(each, record -> {
+                if (!date.after(record.getUpdateTime()) || !Objects.equals(HmilyActionEnum.DELETE.getCode(), record.getStatus())) {
+                    return FAIL_ROWS;
+                }
+                participants.remove(each);
+                unindex(record);
+                return ROWS;
+            });
+        }
+        return rows;
+    }
+
+    @Override
+    public boolean lockHmilyParticipant(final HmilyParticipant hmilyParticipant) {
+        Integer currentVersion = hmilyParticipant.getVersion();
+        hmilyParticipant.setVersion(hmilyParticipant.getVersion() + 1);
+        hmilyParticipant.setRetry(hmilyParticipant.getRetry() + 1);
+        return withParticipant(hmilyParticipant.getParticipantId(), record -> {
+            if (!Objects.equals(record.getVersion(), currentVersion)) {
+                return FAIL_ROWS;
+            }
+            record.setVersion(hmilyParticipant.getVersion());
+            record.setRetry(hmilyParticipant.getRetry());
+            record.setNextRetryTime(hmilyParticipant.getNextRetryTime());
+            return ROWS;
+        }) > 0;
+    }
+
+    @Override
+    public int createHmilyParticipantUndo(final HmilyParticipantUndo hmilyParticipantUndo) {
+        HmilyParticipantUndo record = HmilyRecordCopier.copy(hmilyParticipantUndo);
+        return withTransLock(record.getTransId(), () -> {
+            HmilyParticipantUndo previous = undos.put(record.getUndoId(), record);
+            if (Objects.nonNull(previous)) {
+                unindex(previous);
+            }
+            undosByParticipantId.add(record.getParticipantId(), record.getUndoId());
+            undosByUpdateTime.add(record.getUpdateTime(), record.getUndoId());
+            return ROWS;
+        });
+    }
+
+    @Override
+    public List<HmilyParticipantUndo> findHmilyParticipantUndoByParticipantId(final Long participantId) {
+        List<HmilyParticipantUndo> result = new ArrayList<>();
+        for (Long each : undosByParticipantId.get(participantId)) {
+            withUndo(each, record -> {
+                result.add(HmilyRecordCopier.copy(record));
+                return ROWS;
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public int removeHmilyParticipantUndo(final Long undoId) {
+        return withUndo(undoId, record -> {
+            undos.remove(undoId);
+            unindex(record);
+            return ROWS;
+        });
+    }
+
+    @Override
+    public int removeHmilyParticipantUndoByDate(final Date date) {
+        List<Long> undoIds = undosByUpdateTime.before(date).collect(Collectors.toList());
+        int rows = 0;
+        for (Long each : undoIds) {
+            rows += withUndo(each, record -> {
+                if (!date.after(record.getUpdateTime()) || !Objects.equals(HmilyActionEnum.DELETE.getCode(), record.getStatus())) {
+                    return FAIL_ROWS;
+                }
+                undos.remove(each);
+                unindex(record);
+                return ROWS;
+            });
+        }
+        return rows;
+    }
+
+    @Override
+    public int updateHmilyParticipantUndoStatus(final Long undoId, final Integer status) {
+        return withUndo(undoId, record -> {
+            record.setStatus(status);
+            touch(undoId, record.getUpdateTime(), record::setUpdateTime, undosByUpdateTime);
+            return ROWS;
+        });
+    }
+
+    /**
+     * Write all the locks or none of them.
+     * The stripes of every lock id are taken in a fixed order before any check, so two writers of overlapping lock sets can not deadlock
+     * and a concurrent reader never observes half of a lock set.
+     *
+     * @param hmilyLocks the hmily locks
+     * @return the locks size, or {@link #FAIL_ROWS} if any lock is already held
+     */
+    @Override
+    public int writeHmilyLocks(final Collection<HmilyLock> hmilyLocks) {
+        List<HmilyLockKey> lockKeys = hmilyLocks.stream().map(HmilyLock::getLockKey).collect(Collectors.toList());
+        return withLockIdLocks(lockKeys, () -> {
+            if (lockKeys.stream().anyMatch(locks::containsKey)) {
+                return FAIL_ROWS;
+            }
+            hmilyLocks.forEach(each -> locks.put(each.getLockKey(), each));
+            return hmilyLocks.size();
+        });
+    }
+
+    @Override
+    public int releaseHmilyLocks(final Collection<HmilyLock> hmilyLocks) {
+        List<HmilyLockKey> lockKeys = hmilyLocks.stream().map(HmilyLock::getLockKey).collect(Collectors.toList());
+        return withLockIdLocks(lockKeys, () -> (int) lockKeys.stream().filter(each -> Objects.nonNull(locks.remove(each))).count());
+    }
+
+    @Override
+    public Optional<HmilyLock> findHmilyLockById(final String lockId) {
+        return Optional.ofNullable(locks.get(HmilyLockKey.of(lockId)));
+    }
+    
+    @Override
+    public Optional<HmilyLock> findHmilyLock(final HmilyLock hmilyLock) {
+        return Optional.ofNullable(locks.get(hmilyLock.getLockKey()));
+    }
+
+    @Override
+    public int heartbeatRecoveryMember(final String memberId, final Date expireTime) {
+        recoveryMembers.put(memberId, expireTime);
+        return ROWS;
+    }
+
+    @Override
+    public boolean isRecoveryPartitionSupported() {
+        return true;
+    }
+
+    @Override
+    public List<String> listRecoveryMembers(final Date date) {
+        recoveryMembers.values().removeIf(each -> !each.after(date));
+        return new ArrayList<>(recoveryMembers.keySet());
+    }
+
+    @Override
+    public List<HmilyXaRecovery> queryByTmUnique(final String tmUnique, final Integer state) {
+        Queue<HmilyXaRecovery> recoveries = xaRecoveries.get(tmUnique);
+        if (Objects.isNull(recoveries)) {
+            return new ArrayList<>();
+        }
+        return recoveries.stream().filter(each -> Objects.equals(state, each.getState())).collect(Collectors.toList());
+    }
+
+    @Override
+    public void addLog(final HmilyXaRecovery log) {
+        xaRecoveries.computeIfAbsent(log.getTmUnique(), key -> new ConcurrentLinkedQueue<>()).add(log);
+    }
+
+    private Optional<HmilyParticipant> findParticipant(final Long participantId) {
+        List<HmilyParticipant> result = new ArrayList<>(1);
+        withParticipant(participantId, record -> {
+            result.add(HmilyRecordCopier.copy(record));
+            return ROWS;
+        });
+        return result.stream().findFirst();
+    }
+
+    private int withParticipant(final Long participantId, final Function<HmilyParticipant, Integer> function) {
+        HmilyParticipant current = participants.get(participantId);
+        if (Objects.isNull(current)) {
+            return FAIL_ROWS;
+        }
+        return withTransLock(current.getTransId(), () -> {
+            HmilyParticipant record = participants.get(participantId);
+            return Objects.isNull(record) ? FAIL_ROWS : function.apply(record);
+        });
+    }
+
+    private int withUndo(final Long undoId, final Function<HmilyParticipantUndo, Integer> function) {
+        HmilyParticipantUndo current = undos.get(undoId);
+        if (Objects.isNull(current)) {
+            return FAIL_ROWS;
+        }
+        return withTransLock(current.getTransId(), () -> {
+            HmilyParticipantUndo record = undos.get(undoId);
+            return Objects.isNull(record) ? FAIL_ROWS : function.apply(record);
+        });
+    }
+
+    private void unindex(final HmilyParticipant record) {
+        participantsByTransId.remove(record.getTransId(), record.getParticipantId());
+        participantsByRefId.remove(record.getParticipantRefId(), record.getParticipantId());
+        participantsByUpdateTime.remove(record.getUpdateTime(), record.getParticipantId());
+    }
+
+    private void unindex(final HmilyParticipantUndo record) {
+        undosByParticipantId.remove(record.getParticipantId(), record.getUndoId());
+        undosByUpdateTime.remove(record.getUpdateTime(), record.getUndoId());
+    }
+
+    private static void touch(final Long id, final Date updateTime, final Consumer<Date> setter, final UpdateTimeIndex index) {
+        Date now = new Date();
+        index.remove(updateTime, id);
+        setter.accept(now);
+        index.add(now, id);
+    }
+
+    private <T> T withTransLock(final Long transId, final Supplier<T> supplier) {
+        Lock lock = transLocks.get(transId);
+        lock.lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> T withLockIdLocks(final List<HmilyLockKey> lockKeys, final Supplier<T> supplier) {
+        Iterable<Lock> stripes = lockIdLocks.bulkGet(lockKeys);
+        List<Lock> acquired = new ArrayList<>();
+        try {
+            for (Lock each : stripes) {
+                each.lock();
+                acquired.add(each);
+            }
+            return supplier.get();
+        } finally {
+            for (int i = acquired.size() - 1; i >= 0; i--) {
+                acquired.get(i).unlock();
+            }
+        }
+    }
+
+    private static boolean isLive(final Integer status) {
+        return !Objects.equals(HmilyActionEnum.DELETE.getCode(), status) && !Objects.equals(HmilyActionEnum.DEATH.getCode(), status);
+    }
+}
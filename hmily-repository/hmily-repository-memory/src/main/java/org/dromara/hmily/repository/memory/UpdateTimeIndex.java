@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.repository.memory;
+
+import java.util.Date;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Index of record ids ordered by update time, used by the delay scans and the date based cleanups.
+ *
+ * @author xiaoyu
+ */
+final class UpdateTimeIndex {
+
+    private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>();
+
+    /**
+     * Add id at update time.
+     *
+     * @param updateTime the update time
+     * @param id         the id
+     */
+    void add(final Date updateTime, final Long id) {
+        entries.add(new Entry(millis(updateTime), id));
+    }
+
+    /**
+     * Remove id at update time.
+     *
+     * @param updateTime the update time
+     * @param id         the id
+     */
+    void remove(final Date updateTime, final Long id) {
+        entries.remove(new Entry(millis(updateTime), id));
+    }
+
+    /**
+     * Ids updated strictly before date, oldest first.
+     *
+     * @param date the date
+     * @return the ids
+     */
+    Stream<Long> before(final Date date) {
+        return entries.headSet(new Entry(date.getTime(), Long.MIN_VALUE), false).stream().map(each -> each.id);
+    }
+
+    /**
+     * Ids updated strictly before date and strictly after (afterTime, afterId), oldest first.
+     *
+     * @param afterTime the update time of the cursor
+     * @param afterId   the id of the cursor
+     * @param date      the date
+     * @return the ids
+     */
+    Stream<Long> between(final Date afterTime, final Long afterId, final Date date) {
+        Entry from = new Entry(millis(afterTime), afterId);
+        Entry to = new Entry(date.getTime(), Long.MIN_VALUE);
+        if (from.compareTo(to) >= 0) {
+            return Stream.empty();
+        }
+        return entries.subSet(from, false, to, false).stream().map(each -> each.id);
+    }
+
+    private static long millis(final Date updateTime) {
+        return Objects.isNull(updateTime) ? 0L : updateTime.getTime();
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+
+        private final long time;
+
+        private final long id;
+
+        Entry(final long time, final long id) {
+            this.time = time;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(final Entry other) {
+            int result = Long.compare(time, other.time);
+            return result != 0 ? result : Long.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Entry && compareTo((Entry) obj) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(time) * 31 + Long.hashCode(id);
+        }
+    }
+}
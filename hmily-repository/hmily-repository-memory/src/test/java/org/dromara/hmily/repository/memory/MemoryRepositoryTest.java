@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.repository.memory;
+
+import org.dromara.hmily.common.enums.HmilyActionEnum;
+import org.dromara.hmily.repository.spi.HmilyRepository;
+import org.dromara.hmily.repository.spi.entity.HmilyInvocation;
+import org.dromara.hmily.repository.spi.entity.HmilyLock;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
+import org.dromara.hmily.repository.spi.entity.HmilyRecoveryPartition;
+import org.dromara.hmily.repository.spi.entity.HmilyScanCursor;
+import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The memory repository test.
+ *
+ * @author xiaoyu
+ */
+public final class MemoryRepositoryTest {
+    
+    private final MemoryRepository memoryRepository = new MemoryRepository();
+    
+    @Before
+    public void setUp() {
+        memoryRepository.init("test");
+    }
+    
+    @Test
+    public void assertLockHmilyParticipantByVersion() {
+        memoryRepository.createHmilyParticipant(buildParticipant(1L, 2L));
+        HmilyParticipant first = memoryRepository.findHmilyParticipant(2L).get(0);
+        HmilyParticipant second = memoryRepository.findHmilyParticipant(2L).get(0);
+        assertTrue(memoryRepository.lockHmilyParticipant(first));
+        assertFalse(memoryRepository.lockHmilyParticipant(second));
+        assertEquals(first.getVersion(), memoryRepository.findHmilyParticipant(2L).get(0).getVersion());
+    }
+    
+    @Test
+    public void assertWriteHmilyLocksAllOrNone() {
+        HmilyLock held = new HmilyLock(1L, 2L, "ds", "order", "1");
+        HmilyLock free = new HmilyLock(3L, 4L, "ds", "order", "2");
+        assertEquals(1, memoryRepository.writeHmilyLocks(Collections.singletonList(held)));
+        assertEquals(HmilyRepository.FAIL_ROWS, memoryRepository.writeHmilyLocks(Arrays.asList(free, held)));
+        assertFalse(memoryRepository.findHmilyLockById(free.getLockId()).isPresent());
+        assertEquals(1, memoryRepository.releaseHmilyLocks(Collections.singletonList(held)));
+        assertEquals(2, memoryRepository.writeHmilyLocks(Arrays.asList(free, held)));
+    }
+    
+    @Test
+    public void assertIndexesFollowUpdates() {
+        memoryRepository.createHmilyTransaction(new HmilyTransaction(1L));
+        memoryRepository.createHmilyParticipant(buildParticipant(1L, 2L));
+        HmilyParticipant child = buildParticipant(1L, 3L);
+        child.setParticipantRefId(2L);
+        memoryRepository.createHmilyParticipant(child);
+        assertEquals(2, memoryRepository.listHmilyParticipantByTransId(1L).size());
+        assertEquals(2, memoryRepository.findHmilyParticipant(2L).size());
+        Date future = new Date(System.currentTimeMillis() + 60000);
+        assertEquals(2, memoryRepository.listHmilyParticipant(future, "TCC", 10).size());
+        memoryRepository.updateHmilyParticipantStatus(3L, HmilyActionEnum.DELETE.getCode());
+        assertEquals(1, memoryRepository.listHmilyParticipant(future, "TCC", 10).size());
+        assertEquals(1, memoryRepository.removeHmilyParticipantByDate(future));
+        assertEquals(1, memoryRepository.findHmilyParticipant(2L).size());
+        assertEquals(1, memoryRepository.listLimitByDelay(future, 10).size());
+    }
+    
+    @Test
+    public void assertListHmilyParticipantResumesAfterCursor() {
+        Date updateTime = new Date(System.currentTimeMillis() - 60000);
+        for (long participantId = 1L; participantId <= 5L; participantId++) {
+            HmilyParticipant hmilyParticipant = buildParticipant(participantId, participantId);
+            hmilyParticipant.setUpdateTime(updateTime);
+            memoryRepository.createHmilyParticipant(hmilyParticipant);
+        }
+        Date now = new Date();
+        List<HmilyParticipant> first = memoryRepository.listHmilyParticipant(now, "TCC", 2, null);
+        assertEquals(Arrays.asList(1L, 2L), first.stream().map(HmilyParticipant::getParticipantId).collect(Collectors.toList()));
+        List<HmilyParticipant> second = memoryRepository.listHmilyParticipant(now, "TCC", 2, HmilyScanCursor.of(first.get(1)));
+        assertEquals(Arrays.asList(3L, 4L), second.stream().map(HmilyParticipant::getParticipantId).collect(Collectors.toList()));
+        assertEquals(1, memoryRepository.listHmilyParticipant(now, "TCC", 2, HmilyScanCursor.of(second.get(1))).size());
+    }
+    
+    @Test
+    public void assertRecoveryMembersAndPartition() {
+        assertTrue(memoryRepository.isRecoveryPartitionSupported());
+        Date now = new Date();
+        memoryRepository.heartbeatRecoveryMember("alive", new Date(now.getTime() + 60000));
+        memoryRepository.heartbeatRecoveryMember("expired", new Date(now.getTime() - 1));
+        assertEquals(Collections.singletonList("alive"), memoryRepository.listRecoveryMembers(now));
+        for (long participantId = 1L; participantId <= 6L; participantId++) {
+            HmilyParticipant hmilyParticipant = buildParticipant(participantId, participantId);
+            hmilyParticipant.setUpdateTime(new Date(now.getTime() - 60000));
+            memoryRepository.createHmilyParticipant(hmilyParticipant);
+        }
+        List<HmilyParticipant> owned = memoryRepository.listHmilyParticipant(now, "TCC", 2, null, new HmilyRecoveryPartition(1, 3));
+        assertEquals(Arrays.asList(1L, 4L), owned.stream().map(HmilyParticipant::getParticipantId).collect(Collectors.toList()));
+    }
+    
+    @Test
+    public void assertListHmilyParticipantSkipsBackedOff() {
+        Date now = new Date();
+        for (long participantId = 1L; participantId <= 2L; participantId++) {
+            HmilyParticipant hmilyParticipant = buildParticipant(participantId, participantId);
+            hmilyParticipant.setUpdateTime(new Date(now.getTime() - 60000));
+            memoryRepository.createHmilyParticipant(hmilyParticipant);
+        }
+        HmilyParticipant failing = memoryRepository.findHmilyParticipant(1L).get(0);
+        failing.setNextRetryTime(new Date(now.getTime() + 60000));
+        assertTrue(memoryRepository.lockHmilyParticipant(failing));
+        List<HmilyParticipant> due = memoryRepository.listHmilyParticipant(new Date(), "TCC", 2, null);
+        assertEquals(Collections.singletonList(2L), due.stream().map(HmilyParticipant::getParticipantId).collect(Collectors.toList()));
+    }
+    
+    @Test
+    public void assertRemoveHmilyTransactionWithoutParticipant() {
+        memoryRepository.createHmilyTransaction(new HmilyTransaction(1L));
+        memoryRepository.createHmilyTransaction(new HmilyTransaction(2L));
+        memoryRepository.createHmilyParticipant(buildParticipant(2L, 3L));
+        assertEquals(1, memoryRepository.removeHmilyTransactionWithoutParticipant(new Date(System.currentTimeMillis() + 1000), 1));
+        assertNull(memoryRepository.findByTransId(1L));
+        assertEquals(1, memoryRepository.findByTransIds(Arrays.asList(1L, 2L)).size());
+    }
+    
+    @Test
+    public void assertRemoveHmilyTransactionWithoutParticipantStopsAtLimit() {
+        memoryRepository.createHmilyTransaction(new HmilyTransaction(1L));
+        memoryRepository.createHmilyTransaction(new HmilyTransaction(2L));
+        memoryRepository.createHmilyTransaction(new HmilyTransaction(3L));
+        Date date = new Date(System.currentTimeMillis() + 1000);
+        assertEquals(2, memoryRepository.removeHmilyTransactionWithoutParticipant(date, 2));
+        assertEquals(1, memoryRepository.findByTransIds(Arrays.asList(1L, 2L, 3L)).size());
+        assertEquals(1, memoryRepository.removeHmilyTransactionWithoutParticipant(date, 2));
+    }
+    
+    @Test
+    public void assertRecordsAreDeepCopied() {
+        HmilyParticipant hmilyParticipant = buildParticipant(1L, 2L);
+        hmilyParticipant.setConfirmHmilyInvocation(new HmilyInvocation(Object.class, "confirm", new Class[]{String.class}, new Object[]{"first"}));
+        memoryRepository.createHmilyParticipant(hmilyParticipant);
+        hmilyParticipant.getConfirmHmilyInvocation().getArgs()[0] = "second";
+        hmilyParticipant.getUpdateTime().setTime(0L);
+        HmilyParticipant found = memoryRepository.findHmilyParticipant(2L).get(0);
+        assertEquals("first", found.getConfirmHmilyInvocation().getArgs()[0]);
+        assertNotEquals(0L, found.getUpdateTime().getTime());
+        found.getConfirmHmilyInvocation().getArgs()[0] = "third";
+        assertEquals("first", memoryRepository.findHmilyParticipant(2L).get(0).getConfirmHmilyInvocation().getArgs()[0]);
+    }
+    
+    private HmilyParticipant buildParticipant(final Long transId, final Long participantId) {
+        HmilyParticipant hmilyParticipant = new HmilyParticipant();
+        hmilyParticipant.setTransId(transId);
+        hmilyParticipant.setParticipantId(participantId);
+        hmilyParticipant.setTransType("TCC");
+        hmilyParticipant.setStatus(HmilyActionEnum.TRYING.getCode());
+        return hmilyParticipant;
+    }
+}
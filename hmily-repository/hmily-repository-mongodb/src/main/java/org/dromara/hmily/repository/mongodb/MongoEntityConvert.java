@@ -67,6 +67,8 @@ public class MongoEntityConvert {
             logger.error("mongo 存储序列化错误", e);
         }
         hmilyParticipant.setVersion(mongoEntity.getVersion());
+        hmilyParticipant.setUpdateTime(mongoEntity.getUpdateTime());
+        hmilyParticipant.setNextRetryTime(mongoEntity.getNextRetryTime());
         return hmilyParticipant;
     }
 
@@ -83,6 +85,7 @@ public class MongoEntityConvert {
         hmilyTransaction.setAppName(entity.getAppName());
         hmilyTransaction.setRetry(entity.getRetry());
         hmilyTransaction.setVersion(entity.getVersion());
+        hmilyTransaction.setUpdateTime(entity.getUpdateTime());
         return hmilyTransaction;
     }
 
@@ -151,6 +154,7 @@ public class MongoEntityConvert {
         entity.setTransId(hmilyParticipant.getTransId());
         entity.setTransType(hmilyParticipant.getTransType());
         entity.setUpdateTime(hmilyParticipant.getUpdateTime());
+        entity.setNextRetryTime(hmilyParticipant.getNextRetryTime());
         entity.setVersion(hmilyParticipant.getVersion());
         return entity;
     }
@@ -21,6 +21,7 @@ import com.google.common.collect.Lists;
 import com.mongodb.MongoCredential;
 import com.mongodb.ServerAddress;
 import org.apache.commons.lang3.tuple.Pair;
+import org.dromara.hmily.config.api.Config;
 import org.dromara.hmily.config.api.ConfigEnv;
 import org.dromara.hmily.config.api.entity.HmilyMongoConfig;
 import org.dromara.hmily.repository.mongodb.entity.LockMongoEntity;
@@ -31,12 +32,14 @@ import org.dromara.hmily.repository.spi.HmilyRepository;
 import org.dromara.hmily.repository.spi.entity.HmilyLock;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.entity.HmilyScanCursor;
 import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
 import org.dromara.hmily.repository.spi.exception.HmilyRepositoryException;
 import org.dromara.hmily.serializer.spi.HmilySerializer;
 import org.dromara.hmily.spi.HmilySPI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoClientFactoryBean;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -68,8 +71,13 @@ public class MongodbRepository implements HmilyRepository {
 
     @Override
     public void init(final String appName) {
+        init(appName, ConfigEnv.getInstance().getConfig(HmilyMongoConfig.class));
+    }
+
+    @Override
+    public void init(final String appName, final Config config) {
         this.appName = appName;
-        HmilyMongoConfig hmilyMongoConfig = ConfigEnv.getInstance().getConfig(HmilyMongoConfig.class);
+        HmilyMongoConfig hmilyMongoConfig = (HmilyMongoConfig) config;
         MongoClientFactoryBean clientFactoryBean = buildMongoClientFactoryBean(hmilyMongoConfig);
         try {
             clientFactoryBean.afterPropertiesSet();
@@ -124,6 +132,12 @@ public class MongodbRepository implements HmilyRepository {
                 .stream().map(converter::convert).findFirst().orElse(null);
     }
     
+    @Override
+    public List<HmilyTransaction> findByTransIds(final Collection<Long> transIds) {
+        return service.find(TransactionMongoEntity.class, Criteria.where("trans_id").in(transIds))
+                .stream().map(converter::convert).collect(Collectors.toList());
+    }
+    
     @Override
     public List<HmilyTransaction> listLimitByDelay(final Date date, final int limit) {
         return service.find(TransactionMongoEntity.class,
@@ -133,6 +147,16 @@ public class MongodbRepository implements HmilyRepository {
                 .collect(Collectors.toList());
     }
     
+    @Override
+    public List<HmilyTransaction> listLimitByDelay(final Date date, final int limit, final HmilyScanCursor cursor) {
+        HmilyScanCursor after = Optional.ofNullable(cursor).orElseGet(HmilyScanCursor::first);
+        return service.find(TransactionMongoEntity.class,
+                new Criteria().andOperator(Criteria.where("update_time").lt(date).and("app_name").is(appName), afterCursor("trans_id", after)),
+                limit, Sort.by("update_time", "trans_id"))
+                .stream().filter(Objects::nonNull).map(converter::convert)
+                .collect(Collectors.toList());
+    }
+    
     @Override
     public int updateHmilyTransactionStatus(final Long transId, final Integer status) throws HmilyRepositoryException {
         return service.update(TransactionMongoEntity.class,
@@ -176,11 +200,31 @@ public class MongodbRepository implements HmilyRepository {
                 Criteria.where("update_time").lt(date)
                     .and("app_name").is(appName)
                     .and("trans_type").is(transType)
-                    .and("status").nin(4, 8), limit)
+                    .and("status").nin(4, 8)
+                    .and("next_retry_time").not().gt(new Date()), limit)
                 .stream().filter(Objects::nonNull).map(converter::convert)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<HmilyParticipant> listHmilyParticipant(final Date date, final String transType, final int limit, final HmilyScanCursor cursor) {
+        HmilyScanCursor after = Optional.ofNullable(cursor).orElseGet(HmilyScanCursor::first);
+        return service.find(ParticipantMongoEntity.class,
+                new Criteria().andOperator(Criteria.where("update_time").lt(date)
+                    .and("app_name").is(appName)
+                    .and("trans_type").is(transType)
+                    .and("status").nin(4, 8)
+                    .and("next_retry_time").not().gt(new Date()), afterCursor("participant_id", after)),
+                limit, Sort.by("update_time", "participant_id"))
+                .stream().filter(Objects::nonNull).map(converter::convert)
+                .collect(Collectors.toList());
+    }
+    
+    private Criteria afterCursor(final String idField, final HmilyScanCursor cursor) {
+        return new Criteria().orOperator(Criteria.where("update_time").gt(cursor.getUpdateTime()),
+                Criteria.where("update_time").is(cursor.getUpdateTime()).and(idField).gt(cursor.getId()));
+    }
+
     @Override
     public List<HmilyParticipant> listHmilyParticipantByTransId(final Long transId) {
         return service.find(ParticipantMongoEntity.class,
@@ -205,6 +249,12 @@ public class MongodbRepository implements HmilyRepository {
                 .stream().map(converter::convert).collect(Collectors.toList());
     }
 
+    @Override
+    public List<HmilyParticipantUndo> findHmilyParticipantUndoByParticipantIds(final Collection<Long> participantIds) {
+        return service.find(UndoMongoEntity.class, Criteria.where("participant_id").in(participantIds))
+                .stream().map(converter::convert).collect(Collectors.toList());
+    }
+
     @Override
     public int updateHmilyParticipantUndoStatus(final Long undoId, final Integer status) {
         return service.update(UndoMongoEntity.class, Criteria.where("undo_id").is(undoId), set("status", status));
@@ -260,7 +310,8 @@ public class MongodbRepository implements HmilyRepository {
                 Criteria.where("participant_id").is(hmilyParticipant.getParticipantId())
                 .and("version").is(hmilyParticipant.getVersion()),
                 set("version", hmilyParticipant.getVersion() + 1),
-                set("retry", hmilyParticipant.getRetry() + 1)) > 0;
+                set("retry", hmilyParticipant.getRetry() + 1),
+                set("next_retry_time", Optional.ofNullable(hmilyParticipant.getNextRetryTime()).orElseGet(Date::new))) > 0;
     }
 
     @Override
@@ -5,6 +5,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.dromara.hmily.repository.spi.HmilyRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.MongoDbFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.convert.MongoConverter;
@@ -92,6 +93,21 @@ public class MongodbTemplateService extends MongoTemplate {
         return find(query, c);
     }
 
+    /**
+     * sorted query.
+     * @param c type.
+     * @param conditions where conditions.
+     * @param limit records number.
+     * @param sort sort order.
+     * @param <T> result Type.
+     * @return result list.
+     */
+    public <T> List<T> find(final Class<T> c, final Criteria conditions, final int limit, final Sort sort) {
+        Query query = new Query();
+        query.addCriteria(conditions).with(sort).limit(limit);
+        return find(query, c);
+    }
+
     /**
      * records count.
      * @param c type.
@@ -43,6 +43,10 @@ public class ParticipantMongoEntity {
     @Field("update_time")
     private Date updateTime;
 
+    @Field("next_retry_time")
+    @Indexed
+    private Date nextRetryTime;
+
     @Field("participant_id")
     private Long participantId;
 
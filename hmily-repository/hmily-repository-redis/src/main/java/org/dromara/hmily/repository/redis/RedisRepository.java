@@ -20,8 +20,10 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
 import org.dromara.hmily.common.enums.HmilyActionEnum;
 import org.dromara.hmily.common.exception.HmilyException;
+import org.dromara.hmily.common.utils.CollectionUtils;
 import org.dromara.hmily.common.utils.LogUtil;
 import org.dromara.hmily.common.utils.StringUtils;
+import org.dromara.hmily.config.api.Config;
 import org.dromara.hmily.config.api.ConfigEnv;
 import org.dromara.hmily.config.api.entity.HmilyRedisConfig;
 import org.dromara.hmily.repository.redis.jedis.JedisClient;
@@ -32,6 +34,7 @@ import org.dromara.hmily.repository.spi.HmilyRepository;
 import org.dromara.hmily.repository.spi.entity.HmilyLock;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.entity.HmilyScanCursor;
 import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
 import org.dromara.hmily.repository.spi.exception.HmilyRepositoryException;
 import org.dromara.hmily.serializer.spi.HmilySerializer;
@@ -45,6 +48,7 @@ import redis.clients.jedis.JedisPoolConfig;
 import redis.clients.jedis.JedisSentinelPool;
 import redis.clients.jedis.exceptions.JedisException;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -56,6 +60,8 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -75,6 +81,8 @@ public class RedisRepository implements HmilyRepository {
     private static final String HMILY_PARTICIPANT_UNDO = "hmily_participant_undo";
 
     private static final String HMILY_LOCK_GLOBAL = "hmily_lock_global";
+    
+    private static final String UPDATE_TIME_INDEX = "update_time";
 
     private String rootPathPrefix = "hmily";
     
@@ -88,14 +96,22 @@ public class RedisRepository implements HmilyRepository {
     
     @Override
     public void init(final String appName) {
+        init(appName, ConfigEnv.getInstance().getConfig(HmilyRedisConfig.class));
+    }
+    
+    @Override
+    public void init(final String appName, final Config config) {
         this.appName = appName;
-        HmilyRedisConfig hmilyRedisConfig = ConfigEnv.getInstance().getConfig(HmilyRedisConfig.class);
+        HmilyRedisConfig hmilyRedisConfig = (HmilyRedisConfig) config;
         try {
             buildJedisPool(hmilyRedisConfig);
         } catch (Exception e) {
             LOGGER.error("redis init error please check you config:{}", e.getMessage());
             throw new HmilyRepositoryException(e);
         }
+        if (Objects.nonNull(hmilySerializer)) {
+            rebuildIndex();
+        }
     }
     
     @Override
@@ -117,6 +133,7 @@ public class RedisRepository implements HmilyRepository {
             }
             hmilyTransaction.setUpdateTime(new Date());
             jedisClient.hset(HMILY_TRANSACTION_GLOBAL.getBytes(), transId.getBytes(), hmilySerializer.serialize(hmilyTransaction));
+            indexHmilyTransaction(hmilyTransaction);
             return HmilyRepository.ROWS;
         } catch (JedisException e) {
             throw new HmilyException(e);
@@ -134,6 +151,7 @@ public class RedisRepository implements HmilyRepository {
                 hmilyTransaction.setVersion(hmilyTransaction.getVersion() + 1);
                 hmilyTransaction.setUpdateTime(new Date());
                 jedisClient.hset(HMILY_TRANSACTION_GLOBAL.getBytes(), transId.getBytes(), hmilySerializer.serialize(hmilyTransaction));
+                indexHmilyTransaction(hmilyTransaction);
             }
             return HmilyRepository.ROWS;
         } catch (JedisException e) {
@@ -176,6 +194,13 @@ public class RedisRepository implements HmilyRepository {
         }, date, limit);
     }
     
+    @Override
+    public List<HmilyTransaction> listLimitByDelay(final Date date, final int limit, final HmilyScanCursor cursor) {
+        return listByIndex(buildHmilyTransactionIndex(), HMILY_TRANSACTION_GLOBAL.getBytes(),
+            transId -> buildHmilyTransactionRealPath(transId).getBytes(), HmilyTransaction.class, HmilyTransaction::getUpdateTime, HmilyTransaction::getTransId,
+            hmilyTransaction -> appName.equals(hmilyTransaction.getAppName()), date, cursor, limit);
+    }
+    
     private <T> List<T> listByFilter(final String key, final Class<T> deserializeClass, final Filter<T> filter, final Object... params) {
         try {
             Map<byte[], byte[]> dataAll = jedisClient.hgetAll(key.getBytes());
@@ -213,6 +238,7 @@ public class RedisRepository implements HmilyRepository {
             hmilyTransaction.setVersion(hmilyTransaction.getVersion() + 1);
             hmilyTransaction.setUpdateTime(new Date());
             jedisClient.hset(HMILY_TRANSACTION_GLOBAL.getBytes(), key, hmilySerializer.serialize(hmilyTransaction));
+            indexHmilyTransaction(hmilyTransaction);
             return HmilyRepository.ROWS;
         } catch (JedisException e) {
             LOGGER.error("updateHmilyTransactionStatus occur a exception", e);
@@ -225,6 +251,7 @@ public class RedisRepository implements HmilyRepository {
         String key = buildHmilyTransactionRealPath(transId);
         try {
             jedisClient.hdel(HMILY_TRANSACTION_GLOBAL, key);
+            jedisClient.zrem(buildHmilyTransactionIndex().getBytes(), buildIndexMember(transId));
             return HmilyRepository.ROWS;
         } catch (JedisException e) {
             LOGGER.error("removeHmilyTransaction occur a exception", e);
@@ -255,6 +282,7 @@ public class RedisRepository implements HmilyRepository {
             }
             hmilyParticipant.setUpdateTime(new Date());
             jedisClient.hset(HMILY_TRANSACTION_PARTICIPANT.getBytes(), String.valueOf(hmilyParticipant.getParticipantId()).getBytes(), hmilySerializer.serialize(hmilyParticipant));
+            indexHmilyParticipant(hmilyParticipant);
             return HmilyRepository.ROWS;
         } catch (JedisException e) {
             throw new HmilyException(e);
@@ -274,6 +302,7 @@ public class RedisRepository implements HmilyRepository {
     @Override
     public List<HmilyParticipant> listHmilyParticipant(final Date date, final String transType, final int limit) {
         String path = buildHmilyParticipantRootPath();
+        Date now = new Date();
         return listByFilter(path, HmilyParticipant.class, (hmilyParticipant, params) -> {
             Date dateParam = (Date) params[0];
             String transTypeParam = (String) params[1];
@@ -281,12 +310,23 @@ public class RedisRepository implements HmilyRepository {
             boolean filterResult = dateParam.after(hmilyParticipant.getUpdateTime()) && appName.equals(hmilyParticipant.getAppName())
                     && transTypeParam.equals(hmilyParticipant.getTransType())
                     && (hmilyParticipant.getStatus().compareTo(HmilyActionEnum.DELETE.getCode()) != 0 && hmilyParticipant.getStatus().compareTo(HmilyActionEnum.DEATH.getCode()) != 0)
+                    && hmilyParticipant.dueForRetry(now)
                     && limitParam-- > 0;
             params[2] = limitParam;
             return filterResult;
         }, date, transType, limit);
     }
     
+    @Override
+    public List<HmilyParticipant> listHmilyParticipant(final Date date, final String transType, final int limit, final HmilyScanCursor cursor) {
+        Date now = new Date();
+        return listByIndex(buildHmilyParticipantIndex(transType), HMILY_TRANSACTION_PARTICIPANT.getBytes(),
+            participantId -> String.valueOf(participantId).getBytes(), HmilyParticipant.class, HmilyParticipant::getUpdateTime, HmilyParticipant::getParticipantId,
+            hmilyParticipant -> appName.equals(hmilyParticipant.getAppName()) && transType.equals(hmilyParticipant.getTransType())
+                    && (hmilyParticipant.getStatus().compareTo(HmilyActionEnum.DELETE.getCode()) != 0 && hmilyParticipant.getStatus().compareTo(HmilyActionEnum.DEATH.getCode()) != 0)
+                    && hmilyParticipant.dueForRetry(now), date, cursor, limit);
+    }
+    
     @Override
     public List<HmilyParticipant> listHmilyParticipantByTransId(final Long transId) {
         String key = buildHmilyParticipantRootPath();
@@ -315,6 +355,7 @@ public class RedisRepository implements HmilyRepository {
             hmilyParticipant.setVersion(hmilyParticipant.getVersion() + 1);
             hmilyParticipant.setUpdateTime(new Date());
             jedisClient.hset(HMILY_TRANSACTION_PARTICIPANT.getBytes(), String.valueOf(hmilyParticipant.getParticipantId()).getBytes(), hmilySerializer.serialize(hmilyParticipant));
+            indexHmilyParticipant(hmilyParticipant);
             return HmilyRepository.ROWS;
         } catch (JedisException e) {
             LOGGER.error("updateHmilyParticipantStatus occur a exception", e);
@@ -357,6 +398,7 @@ public class RedisRepository implements HmilyRepository {
             hmilyParticipant.setRetry(hmilyParticipant.getRetry() + 1);
             hmilyParticipant.setUpdateTime(new Date());
             jedisClient.hset(HMILY_TRANSACTION_PARTICIPANT.getBytes(), String.valueOf(hmilyParticipant.getParticipantId()).getBytes(), hmilySerializer.serialize(hmilyParticipant));
+            indexHmilyParticipant(hmilyParticipant);
             return true;
         } catch (JedisException e) {
             LOGGER.error("updateRetryByLock occur a exception", e);
@@ -528,6 +570,99 @@ public class RedisRepository implements HmilyRepository {
         return false;
     }
     
+    /**
+     * Walks the update time index from the cursor instead of reading the whole hash, only the rows updated before the date are in the score range.
+     */
+    private <T> List<T> listByIndex(final String index, final byte[] hash, final Function<Long, byte[]> field, final Class<T> deserializeClass,
+                                    final Function<T, Date> updateTime, final Function<T, Long> id, final Predicate<T> filter,
+                                    final Date date, final HmilyScanCursor cursor, final int limit) {
+        HmilyScanCursor after = Objects.isNull(cursor) ? HmilyScanCursor.first() : cursor;
+        List<T> result = new ArrayList<>(limit);
+        int offset = 0;
+        try {
+            while (result.size() < limit) {
+                Set<byte[]> members = jedisClient.zrangeByScore(index.getBytes(), after.getUpdateTime().getTime(), date.getTime() - 1, offset, limit);
+                if (CollectionUtils.isEmpty(members)) {
+                    break;
+                }
+                offset += members.size();
+                for (byte[] member : members) {
+                    Long rowId = parseIndexMember(member);
+                    byte[] data = jedisClient.hget(hash, field.apply(rowId));
+                    if (Objects.isNull(data)) {
+                        // the row is gone, the members after it move one rank down
+                        jedisClient.zrem(index.getBytes(), member);
+                        offset--;
+                        continue;
+                    }
+                    T row = hmilySerializer.deSerialize(data, deserializeClass);
+                    if (result.size() < limit && after.isBefore(updateTime.apply(row), id.apply(row)) && filter.test(row)) {
+                        result.add(row);
+                    }
+                }
+            }
+        } catch (JedisException e) {
+            LOGGER.error("listByIndex occur a exception", e);
+        }
+        return result;
+    }
+    
+    /**
+     * Rows written before the update time indexes existed are indexed once at start, so the cursor scans still see them.
+     */
+    private void rebuildIndex() {
+        try {
+            Map<byte[], byte[]> transactions = jedisClient.hgetAll(HMILY_TRANSACTION_GLOBAL.getBytes());
+            if (Objects.nonNull(transactions)) {
+                transactions.values().stream().filter(Objects::nonNull).map(data -> hmilySerializer.deSerialize(data, HmilyTransaction.class))
+                        .filter(each -> appName.equals(each.getAppName()) && Objects.nonNull(each.getUpdateTime())).forEach(this::indexHmilyTransaction);
+            }
+            Map<byte[], byte[]> participants = jedisClient.hgetAll(HMILY_TRANSACTION_PARTICIPANT.getBytes());
+            if (Objects.nonNull(participants)) {
+                participants.values().stream().filter(Objects::nonNull).map(data -> hmilySerializer.deSerialize(data, HmilyParticipant.class))
+                        .filter(each -> appName.equals(each.getAppName()) && Objects.nonNull(each.getUpdateTime())).forEach(this::indexHmilyParticipant);
+            }
+        } catch (JedisException e) {
+            LOGGER.error("rebuildIndex occur a exception", e);
+        }
+    }
+    
+    private void indexHmilyTransaction(final HmilyTransaction hmilyTransaction) {
+        jedisClient.zadd(buildHmilyTransactionIndex().getBytes(),
+                hmilyTransaction.getUpdateTime().getTime(), buildIndexMember(hmilyTransaction.getTransId()));
+    }
+    
+    private void indexHmilyParticipant(final HmilyParticipant hmilyParticipant) {
+        byte[] index = buildHmilyParticipantIndex(hmilyParticipant.getTransType()).getBytes();
+        byte[] member = buildIndexMember(hmilyParticipant.getParticipantId());
+        Integer status = hmilyParticipant.getStatus();
+        if (Objects.nonNull(status) && (status.compareTo(HmilyActionEnum.DELETE.getCode()) == 0 || status.compareTo(HmilyActionEnum.DEATH.getCode()) == 0)) {
+            // recovery never lists them again
+            jedisClient.zrem(index, member);
+        } else {
+            jedisClient.zadd(index, hmilyParticipant.getUpdateTime().getTime(), member);
+        }
+    }
+    
+    /**
+     * Members of one score are ordered by their bytes, the id is flipped into a fixed width hex so they sort like the signed id.
+     */
+    private static byte[] buildIndexMember(final Long id) {
+        return String.format("%016x", id ^ Long.MIN_VALUE).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static Long parseIndexMember(final byte[] member) {
+        return Long.parseUnsignedLong(new String(member, StandardCharsets.UTF_8), 16) ^ Long.MIN_VALUE;
+    }
+    
+    private String buildHmilyTransactionIndex() {
+        return rootPathPrefix + keyPrefix + appName + keyPrefix + HMILY_TRANSACTION_GLOBAL + keyPrefix + UPDATE_TIME_INDEX;
+    }
+    
+    private String buildHmilyParticipantIndex(final String transType) {
+        return buildHmilyParticipantRootPath() + keyPrefix + transType + keyPrefix + UPDATE_TIME_INDEX;
+    }
+    
     private String buildHmilyTransactionRootPath() {
         return rootPathPrefix + keyPrefix + HMILY_TRANSACTION_GLOBAL;
     }
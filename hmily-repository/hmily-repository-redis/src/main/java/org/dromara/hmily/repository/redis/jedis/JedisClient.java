@@ -183,4 +183,35 @@ public interface JedisClient {
      * @return the boolean
      */
     boolean hexists(byte[] key, byte[] field);
+    
+    /**
+     * Zadd long.
+     *
+     * @param key    the key
+     * @param score  the score
+     * @param member the member
+     * @return the long
+     */
+    Long zadd(byte[] key, double score, byte[] member);
+    
+    /**
+     * Zrem long.
+     *
+     * @param key     the key
+     * @param members the members
+     * @return the long
+     */
+    Long zrem(byte[] key, byte[]... members);
+    
+    /**
+     * Zrange by score set.
+     *
+     * @param key    the key
+     * @param min    the min score
+     * @param max    the max score
+     * @param offset the offset
+     * @param count  the count
+     * @return the set
+     */
+    Set<byte[]> zrangeByScore(byte[] key, double min, double max, int offset, int count);
 }
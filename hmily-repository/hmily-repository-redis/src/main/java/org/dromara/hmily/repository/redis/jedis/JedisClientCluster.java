@@ -122,4 +122,19 @@ public class JedisClientCluster implements JedisClient {
     public boolean hexists(final byte[] key, final byte[] field) {
         return jedisCluster.hexists(key, field);
     }
+    
+    @Override
+    public Long zadd(final byte[] key, final double score, final byte[] member) {
+        return jedisCluster.zadd(key, score, member);
+    }
+    
+    @Override
+    public Long zrem(final byte[] key, final byte[]... members) {
+        return jedisCluster.zrem(key, members);
+    }
+    
+    @Override
+    public Set<byte[]> zrangeByScore(final byte[] key, final double min, final double max, final int offset, final int count) {
+        return jedisCluster.zrangeByScore(key, min, max, offset, count);
+    }
 }
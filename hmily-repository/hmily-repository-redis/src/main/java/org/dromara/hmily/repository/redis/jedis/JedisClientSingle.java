@@ -158,4 +158,25 @@ public class JedisClientSingle implements JedisClient {
             return jedis.hexists(key, field);
         }
     }
+
+    @Override
+    public Long zadd(final byte[] key, final double score, final byte[] member) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.zadd(key, score, member);
+        }
+    }
+
+    @Override
+    public Long zrem(final byte[] key, final byte[]... members) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.zrem(key, members);
+        }
+    }
+
+    @Override
+    public Set<byte[]> zrangeByScore(final byte[] key, final double min, final double max, final int offset, final int count) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.zrangeByScore(key, min, max, offset, count);
+        }
+    }
 }
@@ -0,0 +1,429 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.repository.sharding;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.dromara.hmily.common.concurrent.HmilyThreadFactory;
+import org.dromara.hmily.common.exception.HmilyRuntimeException;
+import org.dromara.hmily.config.api.Config;
+import org.dromara.hmily.config.api.ConfigEnv;
+import org.dromara.hmily.config.api.entity.HmilyShardConfig;
+import org.dromara.hmily.config.api.entity.HmilyShardingConfig;
+import org.dromara.hmily.repository.spi.HmilyRepository;
+import org.dromara.hmily.repository.spi.entity.HmilyLock;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.entity.HmilyScanCursor;
+import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
+import org.dromara.hmily.repository.spi.exception.HmilyRepositoryException;
+import org.dromara.hmily.serializer.spi.HmilySerializer;
+import org.dromara.hmily.spi.ExtensionLoaderFactory;
+import org.dromara.hmily.spi.HmilySPI;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sharding repository, routes every record to one of the configured backing repositories.
+ * Global transactions, participants and undo records are routed by trans id so that one
+ * transaction always lives in a single shard, locks are routed by lock id.
+ * Scans without a routing key are executed on all shards in parallel.
+ *
+ * @author xiaoyu
+ */
+@HmilySPI("sharding")
+public class ShardingRepository implements HmilyRepository {
+
+    private static final String SHARDING = "sharding";
+
+    private static final int ROUTE_CACHE_SIZE = 100000;
+
+    private final List<HmilyRepository> shards = new ArrayList<>();
+
+    /**
+     * participant id -> shard, lets the update/remove by participant id skip the fan-out.
+     */
+    private final Cache<Long, HmilyRepository> participantRoutes = CacheBuilder.newBuilder().maximumSize(ROUTE_CACHE_SIZE).build();
+
+    /**
+     * undo id -> shard, lets the update/remove by undo id skip the fan-out.
+     */
+    private final Cache<Long, HmilyRepository> undoRoutes = CacheBuilder.newBuilder().maximumSize(ROUTE_CACHE_SIZE).build();
+
+    private ExecutorService fanOutExecutor;
+
+    private long fanOutTimeout;
+
+    private HmilySerializer hmilySerializer;
+
+    /**
+     * Instantiates a new Sharding repository, the shards are built on init.
+     */
+    public ShardingRepository() {
+    }
+
+    /**
+     * Instantiates a new Sharding repository over repositories that are already initialized.
+     *
+     * @param shards the shards
+     * @param fanOutExecutor the executor of the scans over all shards
+     * @param fanOutTimeout the fan-out timeout unit MILLISECONDS
+     */
+    public ShardingRepository(final List<HmilyRepository> shards, final ExecutorService fanOutExecutor, final long fanOutTimeout) {
+        this.shards.addAll(shards);
+        this.fanOutExecutor = fanOutExecutor;
+        this.fanOutTimeout = fanOutTimeout;
+    }
+
+    @Override
+    public void init(final String appName) {
+        HmilyShardingConfig shardingConfig = ConfigEnv.getInstance().getConfig(HmilyShardingConfig.class);
+        List<HmilyShardConfig> shardConfigs = shardingConfig.getShards();
+        if (Objects.isNull(shardConfigs) || shardConfigs.isEmpty()) {
+            throw new HmilyRuntimeException("sharding repository must config at least one shard");
+        }
+        Set<String> sharedTypes = new HashSet<>();
+        for (HmilyShardConfig each : shardConfigs) {
+            if (SHARDING.equals(each.getRepository())) {
+                throw new HmilyRuntimeException("sharding repository can not contain sharding itself");
+            }
+            Config config = each.findConfig();
+            if (Objects.isNull(config) && !sharedTypes.add(each.getRepository())) {
+                throw new HmilyRuntimeException("sharding repository has several " + each.getRepository() + " shards without a config of their own");
+            }
+            // every shard is an instance of its own, the SPI singleton of a type would make two shards of that type one store.
+            HmilyRepository repository = ExtensionLoaderFactory.loadNew(HmilyRepository.class, each.getRepository());
+            if (Objects.isNull(repository)) {
+                throw new HmilyRuntimeException("not found sharding repository : " + each.getRepository());
+            }
+            repository.setSerializer(hmilySerializer);
+            if (Objects.isNull(config)) {
+                repository.init(appName);
+            } else {
+                repository.init(appName, config);
+            }
+            shards.add(repository);
+        }
+        int parallelism = Math.max(1, Math.min(shardingConfig.getParallelism(), shards.size()));
+        // a full queue runs the shard read on the calling thread, which slows the fan-outs down behind a slow shard
+        fanOutExecutor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(parallelism << 6), HmilyThreadFactory.create("hmily-repository-sharding", true), new ThreadPoolExecutor.CallerRunsPolicy());
+        fanOutTimeout = shardingConfig.getFanOutTimeout();
+    }
+
+    @Override
+    public void setSerializer(final HmilySerializer hmilySerializer) {
+        this.hmilySerializer = hmilySerializer;
+        shards.forEach(each -> each.setSerializer(hmilySerializer));
+    }
+
+    @Override
+    public int createHmilyTransaction(final HmilyTransaction hmilyTransaction) throws HmilyRepositoryException {
+        return route(hmilyTransaction.getTransId()).createHmilyTransaction(hmilyTransaction);
+    }
+
+    @Override
+    public int updateRetryByLock(final HmilyTransaction hmilyTransaction) {
+        return route(hmilyTransaction.getTransId()).updateRetryByLock(hmilyTransaction);
+    }
+
+    @Override
+    public HmilyTransaction findByTransId(final Long transId) {
+        return route(transId).findByTransId(transId);
+    }
+
+    @Override
+    public List<HmilyTransaction> findByTransIds(final Collection<Long> transIds) {
+        Map<HmilyRepository, List<Long>> byShard = transIds.stream().collect(Collectors.groupingBy(this::route, LinkedHashMap::new, Collectors.toList()));
+        return flatten(fanOut(each -> byShard.containsKey(each) ? each.findByTransIds(byShard.get(each)) : Collections.<HmilyTransaction>emptyList()));
+    }
+
+    @Override
+    public List<HmilyTransaction> listLimitByDelay(final Date date, final int limit) {
+        return merge(fanOut(each -> each.listLimitByDelay(date, limit)), limit);
+    }
+
+    @Override
+    public List<HmilyTransaction> listLimitByDelay(final Date date, final int limit, final HmilyScanCursor cursor) {
+        // every shard pages after the same cursor, the global page is the smallest keys among the shard pages.
+        return HmilyScanCursor.page(flatten(fanOut(each -> each.listLimitByDelay(date, limit, cursor))), HmilyTransaction::getUpdateTime, HmilyTransaction::getTransId, cursor, limit);
+    }
+
+    @Override
+    public int updateHmilyTransactionStatus(final Long transId, final Integer status) throws HmilyRepositoryException {
+        return route(transId).updateHmilyTransactionStatus(transId, status);
+    }
+
+    @Override
+    public int removeHmilyTransaction(final Long transId) {
+        return route(transId).removeHmilyTransaction(transId);
+    }
+
+    @Override
+    public int removeHmilyTransactionByDate(final Date date) {
+        return sum(fanOut(each -> each.removeHmilyTransactionByDate(date)));
+    }
+
+    @Override
+    public int removeHmilyTransactionWithoutParticipant(final Date date, final int limit) {
+        // a transaction and its participants are routed by the same trans id, so every shard can anti join on its own.
+        return sum(fanOut(each -> each.removeHmilyTransactionWithoutParticipant(date, limit)));
+    }
+
+    @Override
+    public int createHmilyParticipant(final HmilyParticipant hmilyParticipant) throws HmilyRepositoryException {
+        HmilyRepository shard = route(hmilyParticipant.getTransId());
+        int rows = shard.createHmilyParticipant(hmilyParticipant);
+        participantRoutes.put(hmilyParticipant.getParticipantId(), shard);
+        return rows;
+    }
+
+    @Override
+    public List<HmilyParticipant> findHmilyParticipant(final Long participantId) {
+        // the ref participants may belong to other transactions, so this always fans out.
+        return flatten(fanOut(each -> each.findHmilyParticipant(participantId)));
+    }
+
+    @Override
+    public List<HmilyParticipant> listHmilyParticipant(final Date date, final String transType, final int limit) {
+        return merge(fanOut(each -> each.listHmilyParticipant(date, transType, limit)), limit);
+    }
+
+    @Override
+    public List<HmilyParticipant> listHmilyParticipant(final Date date, final String transType, final int limit, final HmilyScanCursor cursor) {
+        return HmilyScanCursor.page(flatten(fanOut(each -> each.listHmilyParticipant(date, transType, limit, cursor))),
+                HmilyParticipant::getUpdateTime, HmilyParticipant::getParticipantId, cursor, limit);
+    }
+
+    @Override
+    public List<HmilyParticipant> listHmilyParticipantByTransId(final Long transId) {
+        return route(transId).listHmilyParticipantByTransId(transId);
+    }
+
+    @Override
+    public boolean existHmilyParticipantByTransId(final Long transId) {
+        return route(transId).existHmilyParticipantByTransId(transId);
+    }
+
+    @Override
+    public int updateHmilyParticipantStatus(final Long participantId, final Integer status) throws HmilyRepositoryException {
+        return byRoute(participantRoutes, participantId, each -> each.updateHmilyParticipantStatus(participantId, status));
+    }
+
+    @Override
+    public int removeHmilyParticipant(final Long participantId) {
+        int rows = byRoute(participantRoutes, participantId, each -> each.removeHmilyParticipant(participantId));
+        participantRoutes.invalidate(participantId);
+        return rows;
+    }
+
+    @Override
+    public int removeHmilyParticipantByDate(final Date date) {
+        return sum(fanOut(each -> each.removeHmilyParticipantByDate(date)));
+    }
+
+    @Override
+    public boolean lockHmilyParticipant(final HmilyParticipant hmilyParticipant) {
+        return route(hmilyParticipant.getTransId()).lockHmilyParticipant(hmilyParticipant);
+    }
+
+    @Override
+    public int heartbeatRecoveryMember(final String memberId, final Date expireTime) {
+        // every shard keeps the lease, the member lists are merged on read.
+        return Math.min(ROWS, sum(fanOut(each -> each.heartbeatRecoveryMember(memberId, expireTime))));
+    }
+
+    @Override
+    public boolean isRecoveryPartitionSupported() {
+        return shards.stream().allMatch(HmilyRepository::isRecoveryPartitionSupported);
+    }
+
+    @Override
+    public List<String> listRecoveryMembers(final Date date) {
+        return flatten(fanOut(each -> each.listRecoveryMembers(date))).stream().distinct().collect(Collectors.toList());
+    }
+
+    @Override
+    public int createHmilyParticipantUndo(final HmilyParticipantUndo hmilyParticipantUndo) {
+        HmilyRepository shard = route(hmilyParticipantUndo.getTransId());
+        int rows = shard.createHmilyParticipantUndo(hmilyParticipantUndo);
+        undoRoutes.put(hmilyParticipantUndo.getUndoId(), shard);
+        return rows;
+    }
+
+    @Override
+    public int createHmilyParticipantUndos(final Collection<HmilyParticipantUndo> undoList) {
+        if (undoList.isEmpty()) {
+            return 0;
+        }
+        HmilyRepository shard = route(undoList.iterator().next().getTransId());
+        int rows = shard.createHmilyParticipantUndos(undoList);
+        undoList.forEach(each -> undoRoutes.put(each.getUndoId(), shard));
+        return rows;
+    }
+
+    @Override
+    public List<HmilyParticipantUndo> findHmilyParticipantUndoByParticipantId(final Long participantId) {
+        HmilyRepository shard = participantRoutes.getIfPresent(participantId);
+        if (Objects.nonNull(shard)) {
+            return shard.findHmilyParticipantUndoByParticipantId(participantId);
+        }
+        return flatten(fanOut(each -> each.findHmilyParticipantUndoByParticipantId(participantId)));
+    }
+
+    @Override
+    public List<HmilyParticipantUndo> findHmilyParticipantUndoByParticipantIds(final Collection<Long> participantIds) {
+        return flatten(fanOut(each -> each.findHmilyParticipantUndoByParticipantIds(participantIds)));
+    }
+
+    @Override
+    public int removeHmilyParticipantUndo(final Long undoId) {
+        int rows = byRoute(undoRoutes, undoId, each -> each.removeHmilyParticipantUndo(undoId));
+        undoRoutes.invalidate(undoId);
+        return rows;
+    }
+
+    @Override
+    public int removeHmilyParticipantUndoByDate(final Date date) {
+        return sum(fanOut(each -> each.removeHmilyParticipantUndoByDate(date)));
+    }
+
+    @Override
+    public int updateHmilyParticipantUndoStatus(final Long undoId, final Integer status) {
+        return byRoute(undoRoutes, undoId, each -> each.updateHmilyParticipantUndoStatus(undoId, status));
+    }
+
+    @Override
+    public int writeHmilyLocks(final Collection<HmilyLock> locks) {
+        Map<HmilyRepository, List<HmilyLock>> groups = groupLocks(locks);
+        List<Map.Entry<HmilyRepository, List<HmilyLock>>> written = new ArrayList<>(groups.size());
+        for (Map.Entry<HmilyRepository, List<HmilyLock>> entry : groups.entrySet()) {
+            if (entry.getKey().writeHmilyLocks(entry.getValue()) != entry.getValue().size()) {
+                // a shard refused its part, give back what the other shards already granted.
+                written.forEach(each -> each.getKey().releaseHmilyLocks(each.getValue()));
+                return FAIL_ROWS;
+            }
+            written.add(entry);
+        }
+        return locks.size();
+    }
+
+    @Override
+    public int releaseHmilyLocks(final Collection<HmilyLock> locks) {
+        int rows = 0;
+        for (Map.Entry<HmilyRepository, List<HmilyLock>> entry : groupLocks(locks).entrySet()) {
+            rows += entry.getKey().releaseHmilyLocks(entry.getValue());
+        }
+        return rows;
+    }
+
+    @Override
+    public Optional<HmilyLock> findHmilyLockById(final String lockId) {
+        return route(lockId).findHmilyLockById(lockId);
+    }
+
+    @Override
+    public Optional<HmilyLock> findHmilyLock(final HmilyLock hmilyLock) {
+        return route(hmilyLock.getLockId()).findHmilyLock(hmilyLock);
+    }
+
+    private HmilyRepository route(final Long transId) {
+        return shards.get(Math.floorMod(Long.hashCode(transId), shards.size()));
+    }
+
+    private HmilyRepository route(final String lockId) {
+        return shards.get(Math.floorMod(lockId.hashCode(), shards.size()));
+    }
+
+    private Map<HmilyRepository, List<HmilyLock>> groupLocks(final Collection<HmilyLock> locks) {
+        return locks.stream().collect(Collectors.groupingBy(each -> route(each.getLockId()), LinkedHashMap::new, Collectors.toList()));
+    }
+
+    private int byRoute(final Cache<Long, HmilyRepository> routes, final Long id, final Function<HmilyRepository, Integer> function) {
+        HmilyRepository shard = routes.getIfPresent(id);
+        if (Objects.nonNull(shard)) {
+            return function.apply(shard);
+        }
+        return sum(fanOut(function));
+    }
+
+    private <T> List<T> fanOut(final Function<HmilyRepository, T> function) {
+        List<T> result = new ArrayList<>(shards.size());
+        if (shards.size() == 1) {
+            result.add(function.apply(shards.get(0)));
+            return result;
+        }
+        List<Future<T>> futures = shards.stream().map(each -> fanOutExecutor.submit(() -> function.apply(each))).collect(Collectors.toList());
+        try {
+            for (Future<T> each : futures) {
+                result.add(each.get(fanOutTimeout, TimeUnit.MILLISECONDS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HmilyRepositoryException("sharding repository fan-out interrupted", e);
+        } catch (ExecutionException | TimeoutException e) {
+            futures.forEach(each -> each.cancel(true));
+            throw new HmilyRepositoryException("sharding repository fan-out failed", e);
+        }
+        return result;
+    }
+
+    private static int sum(final List<Integer> rows) {
+        return rows.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private static <T> List<T> flatten(final List<List<T>> shardResults) {
+        return shardResults.stream().filter(Objects::nonNull).flatMap(Collection::stream).collect(Collectors.toList());
+    }
+
+    private static <T> List<T> merge(final List<List<T>> shardResults, final int limit) {
+        // take the shard results round robin, so one busy shard can not starve the others when the limit is applied.
+        List<T> result = new ArrayList<>();
+        List<Iterator<T>> iterators = shardResults.stream().filter(Objects::nonNull).map(List::iterator).collect(Collectors.toList());
+        boolean hasNext = true;
+        while (hasNext && result.size() < limit) {
+            hasNext = false;
+            for (Iterator<T> each : iterators) {
+                if (result.size() < limit && each.hasNext()) {
+                    result.add(each.next());
+                    hasNext = true;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.repository.sharding;
+
+import org.dromara.hmily.config.api.ConfigEnv;
+import org.dromara.hmily.config.api.entity.HmilyDatabaseConfig;
+import org.dromara.hmily.config.api.entity.HmilyShardConfig;
+import org.dromara.hmily.config.api.entity.HmilyShardingConfig;
+import org.dromara.hmily.repository.sharding.fixture.ShardingFixtureRepository;
+import org.dromara.hmily.repository.spi.HmilyRepository;
+import org.dromara.hmily.repository.spi.entity.HmilyLock;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
+import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The sharding repository test.
+ *
+ * @author xiaoyu
+ */
+@SuppressWarnings("unchecked")
+public final class ShardingRepositoryTest {
+    
+    private final HmilyRepository first = mock(HmilyRepository.class);
+    
+    private final HmilyRepository second = mock(HmilyRepository.class);
+    
+    private final ShardingRepository shardingRepository = new ShardingRepository(Arrays.asList(first, second), Executors.newFixedThreadPool(2), 3000L);
+    
+    @Test
+    public void assertShardsOfOneType() {
+        HmilyShardingConfig shardingConfig = new HmilyShardingConfig();
+        shardingConfig.getShards().add(buildFixtureShard("jdbc:fixture://first"));
+        shardingConfig.getShards().add(buildFixtureShard("jdbc:fixture://second"));
+        ConfigEnv.getInstance().registerConfig(shardingConfig);
+        ShardingRepository repository = new ShardingRepository();
+        repository.init("test");
+        List<ShardingFixtureRepository> fixtures = ShardingFixtureRepository.INSTANCES;
+        assertEquals(2, fixtures.size());
+        assertNotSame(fixtures.get(0), fixtures.get(1));
+        assertEquals("jdbc:fixture://first", fixtures.get(0).getUrl());
+        assertEquals("jdbc:fixture://second", fixtures.get(1).getUrl());
+        repository.createHmilyTransaction(new HmilyTransaction(2L));
+        repository.createHmilyTransaction(new HmilyTransaction(3L));
+        assertNotNull(fixtures.get(0).findByTransId(2L));
+        assertNull(fixtures.get(1).findByTransId(2L));
+        assertNotNull(fixtures.get(1).findByTransId(3L));
+        assertNull(fixtures.get(0).findByTransId(3L));
+        assertNotNull(repository.findByTransId(3L));
+    }
+    
+    @Test
+    public void assertColocatedByTransId() {
+        HmilyTransaction hmilyTransaction = new HmilyTransaction(2L);
+        HmilyParticipant hmilyParticipant = new HmilyParticipant();
+        hmilyParticipant.setTransId(2L);
+        hmilyParticipant.setParticipantId(3L);
+        when(first.createHmilyParticipant(hmilyParticipant)).thenReturn(HmilyRepository.ROWS);
+        when(first.updateHmilyParticipantStatus(3L, 1)).thenReturn(HmilyRepository.ROWS);
+        shardingRepository.createHmilyTransaction(hmilyTransaction);
+        shardingRepository.createHmilyParticipant(hmilyParticipant);
+        verify(first).createHmilyTransaction(hmilyTransaction);
+        verify(second, never()).createHmilyParticipant(any());
+        assertEquals(HmilyRepository.ROWS, shardingRepository.updateHmilyParticipantStatus(3L, 1));
+        verify(second, never()).updateHmilyParticipantStatus(3L, 1);
+    }
+    
+    @Test
+    public void assertListHmilyParticipantWithLimit() {
+        when(first.listHmilyParticipant(any(Date.class), anyString(), anyInt())).thenReturn(Arrays.asList(new HmilyParticipant(), new HmilyParticipant(), new HmilyParticipant()));
+        when(second.listHmilyParticipant(any(Date.class), anyString(), anyInt())).thenReturn(Arrays.asList(new HmilyParticipant(), new HmilyParticipant()));
+        assertEquals(4, shardingRepository.listHmilyParticipant(new Date(), "TCC", 4).size());
+        assertEquals(5, shardingRepository.listHmilyParticipant(new Date(), "TCC", 10).size());
+    }
+    
+    @Test
+    public void assertWriteHmilyLocksReleaseOnConflict() {
+        HmilyLock firstLock = findLock(first);
+        HmilyLock secondLock = findLock(second);
+        when(first.writeHmilyLocks(anyCollection())).thenReturn(1);
+        when(second.writeHmilyLocks(anyCollection())).thenReturn(HmilyRepository.FAIL_ROWS);
+        assertEquals(HmilyRepository.FAIL_ROWS, shardingRepository.writeHmilyLocks(Arrays.asList(firstLock, secondLock)));
+        verify(first).releaseHmilyLocks((Collection<HmilyLock>) anyCollection());
+    }
+    
+    private HmilyLock findLock(final HmilyRepository shard) {
+        int index = shard == first ? 0 : 1;
+        for (int i = 0; ; i++) {
+            HmilyLock lock = new HmilyLock(1L, 1L, "ds", "t_order", String.valueOf(i));
+            if (Math.floorMod(lock.getLockId().hashCode(), 2) == index) {
+                return lock;
+            }
+        }
+    }
+    
+    private HmilyShardConfig buildFixtureShard(final String url) {
+        HmilyDatabaseConfig databaseConfig = new HmilyDatabaseConfig();
+        databaseConfig.setUrl(url);
+        HmilyShardConfig result = new HmilyShardConfig();
+        result.setRepository("shardingFixture");
+        result.setDatabase(databaseConfig);
+        return result;
+    }
+}
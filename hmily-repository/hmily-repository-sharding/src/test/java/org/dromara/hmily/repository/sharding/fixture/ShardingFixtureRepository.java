@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.repository.sharding.fixture;
+
+import lombok.Getter;
+import org.dromara.hmily.config.api.Config;
+import org.dromara.hmily.config.api.entity.HmilyDatabaseConfig;
+import org.dromara.hmily.repository.memory.MemoryRepository;
+import org.dromara.hmily.spi.HmilySPI;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Sharding fixture repository, an in-memory store that keeps the url of its own config.
+ *
+ * @author xiaoyu
+ */
+@HmilySPI("shardingFixture")
+public final class ShardingFixtureRepository extends MemoryRepository {
+    
+    public static final List<ShardingFixtureRepository> INSTANCES = new CopyOnWriteArrayList<>();
+    
+    @Getter
+    private String url;
+    
+    @Override
+    public void init(final String appName, final Config config) {
+        init(appName);
+        url = ((HmilyDatabaseConfig) config).getUrl();
+        INSTANCES.add(this);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.repository.spi;
+
+import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non blocking write side of {@link HmilyRepository}, used by the asynchronous repository event pipeline.
+ * Each future completes with the affected rows, like the blocking method of the same name.
+ * A repository whose driver is natively asynchronous implements it next to {@link HmilyRepository},
+ * any other repository is wrapped in {@link HmilyBlockingAsyncRepository}.
+ *
+ * @author xiaoyu
+ */
+public interface HmilyAsyncRepository {
+    
+    /**
+     * Create hmily transaction.
+     *
+     * @param hmilyTransaction the hmily transaction
+     * @return the rows future
+     */
+    CompletableFuture<Integer> createHmilyTransactionAsync(HmilyTransaction hmilyTransaction);
+    
+    /**
+     * Update hmily transaction status.
+     *
+     * @param transId the trans id
+     * @param status  the status
+     * @return the rows future
+     */
+    CompletableFuture<Integer> updateHmilyTransactionStatusAsync(Long transId, Integer status);
+    
+    /**
+     * Remove hmily transaction.
+     *
+     * @param transId the trans id
+     * @return the rows future
+     */
+    CompletableFuture<Integer> removeHmilyTransactionAsync(Long transId);
+    
+    /**
+     * Create hmily participant.
+     *
+     * @param hmilyParticipant the hmily participant
+     * @return the rows future
+     */
+    CompletableFuture<Integer> createHmilyParticipantAsync(HmilyParticipant hmilyParticipant);
+    
+    /**
+     * Update hmily participant status.
+     *
+     * @param participantId the participant id
+     * @param status        the status
+     * @return the rows future
+     */
+    CompletableFuture<Integer> updateHmilyParticipantStatusAsync(Long participantId, Integer status);
+    
+    /**
+     * Remove hmily participant.
+     *
+     * @param participantId the participant id
+     * @return the rows future
+     */
+    CompletableFuture<Integer> removeHmilyParticipantAsync(Long participantId);
+    
+    /**
+     * Create hmily participant undo.
+     *
+     * @param hmilyParticipantUndo the hmily participant undo
+     * @return the rows future
+     */
+    CompletableFuture<Integer> createHmilyParticipantUndoAsync(HmilyParticipantUndo hmilyParticipantUndo);
+    
+    /**
+     * Create hmily participant undo list in one write, by default every record is written on its own.
+     *
+     * @param undoList the hmily participant undo list
+     * @return the rows future
+     */
+    default CompletableFuture<Integer> createHmilyParticipantUndosAsync(Collection<HmilyParticipantUndo> undoList) {
+        CompletableFuture<Integer> result = CompletableFuture.completedFuture(0);
+        for (HmilyParticipantUndo each : undoList) {
+            result = result.thenCombine(createHmilyParticipantUndoAsync(each), Integer::sum);
+        }
+        return result;
+    }
+    
+    /**
+     * Update hmily participant undo status.
+     *
+     * @param undoId the undo id
+     * @param status the status
+     * @return the rows future
+     */
+    CompletableFuture<Integer> updateHmilyParticipantUndoStatusAsync(Long undoId, Integer status);
+    
+    /**
+     * Remove hmily participant undo.
+     *
+     * @param undoId the undo id
+     * @return the rows future
+     */
+    CompletableFuture<Integer> removeHmilyParticipantUndoAsync(Long undoId);
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.repository.spi;
+
+import org.dromara.hmily.common.concurrent.HmilyThreadFactory;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
+
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Adapts a blocking {@link HmilyRepository} to {@link HmilyAsyncRepository} by running its calls on a bounded pool.
+ * When the pool queue is full the submitting thread runs the call itself, which slows the producer down instead of queueing without limit.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyBlockingAsyncRepository implements HmilyAsyncRepository, AutoCloseable {
+    
+    private final HmilyRepository hmilyRepository;
+    
+    private final ThreadPoolExecutor executor;
+    
+    /**
+     * Instantiates a new Hmily blocking async repository.
+     *
+     * @param hmilyRepository the blocking repository
+     * @param threads         the pool threads
+     * @param queueSize       the pool queue size
+     */
+    public HmilyBlockingAsyncRepository(final HmilyRepository hmilyRepository, final int threads, final int queueSize) {
+        this.hmilyRepository = hmilyRepository;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                HmilyThreadFactory.create("hmily-async-repository", true), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+    
+    @Override
+    public CompletableFuture<Integer> createHmilyTransactionAsync(final HmilyTransaction hmilyTransaction) {
+        return supply(() -> hmilyRepository.createHmilyTransaction(hmilyTransaction));
+    }
+    
+    @Override
+    public CompletableFuture<Integer> updateHmilyTransactionStatusAsync(final Long transId, final Integer status) {
+        return supply(() -> hmilyRepository.updateHmilyTransactionStatus(transId, status));
+    }
+    
+    @Override
+    public CompletableFuture<Integer> removeHmilyTransactionAsync(final Long transId) {
+        return supply(() -> hmilyRepository.removeHmilyTransaction(transId));
+    }
+    
+    @Override
+    public CompletableFuture<Integer> createHmilyParticipantAsync(final HmilyParticipant hmilyParticipant) {
+        return supply(() -> hmilyRepository.createHmilyParticipant(hmilyParticipant));
+    }
+    
+    @Override
+    public CompletableFuture<Integer> updateHmilyParticipantStatusAsync(final Long participantId, final Integer status) {
+        return supply(() -> hmilyRepository.updateHmilyParticipantStatus(participantId, status));
+    }
+    
+    @Override
+    public CompletableFuture<Integer> removeHmilyParticipantAsync(final Long participantId) {
+        return supply(() -> hmilyRepository.removeHmilyParticipant(participantId));
+    }
+    
+    @Override
+    public CompletableFuture<Integer> createHmilyParticipantUndoAsync(final HmilyParticipantUndo hmilyParticipantUndo) {
+        return supply(() -> hmilyRepository.createHmilyParticipantUndo(hmilyParticipantUndo));
+    }
+    
+    @Override
+    public CompletableFuture<Integer> createHmilyParticipantUndosAsync(final Collection<HmilyParticipantUndo> undoList) {
+        return supply(() -> hmilyRepository.createHmilyParticipantUndos(undoList));
+    }
+    
+    @Override
+    public CompletableFuture<Integer> updateHmilyParticipantUndoStatusAsync(final Long undoId, final Integer status) {
+        return supply(() -> hmilyRepository.updateHmilyParticipantUndoStatus(undoId, status));
+    }
+    
+    @Override
+    public CompletableFuture<Integer> removeHmilyParticipantUndoAsync(final Long undoId) {
+        return supply(() -> hmilyRepository.removeHmilyParticipantUndo(undoId));
+    }
+    
+    @Override
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+    
+    private CompletableFuture<Integer> supply(final Supplier<Integer> supplier) {
+        return CompletableFuture.supplyAsync(supplier, executor);
+    }
+}
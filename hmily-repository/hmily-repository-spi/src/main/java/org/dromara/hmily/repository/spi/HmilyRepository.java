@@ -16,16 +16,22 @@
 
 package org.dromara.hmily.repository.spi;
 
+import org.dromara.hmily.config.api.Config;
 import org.dromara.hmily.repository.spi.entity.HmilyLock;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.entity.HmilyRecoveryPartition;
+import org.dromara.hmily.repository.spi.entity.HmilyScanCursor;
 import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
 import org.dromara.hmily.repository.spi.exception.HmilyRepositoryException;
 import org.dromara.hmily.serializer.spi.HmilySerializer;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -52,6 +58,17 @@ public interface HmilyRepository {
      */
     void init(String appName);
     
+    /**
+     * Init with a config of its own instead of the global config of its type,
+     * for a repository that runs side by side with other instances of its type.
+     *
+     * @param appName the app name
+     * @param config the config of this instance
+     */
+    default void init(final String appName, final Config config) {
+        throw new HmilyRepositoryException(getClass().getSimpleName() + " does not support a config of its own");
+    }
+    
     /**
      * Sets serializer.
      *
@@ -84,6 +101,21 @@ public interface HmilyRepository {
      */
     HmilyTransaction findByTransId(Long transId);
     
+    /**
+     * Find the hmily transactions of a batch of trans ids, missing ones are left out.
+     * The default looks them up one by one, stores that can should fetch them in one round trip.
+     *
+     * @param transIds the trans ids
+     * @return the list
+     */
+    default List<HmilyTransaction> findByTransIds(Collection<Long> transIds) {
+        List<HmilyTransaction> result = new ArrayList<>(transIds.size());
+        for (Long each : transIds) {
+            Optional.ofNullable(findByTransId(each)).ifPresent(result::add);
+        }
+        return result;
+    }
+    
     /**
      * List limit by delay list.
      *
@@ -93,6 +125,19 @@ public interface HmilyRepository {
      */
     List<HmilyTransaction> listLimitByDelay(Date date, int limit);
     
+    /**
+     * List limit by delay in (update_time, trans_id) order, resuming after the cursor.
+     * Stores that cannot resume only serve the first page.
+     *
+     * @param date   the date
+     * @param limit  the limit
+     * @param cursor the cursor, null for the first page
+     * @return the list
+     */
+    default List<HmilyTransaction> listLimitByDelay(Date date, int limit, HmilyScanCursor cursor) {
+        return Objects.isNull(cursor) ? listLimitByDelay(date, limit) : Collections.emptyList();
+    }
+    
     /**
      * Update hmily transaction status int.
      *
@@ -119,6 +164,33 @@ public interface HmilyRepository {
      */
     int removeHmilyTransactionByDate(Date date);
     
+    /**
+     * Remove the hmily transactions last updated before the date that have no participant left.
+     * The default walks them page by page, stores that can should delete them in one anti join.
+     *
+     * @param date  the date
+     * @param limit the page size of the default walk
+     * @return the int
+     */
+    default int removeHmilyTransactionWithoutParticipant(Date date, int limit) {
+        int rows = 0;
+        HmilyScanCursor cursor = null;
+        List<HmilyTransaction> page;
+        do {
+            page = listLimitByDelay(date, limit, cursor);
+            if (page.isEmpty()) {
+                break;
+            }
+            for (HmilyTransaction each : page) {
+                if (!existHmilyParticipantByTransId(each.getTransId())) {
+                    rows += removeHmilyTransaction(each.getTransId());
+                }
+            }
+            cursor = HmilyScanCursor.of(page.get(page.size() - 1));
+        } while (page.size() >= limit && Objects.nonNull(cursor.getUpdateTime()));
+        return rows;
+    }
+    
     /**
      * Create hmily participant int.
      *
@@ -146,6 +218,78 @@ public interface HmilyRepository {
      */
     List<HmilyParticipant> listHmilyParticipant(Date date, String transType, int limit);
     
+    /**
+     * List hmily participant in (update_time, participant_id) order, resuming after the cursor.
+     * Stores that cannot resume only serve the first page.
+     *
+     * @param date      the date
+     * @param transType the trans type
+     * @param limit     the limit
+     * @param cursor    the cursor, null for the first page
+     * @return the list
+     */
+    default List<HmilyParticipant> listHmilyParticipant(Date date, String transType, int limit, HmilyScanCursor cursor) {
+        return Objects.isNull(cursor) ? listHmilyParticipant(date, transType, limit) : Collections.emptyList();
+    }
+    
+    /**
+     * List hmily participant of one recovery partition in (update_time, participant_id) order, resuming after the cursor.
+     * The default filters the unpartitioned pages, so it needs a store that resumes after a cursor,
+     * stores that can should push the partition into the query.
+     *
+     * @param date      the date
+     * @param transType the trans type
+     * @param limit     the limit
+     * @param cursor    the cursor, null for the first page
+     * @param partition the partition
+     * @return the list
+     */
+    default List<HmilyParticipant> listHmilyParticipant(Date date, String transType, int limit, HmilyScanCursor cursor, HmilyRecoveryPartition partition) {
+        List<HmilyParticipant> result = new ArrayList<>();
+        HmilyScanCursor after = cursor;
+        List<HmilyParticipant> page;
+        do {
+            page = listHmilyParticipant(date, transType, limit, after);
+            if (page.isEmpty()) {
+                break;
+            }
+            page.stream().filter(each -> partition.owns(each.getParticipantId())).limit(limit - result.size()).forEach(result::add);
+            after = HmilyScanCursor.of(page.get(page.size() - 1));
+        } while (page.size() >= limit && result.size() < limit && Objects.nonNull(after.getUpdateTime()));
+        return result;
+    }
+    
+    /**
+     * Register or renew the recovery lease of a member.
+     *
+     * @param memberId   the member id
+     * @param expireTime the time the lease expires unless renewed
+     * @return the int, {@link #FAIL_ROWS} when the store does not keep recovery members
+     */
+    default int heartbeatRecoveryMember(String memberId, Date expireTime) {
+        return FAIL_ROWS;
+    }
+    
+    /**
+     * Whether the store keeps recovery members and resumes the participant scans after a cursor,
+     * both are needed to split self recovery among the live nodes.
+     *
+     * @return true when the recovery partition is supported
+     */
+    default boolean isRecoveryPartitionSupported() {
+        return false;
+    }
+    
+    /**
+     * List the members whose recovery lease is still valid.
+     *
+     * @param date the date
+     * @return the member ids
+     */
+    default List<String> listRecoveryMembers(Date date) {
+        return Collections.emptyList();
+    }
+    
     /**
      * List hmily participant by trans id list.
      *
@@ -204,6 +348,21 @@ public interface HmilyRepository {
      */
     int createHmilyParticipantUndo(HmilyParticipantUndo hmilyParticipantUndo);
     
+    /**
+     * Create hmily participant undo list.
+     * The default writes them one by one, stores that can should write them in one round trip.
+     *
+     * @param undoList the hmily participant undo list
+     * @return rows
+     */
+    default int createHmilyParticipantUndos(Collection<HmilyParticipantUndo> undoList) {
+        int result = 0;
+        for (HmilyParticipantUndo each : undoList) {
+            result += createHmilyParticipantUndo(each);
+        }
+        return result;
+    }
+    
     /**
      * Find hmily participant undo by participant id list.
      *
@@ -212,6 +371,21 @@ public interface HmilyRepository {
      */
     List<HmilyParticipantUndo> findHmilyParticipantUndoByParticipantId(Long participantId);
     
+    /**
+     * Find the hmily participant undo of a batch of participant ids.
+     * The default looks them up one by one, stores that can should fetch them in one round trip.
+     *
+     * @param participantIds the participant ids
+     * @return the list
+     */
+    default List<HmilyParticipantUndo> findHmilyParticipantUndoByParticipantIds(Collection<Long> participantIds) {
+        List<HmilyParticipantUndo> result = new ArrayList<>();
+        for (Long each : participantIds) {
+            result.addAll(findHmilyParticipantUndoByParticipantId(each));
+        }
+        return result;
+    }
+    
     /**
      * Remove hmily participant undo int.
      *
@@ -260,4 +434,15 @@ public interface HmilyRepository {
      * @return hmily lock
      */
     Optional<HmilyLock> findHmilyLockById(String lockId);
+    
+    /**
+     * Find the hmily lock held on the row of a lock.
+     * The default looks it up by the full lock id, stores keeping the lock columns apart should read them from the lock.
+     *
+     * @param hmilyLock the lock of the row
+     * @return hmily lock
+     */
+    default Optional<HmilyLock> findHmilyLock(HmilyLock hmilyLock) {
+        return findHmilyLockById(hmilyLock.getLockId());
+    }
 }
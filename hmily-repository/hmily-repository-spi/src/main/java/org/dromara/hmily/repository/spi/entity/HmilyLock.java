@@ -22,6 +22,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 /**
  * The type Hmily lock.
@@ -30,7 +31,7 @@ import java.io.Serializable;
  */
 @Getter
 @RequiredArgsConstructor
-@ToString
+@ToString(exclude = "lockKey")
 public class HmilyLock implements Serializable {
     
     private static final long serialVersionUID = -6910542871629586617L;
@@ -60,12 +61,28 @@ public class HmilyLock implements Serializable {
      */
     private final String targetTablePk;
     
+    private transient volatile HmilyLockKey lockKey;
+    
     /**
      * Get lock id.
      *
      * @return lock id
      */
     public String getLockId() {
-        return Joiner.on(";;").join(resourceId, targetTableName, targetTablePk);
+        return Joiner.on(";;").useForNull("null").join(resourceId, targetTableName, targetTablePk);
+    }
+    
+    /**
+     * Get the compact key the lock is checked and cached by in memory.
+     *
+     * @return lock key
+     */
+    public HmilyLockKey getLockKey() {
+        HmilyLockKey result = lockKey;
+        if (Objects.isNull(result)) {
+            result = new HmilyLockKey(resourceId, targetTableName, targetTablePk);
+            lockKey = result;
+        }
+        return result;
     }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.hmily.repository.spi.entity;
+
+import com.google.common.base.Splitter;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact in-memory key of a hmily lock.
+ * Resource ids and table names are interned, so they are compared by reference, and the primary key is
+ * reduced to a 128-bit murmur3 hash and not kept, so hashing or comparing a key never walks the key strings.
+ * The full primary key stays on the {@link HmilyLock}, which the stores persist.
+ *
+ * @author xiaoyu
+ */
+@Getter
+public final class HmilyLockKey implements Comparable<HmilyLockKey> {
+    
+    private static final String SEPARATOR = ";;";
+    
+    private static final HashFunction PK_HASH = Hashing.murmur3_128();
+    
+    private static final Map<String, String> NAMES = new ConcurrentHashMap<>();
+    
+    private static final Comparator<String> NAME_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+    
+    private final String resourceId;
+    
+    private final String targetTableName;
+    
+    private final long pkHashHigh;
+    
+    private final long pkHashLow;
+    
+    /**
+     * Instantiates a new hmily lock key.
+     *
+     * @param resourceId      the resource id
+     * @param targetTableName the target table name
+     * @param targetTablePk   the target table pk
+     */
+    public HmilyLockKey(final String resourceId, final String targetTableName, final String targetTablePk) {
+        this.resourceId = intern(resourceId);
+        this.targetTableName = intern(targetTableName);
+        HashCode hash = PK_HASH.hashString(String.valueOf(targetTablePk), StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(hash.asBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        this.pkHashLow = buffer.getLong();
+        this.pkHashHigh = buffer.getLong();
+    }
+    
+    /**
+     * Parse the key of a stored lock id.
+     *
+     * @param lockId the lock id
+     * @return the hmily lock key
+     */
+    public static HmilyLockKey of(final String lockId) {
+        List<String> parts = Splitter.on(SEPARATOR).limit(3).splitToList(lockId);
+        return new HmilyLockKey(parts.get(0), parts.size() > 1 ? parts.get(1) : null, parts.size() > 2 ? parts.get(2) : null);
+    }
+    
+    private static String intern(final String name) {
+        if (Objects.isNull(name)) {
+            return null;
+        }
+        String result = NAMES.putIfAbsent(name, name);
+        return Objects.isNull(result) ? name : result;
+    }
+    
+    @Override
+    public int compareTo(final HmilyLockKey o) {
+        int result = Long.compare(pkHashHigh, o.pkHashHigh);
+        if (result == 0) {
+            result = Long.compare(pkHashLow, o.pkHashLow);
+        }
+        if (result == 0) {
+            result = NAME_ORDER.compare(resourceId, o.resourceId);
+        }
+        return result == 0 ? NAME_ORDER.compare(targetTableName, o.targetTableName) : result;
+    }
+    
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HmilyLockKey)) {
+            return false;
+        }
+        HmilyLockKey that = (HmilyLockKey) o;
+        return pkHashLow == that.pkHashLow && pkHashHigh == that.pkHashHigh
+            && Objects.equals(resourceId, that.resourceId) && Objects.equals(targetTableName, that.targetTableName);
+    }
+    
+    @Override
+    public int hashCode() {
+        // the name hashes are cached by the strings, the pk hash is already spread
+        return (int) pkHashLow * 31 + Objects.hashCode(targetTableName) * 17 + Objects.hashCode(resourceId);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s%s%s%s%016x%016x", resourceId, SEPARATOR, targetTableName, SEPARATOR, pkHashHigh, pkHashLow);
+    }
+}
@@ -18,6 +18,7 @@ package org.dromara.hmily.repository.spi.entity;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.Objects;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -107,6 +108,11 @@ public class HmilyParticipant implements Serializable {
      */
     private Date updateTime;
     
+    /**
+     * the earliest time self recovery may retry this participant again.
+     */
+    private Date nextRetryTime;
+    
     /**
      * confirm hmilyInvocation.
      */
@@ -117,8 +123,24 @@ public class HmilyParticipant implements Serializable {
      */
     private HmilyInvocation cancelHmilyInvocation;
     
+    /**
+     * the record of this starter participant is not written yet, see the lazy starter log.
+     */
+    private transient boolean deferred;
+    
     public HmilyParticipant() {
         this.createTime = new Date();
         this.updateTime = new Date();
+        this.nextRetryTime = this.createTime;
+    }
+    
+    /**
+     * Whether self recovery may retry this participant at the given time.
+     *
+     * @param now the time of the recovery scan
+     * @return true when the retry backoff has elapsed
+     */
+    public boolean dueForRetry(final Date now) {
+        return Objects.isNull(nextRetryTime) || !nextRetryTime.after(now);
     }
 }
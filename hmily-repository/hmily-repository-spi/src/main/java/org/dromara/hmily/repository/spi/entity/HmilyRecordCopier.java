@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.repository.spi.entity;
+
+import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLTuple;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+/**
+ * Copies the records kept by the in-process repositories, so that the callers never share
+ * a mutable object with the stored record.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyRecordCopier {
+    
+    private HmilyRecordCopier() {
+    }
+    
+    /**
+     * Copy the columns of a hmily transaction.
+     *
+     * @param source the source
+     * @return the copy
+     */
+    public static HmilyTransaction copy(final HmilyTransaction source) {
+        HmilyTransaction result = new HmilyTransaction();
+        result.setTransId(source.getTransId());
+        result.setAppName(source.getAppName());
+        result.setStatus(source.getStatus());
+        result.setTransType(source.getTransType());
+        result.setRetry(source.getRetry());
+        result.setVersion(source.getVersion());
+        result.setCreateTime(copy(source.getCreateTime()));
+        result.setUpdateTime(copy(source.getUpdateTime()));
+        return result;
+    }
+    
+    /**
+     * Copy the columns of a hmily participant.
+     *
+     * @param source the source
+     * @return the copy
+     */
+    public static HmilyParticipant copy(final HmilyParticipant source) {
+        HmilyParticipant result = new HmilyParticipant();
+        result.setParticipantId(source.getParticipantId());
+        result.setParticipantRefId(source.getParticipantRefId());
+        result.setTransId(source.getTransId());
+        result.setTransType(source.getTransType());
+        result.setStatus(source.getStatus());
+        result.setAppName(source.getAppName());
+        result.setRole(source.getRole());
+        result.setRetry(source.getRetry());
+        result.setTargetClass(source.getTargetClass());
+        result.setTargetMethod(source.getTargetMethod());
+        result.setConfirmMethod(source.getConfirmMethod());
+        result.setCancelMethod(source.getCancelMethod());
+        result.setVersion(source.getVersion());
+        result.setCreateTime(copy(source.getCreateTime()));
+        result.setUpdateTime(copy(source.getUpdateTime()));
+        result.setNextRetryTime(copy(source.getNextRetryTime()));
+        result.setConfirmHmilyInvocation(copy(source.getConfirmHmilyInvocation()));
+        result.setCancelHmilyInvocation(copy(source.getCancelHmilyInvocation()));
+        return result;
+    }
+    
+    /**
+     * Copy the columns of a hmily participant undo.
+     *
+     * @param source the source
+     * @return the copy
+     */
+    public static HmilyParticipantUndo copy(final HmilyParticipantUndo source) {
+        HmilyParticipantUndo result = new HmilyParticipantUndo();
+        result.setUndoId(source.getUndoId());
+        result.setParticipantId(source.getParticipantId());
+        result.setTransId(source.getTransId());
+        result.setResourceId(source.getResourceId());
+        result.setStatus(source.getStatus());
+        result.setDataSnapshot(copy(source.getDataSnapshot()));
+        result.setCreateTime(copy(source.getCreateTime()));
+        result.setUpdateTime(copy(source.getUpdateTime()));
+        return result;
+    }
+    
+    private static Date copy(final Date source) {
+        return Objects.isNull(source) ? null : new Date(source.getTime());
+    }
+    
+    private static HmilyInvocation copy(final HmilyInvocation source) {
+        if (Objects.isNull(source)) {
+            return null;
+        }
+        return new HmilyInvocation(source.getTargetClass(), source.getMethodName(),
+                Objects.isNull(source.getParameterTypes()) ? null : source.getParameterTypes().clone(),
+                Objects.isNull(source.getArgs()) ? null : source.getArgs().clone());
+    }
+    
+    private static HmilyDataSnapshot copy(final HmilyDataSnapshot source) {
+        if (Objects.isNull(source)) {
+            return null;
+        }
+        HmilyDataSnapshot result = new HmilyDataSnapshot();
+        for (HmilySQLTuple each : source.getTuples()) {
+            HmilySQLTuple tuple = new HmilySQLTuple();
+            tuple.setTableName(each.getTableName());
+            tuple.setManipulationType(each.getManipulationType());
+            tuple.setPrimaryKeyValues(Objects.isNull(each.getPrimaryKeyValues()) ? null : new ArrayList<>(each.getPrimaryKeyValues()));
+            tuple.setBeforeImage(Objects.isNull(each.getBeforeImage()) ? null : new LinkedHashMap<>(each.getBeforeImage()));
+            tuple.setAfterImage(Objects.isNull(each.getAfterImage()) ? null : new LinkedHashMap<>(each.getAfterImage()));
+            result.getTuples().add(tuple);
+        }
+        return result;
+    }
+}
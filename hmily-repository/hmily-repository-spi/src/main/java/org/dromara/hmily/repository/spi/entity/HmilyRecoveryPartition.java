@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.repository.spi.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * The share of recovery work owned by one live member: participants whose id hashes to {@code index} out of {@code total}.
+ *
+ * @author xiaoyu
+ */
+@Data
+@AllArgsConstructor
+public class HmilyRecoveryPartition implements Serializable {
+    
+    private static final long serialVersionUID = -4217604377251937214L;
+    
+    /**
+     * position of this member among the live members.
+     */
+    private int index;
+    
+    /**
+     * count of live members.
+     */
+    private int total;
+    
+    /**
+     * Whether the participant belongs to this partition.
+     *
+     * @param participantId the participant id
+     * @return true if owned
+     */
+    public boolean owns(final Long participantId) {
+        return Math.floorMod(participantId, (long) total) == index;
+    }
+}
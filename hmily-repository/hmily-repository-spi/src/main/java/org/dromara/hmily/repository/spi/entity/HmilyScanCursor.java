@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.hmily.repository.spi.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The position of a keyset scan, the (update_time, id) of the last row returned.
+ * Rows are scanned in (update_time, id) order and the next page starts strictly after the cursor.
+ *
+ * @author xiaoyu
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HmilyScanCursor implements Serializable {
+    
+    private static final long serialVersionUID = 3519472580236524131L;
+    
+    /**
+     * update time of the last row.
+     */
+    private Date updateTime;
+    
+    /**
+     * id of the last row, participant id or trans id.
+     */
+    private Long id;
+    
+    /**
+     * The cursor before every row, used for the first page.
+     *
+     * @return the hmily scan cursor
+     */
+    public static HmilyScanCursor first() {
+        return new HmilyScanCursor(new Date(0L), Long.MIN_VALUE);
+    }
+    
+    /**
+     * The cursor after the given participant.
+     *
+     * @param hmilyParticipant the hmily participant
+     * @return the hmily scan cursor
+     */
+    public static HmilyScanCursor of(final HmilyParticipant hmilyParticipant) {
+        return new HmilyScanCursor(hmilyParticipant.getUpdateTime(), hmilyParticipant.getParticipantId());
+    }
+    
+    /**
+     * The cursor after the given transaction.
+     *
+     * @param hmilyTransaction the hmily transaction
+     * @return the hmily scan cursor
+     */
+    public static HmilyScanCursor of(final HmilyTransaction hmilyTransaction) {
+        return new HmilyScanCursor(hmilyTransaction.getUpdateTime(), hmilyTransaction.getTransId());
+    }
+    
+    /**
+     * Whether the row keyed by (updateTime, id) comes after this cursor.
+     *
+     * @param rowUpdateTime the row update time
+     * @param rowId         the row id
+     * @return true if the row belongs to a later page
+     */
+    public boolean isBefore(final Date rowUpdateTime, final Long rowId) {
+        int compare = Long.compare(rowUpdateTime.getTime(), updateTime.getTime());
+        return compare > 0 || (compare == 0 && rowId > id);
+    }
+    
+    /**
+     * Page rows of a store that can only scan everything: sort by (updateTime, id), skip up to the cursor and take limit.
+     *
+     * @param <T>        the row type
+     * @param rows       the rows matching the scan condition
+     * @param updateTime the update time of a row
+     * @param id         the id of a row
+     * @param cursor     the cursor, null for the first page
+     * @param limit      the limit
+     * @return the page
+     */
+    public static <T> List<T> page(final Collection<T> rows, final Function<T, Date> updateTime, final Function<T, Long> id, final HmilyScanCursor cursor, final int limit) {
+        HmilyScanCursor after = Objects.isNull(cursor) ? first() : cursor;
+        return rows.stream()
+                .filter(each -> Objects.nonNull(updateTime.apply(each)) && after.isBefore(updateTime.apply(each), id.apply(each)))
+                .sorted(Comparator.comparing(updateTime).thenComparing(id))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+}
@@ -86,6 +86,11 @@ public class HmilyTransaction implements Serializable {
      */
     private Map<String, Object> paramMap = new ConcurrentHashMap<>();
     
+    /**
+     * the records of this starter transaction are not written yet, see the lazy starter log.
+     */
+    private transient boolean deferred;
+    
     /**
      * Instantiates a new Hmily transaction.
      */
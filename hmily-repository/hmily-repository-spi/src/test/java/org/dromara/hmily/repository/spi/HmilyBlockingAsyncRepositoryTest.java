@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.repository.spi;
+
+import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
+import org.dromara.hmily.repository.spi.exception.HmilyRepositoryException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The blocking async repository test.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyBlockingAsyncRepositoryTest {
+    
+    private final HmilyRepository hmilyRepository = mock(HmilyRepository.class);
+    
+    private final HmilyBlockingAsyncRepository asyncRepository = new HmilyBlockingAsyncRepository(hmilyRepository, 1, 1);
+    
+    @After
+    public void tearDown() throws InterruptedException {
+        asyncRepository.close();
+    }
+    
+    @Test
+    public void assertCallRunsOnPool() throws Exception {
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        when(hmilyRepository.createHmilyTransaction(any())).thenAnswer(invocation -> {
+            thread.set(Thread.currentThread());
+            return HmilyRepository.ROWS;
+        });
+        assertEquals(HmilyRepository.ROWS, asyncRepository.createHmilyTransactionAsync(new HmilyTransaction(1L)).get().intValue());
+        assertNotSame(Thread.currentThread(), thread.get());
+        assertTrue(thread.get().getName().contains("hmily-async-repository"));
+    }
+    
+    @Test
+    public void assertUndoListIsWrittenInOneCall() throws Exception {
+        List<HmilyParticipantUndo> undoList = Arrays.asList(new HmilyParticipantUndo(), new HmilyParticipantUndo());
+        when(hmilyRepository.createHmilyParticipantUndos(undoList)).thenReturn(2);
+        assertEquals(2, asyncRepository.createHmilyParticipantUndosAsync(undoList).get().intValue());
+        verify(hmilyRepository).createHmilyParticipantUndos(undoList);
+        verify(hmilyRepository, never()).createHmilyParticipantUndo(any());
+    }
+    
+    @Test
+    public void assertFailureCompletesFuture() throws InterruptedException {
+        HmilyRepositoryException exception = new HmilyRepositoryException("fail");
+        when(hmilyRepository.removeHmilyTransaction(anyLong())).thenThrow(exception);
+        try {
+            asyncRepository.removeHmilyTransactionAsync(1L).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+    
+    @Test
+    public void assertCallerRunsWhenPoolIsFull() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(hmilyRepository.removeHmilyParticipant(1L)).thenAnswer(invocation -> {
+            blocked.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return HmilyRepository.ROWS;
+        });
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        when(hmilyRepository.removeHmilyParticipant(3L)).thenAnswer(invocation -> {
+            thread.set(Thread.currentThread());
+            return HmilyRepository.ROWS;
+        });
+        CompletableFuture<Integer> running = asyncRepository.removeHmilyParticipantAsync(1L);
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> queued = asyncRepository.removeHmilyParticipantAsync(2L);
+        CompletableFuture<Integer> callerRuns = asyncRepository.removeHmilyParticipantAsync(3L);
+        assertTrue(callerRuns.isDone());
+        assertSame(Thread.currentThread(), thread.get());
+        release.countDown();
+        assertEquals(HmilyRepository.ROWS, running.get().intValue());
+        assertEquals(0, queued.get().intValue());
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.repository.spi.entity;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * The type Hmily lock key test.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyLockKeyTest {
+    
+    @Test
+    public void assertEqualKeys() {
+        HmilyLock lock = new HmilyLock(1L, 2L, "resource", "t_order", "1");
+        HmilyLockKey lockKey = lock.getLockKey();
+        HmilyLockKey other = HmilyLockKey.of(lock.getLockId());
+        assertEquals(lockKey, other);
+        assertEquals(lockKey.hashCode(), other.hashCode());
+        assertEquals(0, lockKey.compareTo(other));
+    }
+    
+    @Test
+    public void assertDifferentKeys() {
+        HmilyLockKey lockKey = new HmilyLockKey("resource", "t_order", "1");
+        assertNotEquals(lockKey, new HmilyLockKey("resource", "t_order", "2"));
+        assertNotEquals(lockKey, new HmilyLockKey("resource", "t_user", "1"));
+        assertNotEquals(lockKey, new HmilyLockKey("other", "t_order", "1"));
+    }
+    
+    @Test
+    public void assertNullPrimaryKey() {
+        HmilyLock lock = new HmilyLock(1L, 2L, "resource", "t_order", null);
+        assertEquals("resource;;t_order;;null", lock.getLockId());
+        assertEquals(lock.getLockKey(), HmilyLockKey.of(lock.getLockId()));
+    }
+    
+    @Test
+    public void assertNamesAreInterned() {
+        HmilyLockKey lockKey = new HmilyLockKey(new String("resource"), new String("t_order"), "1");
+        HmilyLockKey other = new HmilyLockKey(new String("resource"), new String("t_order"), "2");
+        assertSame(lockKey.getResourceId(), other.getResourceId());
+        assertSame(lockKey.getTargetTableName(), other.getTargetTableName());
+    }
+}
@@ -0,0 +1,650 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.repository.tiered;
+
+import com.google.common.util.concurrent.Striped;
+import org.dromara.hmily.common.concurrent.HmilyThreadFactory;
+import org.dromara.hmily.common.enums.HmilyActionEnum;
+import org.dromara.hmily.common.exception.HmilyRuntimeException;
+import org.dromara.hmily.common.hook.HmilyShutdownHook;
+import org.dromara.hmily.common.utils.LogUtil;
+import org.dromara.hmily.config.api.ConfigEnv;
+import org.dromara.hmily.config.api.entity.HmilyTieredConfig;
+import org.dromara.hmily.repository.spi.HmilyRepository;
+import org.dromara.hmily.repository.spi.entity.HmilyLock;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.entity.HmilyRecordCopier;
+import org.dromara.hmily.repository.spi.entity.HmilyScanCursor;
+import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
+import org.dromara.hmily.repository.spi.exception.HmilyRepositoryException;
+import org.dromara.hmily.serializer.spi.HmilySerializer;
+import org.dromara.hmily.spi.ExtensionLoaderFactory;
+import org.dromara.hmily.spi.HmilySPI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Tiered repository, keeps young records in an in-process hot tier and demotes them to the
+ * configured durable repository once they are older than {@link HmilyTieredConfig#getDemoteAge()}.
+ * Transactions that complete before that age never touch the durable repository.
+ * Reads are answered from both tiers. Global locks are shared between nodes, so they always go
+ * straight to the durable repository.
+ * The hot tier keeps its own copies of the records, so callers never share a mutable record with it,
+ * and indexes them by trans id and participant id.
+ * Note the records still in the hot tier are lost if the process crashes before demotion.
+ *
+ * @author xiaoyu
+ */
+@HmilySPI("tiered")
+public class TieredRepository implements HmilyRepository, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TieredRepository.class);
+
+    private static final String TIERED = "tiered";
+
+    private static final int LOCK_STRIPES = 256;
+
+    private final Map<Long, HmilyTransaction> hotTransactions = new ConcurrentHashMap<>();
+
+    private final Map<Long, HmilyParticipant> hotParticipants = new ConcurrentHashMap<>();
+
+    private final Map<Long, HmilyParticipantUndo> hotUndos = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Long>> hotParticipantIdsByTransId = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Long>> hotParticipantIdsByRefId = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Long>> hotUndoIdsByTransId = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Long>> hotUndoIdsByParticipantId = new ConcurrentHashMap<>();
+
+    /**
+     * every hot tier mutation and the demotion of a transaction hold the stripe of its trans id.
+     */
+    private final Striped<Lock> transLocks = Striped.lock(LOCK_STRIPES);
+
+    private HmilyRepository durableRepository;
+
+    private HmilySerializer hmilySerializer;
+
+    private ScheduledExecutorService demoteExecutor;
+
+    private String appName;
+
+    private long demoteAge;
+
+    private int maxHotSize;
+
+    /**
+     * Instantiates a new Tiered repository, the durable repository is built on init.
+     */
+    public TieredRepository() {
+    }
+
+    /**
+     * Instantiates a new tiered repository on an already initialized durable repository.
+     *
+     * @param durableRepository the durable repository
+     * @param maxHotSize the max records kept in the hot tier
+     */
+    public TieredRepository(final HmilyRepository durableRepository, final int maxHotSize) {
+        this.durableRepository = durableRepository;
+        this.maxHotSize = maxHotSize;
+    }
+
+    @Override
+    public void init(final String appName) {
+        this.appName = appName;
+        HmilyTieredConfig tieredConfig = ConfigEnv.getInstance().getConfig(HmilyTieredConfig.class);
+        if (TIERED.equals(tieredConfig.getRepository())) {
+            throw new HmilyRuntimeException("tiered repository can not use tiered itself as durable repository");
+        }
+        durableRepository = ExtensionLoaderFactory.load(HmilyRepository.class, tieredConfig.getRepository());
+        if (Objects.isNull(durableRepository)) {
+            throw new HmilyRuntimeException("not found durable repository : " + tieredConfig.getRepository());
+        }
+        durableRepository.setSerializer(hmilySerializer);
+        durableRepository.init(appName);
+        demoteAge = tieredConfig.getDemoteAge();
+        maxHotSize = tieredConfig.getMaxHotSize();
+        demoteExecutor = new ScheduledThreadPoolExecutor(1, HmilyThreadFactory.create("hmily-repository-demote", true));
+        demoteExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                demote(System.currentTimeMillis() - demoteAge);
+            } catch (Exception e) {
+                LogUtil.error(LOGGER, "hmily tiered repository demote exception:{}", e::getMessage);
+            }
+        }, tieredConfig.getDemoteInterval(), tieredConfig.getDemoteInterval(), TimeUnit.MILLISECONDS);
+        HmilyShutdownHook.getInstance().registerAutoCloseable(this);
+    }
+
+    @Override
+    public void setSerializer(final HmilySerializer hmilySerializer) {
+        this.hmilySerializer = hmilySerializer;
+        if (Objects.nonNull(durableRepository)) {
+            durableRepository.setSerializer(hmilySerializer);
+        }
+    }
+
+    @Override
+    public int createHmilyTransaction(final HmilyTransaction hmilyTransaction) throws HmilyRepositoryException {
+        if (isHotFull()) {
+            return durableRepository.createHmilyTransaction(hmilyTransaction);
+        }
+        hmilyTransaction.setAppName(appName);
+        return withTransLock(hmilyTransaction.getTransId(), () -> {
+            hotTransactions.put(hmilyTransaction.getTransId(), HmilyRecordCopier.copy(hmilyTransaction));
+            return ROWS;
+        });
+    }
+
+    @Override
+    public int updateRetryByLock(final HmilyTransaction hmilyTransaction) {
+        Long transId = hmilyTransaction.getTransId();
+        Integer rows = withTransLock(transId, () -> {
+            HmilyTransaction hot = hotTransactions.get(transId);
+            if (Objects.isNull(hot)) {
+                return null;
+            }
+            if (!Objects.equals(hot.getVersion(), hmilyTransaction.getVersion())) {
+                return FAIL_ROWS;
+            }
+            hmilyTransaction.setVersion(hmilyTransaction.getVersion() + 1);
+            hmilyTransaction.setRetry(hmilyTransaction.getRetry() + 1);
+            hot.setVersion(hmilyTransaction.getVersion());
+            hot.setRetry(hmilyTransaction.getRetry());
+            hot.setUpdateTime(new Date());
+            return ROWS;
+        });
+        return Objects.nonNull(rows) ? rows : durableRepository.updateRetryByLock(hmilyTransaction);
+    }
+
+    @Override
+    public HmilyTransaction findByTransId(final Long transId) {
+        HmilyTransaction hot = hotTransactions.get(transId);
+        return Objects.nonNull(hot) ? HmilyRecordCopier.copy(hot) : durableRepository.findByTransId(transId);
+    }
+
+    @Override
+    public List<HmilyTransaction> findByTransIds(final Collection<Long> transIds) {
+        List<HmilyTransaction> result = new ArrayList<>(transIds.size());
+        List<Long> cold = new ArrayList<>();
+        for (Long each : transIds) {
+            HmilyTransaction hot = hotTransactions.get(each);
+            if (Objects.nonNull(hot)) {
+                result.add(HmilyRecordCopier.copy(hot));
+            } else {
+                cold.add(each);
+            }
+        }
+        if (!cold.isEmpty()) {
+            result.addAll(durableRepository.findByTransIds(cold));
+        }
+        return result;
+    }
+
+    @Override
+    public List<HmilyTransaction> listLimitByDelay(final Date date, final int limit) {
+        List<HmilyTransaction> result = hotTransactions.values().stream()
+                .filter(each -> date.after(each.getUpdateTime()))
+                .limit(limit)
+                .map(HmilyRecordCopier::copy)
+                .collect(Collectors.toList());
+        if (result.size() < limit) {
+            result.addAll(durableRepository.listLimitByDelay(date, limit - result.size()));
+        }
+        return result;
+    }
+
+    @Override
+    public List<HmilyTransaction> listLimitByDelay(final Date date, final int limit, final HmilyScanCursor cursor) {
+        List<HmilyTransaction> result = hotTransactions.values().stream()
+                .filter(each -> date.after(each.getUpdateTime()))
+                .map(HmilyRecordCopier::copy)
+                .collect(Collectors.toList());
+        result.addAll(durableRepository.listLimitByDelay(date, limit, cursor));
+        return HmilyScanCursor.page(result, HmilyTransaction::getUpdateTime, HmilyTransaction::getTransId, cursor, limit);
+    }
+
+    @Override
+    public int updateHmilyTransactionStatus(final Long transId, final Integer status) throws HmilyRepositoryException {
+        Integer rows = withTransLock(transId, () -> {
+            HmilyTransaction hot = hotTransactions.get(transId);
+            if (Objects.isNull(hot)) {
+                return null;
+            }
+            hot.setStatus(status);
+            hot.setUpdateTime(new Date());
+            return ROWS;
+        });
+        return Objects.nonNull(rows) ? rows : durableRepository.updateHmilyTransactionStatus(transId, status);
+    }
+
+    @Override
+    public int removeHmilyTransaction(final Long transId) {
+        HmilyTransaction hot = withTransLock(transId, () -> hotTransactions.remove(transId));
+        return Objects.nonNull(hot) ? ROWS : durableRepository.removeHmilyTransaction(transId);
+    }
+
+    @Override
+    public int removeHmilyTransactionByDate(final Date date) {
+        int rows = removeHot(hotTransactions, HmilyTransaction::getTransId,
+            each -> date.after(each.getUpdateTime()) && Objects.equals(HmilyActionEnum.DELETE.getCode(), each.getStatus()), each -> { });
+        return rows + durableRepository.removeHmilyTransactionByDate(date);
+    }
+
+    @Override
+    public int createHmilyParticipant(final HmilyParticipant hmilyParticipant) throws HmilyRepositoryException {
+        if (isHotFull()) {
+            return durableRepository.createHmilyParticipant(hmilyParticipant);
+        }
+        hmilyParticipant.setAppName(appName);
+        return withTransLock(hmilyParticipant.getTransId(), () -> {
+            putHotParticipant(HmilyRecordCopier.copy(hmilyParticipant));
+            return ROWS;
+        });
+    }
+
+    @Override
+    public List<HmilyParticipant> findHmilyParticipant(final Long participantId) {
+        Set<Long> participantIds = new HashSet<>(hotParticipantIdsByRefId.getOrDefault(participantId, Collections.emptySet()));
+        participantIds.add(participantId);
+        return mergeParticipants(hotParticipants(participantIds), durableRepository.findHmilyParticipant(participantId));
+    }
+
+    @Override
+    public List<HmilyParticipant> listHmilyParticipant(final Date date, final String transType, final int limit) {
+        Date now = new Date();
+        List<HmilyParticipant> result = hotParticipants.values().stream()
+                .filter(each -> date.after(each.getUpdateTime()) && Objects.equals(transType, each.getTransType()) && isLive(each.getStatus()) && each.dueForRetry(now))
+                .limit(limit)
+                .map(HmilyRecordCopier::copy)
+                .collect(Collectors.toList());
+        if (result.size() < limit) {
+            result.addAll(durableRepository.listHmilyParticipant(date, transType, limit - result.size()));
+        }
+        return result;
+    }
+
+    @Override
+    public List<HmilyParticipant> listHmilyParticipant(final Date date, final String transType, final int limit, final HmilyScanCursor cursor) {
+        Date now = new Date();
+        List<HmilyParticipant> result = hotParticipants.values().stream()
+                .filter(each -> date.after(each.getUpdateTime()) && Objects.equals(transType, each.getTransType()) && isLive(each.getStatus()) && each.dueForRetry(now))
+                .map(HmilyRecordCopier::copy)
+                .collect(Collectors.toList());
+        result.addAll(durableRepository.listHmilyParticipant(date, transType, limit, cursor));
+        return HmilyScanCursor.page(result, HmilyParticipant::getUpdateTime, HmilyParticipant::getParticipantId, cursor, limit);
+    }
+
+    @Override
+    public List<HmilyParticipant> listHmilyParticipantByTransId(final Long transId) {
+        List<HmilyParticipant> result = hotParticipants(hotParticipantIdsByTransId.getOrDefault(transId, Collections.emptySet()));
+        return mergeParticipants(result, durableRepository.listHmilyParticipantByTransId(transId));
+    }
+
+    @Override
+    public boolean existHmilyParticipantByTransId(final Long transId) {
+        return hotParticipantIdsByTransId.containsKey(transId) || durableRepository.existHmilyParticipantByTransId(transId);
+    }
+
+    @Override
+    public int updateHmilyParticipantStatus(final Long participantId, final Integer status) throws HmilyRepositoryException {
+        Integer rows = withHotParticipant(participantId, hot -> {
+            hot.setStatus(status);
+            hot.setUpdateTime(new Date());
+            return ROWS;
+        });
+        return Objects.nonNull(rows) ? rows : durableRepository.updateHmilyParticipantStatus(participantId, status);
+    }
+
+    @Override
+    public int removeHmilyParticipant(final Long participantId) {
+        Integer rows = withHotParticipant(participantId, hot -> {
+            removeHotParticipant(participantId);
+            return ROWS;
+        });
+        return Objects.nonNull(rows) ? rows : durableRepository.removeHmilyParticipant(participantId);
+    }
+
+    @Override
+    public int removeHmilyParticipantByDate(final Date date) {
+        int rows = removeHot(hotParticipants, HmilyParticipant::getTransId,
+            each -> date.after(each.getUpdateTime()) && Objects.equals(HmilyActionEnum.DELETE.getCode(), each.getStatus()), this::unindexParticipant);
+        return rows + durableRepository.removeHmilyParticipantByDate(date);
+    }
+
+    @Override
+    public boolean lockHmilyParticipant(final HmilyParticipant hmilyParticipant) {
+        Integer rows = withHotParticipant(hmilyParticipant.getParticipantId(), hot -> {
+            if (!Objects.equals(hot.getVersion(), hmilyParticipant.getVersion())) {
+                return FAIL_ROWS;
+            }
+            hmilyParticipant.setVersion(hmilyParticipant.getVersion() + 1);
+            hmilyParticipant.setRetry(hmilyParticipant.getRetry() + 1);
+            hot.setVersion(hmilyParticipant.getVersion());
+            hot.setRetry(hmilyParticipant.getRetry());
+            hot.setNextRetryTime(hmilyParticipant.getNextRetryTime());
+            return ROWS;
+        });
+        return Objects.nonNull(rows) ? rows == ROWS : durableRepository.lockHmilyParticipant(hmilyParticipant);
+    }
+
+    @Override
+    public int heartbeatRecoveryMember(final String memberId, final Date expireTime) {
+        return durableRepository.heartbeatRecoveryMember(memberId, expireTime);
+    }
+
+    @Override
+    public boolean isRecoveryPartitionSupported() {
+        return durableRepository.isRecoveryPartitionSupported();
+    }
+
+    @Override
+    public List<String> listRecoveryMembers(final Date date) {
+        return durableRepository.listRecoveryMembers(date);
+    }
+
+    @Override
+    public int createHmilyParticipantUndo(final HmilyParticipantUndo hmilyParticipantUndo) {
+        if (isHotFull()) {
+            return durableRepository.createHmilyParticipantUndo(hmilyParticipantUndo);
+        }
+        return withTransLock(hmilyParticipantUndo.getTransId(), () -> {
+            putHotUndo(HmilyRecordCopier.copy(hmilyParticipantUndo));
+            return ROWS;
+        });
+    }
+
+    @Override
+    public List<HmilyParticipantUndo> findHmilyParticipantUndoByParticipantId(final Long participantId) {
+        List<HmilyParticipantUndo> result = hotUndos(hotUndoIdsByParticipantId.getOrDefault(participantId, Collections.emptySet()));
+        Set<Long> undoIds = result.stream().map(HmilyParticipantUndo::getUndoId).collect(Collectors.toSet());
+        durableRepository.findHmilyParticipantUndoByParticipantId(participantId).stream()
+                .filter(each -> !undoIds.contains(each.getUndoId()))
+                .forEach(result::add);
+        return result;
+    }
+
+    @Override
+    public List<HmilyParticipantUndo> findHmilyParticipantUndoByParticipantIds(final Collection<Long> participantIds) {
+        List<HmilyParticipantUndo> result = new ArrayList<>();
+        for (Long each : new HashSet<>(participantIds)) {
+            result.addAll(hotUndos(hotUndoIdsByParticipantId.getOrDefault(each, Collections.emptySet())));
+        }
+        Set<Long> undoIds = result.stream().map(HmilyParticipantUndo::getUndoId).collect(Collectors.toSet());
+        durableRepository.findHmilyParticipantUndoByParticipantIds(participantIds).stream()
+                .filter(each -> !undoIds.contains(each.getUndoId()))
+                .forEach(result::add);
+        return result;
+    }
+
+    @Override
+    public int removeHmilyParticipantUndo(final Long undoId) {
+        Integer rows = withHotUndo(undoId, hot -> {
+            removeHotUndo(undoId);
+            return ROWS;
+        });
+        return Objects.nonNull(rows) ? rows : durableRepository.removeHmilyParticipantUndo(undoId);
+    }
+
+    @Override
+    public int removeHmilyParticipantUndoByDate(final Date date) {
+        int rows = removeHot(hotUndos, HmilyParticipantUndo::getTransId,
+            each -> date.after(each.getUpdateTime()) && Objects.equals(HmilyActionEnum.DELETE.getCode(), each.getStatus()), this::unindexUndo);
+        return rows + durableRepository.removeHmilyParticipantUndoByDate(date);
+    }
+
+    @Override
+    public int updateHmilyParticipantUndoStatus(final Long undoId, final Integer status) {
+        Integer rows = withHotUndo(undoId, hot -> {
+            hot.setStatus(status);
+            hot.setUpdateTime(new Date());
+            return ROWS;
+        });
+        return Objects.nonNull(rows) ? rows : durableRepository.updateHmilyParticipantUndoStatus(undoId, status);
+    }
+
+    @Override
+    public int writeHmilyLocks(final Collection<HmilyLock> locks) {
+        return durableRepository.writeHmilyLocks(locks);
+    }
+
+    @Override
+    public int releaseHmilyLocks(final Collection<HmilyLock> locks) {
+        return durableRepository.releaseHmilyLocks(locks);
+    }
+
+    @Override
+    public Optional<HmilyLock> findHmilyLockById(final String lockId) {
+        return durableRepository.findHmilyLockById(lockId);
+    }
+
+    @Override
+    public Optional<HmilyLock> findHmilyLock(final HmilyLock hmilyLock) {
+        return durableRepository.findHmilyLock(hmilyLock);
+    }
+
+    @Override
+    public void close() {
+        if (Objects.nonNull(demoteExecutor)) {
+            demoteExecutor.shutdown();
+        }
+        demote(Long.MAX_VALUE);
+    }
+
+    /**
+     * Demote every hot transaction that has a record created before the deadline.
+     * All records of one transaction move together while its stripe is held.
+     *
+     * @param deadline the deadline in millis
+     */
+    void demote(final long deadline) {
+        Set<Long> transIds = new HashSet<>();
+        hotTransactions.values().stream().filter(each -> isBefore(each.getCreateTime(), deadline)).forEach(each -> transIds.add(each.getTransId()));
+        hotParticipants.values().stream().filter(each -> isBefore(each.getCreateTime(), deadline)).forEach(each -> transIds.add(each.getTransId()));
+        hotUndos.values().stream().filter(each -> isBefore(each.getCreateTime(), deadline)).forEach(each -> transIds.add(each.getTransId()));
+        for (Long each : transIds) {
+            withTransLock(each, () -> {
+                demoteTransaction(each);
+                return null;
+            });
+        }
+    }
+
+    private void demoteTransaction(final Long transId) {
+        HmilyTransaction hmilyTransaction = hotTransactions.get(transId);
+        if (Objects.nonNull(hmilyTransaction)) {
+            durableRepository.createHmilyTransaction(hmilyTransaction);
+            hotTransactions.remove(transId);
+        }
+        for (Long each : new ArrayList<>(hotParticipantIdsByTransId.getOrDefault(transId, Collections.emptySet()))) {
+            HmilyParticipant participant = hotParticipants.get(each);
+            if (Objects.nonNull(participant)) {
+                durableRepository.createHmilyParticipant(participant);
+                removeHotParticipant(each);
+            }
+        }
+        for (Long each : new ArrayList<>(hotUndoIdsByTransId.getOrDefault(transId, Collections.emptySet()))) {
+            HmilyParticipantUndo undo = hotUndos.get(each);
+            if (Objects.nonNull(undo)) {
+                durableRepository.createHmilyParticipantUndo(undo);
+                removeHotUndo(each);
+            }
+        }
+    }
+
+    private boolean isHotFull() {
+        return hotTransactions.size() + hotParticipants.size() + hotUndos.size() >= maxHotSize;
+    }
+
+    private Integer withHotParticipant(final Long participantId, final Function<HmilyParticipant, Integer> function) {
+        HmilyParticipant current = hotParticipants.get(participantId);
+        if (Objects.isNull(current)) {
+            return null;
+        }
+        return withTransLock(current.getTransId(), () -> {
+            // re-check under the stripe, the record may have been demoted meanwhile.
+            HmilyParticipant hot = hotParticipants.get(participantId);
+            return Objects.isNull(hot) ? null : function.apply(hot);
+        });
+    }
+
+    private Integer withHotUndo(final Long undoId, final Function<HmilyParticipantUndo, Integer> function) {
+        HmilyParticipantUndo current = hotUndos.get(undoId);
+        if (Objects.isNull(current)) {
+            return null;
+        }
+        return withTransLock(current.getTransId(), () -> {
+            HmilyParticipantUndo hot = hotUndos.get(undoId);
+            return Objects.isNull(hot) ? null : function.apply(hot);
+        });
+    }
+
+    private void putHotParticipant(final HmilyParticipant hmilyParticipant) {
+        HmilyParticipant previous = hotParticipants.put(hmilyParticipant.getParticipantId(), hmilyParticipant);
+        if (Objects.nonNull(previous)) {
+            unindexParticipant(previous);
+        }
+        index(hotParticipantIdsByTransId, hmilyParticipant.getTransId(), hmilyParticipant.getParticipantId());
+        index(hotParticipantIdsByRefId, hmilyParticipant.getParticipantRefId(), hmilyParticipant.getParticipantId());
+    }
+
+    private void removeHotParticipant(final Long participantId) {
+        HmilyParticipant removed = hotParticipants.remove(participantId);
+        if (Objects.nonNull(removed)) {
+            unindexParticipant(removed);
+        }
+    }
+
+    private void unindexParticipant(final HmilyParticipant hmilyParticipant) {
+        unindex(hotParticipantIdsByTransId, hmilyParticipant.getTransId(), hmilyParticipant.getParticipantId());
+        unindex(hotParticipantIdsByRefId, hmilyParticipant.getParticipantRefId(), hmilyParticipant.getParticipantId());
+    }
+
+    private void putHotUndo(final HmilyParticipantUndo hmilyParticipantUndo) {
+        HmilyParticipantUndo previous = hotUndos.put(hmilyParticipantUndo.getUndoId(), hmilyParticipantUndo);
+        if (Objects.nonNull(previous)) {
+            unindexUndo(previous);
+        }
+        index(hotUndoIdsByTransId, hmilyParticipantUndo.getTransId(), hmilyParticipantUndo.getUndoId());
+        index(hotUndoIdsByParticipantId, hmilyParticipantUndo.getParticipantId(), hmilyParticipantUndo.getUndoId());
+    }
+
+    private void removeHotUndo(final Long undoId) {
+        HmilyParticipantUndo removed = hotUndos.remove(undoId);
+        if (Objects.nonNull(removed)) {
+            unindexUndo(removed);
+        }
+    }
+
+    private void unindexUndo(final HmilyParticipantUndo hmilyParticipantUndo) {
+        unindex(hotUndoIdsByTransId, hmilyParticipantUndo.getTransId(), hmilyParticipantUndo.getUndoId());
+        unindex(hotUndoIdsByParticipantId, hmilyParticipantUndo.getParticipantId(), hmilyParticipantUndo.getUndoId());
+    }
+
+    private List<HmilyParticipant> hotParticipants(final Collection<Long> participantIds) {
+        return participantIds.stream().map(hotParticipants::get).filter(Objects::nonNull).map(HmilyRecordCopier::copy).collect(Collectors.toList());
+    }
+
+    private List<HmilyParticipantUndo> hotUndos(final Collection<Long> undoIds) {
+        return undoIds.stream().map(hotUndos::get).filter(Objects::nonNull).map(HmilyRecordCopier::copy).collect(Collectors.toList());
+    }
+
+    private <T> int removeHot(final Map<Long, T> hot, final Function<T, Long> transIdFunction, final Predicate<T> predicate, final Consumer<T> unindex) {
+        int rows = 0;
+        for (Map.Entry<Long, T> entry : new ArrayList<>(hot.entrySet())) {
+            if (predicate.test(entry.getValue())) {
+                Boolean removed = withTransLock(transIdFunction.apply(entry.getValue()), () -> {
+                    if (!hot.remove(entry.getKey(), entry.getValue())) {
+                        return false;
+                    }
+                    unindex.accept(entry.getValue());
+                    return true;
+                });
+                rows += removed ? 1 : 0;
+            }
+        }
+        return rows;
+    }
+
+    private <T> T withTransLock(final Long transId, final Supplier<T> supplier) {
+        Lock lock = transLocks.get(transId);
+        lock.lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void index(final Map<Long, Set<Long>> index, final Long key, final Long id) {
+        if (Objects.nonNull(key)) {
+            index.compute(key, (k, ids) -> {
+                Set<Long> result = Objects.isNull(ids) ? ConcurrentHashMap.newKeySet() : ids;
+                result.add(id);
+                return result;
+            });
+        }
+    }
+
+    private static void unindex(final Map<Long, Set<Long>> index, final Long key, final Long id) {
+        if (Objects.nonNull(key)) {
+            index.computeIfPresent(key, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static boolean isBefore(final Date createTime, final long deadline) {
+        return Objects.isNull(createTime) || createTime.getTime() < deadline;
+    }
+
+    private static boolean isLive(final Integer status) {
+        return !Objects.equals(HmilyActionEnum.DELETE.getCode(), status) && !Objects.equals(HmilyActionEnum.DEATH.getCode(), status);
+    }
+
+    private static List<HmilyParticipant> mergeParticipants(final List<HmilyParticipant> hot, final List<HmilyParticipant> durable) {
+        Set<Long> participantIds = hot.stream().map(HmilyParticipant::getParticipantId).collect(Collectors.toSet());
+        List<HmilyParticipant> result = new ArrayList<>(hot);
+        durable.stream().filter(each -> !participantIds.contains(each.getParticipantId())).forEach(result::add);
+        return result;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.repository.tiered;
+
+import org.dromara.hmily.repository.spi.HmilyRepository;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The tiered repository test.
+ *
+ * @author xiaoyu
+ */
+public final class TieredRepositoryTest {
+    
+    private final HmilyRepository durableRepository = mock(HmilyRepository.class);
+    
+    private final TieredRepository tieredRepository = new TieredRepository(durableRepository, 100);
+    
+    @Test
+    public void assertShortTransactionNeverDemoted() {
+        HmilyTransaction hmilyTransaction = new HmilyTransaction(1L);
+        tieredRepository.createHmilyTransaction(hmilyTransaction);
+        assertEquals(hmilyTransaction, tieredRepository.findByTransId(1L));
+        assertEquals(HmilyRepository.ROWS, tieredRepository.removeHmilyTransaction(1L));
+        tieredRepository.demote(Long.MAX_VALUE);
+        verify(durableRepository, never()).createHmilyTransaction(any());
+        verify(durableRepository, never()).removeHmilyTransaction(anyLong());
+    }
+    
+    @Test
+    public void assertDemoteMovesWholeTransaction() {
+        HmilyTransaction hmilyTransaction = new HmilyTransaction(2L);
+        HmilyParticipant hmilyParticipant = new HmilyParticipant();
+        hmilyParticipant.setTransId(2L);
+        hmilyParticipant.setParticipantId(3L);
+        tieredRepository.createHmilyTransaction(hmilyTransaction);
+        tieredRepository.createHmilyParticipant(hmilyParticipant);
+        tieredRepository.demote(Long.MAX_VALUE);
+        verify(durableRepository).createHmilyTransaction(hmilyTransaction);
+        verify(durableRepository).createHmilyParticipant(hmilyParticipant);
+        tieredRepository.updateHmilyParticipantStatus(3L, 1);
+        verify(durableRepository).updateHmilyParticipantStatus(3L, 1);
+    }
+    
+    @Test
+    public void assertLockHmilyParticipantByVersion() {
+        HmilyParticipant hmilyParticipant = new HmilyParticipant();
+        hmilyParticipant.setTransId(4L);
+        hmilyParticipant.setParticipantId(5L);
+        hmilyParticipant.setVersion(1);
+        hmilyParticipant.setRetry(0);
+        tieredRepository.createHmilyParticipant(hmilyParticipant);
+        HmilyParticipant stale = new HmilyParticipant();
+        stale.setParticipantId(5L);
+        stale.setVersion(0);
+        stale.setRetry(0);
+        assertFalse(tieredRepository.lockHmilyParticipant(stale));
+        HmilyParticipant current = new HmilyParticipant();
+        current.setParticipantId(5L);
+        current.setVersion(1);
+        current.setRetry(0);
+        assertTrue(tieredRepository.lockHmilyParticipant(current));
+        verify(durableRepository, never()).lockHmilyParticipant(any());
+    }
+    
+    @Test
+    public void assertHotTierKeepsItsOwnCopy() {
+        HmilyParticipant hmilyParticipant = new HmilyParticipant();
+        hmilyParticipant.setTransId(6L);
+        hmilyParticipant.setParticipantId(7L);
+        hmilyParticipant.setStatus(1);
+        hmilyParticipant.setVersion(1);
+        hmilyParticipant.setRetry(0);
+        tieredRepository.createHmilyParticipant(hmilyParticipant);
+        hmilyParticipant.setStatus(9);
+        HmilyParticipant first = tieredRepository.findHmilyParticipant(7L).get(0);
+        HmilyParticipant second = tieredRepository.findHmilyParticipant(7L).get(0);
+        assertNotSame(first, second);
+        assertEquals(1, first.getStatus().intValue());
+        assertTrue(tieredRepository.lockHmilyParticipant(first));
+        assertFalse(tieredRepository.lockHmilyParticipant(second));
+        assertEquals(2, tieredRepository.findHmilyParticipant(7L).get(0).getVersion().intValue());
+    }
+    
+    @Test
+    public void assertHotRecordsIndexedByTransAndParticipant() {
+        HmilyParticipant starter = new HmilyParticipant();
+        starter.setTransId(8L);
+        starter.setParticipantId(9L);
+        HmilyParticipant nested = new HmilyParticipant();
+        nested.setTransId(8L);
+        nested.setParticipantId(10L);
+        nested.setParticipantRefId(9L);
+        tieredRepository.createHmilyParticipant(starter);
+        tieredRepository.createHmilyParticipant(nested);
+        HmilyParticipantUndo undo = new HmilyParticipantUndo();
+        undo.setTransId(8L);
+        undo.setParticipantId(10L);
+        undo.setUndoId(11L);
+        tieredRepository.createHmilyParticipantUndo(undo);
+        assertEquals(2, tieredRepository.findHmilyParticipant(9L).size());
+        assertEquals(2, tieredRepository.listHmilyParticipantByTransId(8L).size());
+        assertEquals(1, tieredRepository.findHmilyParticipantUndoByParticipantIds(Arrays.asList(9L, 10L)).size());
+        tieredRepository.removeHmilyParticipant(10L);
+        assertEquals(1, tieredRepository.findHmilyParticipant(9L).size());
+        tieredRepository.removeHmilyParticipant(9L);
+        assertFalse(tieredRepository.existHmilyParticipantByTransId(8L));
+        tieredRepository.demote(Long.MAX_VALUE);
+        verify(durableRepository).createHmilyParticipantUndo(any());
+        verify(durableRepository, never()).createHmilyParticipant(any());
+    }
+}
@@ -29,6 +29,7 @@ import org.dromara.hmily.common.exception.HmilyRuntimeException;
 import org.dromara.hmily.common.utils.CollectionUtils;
 import org.dromara.hmily.common.utils.LogUtil;
 import org.dromara.hmily.common.utils.StringUtils;
+import org.dromara.hmily.config.api.Config;
 import org.dromara.hmily.config.api.ConfigEnv;
 import org.dromara.hmily.config.api.entity.HmilyZookeeperConfig;
 import org.dromara.hmily.repository.spi.HmilyRepository;
@@ -75,9 +76,14 @@ public class ZookeeperRepository implements HmilyRepository {
 
     @Override
     public void init(final String appName) {
+        init(appName, ConfigEnv.getInstance().getConfig(HmilyZookeeperConfig.class));
+    }
+
+    @Override
+    public void init(final String appName, final Config config) {
         this.appName = appName;
         this.node = new HmilyRepositoryNode(appName);
-        HmilyZookeeperConfig zookeeperConfig = ConfigEnv.getInstance().getConfig(HmilyZookeeperConfig.class);
+        HmilyZookeeperConfig zookeeperConfig = (HmilyZookeeperConfig) config;
         try {
             connect(zookeeperConfig);
         } catch (Exception e) {
@@ -261,6 +267,7 @@ public class ZookeeperRepository implements HmilyRepository {
     @Override
     public List<HmilyParticipant> listHmilyParticipant(final Date date, final String transType, final int limit) {
         String path = node.getHmilyParticipantRootPath();
+        Date now = new Date();
         return listByFilter(path, HmilyParticipant.class, (hmilyParticipant, params) -> {
             Date dateParam = (Date) params[0];
             String transTypeParam = (String) params[1];
@@ -268,6 +275,7 @@ public class ZookeeperRepository implements HmilyRepository {
             boolean filterResult = dateParam.after(hmilyParticipant.getUpdateTime()) && appName.equals(hmilyParticipant.getAppName())
                     && transTypeParam.equals(hmilyParticipant.getTransType())
                     && (hmilyParticipant.getStatus().compareTo(HmilyActionEnum.DELETE.getCode()) != 0 && hmilyParticipant.getStatus().compareTo(HmilyActionEnum.DEATH.getCode()) != 0)
+                    && hmilyParticipant.dueForRetry(now)
                     && limitParam-- > 0;
             params[2] = limitParam;
             return filterResult;
@@ -22,23 +22,19 @@ import com.baidu.brpc.interceptor.AbstractInterceptor;
 import com.baidu.brpc.interceptor.InterceptorChain;
 import com.baidu.brpc.protocol.Request;
 import com.baidu.brpc.protocol.Response;
-import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.Objects;
 import java.util.Optional;
-import org.dromara.hmily.annotation.Hmily;
 import org.dromara.hmily.common.enums.HmilyActionEnum;
 import org.dromara.hmily.common.enums.HmilyRoleEnum;
 import org.dromara.hmily.common.exception.HmilyRuntimeException;
-import org.dromara.hmily.common.utils.LogUtil;
 import org.dromara.hmily.common.utils.IdWorkerUtils;
 import org.dromara.hmily.core.context.HmilyContextHolder;
 import org.dromara.hmily.core.context.HmilyTransactionContext;
 import org.dromara.hmily.core.holder.HmilyTransactionHolder;
 import org.dromara.hmily.core.mediator.RpcMediator;
+import org.dromara.hmily.core.reflect.HmilyMethodRegistry;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import org.dromara.hmily.repository.spi.entity.HmilyInvocation;
 
@@ -49,8 +45,6 @@ import org.dromara.hmily.repository.spi.entity.HmilyInvocation;
  */
 public class BrpcHmilyTransactionInterceptor extends AbstractInterceptor {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(BrpcHmilyTransactionInterceptor.class);
-
     @Override
     public void aroundProcess(final Request request, final Response response, final InterceptorChain chain) throws RpcException {
         final HmilyTransactionContext context = HmilyContextHolder.get();
@@ -58,15 +52,7 @@ public class BrpcHmilyTransactionInterceptor extends AbstractInterceptor {
             chain.intercept(request, response);
             return;
         }
-        Method method = request.getRpcMethodInfo().getMethod();
-        try {
-            Hmily hmily = method.getAnnotation(Hmily.class);
-            if (Objects.isNull(hmily)) {
-                chain.intercept(request, response);
-                return;
-            }
-        } catch (Exception ex) {
-            LogUtil.error(LOGGER, "hmily find method error {} ", ex::getMessage);
+        if (!HmilyMethodRegistry.getInstance().find(request.getRpcMethodInfo().getMethod()).isHmily()) {
             chain.intercept(request, response);
             return;
         }
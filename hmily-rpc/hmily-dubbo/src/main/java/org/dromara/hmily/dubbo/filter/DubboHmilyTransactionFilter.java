@@ -24,23 +24,19 @@ import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcContext;
 import com.alibaba.dubbo.rpc.RpcException;
-import java.lang.reflect.Method;
 import java.util.Objects;
 import java.util.Optional;
-import org.dromara.hmily.annotation.Hmily;
 import org.dromara.hmily.common.enums.HmilyActionEnum;
 import org.dromara.hmily.common.enums.HmilyRoleEnum;
 import org.dromara.hmily.common.exception.HmilyRuntimeException;
 import org.dromara.hmily.common.utils.IdWorkerUtils;
-import org.dromara.hmily.common.utils.LogUtil;
 import org.dromara.hmily.core.context.HmilyContextHolder;
 import org.dromara.hmily.core.context.HmilyTransactionContext;
 import org.dromara.hmily.core.holder.HmilyTransactionHolder;
 import org.dromara.hmily.core.mediator.RpcMediator;
+import org.dromara.hmily.core.reflect.HmilyMethodRegistry;
 import org.dromara.hmily.repository.spi.entity.HmilyInvocation;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * impl dubbo filter.
@@ -50,8 +46,6 @@ import org.slf4j.LoggerFactory;
 @Activate(group = {Constants.CONSUMER})
 public class DubboHmilyTransactionFilter implements Filter {
     
-    private static final Logger LOGGER = LoggerFactory.getLogger(DubboHmilyTransactionFilter.class);
-    
     @Override
     public Result invoke(final Invoker<?> invoker, final Invocation invocation) throws RpcException {
         final HmilyTransactionContext context = HmilyContextHolder.get();
@@ -61,14 +55,7 @@ public class DubboHmilyTransactionFilter implements Filter {
         Class<?> clazz = invoker.getInterface();
         Class<?>[] args = invocation.getParameterTypes();
         String methodName = invocation.getMethodName();
-        try {
-            Method method = clazz.getMethod(methodName, args);
-            Hmily hmily = method.getAnnotation(Hmily.class);
-            if (Objects.isNull(hmily)) {
-                return invoker.invoke(invocation);
-            }
-        } catch (Exception ex) {
-            LogUtil.error(LOGGER, "hmily find method error {} ", ex::getMessage);
+        if (!HmilyMethodRegistry.getInstance().find(clazz, methodName, args).isHmily()) {
             return invoker.invoke(invocation);
         }
         final Object[] arguments = invocation.getArguments();
@@ -29,7 +29,6 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
 import lombok.SneakyThrows;
-import org.dromara.hmily.annotation.Hmily;
 import org.dromara.hmily.common.enums.HmilyActionEnum;
 import org.dromara.hmily.common.enums.HmilyRoleEnum;
 import org.dromara.hmily.common.exception.HmilyRuntimeException;
@@ -39,6 +38,7 @@ import org.dromara.hmily.core.context.HmilyContextHolder;
 import org.dromara.hmily.core.context.HmilyTransactionContext;
 import org.dromara.hmily.core.holder.HmilyTransactionHolder;
 import org.dromara.hmily.core.mediator.RpcMediator;
+import org.dromara.hmily.core.reflect.HmilyMethodRegistry;
 import org.dromara.hmily.repository.spi.entity.HmilyInvocation;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
 import org.slf4j.Logger;
@@ -65,10 +65,7 @@ public class MotanHmilyTransactionFilter implements Filter {
         final String methodName = request.getMethodName();
         try {
             Class<?> clazz = ReflectUtil.forName(interfaceName);
-            Class<?>[] args = buildArgumentTypes(methodName, clazz);
-            Method method = clazz.getMethod(methodName, args);
-            Hmily hmily = method.getAnnotation(Hmily.class);
-            if (Objects.isNull(hmily)) {
+            if (!HmilyMethodRegistry.getInstance().find(clazz, methodName).isHmily()) {
                 return caller.call(request);
             }
         } catch (Exception e) {
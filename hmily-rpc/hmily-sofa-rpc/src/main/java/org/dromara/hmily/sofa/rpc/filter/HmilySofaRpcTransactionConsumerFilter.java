@@ -25,7 +25,6 @@ import com.alipay.sofa.rpc.ext.Extension;
 import com.alipay.sofa.rpc.filter.AutoActive;
 import com.alipay.sofa.rpc.filter.Filter;
 import com.alipay.sofa.rpc.filter.FilterInvoker;
-import java.lang.reflect.Method;
 import java.util.Objects;
 import java.util.Optional;
 import lombok.SneakyThrows;
@@ -38,6 +37,7 @@ import org.dromara.hmily.core.context.HmilyContextHolder;
 import org.dromara.hmily.core.context.HmilyTransactionContext;
 import org.dromara.hmily.core.holder.HmilyTransactionHolder;
 import org.dromara.hmily.core.mediator.RpcMediator;
+import org.dromara.hmily.core.reflect.HmilyMethodRegistry;
 import org.dromara.hmily.repository.spi.entity.HmilyInvocation;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
 
@@ -57,9 +57,7 @@ public class HmilySofaRpcTransactionConsumerFilter extends Filter {
         if (Objects.isNull(context)) {
             return invoker.invoke(sofaRequest);
         }
-        Method method = sofaRequest.getMethod();
-        Hmily hmily = method.getAnnotation(Hmily.class);
-        if (Objects.isNull(hmily)) {
+        if (!HmilyMethodRegistry.getInstance().find(sofaRequest.getMethod()).isHmily()) {
             return invoker.invoke(sofaRequest);
         }
         Long participantId = context.getParticipantId();
@@ -20,13 +20,13 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.util.Objects;
 import java.util.Optional;
-import org.dromara.hmily.annotation.Hmily;
 import org.dromara.hmily.common.enums.HmilyActionEnum;
 import org.dromara.hmily.common.enums.HmilyRoleEnum;
 import org.dromara.hmily.common.utils.IdWorkerUtils;
 import org.dromara.hmily.core.context.HmilyContextHolder;
 import org.dromara.hmily.core.context.HmilyTransactionContext;
 import org.dromara.hmily.core.holder.HmilyTransactionHolder;
+import org.dromara.hmily.core.reflect.HmilyMethodRegistry;
 import org.dromara.hmily.repository.spi.entity.HmilyInvocation;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
 import org.slf4j.Logger;
@@ -52,8 +52,7 @@ public class HmilyFeignHandler implements InvocationHandler {
             if (Objects.isNull(context)) {
                 return this.delegate.invoke(proxy, method, args);
             }
-            final Hmily hmily = method.getAnnotation(Hmily.class);
-            if (Objects.isNull(hmily)) {
+            if (!HmilyMethodRegistry.getInstance().find(method).isHmily()) {
                 return this.delegate.invoke(proxy, method, args);
             }
             try {
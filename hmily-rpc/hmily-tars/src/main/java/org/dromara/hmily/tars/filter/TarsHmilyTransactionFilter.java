@@ -25,22 +25,18 @@ import com.qq.tars.rpc.exc.ServerException;
 import com.qq.tars.rpc.protocol.tars.TarsServantRequest;
 import com.qq.tars.rpc.protocol.tars.TarsServantResponse;
 import com.qq.tars.server.core.ContextManager;
-import org.dromara.hmily.annotation.Hmily;
 import org.dromara.hmily.common.enums.HmilyActionEnum;
 import org.dromara.hmily.common.enums.HmilyRoleEnum;
 import org.dromara.hmily.common.exception.HmilyRuntimeException;
 import org.dromara.hmily.common.utils.IdWorkerUtils;
-import org.dromara.hmily.common.utils.LogUtil;
 import org.dromara.hmily.core.context.HmilyContextHolder;
 import org.dromara.hmily.core.context.HmilyTransactionContext;
 import org.dromara.hmily.core.holder.HmilyTransactionHolder;
 import org.dromara.hmily.core.mediator.RpcMediator;
+import org.dromara.hmily.core.reflect.HmilyMethodRegistry;
 import org.dromara.hmily.repository.spi.entity.HmilyInvocation;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Method;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -51,8 +47,6 @@ import java.util.Optional;
  */
 public class TarsHmilyTransactionFilter implements Filter {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(TarsHmilyTransactionFilter.class);
-
     @Override
     public void init() {
 
@@ -67,15 +61,7 @@ public class TarsHmilyTransactionFilter implements Filter {
                 chain.doFilter(request, response);
                 return;
             }
-            try {
-                Method method = tarsRequest.getMethodInfo().getMethod();
-                Hmily hmily = method.getAnnotation(Hmily.class);
-                if (Objects.isNull(hmily)) {
-                    chain.doFilter(request, response);
-                    return;
-                }
-            } catch (Exception ex) {
-                LogUtil.error(LOGGER, "hmily find method error {} ", ex::getMessage);
+            if (!HmilyMethodRegistry.getInstance().find(tarsRequest.getMethodInfo().getMethod()).isHmily()) {
                 chain.doFilter(request, response);
                 return;
             }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.serializer.spi.compress;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * CompressionTypeEnum.
+ * The id is written into every compressed frame, so existing ids must never change.
+ *
+ * @author xiaoyu
+ */
+@RequiredArgsConstructor
+@Getter
+public enum CompressionTypeEnum {
+    
+    /**
+     * None compression type enum.
+     */
+    NONE((byte) 0, "none", null),
+    
+    /**
+     * Lz4 compression type enum.
+     */
+    LZ4((byte) 1, "lz4", new Lz4Compressor()),
+    
+    /**
+     * Deflate compression type enum.
+     */
+    DEFLATE((byte) 2, "deflate", new DeflateCompressor());
+    
+    private final byte id;
+    
+    private final String type;
+    
+    private final HmilyCompressor compressor;
+    
+    /**
+     * Acquire compression type enum by type, unknown types fall back to none.
+     *
+     * @param type the type
+     * @return the compression type enum
+     */
+    public static CompressionTypeEnum acquire(final String type) {
+        return Arrays.stream(CompressionTypeEnum.values())
+                .filter(v -> Objects.equals(v.getType(), type))
+                .findFirst().orElse(CompressionTypeEnum.NONE);
+    }
+    
+    /**
+     * Acquire compression type enum by frame id.
+     *
+     * @param id the id
+     * @return the compression type enum, null if unknown
+     */
+    public static CompressionTypeEnum acquire(final byte id) {
+        return Arrays.stream(CompressionTypeEnum.values())
+                .filter(v -> v.getId() == id)
+                .findFirst().orElse(null);
+    }
+}
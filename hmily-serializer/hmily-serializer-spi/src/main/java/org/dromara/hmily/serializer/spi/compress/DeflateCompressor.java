@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.serializer.spi.compress;
+
+import org.dromara.hmily.serializer.spi.exception.HmilySerializerException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate compressor, better ratio than lz4 at a higher cpu cost.
+ *
+ * @author xiaoyu
+ */
+public final class DeflateCompressor implements HmilyCompressor {
+    
+    private static final int BUFFER_SIZE = 4096;
+    
+    @Override
+    public byte[] compress(final byte[] data) throws HmilySerializerException {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                outputStream.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    @Override
+    public byte[] decompress(final byte[] data, final int offset, final int originalLength) throws HmilySerializerException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            byte[] result = new byte[originalLength];
+            int length = 0;
+            while (length < originalLength && !inflater.finished()) {
+                int inflated = inflater.inflate(result, length, originalLength - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != originalLength) {
+                throw new HmilySerializerException("deflate decompress expect " + originalLength + " bytes but got " + length);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new HmilySerializerException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
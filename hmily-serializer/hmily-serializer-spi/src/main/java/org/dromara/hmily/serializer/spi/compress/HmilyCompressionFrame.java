@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.serializer.spi.compress;
+
+import org.dromara.hmily.serializer.spi.exception.HmilySerializerException;
+
+import java.util.Objects;
+
+/**
+ * Self describing compressed frame.
+ * Layout : magic (3 bytes) | compression id (1 byte) | original length (4 bytes, big endian) | compressed bytes.
+ * Bytes without the magic are returned untouched, so rows written before compression was enabled stay readable.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyCompressionFrame {
+    
+    /**
+     * The constant HEADER_LENGTH.
+     */
+    public static final int HEADER_LENGTH = 8;
+    
+    private static final byte[] MAGIC = {(byte) 0xC5, 'H', 'Z'};
+    
+    private HmilyCompressionFrame() {
+    }
+    
+    /**
+     * Encode the data into a frame.
+     *
+     * @param type the compression type
+     * @param data the raw data
+     * @return the frame, or the raw data when compression does not make it smaller
+     * @throws HmilySerializerException the hmily serializer exception
+     */
+    public static byte[] encode(final CompressionTypeEnum type, final byte[] data) throws HmilySerializerException {
+        if (type == CompressionTypeEnum.NONE) {
+            return data;
+        }
+        byte[] compressed = type.getCompressor().compress(data);
+        if (compressed.length + HEADER_LENGTH >= data.length) {
+            return data;
+        }
+        byte[] result = new byte[HEADER_LENGTH + compressed.length];
+        System.arraycopy(MAGIC, 0, result, 0, MAGIC.length);
+        result[3] = type.getId();
+        result[4] = (byte) (data.length >>> 24);
+        result[5] = (byte) (data.length >>> 16);
+        result[6] = (byte) (data.length >>> 8);
+        result[7] = (byte) data.length;
+        System.arraycopy(compressed, 0, result, HEADER_LENGTH, compressed.length);
+        return result;
+    }
+    
+    /**
+     * Decode a frame, raw data is returned as is.
+     *
+     * @param data the data
+     * @return the raw data
+     * @throws HmilySerializerException the hmily serializer exception
+     */
+    public static byte[] decode(final byte[] data) throws HmilySerializerException {
+        CompressionTypeEnum type = frameType(data);
+        if (Objects.isNull(type) || type == CompressionTypeEnum.NONE) {
+            return data;
+        }
+        int originalLength = ((data[4] & 0xFF) << 24) | ((data[5] & 0xFF) << 16) | ((data[6] & 0xFF) << 8) | (data[7] & 0xFF);
+        return type.getCompressor().decompress(data, HEADER_LENGTH, originalLength);
+    }
+    
+    /**
+     * Get the compression type of a frame.
+     *
+     * @param data the data
+     * @return the compression type, null if the data is not a frame
+     */
+    public static CompressionTypeEnum frameType(final byte[] data) {
+        if (Objects.isNull(data) || data.length < HEADER_LENGTH) {
+            return null;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data[i] != MAGIC[i]) {
+                return null;
+            }
+        }
+        return CompressionTypeEnum.acquire(data[3]);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.serializer.spi.compress;
+
+import org.dromara.hmily.serializer.spi.exception.HmilySerializerException;
+
+/**
+ * HmilyCompressor.
+ *
+ * @author xiaoyu
+ */
+public interface HmilyCompressor {
+    
+    /**
+     * Compress byte [ ].
+     *
+     * @param data the data
+     * @return the compressed bytes
+     * @throws HmilySerializerException the hmily serializer exception
+     */
+    byte[] compress(byte[] data) throws HmilySerializerException;
+    
+    /**
+     * Decompress byte [ ].
+     *
+     * @param data           the data
+     * @param offset         the offset the compressed bytes start at
+     * @param originalLength the length of the original bytes
+     * @return the original bytes
+     * @throws HmilySerializerException the hmily serializer exception
+     */
+    byte[] decompress(byte[] data, int offset, int originalLength) throws HmilySerializerException;
+}
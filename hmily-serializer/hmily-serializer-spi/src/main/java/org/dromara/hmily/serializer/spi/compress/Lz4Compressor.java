@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.serializer.spi.compress;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.dromara.hmily.serializer.spi.exception.HmilySerializerException;
+
+/**
+ * Lz4 compressor, cheap enough to sit on the transaction log write path.
+ *
+ * @author xiaoyu
+ */
+public final class Lz4Compressor implements HmilyCompressor {
+    
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+    
+    @Override
+    public byte[] compress(final byte[] data) throws HmilySerializerException {
+        try {
+            return compressor.compress(data);
+        } catch (LZ4Exception e) {
+            throw new HmilySerializerException(e);
+        }
+    }
+    
+    @Override
+    public byte[] decompress(final byte[] data, final int offset, final int originalLength) throws HmilySerializerException {
+        try {
+            byte[] result = new byte[originalLength];
+            decompressor.decompress(data, offset, result, 0, originalLength);
+            return result;
+        } catch (LZ4Exception e) {
+            throw new HmilySerializerException(e);
+        }
+    }
+}
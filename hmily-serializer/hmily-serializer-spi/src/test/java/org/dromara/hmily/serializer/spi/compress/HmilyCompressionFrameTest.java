@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.serializer.spi.compress;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The type Hmily compression frame test.
+ *
+ * @author xiaoyu
+ */
+public class HmilyCompressionFrameTest {
+    
+    private final byte[] data = repeat("update order set status = 1 where id = 10;", 100).getBytes(StandardCharsets.UTF_8);
+    
+    @Test
+    public void testLz4RoundTrip() {
+        byte[] frame = HmilyCompressionFrame.encode(CompressionTypeEnum.LZ4, data);
+        Assert.assertTrue(frame.length < data.length);
+        Assert.assertEquals(CompressionTypeEnum.LZ4, HmilyCompressionFrame.frameType(frame));
+        Assert.assertArrayEquals(data, HmilyCompressionFrame.decode(frame));
+    }
+    
+    @Test
+    public void testDeflateRoundTrip() {
+        byte[] frame = HmilyCompressionFrame.encode(CompressionTypeEnum.DEFLATE, data);
+        Assert.assertTrue(frame.length < data.length);
+        Assert.assertEquals(CompressionTypeEnum.DEFLATE, HmilyCompressionFrame.frameType(frame));
+        Assert.assertArrayEquals(data, HmilyCompressionFrame.decode(frame));
+    }
+    
+    @Test
+    public void testRawPassThrough() {
+        byte[] raw = Arrays.copyOf(data, 16);
+        Assert.assertNull(HmilyCompressionFrame.frameType(raw));
+        Assert.assertSame(raw, HmilyCompressionFrame.decode(raw));
+        Assert.assertSame(raw, HmilyCompressionFrame.encode(CompressionTypeEnum.DEFLATE, raw));
+    }
+    
+    private static String repeat(final String value, final int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
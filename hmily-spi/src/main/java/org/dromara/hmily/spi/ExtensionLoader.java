@@ -114,6 +114,23 @@ public final class ExtensionLoader<T> {
         return loadExtension(name, loader, null, null);
     }
     
+    /**
+     * Load a new instance, whatever the scope type of the extension is.
+     *
+     * @param name   the name
+     * @param loader the loader
+     * @return the t
+     */
+    public T loadNew(final String name, final ClassLoader loader) {
+        loadAllExtensionClass(loader);
+        ExtensionEntity extensionEntity = getCachedExtensionEntity(name);
+        if (extensionEntity == null) {
+            log.error("not found service provider for : " + clazz.getName());
+            return null;
+        }
+        return createNewExtension(extensionEntity, null, null);
+    }
+    
     /**
      * Load t.
      *
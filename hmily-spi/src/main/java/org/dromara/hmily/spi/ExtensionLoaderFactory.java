@@ -46,6 +46,18 @@ public class ExtensionLoaderFactory {
         return ExtensionLoader.getExtensionLoader(service).load(name, findClassLoader());
     }
     
+    /**
+     * Load a new instance, whatever the scope type of the extension is.
+     *
+     * @param <T>     the type parameter
+     * @param service the service
+     * @param name    the name
+     * @return the t
+     */
+    public static <T> T loadNew(final Class<T> service, final String name) {
+        return ExtensionLoader.getExtensionLoader(service).loadNew(name, findClassLoader());
+    }
+    
     /**
      * Load t.
      *
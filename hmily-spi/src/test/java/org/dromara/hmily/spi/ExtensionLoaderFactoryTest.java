@@ -48,4 +48,14 @@ public final class ExtensionLoaderFactoryTest {
         HmilyTestSPI no2 = ExtensionLoaderFactory.load(HmilyTestSPI.class, "no");
         assertNotEquals(no1, no2);
     }
+    
+    @Test
+    public void testLoadNew() {
+        HmilyTestSPI singleton = ExtensionLoaderFactory.load(HmilyTestSPI.class, "hello");
+        HmilyTestSPI hello1 = ExtensionLoaderFactory.loadNew(HmilyTestSPI.class, "hello");
+        HmilyTestSPI hello2 = ExtensionLoaderFactory.loadNew(HmilyTestSPI.class, "hello");
+        assertThat(hello1.getClass().getName(), is(HelloWorldTestSPI.class.getName()));
+        assertNotSame(singleton, hello1);
+        assertNotSame(hello1, hello2);
+    }
 }
@@ -17,14 +17,11 @@
 package org.dromara.hmily.spring.annotation;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Stream;
-import org.dromara.hmily.annotation.Hmily;
 import org.dromara.hmily.core.field.AnnotationField;
 import org.dromara.hmily.core.field.DefaultAnnotationField;
 import org.dromara.hmily.core.holder.SingletonHolder;
+import org.dromara.hmily.core.reflect.HmilyMethodRegistry;
 import org.dromara.hmily.spi.ExtensionLoaderFactory;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.BeansException;
@@ -56,6 +53,7 @@ public class RefererAnnotationBeanPostProcessor implements BeanPostProcessor, Or
         if (isProxyBean(bean)) {
             clazz = AopUtils.getTargetClass(bean);
         }
+        HmilyMethodRegistry.getInstance().register(clazz);
         Field[] fields = clazz.getDeclaredFields();
         for (Field field : fields) {
             try {
@@ -64,10 +62,7 @@ public class RefererAnnotationBeanPostProcessor implements BeanPostProcessor, Or
                         field.setAccessible(true);
                     }
                     Object ref = field.get(bean);
-                    Class<?> refClass = field.getType();
-                    Method[] methods = refClass.getMethods();
-                    boolean anyMatch = Stream.of(methods).anyMatch(method -> Objects.nonNull(method.getAnnotation(Hmily.class)));
-                    if (anyMatch) {
+                    if (HmilyMethodRegistry.getInstance().register(field.getType())) {
                         SingletonHolder.INST.register(field.getType(), ref);
                     }
                 }
@@ -16,6 +16,7 @@
 
 package org.dromara.hmily.tac.common;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -45,4 +46,13 @@ public class HmilyResourceManager {
         return DATASOURCE_CACHE.get(resourceId);
     }
     
+    /**
+     * Get all hmily resources.
+     *
+     * @return the hmily resources
+     */
+    public static Collection<HmilyTacResource> getAll() {
+        return DATASOURCE_CACHE.values();
+    }
+    
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.common.enums;
+
+import java.util.Arrays;
+import java.util.Optional;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The tac selects checked against the global locks.
+ *
+ * @author xiaoyu
+ */
+@RequiredArgsConstructor
+@Getter
+public enum SelectLockCheckEnum {
+    
+    /**
+     * No select is checked.
+     */
+    NONE("none"),
+    
+    /**
+     * Only the locking reads are checked, the parser carries the for update of MySQL statements only.
+     */
+    FOR_UPDATE("forUpdate"),
+    
+    /**
+     * Every select is checked.
+     */
+    ALL("all");
+    
+    private final String type;
+    
+    /**
+     * Acquire select lock check enum by type, ignoring case.
+     *
+     * @param type the type
+     * @return the select lock check enum, empty if unknown
+     */
+    public static Optional<SelectLockCheckEnum> acquire(final String type) {
+        return Arrays.stream(SelectLockCheckEnum.values()).filter(each -> each.getType().equalsIgnoreCase(type)).findFirst();
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.common.undo;
+
+import org.dromara.hmily.config.api.ConfigEnv;
+import org.dromara.hmily.config.api.entity.HmilyConfig;
+import org.dromara.hmily.core.repository.HmilyCompressedSerializer;
+import org.dromara.hmily.core.repository.HmilyUndoLogStore;
+import org.dromara.hmily.repository.spi.entity.HmilyDataSnapshot;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.exception.HmilyRepositoryException;
+import org.dromara.hmily.serializer.spi.HmilySerializer;
+import org.dromara.hmily.serializer.spi.compress.CompressionTypeEnum;
+import org.dromara.hmily.spi.ExtensionLoaderFactory;
+import org.dromara.hmily.tac.common.HmilyResourceManager;
+import org.dromara.hmily.tac.common.HmilyTacResource;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tac undo log co-located with the business data, one hmily_undo_log table per resource.
+ * The undo records are inserted on the business connection inside the local transaction.
+ * Resources whose schema has no hmily_undo_log table are skipped, the table is looked up once per resource.
+ *
+ * @author xiaoyu
+ */
+public enum HmilyTacUndoLogStore implements HmilyUndoLogStore {
+    
+    /**
+     * Instance hmily tac undo log store.
+     */
+    INSTANCE;
+    
+    private static final String INSERT_UNDO_LOG = "INSERT INTO hmily_undo_log (undo_id, participant_id, trans_id, resource_id, data_snapshot, status, create_time, update_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String SELECT_UNDO_LOG = "SELECT undo_id, participant_id, trans_id, resource_id, data_snapshot, status, create_time, update_time FROM hmily_undo_log WHERE participant_id IN (%s)";
+    
+    private static final String DELETE_UNDO_LOG = "DELETE FROM hmily_undo_log WHERE undo_id = ?";
+    
+    private static final String UNDO_LOG_TABLE = "hmily_undo_log";
+    
+    private final Map<String, Boolean> undoLogTables = new ConcurrentHashMap<>();
+    
+    private volatile HmilySerializer hmilySerializer;
+    
+    /**
+     * Insert undo records on the business connection, they commit or roll back with the local transaction.
+     *
+     * @param connection the business connection
+     * @param undoList the undo records
+     * @throws SQLException the sql exception
+     */
+    public void insert(final Connection connection, final Collection<HmilyParticipantUndo> undoList) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(INSERT_UNDO_LOG)) {
+            for (HmilyParticipantUndo each : undoList) {
+                preparedStatement.setLong(1, each.getUndoId());
+                preparedStatement.setLong(2, each.getParticipantId());
+                preparedStatement.setLong(3, each.getTransId());
+                preparedStatement.setString(4, each.getResourceId());
+                preparedStatement.setBytes(5, getSerializer().serialize(each.getDataSnapshot()));
+                preparedStatement.setInt(6, each.getStatus());
+                preparedStatement.setTimestamp(7, new Timestamp(each.getCreateTime().getTime()));
+                preparedStatement.setTimestamp(8, new Timestamp(each.getUpdateTime().getTime()));
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+    
+    /**
+     * Delete an undo record on the business connection, used to drop it in the transaction reverting it.
+     *
+     * @param connection the business connection
+     * @param undoId the undo id
+     * @throws SQLException the sql exception
+     */
+    public void delete(final Connection connection, final Long undoId) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(DELETE_UNDO_LOG)) {
+            preparedStatement.setLong(1, undoId);
+            preparedStatement.executeUpdate();
+        }
+    }
+    
+    @Override
+    public List<HmilyParticipantUndo> findByParticipantIds(final Collection<Long> participantIds) {
+        if (participantIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String sql = String.format(SELECT_UNDO_LOG, String.join(", ", Collections.nCopies(participantIds.size(), "?")));
+        List<HmilyParticipantUndo> result = new LinkedList<>();
+        // resources sharing a schema read the same records
+        Set<Long> undoIds = new HashSet<>();
+        for (HmilyTacResource each : HmilyResourceManager.getAll()) {
+            try (Connection connection = each.getTargetDataSource().getConnection()) {
+                if (!hasUndoLogTable(each.getResourceId(), connection)) {
+                    continue;
+                }
+                try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                    int index = 1;
+                    for (Long participantId : participantIds) {
+                        preparedStatement.setLong(index++, participantId);
+                    }
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        while (resultSet.next()) {
+                            HmilyParticipantUndo undo = buildUndo(resultSet);
+                            if (undoIds.add(undo.getUndoId())) {
+                                result.add(undo);
+                            }
+                        }
+                    }
+                }
+            } catch (final SQLException ex) {
+                // skipping the resource would read as a participant without undo records, which recovery removes
+                throw new HmilyRepositoryException("hmily tac find undo log exception, resourceId: " + each.getResourceId(), ex);
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public void remove(final HmilyParticipantUndo hmilyParticipantUndo) {
+        HmilyTacResource resource = HmilyResourceManager.get(hmilyParticipantUndo.getResourceId());
+        if (Objects.isNull(resource)) {
+            throw new HmilyRepositoryException("hmily tac undo log resource not registered, resourceId: " + hmilyParticipantUndo.getResourceId());
+        }
+        try (Connection connection = resource.getTargetDataSource().getConnection()) {
+            delete(connection, hmilyParticipantUndo.getUndoId());
+        } catch (final SQLException ex) {
+            throw new HmilyRepositoryException("hmily tac remove undo log exception, undoId: " + hmilyParticipantUndo.getUndoId(), ex);
+        }
+    }
+    
+    private boolean hasUndoLogTable(final String resourceId, final Connection connection) throws SQLException {
+        Boolean result = undoLogTables.get(resourceId);
+        if (Objects.isNull(result)) {
+            result = isUndoLogTableExist(connection);
+            undoLogTables.put(resourceId, result);
+        }
+        return result;
+    }
+    
+    private static boolean isUndoLogTableExist(final Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        // unquoted names are stored upper case by oracle
+        for (String each : Arrays.asList(UNDO_LOG_TABLE, UNDO_LOG_TABLE.toUpperCase())) {
+            try (ResultSet resultSet = metaData.getTables(connection.getCatalog(), connection.getSchema(), each, null)) {
+                if (resultSet.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private HmilyParticipantUndo buildUndo(final ResultSet resultSet) throws SQLException {
+        HmilyParticipantUndo result = new HmilyParticipantUndo();
+        result.setUndoId(resultSet.getLong("undo_id"));
+        result.setParticipantId(resultSet.getLong("participant_id"));
+        result.setTransId(resultSet.getLong("trans_id"));
+        result.setResourceId(resultSet.getString("resource_id"));
+        result.setDataSnapshot(getSerializer().deSerialize(resultSet.getBytes("data_snapshot"), HmilyDataSnapshot.class));
+        result.setStatus(resultSet.getInt("status"));
+        result.setCreateTime(resultSet.getTimestamp("create_time"));
+        result.setUpdateTime(resultSet.getTimestamp("update_time"));
+        return result;
+    }
+    
+    private HmilySerializer getSerializer() {
+        if (Objects.isNull(hmilySerializer)) {
+            HmilyConfig hmilyConfig = ConfigEnv.getInstance().getConfig(HmilyConfig.class);
+            hmilySerializer = new HmilyCompressedSerializer(ExtensionLoaderFactory.load(HmilySerializer.class, hmilyConfig.getSerializer()),
+                    CompressionTypeEnum.acquire(hmilyConfig.getCompression()), hmilyConfig.getCompressionThreshold());
+        }
+        return hmilySerializer;
+    }
+}
@@ -0,0 +1,14 @@
+CREATE TABLE IF NOT EXISTS `hmily_undo_log`
+(
+    `undo_id`         bigint(20) not null comment '主键id' primary key,
+    `participant_id`  bigint(20) not null comment '参与者id',
+    `trans_id`        bigint(20) not null comment '全局事务id',
+    `resource_id`     varchar(256) not null comment '资源id，tac模式下为jdbc url',
+    `data_snapshot`   longblob     not null comment '回滚数据快照',
+    `status`          tinyint      not null comment '状态',
+    `create_time`     datetime     not null comment '创建时间',
+    `update_time`     datetime     not null comment '更新时间',
+    key `idx_participant_id` (`participant_id`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_ci comment 'hmily tac undo记录，与业务数据同库，随本地事务写入';
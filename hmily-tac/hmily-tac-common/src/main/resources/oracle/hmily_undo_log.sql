@@ -0,0 +1,28 @@
+DECLARE
+    NUM NUMBER;
+BEGIN
+    SELECT COUNT(1) INTO NUM FROM user_tables WHERE TABLE_NAME = UPPER('hmily_undo_log') ;
+    IF NUM < 1 THEN
+      EXECUTE IMMEDIATE 'CREATE TABLE hmily_undo_log (
+            undo_id NUMBER(20)  NOT NULL PRIMARY KEY,
+            participant_id NUMBER(20)  NOT NULL ,
+            trans_id NUMBER(20)  NOT NULL ,
+            resource_id VARCHAR2(256)  NOT NULL ,
+            data_snapshot BLOB  NOT NULL ,
+            status INTEGER  NOT NULL ,
+            create_time DATE  NOT NULL ,
+            update_time DATE  NOT NULL)';
+      EXECUTE IMMEDIATE 'CREATE INDEX idx_hmily_undo_log_participant_id ON hmily_undo_log (participant_id)';
+
+	  EXECUTE IMMEDIATE ' COMMENT ON TABLE hmily_undo_log IS ''' ||'hmily tac undo记录，与业务数据同库，随本地事务写入' || '''';
+	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_undo_log.undo_id IS ''' ||'主键id' || '''';
+	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_undo_log.participant_id IS ''' ||'参与者id' || '''';
+	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_undo_log.trans_id IS ''' ||'全局事务id' || '''';
+	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_undo_log.resource_id IS ''' ||'资源id，tac模式下为jdbc url' || '''';
+	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_undo_log.data_snapshot IS ''' ||'回滚数据快照' || '''';
+	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_undo_log.status IS ''' ||'状态' || '''';
+	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_undo_log.create_time IS ''' ||'创建时间' || '''';
+	  EXECUTE IMMEDIATE ' COMMENT ON COLUMN hmily_undo_log.update_time IS ''' ||'更新时间' || '''';
+	END IF;
+END;
+/
@@ -0,0 +1,21 @@
+CREATE TABLE IF NOT EXISTS hmily_undo_log
+(
+    undo_id        INT8         NOT NULL PRIMARY KEY,
+    participant_id INT8         NOT NULL,
+    trans_id       INT8         NOT NULL,
+    resource_id    VARCHAR(256) NOT NULL,
+    data_snapshot  BYTEA        NOT NULL,
+    status         INT2         NOT NULL,
+    create_time    TIMESTAMP(6) NOT NULL DEFAULT current_timestamp,
+    update_time    TIMESTAMP(6) NOT NULL DEFAULT current_timestamp
+);
+CREATE INDEX IF NOT EXISTS idx_hmily_undo_log_participant_id ON hmily_undo_log (participant_id);
+COMMENT ON TABLE hmily_undo_log IS 'hmily tac undo记录，与业务数据同库，随本地事务写入';
+COMMENT ON COLUMN hmily_undo_log.undo_id IS '主键id';
+COMMENT ON COLUMN hmily_undo_log.participant_id IS '参与者id';
+COMMENT ON COLUMN hmily_undo_log.trans_id IS '全局事务id';
+COMMENT ON COLUMN hmily_undo_log.resource_id IS '资源id，tac模式下为jdbc url';
+COMMENT ON COLUMN hmily_undo_log.data_snapshot IS '回滚数据快照';
+COMMENT ON COLUMN hmily_undo_log.status IS '状态';
+COMMENT ON COLUMN hmily_undo_log.create_time IS '创建时间';
+COMMENT ON COLUMN hmily_undo_log.update_time IS '更新时间';
@@ -0,0 +1,23 @@
+IF NOT EXISTS(SELECT * FROM sysobjects WHERE name = 'hmily_undo_log' )
+BEGIN
+CREATE TABLE hmily_undo_log (
+    undo_id BIGINT  NOT NULL PRIMARY KEY,
+    participant_id BIGINT  NOT NULL ,
+    trans_id BIGINT  NOT NULL ,
+    resource_id VARCHAR(256)  NOT NULL ,
+    data_snapshot VARBINARY(MAX)  NOT NULL ,
+    status INT  NOT NULL ,
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP
+     );
+CREATE INDEX idx_hmily_undo_log_participant_id ON hmily_undo_log (participant_id);
+EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'主键id' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_undo_log', @level2type=N'COLUMN',@level2name=N'undo_id';
+EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'参与者id' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_undo_log', @level2type=N'COLUMN',@level2name=N'participant_id';
+EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'全局事务id' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_undo_log', @level2type=N'COLUMN',@level2name=N'trans_id';
+EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'资源id，tac模式下为jdbc url' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_undo_log', @level2type=N'COLUMN',@level2name=N'resource_id';
+EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'回滚数据快照' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_undo_log', @level2type=N'COLUMN',@level2name=N'data_snapshot';
+EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'状态' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_undo_log', @level2type=N'COLUMN',@level2name=N'status';
+EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'创建时间' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_undo_log', @level2type=N'COLUMN',@level2name=N'create_time';
+EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'更新时间' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_undo_log', @level2type=N'COLUMN',@level2name=N'update_time';
+EXEC sys.sp_addextendedproperty @name=N'MS_Description', @value=N'hmily tac undo记录，与业务数据同库，随本地事务写入' , @level0type=N'SCHEMA',@level0name=N'dbo', @level1type=N'TABLE',@level1name=N'hmily_undo_log';
+END
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.common.enums;
+
+import java.util.Optional;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * The type Select lock check enum test.
+ *
+ * @author xiaoyu
+ */
+public final class SelectLockCheckEnumTest {
+    
+    @Test
+    public void assertAcquireIgnoresCase() {
+        assertEquals(Optional.of(SelectLockCheckEnum.NONE), SelectLockCheckEnum.acquire("none"));
+        assertEquals(Optional.of(SelectLockCheckEnum.FOR_UPDATE), SelectLockCheckEnum.acquire("forUpdate"));
+        assertEquals(Optional.of(SelectLockCheckEnum.FOR_UPDATE), SelectLockCheckEnum.acquire("FORUPDATE"));
+        assertEquals(Optional.of(SelectLockCheckEnum.ALL), SelectLockCheckEnum.acquire("All"));
+    }
+    
+    @Test
+    public void assertAcquireUnknown() {
+        assertFalse(SelectLockCheckEnum.acquire("for_update").isPresent());
+        assertFalse(SelectLockCheckEnum.acquire(null).isPresent());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.common.undo;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import javax.sql.DataSource;
+import org.dromara.hmily.config.api.ConfigEnv;
+import org.dromara.hmily.config.api.entity.HmilyConfig;
+import org.dromara.hmily.repository.spi.entity.HmilyDataSnapshot;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.exception.HmilyRepositoryException;
+import org.dromara.hmily.tac.common.HmilyResourceManager;
+import org.dromara.hmily.tac.common.HmilyTacResource;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The type Hmily tac undo log store test.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyTacUndoLogStoreTest {
+    
+    @BeforeClass
+    public static void setUp() {
+        HmilyConfig hmilyConfig = new HmilyConfig();
+        hmilyConfig.setSerializer("jdk");
+        ConfigEnv.getInstance().registerConfig(hmilyConfig);
+    }
+    
+    @Test
+    public void assertInsertJoinsTheLocalTransaction() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        HmilyTacUndoLogStore.INSTANCE.insert(connection, Arrays.asList(undo(1L, "insert-resource"), undo(2L, "insert-resource")));
+        verify(preparedStatement, times(2)).setString(4, "insert-resource");
+        verify(preparedStatement, times(2)).addBatch();
+        verify(preparedStatement).executeBatch();
+        verify(preparedStatement).close();
+        verify(connection, never()).setAutoCommit(anyBoolean());
+        verify(connection, never()).commit();
+        verify(connection, never()).close();
+    }
+    
+    @Test
+    public void assertFindSkipsResourcesWithoutUndoLogTable() throws SQLException {
+        Connection connection = withoutUndoLogTable();
+        register("skipped-resource", dataSource(connection));
+        assertTrue(HmilyTacUndoLogStore.INSTANCE.findByParticipantIds(Collections.singletonList(1L)).isEmpty());
+        assertTrue(HmilyTacUndoLogStore.INSTANCE.findByParticipantIds(Collections.singletonList(1L)).isEmpty());
+        verify(connection, times(1)).getMetaData();
+        verify(connection, never()).prepareStatement(anyString());
+    }
+    
+    @Test(expected = HmilyRepositoryException.class)
+    public void assertFindThrowsWhenResourceFails() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("unreachable")).thenReturn(withoutUndoLogTable());
+        register("unreachable-find-resource", dataSource);
+        HmilyTacUndoLogStore.INSTANCE.findByParticipantIds(Collections.singletonList(1L));
+    }
+    
+    @Test(expected = HmilyRepositoryException.class)
+    public void assertRemoveThrowsWhenResourceFails() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("unreachable")).thenReturn(withoutUndoLogTable());
+        register("unreachable-remove-resource", dataSource);
+        HmilyTacUndoLogStore.INSTANCE.remove(undo(1L, "unreachable-remove-resource"));
+    }
+    
+    @Test(expected = HmilyRepositoryException.class)
+    public void assertRemoveThrowsWhenResourceIsNotRegistered() {
+        HmilyTacUndoLogStore.INSTANCE.remove(undo(1L, "unregistered-resource"));
+    }
+    
+    private static Connection withoutUndoLogTable() throws SQLException {
+        Connection result = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(result.getMetaData()).thenReturn(metaData);
+        ResultSet tables = mock(ResultSet.class);
+        when(metaData.getTables(any(), any(), anyString(), any())).thenReturn(tables);
+        return result;
+    }
+    
+    private static DataSource dataSource(final Connection connection) throws SQLException {
+        DataSource result = mock(DataSource.class);
+        when(result.getConnection()).thenReturn(connection);
+        return result;
+    }
+    
+    private static void register(final String resourceId, final DataSource dataSource) {
+        HmilyTacResource resource = mock(HmilyTacResource.class);
+        when(resource.getResourceId()).thenReturn(resourceId);
+        when(resource.getTargetDataSource()).thenReturn(dataSource);
+        HmilyResourceManager.register(resource);
+    }
+    
+    private static HmilyParticipantUndo undo(final Long undoId, final String resourceId) {
+        HmilyParticipantUndo result = new HmilyParticipantUndo();
+        result.setUndoId(undoId);
+        result.setParticipantId(1L);
+        result.setTransId(1L);
+        result.setResourceId(resourceId);
+        result.setDataSnapshot(new HmilyDataSnapshot());
+        result.setStatus(0);
+        result.setCreateTime(new Date());
+        result.setUpdateTime(new Date());
+        return result;
+    }
+}
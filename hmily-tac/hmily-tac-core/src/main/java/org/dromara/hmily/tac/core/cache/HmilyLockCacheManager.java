@@ -16,13 +16,12 @@
 
 package org.dromara.hmily.tac.core.cache;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.cache.Weigher;
 import org.dromara.hmily.core.repository.HmilyRepositoryFacade;
 import org.dromara.hmily.repository.spi.entity.HmilyLock;
-import org.dromara.hmily.repository.spi.entity.HmilyTransaction;
+import org.dromara.hmily.repository.spi.entity.HmilyLockKey;
 
 import java.util.Objects;
 import java.util.Optional;
@@ -39,15 +38,11 @@ public final class HmilyLockCacheManager {
     
     private static final int MAX_COUNT = 1000000;
     
-    private final LoadingCache<String, Optional<HmilyLock>> loadingCache =
+    // the key does not keep the primary key, so a miss is loaded from the lock it is looked up for
+    private final Cache<HmilyLockKey, Optional<HmilyLock>> loadingCache =
             CacheBuilder.newBuilder().maximumWeight(MAX_COUNT)
-                    .weigher((Weigher<String, Optional<HmilyLock>>) (e1, e2) -> getSize())
-                    .build(new CacheLoader<String, Optional<HmilyLock>>() {
-                        @Override
-                        public Optional<HmilyLock> load(final String key) {
-                            return HmilyRepositoryFacade.getInstance().findHmilyLockById(key);
-                        }
-                    });
+                    .weigher((Weigher<HmilyLockKey, Optional<HmilyLock>>) (e1, e2) -> getSize())
+                    .build();
     
     private HmilyLockCacheManager() {
     }
@@ -64,22 +59,22 @@ public final class HmilyLockCacheManager {
     /**
      * Cache hmily lock.
      *
-     * @param lockId lock id
+     * @param lockKey lock key
      * @param hmilyLock the hmily lock
      */
-    public void cacheHmilyLock(final String lockId, final HmilyLock hmilyLock) {
-        loadingCache.put(lockId, Optional.of(hmilyLock));
+    public void cacheHmilyLock(final HmilyLockKey lockKey, final HmilyLock hmilyLock) {
+        loadingCache.put(lockKey, Optional.of(hmilyLock));
     }
     
     /**
-     * Acquire hmily lock.
+     * Acquire the hmily lock held on the row of a lock.
      *
-     * @param lockId this guava key.
-     * @return {@linkplain HmilyTransaction}
+     * @param hmilyLock the lock of the row
+     * @return {@linkplain HmilyLock}
      */
-    public Optional<HmilyLock> get(final String lockId) {
+    public Optional<HmilyLock> get(final HmilyLock hmilyLock) {
         try {
-            return loadingCache.get(lockId);
+            return loadingCache.get(hmilyLock.getLockKey(), () -> HmilyRepositoryFacade.getInstance().findHmilyLock(hmilyLock));
         } catch (ExecutionException ex) {
             return Optional.empty();
         }
@@ -88,11 +83,11 @@ public final class HmilyLockCacheManager {
     /**
      * remove guava cache by key.
      *
-     * @param lockId guava cache key.
+     * @param lockKey guava cache key.
      */
-    public void removeByKey(final String lockId) {
-        if (Objects.nonNull(lockId)) {
-            loadingCache.invalidate(lockId);
+    public void removeByKey(final HmilyLockKey lockKey) {
+        if (Objects.nonNull(lockKey)) {
+            loadingCache.invalidate(lockKey);
         }
     }
     
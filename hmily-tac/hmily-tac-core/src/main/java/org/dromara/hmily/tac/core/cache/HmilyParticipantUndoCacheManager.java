@@ -21,6 +21,7 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.cache.Weigher;
 import com.google.common.collect.Lists;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -90,6 +91,22 @@ public final class HmilyParticipantUndoCacheManager {
         }
     }
     
+    /**
+     * Cache the hmily participant undo list of one local commit with a single cache update.
+     *
+     * @param participantId         the participant id
+     * @param hmilyParticipantUndos the hmily participant undo list
+     */
+    public void cacheHmilyParticipantUndos(final Long participantId, final Collection<HmilyParticipantUndo> hmilyParticipantUndos) {
+        List<HmilyParticipantUndo> existList = get(participantId);
+        if (CollectionUtils.isEmpty(existList)) {
+            loadingCache.put(participantId, Lists.newArrayList(hmilyParticipantUndos));
+        } else {
+            existList.addAll(hmilyParticipantUndos);
+            loadingCache.put(participantId, existList);
+        }
+    }
+    
     private List<HmilyParticipantUndo> cacheHmilyParticipantUndo(final Long participantId) {
         return Optional.ofNullable(HmilyRepositoryFacade.getInstance().findUndoByParticipantId(participantId)).orElse(Collections.emptyList());
     }
@@ -24,6 +24,7 @@ import org.dromara.hmily.core.context.HmilyContextHolder;
 import org.dromara.hmily.core.context.HmilyTransactionContext;
 import org.dromara.hmily.core.disruptor.HmilyDisruptor;
 import org.dromara.hmily.core.disruptor.handler.HmilyTransactionEventConsumer;
+import org.dromara.hmily.core.repository.HmilyRepositoryStorage;
 import org.dromara.hmily.core.service.HmilyTransactionHandler;
 import org.dromara.hmily.core.service.HmilyTransactionTask;
 import org.dromara.hmily.metrics.constant.LabelNames;
@@ -83,6 +84,10 @@ public class StarterHmilyTacTransactionHandler implements HmilyTransactionHandle
             }
             // execute confirm
             final HmilyTransaction currentTransaction = tm.getHmilyTransaction();
+            if (currentTransaction.getHmilyParticipants().size() > 1) {
+                // participants registered without passing the rpc mediator on this thread
+                HmilyRepositoryStorage.enlist(currentTransaction);
+            }
             disruptor.getProvider().onData(() -> {
                 MetricsReporter.counterIncrement(LabelNames.TRANSACTION_STATUS, new String[]{TransTypeEnum.TAC.name(), HmilyRoleEnum.START.name(), HmilyActionEnum.CONFIRMING.name()});
                 tm.commit(currentTransaction);
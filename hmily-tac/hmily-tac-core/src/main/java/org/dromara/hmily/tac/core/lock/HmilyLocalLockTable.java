@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.core.lock;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.dromara.hmily.repository.spi.entity.HmilyLockKey;
+import org.dromara.hmily.repository.spi.exception.HmilyLockConflictException;
+
+/**
+ * In-process table of the global locks held by the transactions of this node.
+ * Lock keys are spread over stripes, each guarding its own entries, and the threads waiting for a lock
+ * are granted it in arrival order.
+ * A holder keeps the lock until it releases it, the lock manager drops the holders past their lease
+ * whose lock was released in the repository by a recovery on another node.
+ *
+ * @author xiaoyu
+ */
+final class HmilyLocalLockTable {
+    
+    private static final int STRIPES = 64;
+    
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    
+    HmilyLocalLockTable() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+    
+    /**
+     * Acquire the lock for the transaction, waiting behind the earlier waiters until the deadline.
+     *
+     * @param lockKey  the lock key
+     * @param transId  the trans id
+     * @param deadline the deadline in {@link System#nanoTime()} units
+     * @return true if acquired now, false if the transaction already held it
+     * @throws HmilyLockConflictException the lock is still held at the deadline
+     */
+    boolean acquire(final HmilyLockKey lockKey, final Long transId, final long deadline) {
+        Stripe stripe = stripe(lockKey);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.computeIfAbsent(lockKey, key -> new Entry());
+            if (Objects.isNull(entry.owner) && entry.waiters.isEmpty()) {
+                entry.own(transId);
+                return true;
+            }
+            if (Objects.equals(entry.owner, transId)) {
+                return false;
+            }
+            Thread current = Thread.currentThread();
+            entry.waiters.addLast(current);
+            try {
+                while (Objects.nonNull(entry.owner) || entry.waiters.peekFirst() != current) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw conflict(lockKey, entry.owner);
+                    }
+                    stripe.released.awaitNanos(remaining);
+                }
+                entry.own(transId);
+                return true;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw conflict(lockKey, entry.owner);
+            } finally {
+                entry.waiters.remove(current);
+                if (Objects.isNull(entry.owner) && entry.waiters.isEmpty()) {
+                    stripe.entries.remove(lockKey);
+                } else if (Objects.isNull(entry.owner)) {
+                    // a timed out head hands the free lock on to the next waiter
+                    stripe.released.signalAll();
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+    
+    /**
+     * Release the lock if the transaction holds it, waking up its waiters.
+     *
+     * @param lockKey the lock key
+     * @param transId the trans id
+     */
+    void release(final HmilyLockKey lockKey, final Long transId) {
+        Stripe stripe = stripe(lockKey);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(lockKey);
+            if (Objects.isNull(entry) || !Objects.equals(entry.owner, transId)) {
+                return;
+            }
+            entry.owner = null;
+            if (entry.waiters.isEmpty()) {
+                stripe.entries.remove(lockKey);
+            } else {
+                stripe.released.signalAll();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+    
+    /**
+     * The transaction holding the lock on this node.
+     *
+     * @param lockKey the lock key
+     * @return the trans id of the holder, empty if no transaction of this node holds it
+     */
+    Optional<Long> owner(final HmilyLockKey lockKey) {
+        Stripe stripe = stripe(lockKey);
+        stripe.lock.lock();
+        try {
+            return Optional.ofNullable(stripe.entries.get(lockKey)).map(entry -> entry.owner);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+    
+    /**
+     * The transaction holding the lock on this node for at least the lease.
+     *
+     * @param lockKey    the lock key
+     * @param leaseNanos the lease in nanoseconds
+     * @return the trans id of the holder, empty if no transaction of this node holds it that long
+     */
+    Optional<Long> ownerPastLease(final HmilyLockKey lockKey, final long leaseNanos) {
+        Stripe stripe = stripe(lockKey);
+        stripe.lock.lock();
+        try {
+            return Optional.ofNullable(stripe.entries.get(lockKey))
+                    .filter(entry -> Objects.nonNull(entry.owner) && System.nanoTime() - entry.ownedSince >= leaseNanos).map(entry -> entry.owner);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+    
+    private Stripe stripe(final HmilyLockKey lockKey) {
+        int hash = lockKey.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+    
+    private static HmilyLockConflictException conflict(final HmilyLockKey lockKey, final Long owner) {
+        return new HmilyLockConflictException(String.format("current record [%s] has locked by transaction:[%s]", lockKey, owner));
+    }
+    
+    private static final class Stripe {
+        
+        private final ReentrantLock lock = new ReentrantLock();
+        
+        private final Condition released = lock.newCondition();
+        
+        private final Map<HmilyLockKey, Entry> entries = new HashMap<>();
+    }
+    
+    private static final class Entry {
+        
+        private final Deque<Thread> waiters = new ArrayDeque<>();
+        
+        private Long owner;
+        
+        private long ownedSince;
+        
+        private void own(final Long transId) {
+            owner = transId;
+            ownedSince = System.nanoTime();
+        }
+    }
+}
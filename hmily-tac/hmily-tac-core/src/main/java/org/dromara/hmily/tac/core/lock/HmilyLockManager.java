@@ -17,16 +17,30 @@
 package org.dromara.hmily.tac.core.lock;
 
 import lombok.extern.slf4j.Slf4j;
+import org.dromara.hmily.config.api.ConfigEnv;
+import org.dromara.hmily.config.api.entity.HmilyConfig;
 import org.dromara.hmily.core.repository.HmilyRepositoryStorage;
+import org.dromara.hmily.metrics.constant.LabelNames;
+import org.dromara.hmily.metrics.reporter.MetricsReporter;
 import org.dromara.hmily.repository.spi.entity.HmilyLock;
+import org.dromara.hmily.repository.spi.entity.HmilyLockKey;
 import org.dromara.hmily.repository.spi.exception.HmilyLockConflictException;
 import org.dromara.hmily.tac.core.cache.HmilyLockCacheManager;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Hmily lock manager.
+ * Locks held by the transactions of this node are checked and waited for in the local lock table,
+ * only the locks new to this node are looked up in the repository, and the acquired ones are written in one batch,
+ * which is retried until the wait timeout when another node takes one of the keys first.
  *
  * @author zhaojun
  */
@@ -38,23 +52,72 @@ public enum HmilyLockManager {
      */
     INSTANCE;
     
+    private static final String[] ACQUIRED = {"acquired"};
+    
+    private static final String[] CONFLICT = {"conflict"};
+    
+    private static final long MAX_BACKOFF_MILLIS = 200;
+    
+    private final HmilyLocalLockTable localLockTable = new HmilyLocalLockTable();
+    
+    HmilyLockManager() {
+        MetricsReporter.registerCounter(LabelNames.TAC_LOCK_TOTAL, new String[]{"result"}, "hmily tac global lock acquisitions and conflicts");
+        MetricsReporter.registerHistogram(LabelNames.TAC_LOCK_LATENCY, new String[]{"result"}, "hmily tac global lock acquisition latency histogram millis (ms)");
+    }
+    
     /**
-     * Try acquire locks.
+     * Try acquire locks, waiting up to the tac lock wait timeout for the ones held by other transactions.
      *
      * @param hmilyLocks hmily locks
      */
-    //TODO add timeout mechanism in future
     public void tryAcquireLocks(final Collection<HmilyLock> hmilyLocks) {
+        HmilyConfig config = ConfigEnv.getInstance().getConfig(HmilyConfig.class);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(config.getTacLockWaitTimeout());
+        List<HmilyLock> acquired = new ArrayList<>();
+        try {
+            // acquired in lock key order, so two local transactions never wait for each other in a cycle
+            for (HmilyLock each : sortByLockKey(hmilyLocks)) {
+                releaseIfRecovered(each, config);
+                if (localLockTable.acquire(each.getLockKey(), each.getTransId(), deadline)) {
+                    acquired.add(each);
+                }
+            }
+            for (HmilyLock each : acquired) {
+                awaitRemoteRelease(each, deadline, config.getTacLockRetryInterval());
+            }
+            writeLocks(acquired, deadline, config.getTacLockRetryInterval());
+        } catch (final RuntimeException ex) {
+            acquired.forEach(lock -> localLockTable.release(lock.getLockKey(), lock.getTransId()));
+            if (ex instanceof HmilyLockConflictException) {
+                log.error(ex.getMessage());
+                record(CONFLICT, start);
+            }
+            throw ex;
+        }
+        acquired.forEach(lock -> HmilyLockCacheManager.getInstance().cacheHmilyLock(lock.getLockKey(), lock));
+        record(ACQUIRED, start);
+    }
+    
+    /**
+     * Check that no other transaction holds the locks, without acquiring them.
+     *
+     * @param hmilyLocks hmily locks
+     */
+    public void checkLocks(final Collection<HmilyLock> hmilyLocks) {
+        HmilyConfig config = ConfigEnv.getInstance().getConfig(HmilyConfig.class);
         for (HmilyLock each : hmilyLocks) {
-            Optional<HmilyLock> hmilyLock = HmilyLockCacheManager.getInstance().get(each.getLockId());
-            if (hmilyLock.isPresent()) {
-                String message = String.format("current record [%s] has locked by transaction:[%s]", each.getLockId(), hmilyLock.get().getTransId());
+            releaseIfRecovered(each, config);
+            Optional<Long> holder = localLockTable.owner(each.getLockKey());
+            if (!holder.isPresent()) {
+                holder = HmilyLockCacheManager.getInstance().get(each).map(HmilyLock::getTransId);
+            }
+            if (holder.isPresent() && !Objects.equals(holder.get(), each.getTransId())) {
+                String message = String.format("current record [%s] has locked by transaction:[%s]", each.getLockId(), holder.get());
                 log.error(message);
                 throw new HmilyLockConflictException(message);
             }
         }
-        HmilyRepositoryStorage.writeHmilyLocks(hmilyLocks);
-        hmilyLocks.forEach(lock -> HmilyLockCacheManager.getInstance().cacheHmilyLock(lock.getLockId(), lock));
     }
     
     /**
@@ -64,7 +127,86 @@ public enum HmilyLockManager {
      */
     public void releaseLocks(final Collection<HmilyLock> hmilyLocks) {
         HmilyRepositoryStorage.releaseHmilyLocks(hmilyLocks);
-        hmilyLocks.forEach(lock -> HmilyLockCacheManager.getInstance().removeByKey(lock.getLockId()));
+        hmilyLocks.forEach(lock -> {
+            HmilyLockCacheManager.getInstance().removeByKey(lock.getLockKey());
+            localLockTable.release(lock.getLockKey(), lock.getTransId());
+        });
         log.debug("TAC-release-lock ::: {}", hmilyLocks);
     }
+    
+    private Collection<HmilyLock> sortByLockKey(final Collection<HmilyLock> hmilyLocks) {
+        Map<HmilyLockKey, HmilyLock> result = new TreeMap<>();
+        hmilyLocks.forEach(lock -> result.putIfAbsent(lock.getLockKey(), lock));
+        return result.values();
+    }
+    
+    private void releaseIfRecovered(final HmilyLock hmilyLock, final HmilyConfig config) {
+        HmilyLockKey lockKey = hmilyLock.getLockKey();
+        // a local holder past the recover delay may have been recovered on another node, which releases the lock
+        // in the repository only, so the repository is asked again whether that holder still has it
+        Optional<Long> owner = localLockTable.ownerPastLease(lockKey, TimeUnit.SECONDS.toNanos(config.getRecoverDelayTime()));
+        if (!owner.isPresent()) {
+            return;
+        }
+        HmilyLockCacheManager.getInstance().removeByKey(lockKey);
+        Optional<HmilyLock> holder = HmilyLockCacheManager.getInstance().get(hmilyLock);
+        if (!holder.isPresent() || !Objects.equals(holder.get().getTransId(), owner.get())) {
+            log.warn("TAC-release-lock ::: {} of transaction {} was released in the repository, the local hold is dropped", hmilyLock.getLockId(), owner.get());
+            localLockTable.release(lockKey, owner.get());
+        }
+    }
+    
+    private void awaitRemoteRelease(final HmilyLock hmilyLock, final long deadline, final long retryInterval) {
+        // a holder on another node can not wake this thread, so the repository is polled with a growing backoff
+        long backoff = Math.max(1, retryInterval);
+        Optional<HmilyLock> holder = HmilyLockCacheManager.getInstance().get(hmilyLock);
+        while (holder.isPresent() && !Objects.equals(holder.get().getTransId(), hmilyLock.getTransId())) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                throw new HmilyLockConflictException(String.format("current record [%s] has locked by transaction:[%s]", hmilyLock.getLockId(), holder.get().getTransId()));
+            }
+            try {
+                Thread.sleep(Math.min(backoff, remaining));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new HmilyLockConflictException(String.format("current record [%s] has locked by transaction:[%s]", hmilyLock.getLockId(), holder.get().getTransId()));
+            }
+            backoff = Math.min(backoff << 1, MAX_BACKOFF_MILLIS);
+            HmilyLockCacheManager.getInstance().removeByKey(hmilyLock.getLockKey());
+            holder = HmilyLockCacheManager.getInstance().get(hmilyLock);
+        }
+    }
+    
+    private void writeLocks(final List<HmilyLock> hmilyLocks, final long deadline, final long retryInterval) {
+        // another node may take a key between the lookup and the write, which is all or nothing,
+        // so the keys are read again and waited for within the same deadline before the write is retried
+        long backoff = Math.max(1, retryInterval);
+        while (true) {
+            try {
+                HmilyRepositoryStorage.writeHmilyLocks(hmilyLocks);
+                return;
+            } catch (final HmilyLockConflictException ex) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    throw ex;
+                }
+                try {
+                    Thread.sleep(Math.min(backoff, remaining));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+                backoff = Math.min(backoff << 1, MAX_BACKOFF_MILLIS);
+                for (HmilyLock each : hmilyLocks) {
+                    HmilyLockCacheManager.getInstance().removeByKey(each.getLockKey());
+                    awaitRemoteRelease(each, deadline, retryInterval);
+                }
+            }
+        }
+    }
+    
+    private void record(final String[] result, final long start) {
+        MetricsReporter.counterIncrement(LabelNames.TAC_LOCK_TOTAL, result);
+        MetricsReporter.recordTime(LabelNames.TAC_LOCK_LATENCY, result, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
 }
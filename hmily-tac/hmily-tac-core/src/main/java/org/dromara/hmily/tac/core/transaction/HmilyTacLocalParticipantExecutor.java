@@ -16,6 +16,10 @@
 
 package org.dromara.hmily.tac.core.transaction;
 
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hmily.common.concurrent.HmilyThreadFactory;
+import org.dromara.hmily.config.api.ConfigEnv;
+import org.dromara.hmily.config.api.entity.HmilyConfig;
 import org.dromara.hmily.core.cache.HmilyParticipantCacheManager;
 import org.dromara.hmily.core.hook.UndoHook;
 import org.dromara.hmily.core.repository.HmilyRepositoryStorage;
@@ -24,13 +28,25 @@ import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
 import org.dromara.hmily.tac.core.cache.HmilyParticipantUndoCacheManager;
 import org.dromara.hmily.tac.core.lock.HmilyLockManager;
 
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Hmily TAC local participant executor.
  *
  * @author zhaojun
  */
+@Slf4j
 public class HmilyTacLocalParticipantExecutor {
     
     /**
@@ -53,15 +69,64 @@ public class HmilyTacLocalParticipantExecutor {
      */
     public static void cancel(final HmilyParticipant participant) {
         List<HmilyParticipantUndo> undoList = HmilyParticipantUndoCacheManager.getInstance().get(participant.getParticipantId());
-        for (HmilyParticipantUndo undo : undoList) {
-            boolean success = UndoHook.INSTANCE.run(undo);
+        revert(undoList).forEach((undo, success) -> {
             if (success) {
                 cleanUndo(undo);
+            } else {
+                log.warn("TAC-revert-failed ::: undoId: {}, resourceId: {}", undo.getUndoId(), undo.getResourceId());
             }
-        }
+        });
         cleanHmilyParticipant(participant);
     }
     
+    /**
+     * Revert the undo records, the resources in parallel and the records of one resource in order.
+     *
+     * @param undoList undo list
+     * @return revert outcome of each undo, by undo identity
+     */
+    public static Map<HmilyParticipantUndo, Boolean> revert(final List<HmilyParticipantUndo> undoList) {
+        Map<String, List<HmilyParticipantUndo>> resources = undoList.stream().collect(Collectors.groupingBy(HmilyParticipantUndo::getResourceId, LinkedHashMap::new, Collectors.toList()));
+        // the undo equality walks its whole snapshot, so the undo records are keyed by identity
+        Map<HmilyParticipantUndo, Boolean> result = new IdentityHashMap<>(undoList.size());
+        if (resources.size() <= 1) {
+            undoList.forEach(undo -> result.put(undo, runUndo(undo)));
+            return result;
+        }
+        Map<HmilyParticipantUndo, Future<Boolean>> futures = new IdentityHashMap<>(undoList.size());
+        for (List<HmilyParticipantUndo> each : resources.values()) {
+            // later undo records of a resource wait for the earlier ones of the same resource
+            CompletableFuture<Boolean> previous = CompletableFuture.completedFuture(true);
+            for (HmilyParticipantUndo undo : each) {
+                previous = previous.thenApplyAsync(ignored -> runUndo(undo), RevertExecutorHolder.EXECUTOR);
+                futures.put(undo, previous);
+            }
+        }
+        futures.forEach((undo, future) -> result.put(undo, awaitUndo(undo, future)));
+        return result;
+    }
+    
+    private static boolean runUndo(final HmilyParticipantUndo undo) {
+        try {
+            return UndoHook.INSTANCE.run(undo);
+        } catch (final RuntimeException ex) {
+            log.error("hmily tac revert exception, undoId: {}", undo.getUndoId(), ex);
+            return false;
+        }
+    }
+    
+    private static boolean awaitUndo(final HmilyParticipantUndo undo, final Future<Boolean> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (final ExecutionException ex) {
+            log.error("hmily tac revert exception, undoId: {}", undo.getUndoId(), ex.getCause());
+            return false;
+        }
+    }
+    
     private static void cleanUndo(final HmilyParticipantUndo hmilyParticipantUndo) {
         HmilyRepositoryStorage.removeHmilyParticipantUndo(hmilyParticipantUndo);
         HmilyParticipantUndoCacheManager.getInstance().removeByKey(hmilyParticipantUndo.getParticipantId());
@@ -72,4 +137,18 @@ public class HmilyTacLocalParticipantExecutor {
         HmilyParticipantCacheManager.getInstance().removeByKey(hmilyParticipant.getParticipantId());
         HmilyRepositoryStorage.removeHmilyParticipant(hmilyParticipant);
     }
+    
+    private static final class RevertExecutorHolder {
+        
+        private static final ExecutorService EXECUTOR = createExecutor();
+        
+        private static ExecutorService createExecutor() {
+            int parallelism = Math.max(1, ConfigEnv.getInstance().getConfig(HmilyConfig.class).getTacRevertParallelism());
+            // a full queue reverts on the cancelling thread, which also slows down the cancels feeding it
+            ThreadPoolExecutor result = new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(parallelism << 6), HmilyThreadFactory.create("hmily-tac-revert", true), new ThreadPoolExecutor.CallerRunsPolicy());
+            result.allowCoreThreadTimeOut(true);
+            return result;
+        }
+    }
 }
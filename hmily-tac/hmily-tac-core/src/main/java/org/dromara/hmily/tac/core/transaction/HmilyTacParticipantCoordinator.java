@@ -29,6 +29,7 @@ import org.dromara.hmily.common.utils.IdWorkerUtils;
 import org.dromara.hmily.core.cache.HmilyParticipantCacheManager;
 import org.dromara.hmily.core.context.HmilyContextHolder;
 import org.dromara.hmily.core.context.HmilyTransactionContext;
+import org.dromara.hmily.core.reflect.HmilyMethodRegistry;
 import org.dromara.hmily.core.reflect.HmilyReflector;
 import org.dromara.hmily.core.repository.HmilyRepositoryStorage;
 import org.dromara.hmily.repository.spi.entity.HmilyInvocation;
@@ -144,7 +145,7 @@ public class HmilyTacParticipantCoordinator {
             Method method = signature.getMethod();
             Class<?> clazz = point.getTarget().getClass();
             Object[] args = point.getArgs();
-            HmilyInvocation hmilyInvocation = new HmilyInvocation(clazz.getInterfaces()[0], method.getName(), method.getParameterTypes(), args);
+            HmilyInvocation hmilyInvocation = new HmilyInvocation(HmilyMethodRegistry.getInstance().findInterface(clazz), method.getName(), method.getParameterTypes(), args);
             hmilyParticipant.setConfirmHmilyInvocation(hmilyInvocation);
         }
         hmilyParticipant.setTransId(transId);
@@ -24,6 +24,8 @@ import org.dromara.hmily.common.enums.HmilyActionEnum;
 import org.dromara.hmily.common.enums.HmilyRoleEnum;
 import org.dromara.hmily.common.utils.CollectionUtils;
 import org.dromara.hmily.common.utils.IdWorkerUtils;
+import org.dromara.hmily.config.api.ConfigEnv;
+import org.dromara.hmily.config.api.entity.HmilyConfig;
 import org.dromara.hmily.core.context.HmilyContextHolder;
 import org.dromara.hmily.core.context.HmilyTransactionContext;
 import org.dromara.hmily.core.holder.HmilyTransactionHolder;
@@ -62,8 +64,13 @@ public class HmilyTacTransactionManager {
     public HmilyTransaction begin() {
         //创建全局的事务，创建一个参与者
         HmilyTransaction globalHmilyTransaction = createHmilyTransaction();
-        HmilyRepositoryStorage.createHmilyTransaction(globalHmilyTransaction);
         final HmilyParticipant hmilyParticipant = buildHmilyParticipant(globalHmilyTransaction.getTransId());
+        if (ConfigEnv.getInstance().getConfig(HmilyConfig.class).isLazyStarterLog()) {
+            // written by the first participant to enlist, a remote call or a local undo log
+            globalHmilyTransaction.setDeferred(true);
+            hmilyParticipant.setDeferred(true);
+        }
+        HmilyRepositoryStorage.createHmilyTransaction(globalHmilyTransaction);
         HmilyRepositoryStorage.createHmilyParticipant(hmilyParticipant);
         globalHmilyTransaction.registerParticipant(hmilyParticipant);
         //save tacTransaction in threadLocal
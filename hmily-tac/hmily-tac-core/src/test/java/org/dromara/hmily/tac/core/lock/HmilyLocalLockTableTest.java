@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.core.lock;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.dromara.hmily.repository.spi.entity.HmilyLockKey;
+import org.dromara.hmily.repository.spi.exception.HmilyLockConflictException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Hmily local lock table test.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyLocalLockTableTest {
+    
+    private final HmilyLocalLockTable localLockTable = new HmilyLocalLockTable();
+    
+    private final HmilyLockKey lockKey = new HmilyLockKey("resource", "t_order", "1");
+    
+    @Test
+    public void assertAcquireAndRelease() {
+        assertTrue(localLockTable.acquire(lockKey, 1L, deadline(0)));
+        assertFalse(localLockTable.acquire(lockKey, 1L, deadline(0)));
+        assertEquals(Long.valueOf(1L), localLockTable.owner(lockKey).orElse(null));
+        localLockTable.release(lockKey, 2L);
+        assertEquals(Long.valueOf(1L), localLockTable.owner(lockKey).orElse(null));
+        localLockTable.release(lockKey, 1L);
+        assertFalse(localLockTable.owner(lockKey).isPresent());
+        assertTrue(localLockTable.acquire(lockKey, 2L, deadline(0)));
+    }
+    
+    @Test(expected = HmilyLockConflictException.class)
+    public void assertAcquireHeldLockTimesOut() {
+        localLockTable.acquire(lockKey, 1L, deadline(0));
+        localLockTable.acquire(lockKey, 2L, deadline(20));
+    }
+    
+    @Test
+    public void assertReleaseHandsOffInArrivalOrder() throws InterruptedException {
+        localLockTable.acquire(lockKey, 1L, deadline(0));
+        List<Long> owners = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        for (long transId = 2L; transId <= 4L; transId++) {
+            long each = transId;
+            new Thread(() -> {
+                localLockTable.acquire(lockKey, each, deadline(5000));
+                owners.add(each);
+                localLockTable.release(lockKey, each);
+                done.countDown();
+            }).start();
+            // the next waiter only arrives once this one queued
+            Thread.sleep(50);
+        }
+        localLockTable.release(lockKey, 1L);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(3, owners.size());
+        assertEquals(Long.valueOf(2L), owners.get(0));
+        assertEquals(Long.valueOf(3L), owners.get(1));
+        assertEquals(Long.valueOf(4L), owners.get(2));
+        assertFalse(localLockTable.owner(lockKey).isPresent());
+    }
+    
+    @Test
+    public void assertTimedOutWaiterLeavesTheQueue() {
+        localLockTable.acquire(lockKey, 1L, deadline(0));
+        try {
+            localLockTable.acquire(lockKey, 2L, deadline(20));
+        } catch (HmilyLockConflictException ignored) {
+        }
+        localLockTable.release(lockKey, 1L);
+        assertTrue(localLockTable.acquire(lockKey, 3L, deadline(0)));
+    }
+    
+    @Test
+    public void assertOwnerPastLease() throws InterruptedException {
+        assertFalse(localLockTable.ownerPastLease(lockKey, 0L).isPresent());
+        localLockTable.acquire(lockKey, 1L, deadline(0));
+        assertFalse(localLockTable.ownerPastLease(lockKey, TimeUnit.MINUTES.toNanos(1)).isPresent());
+        Thread.sleep(5);
+        assertEquals(Long.valueOf(1L), localLockTable.ownerPastLease(lockKey, TimeUnit.MILLISECONDS.toNanos(1)).orElse(null));
+    }
+    
+    private static long deadline(final long millis) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -16,38 +16,76 @@
 
 package org.dromara.hmily.tac.metadata;
 
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hmily.common.concurrent.HmilyThreadFactory;
 import org.dromara.hmily.tac.common.HmilyTacResource;
 import org.dromara.hmily.tac.common.database.type.DatabaseType;
 import org.dromara.hmily.tac.metadata.loader.DataSourceMetaDataLoader;
 import org.dromara.hmily.tac.metadata.model.DataSourceMetaData;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Hmily metadata manager.
  *
  * @author zhaojun
  */
+@Slf4j
 public class HmilyMetaDataManager {
     
+    private static final String ALL_TABLES = "*";
+    
     private static final Map<String, DataSourceMetaData> DATASOURCE_META_CACHE = new ConcurrentHashMap<>();
     
     /**
-     * Register hmily metadata.
+     * Register hmily metadata, the table metadata is loaded on the first lookup of each table.
      *
      * @param hmilyTacResource the hmily resource
      * @param databaseType database type
      */
     public static void register(final HmilyTacResource hmilyTacResource, final DatabaseType databaseType) {
-        DataSourceMetaData dataSourceMetaData;
+        DATASOURCE_META_CACHE.put(hmilyTacResource.getResourceId(), new DataSourceMetaData(hmilyTacResource.getTargetDataSource(), databaseType));
+    }
+    
+    /**
+     * Preload the metadata of tables in parallel, a table that fails is loaded again on its first lookup.
+     *
+     * @param hmilyTacResource the registered hmily resource
+     * @param databaseType database type
+     * @param tableNames the table names, * for all the tables
+     * @param parallelism tables loaded at once
+     */
+    public static void preload(final HmilyTacResource hmilyTacResource, final DatabaseType databaseType, final Collection<String> tableNames, final int parallelism) {
+        if (tableNames.isEmpty()) {
+            return;
+        }
+        DataSourceMetaData dataSourceMetaData = DATASOURCE_META_CACHE.get(hmilyTacResource.getResourceId());
+        Collection<String> preloadTableNames;
         try {
-            dataSourceMetaData = DataSourceMetaDataLoader.load(hmilyTacResource.getTargetDataSource(), databaseType);
+            preloadTableNames = tableNames.contains(ALL_TABLES) ? DataSourceMetaDataLoader.loadTableNames(hmilyTacResource.getTargetDataSource(), databaseType) : tableNames;
         } catch (final SQLException ex) {
-            throw new IllegalStateException("failed in loading datasource metadata into hmily");
+            throw new IllegalStateException("failed in loading datasource metadata into hmily", ex);
+        }
+        int threads = Math.max(1, Math.min(parallelism, preloadTableNames.size()));
+        ExecutorService executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), HmilyThreadFactory.create("hmily-tac-metadata-preload", true));
+        try {
+            CompletableFuture.allOf(preloadTableNames.stream()
+                    .map(each -> CompletableFuture.runAsync(() -> dataSourceMetaData.getTableMetaData(each), executor)).toArray(CompletableFuture[]::new)).join();
+        } catch (final CompletionException ex) {
+            log.warn("hmily tac preload table metadata of {} failed", hmilyTacResource.getResourceId(), ex.getCause());
+        } finally {
+            executor.shutdown();
         }
-        DATASOURCE_META_CACHE.put(hmilyTacResource.getResourceId(), dataSourceMetaData);
     }
     
     /**
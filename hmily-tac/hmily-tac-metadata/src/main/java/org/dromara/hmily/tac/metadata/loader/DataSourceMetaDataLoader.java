@@ -20,7 +20,6 @@ import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.dromara.hmily.tac.common.database.type.DatabaseType;
 import org.dromara.hmily.tac.metadata.connection.MetaDataConnectionAdapter;
-import org.dromara.hmily.tac.metadata.model.DataSourceMetaData;
 import org.dromara.hmily.tac.metadata.model.TableMetaData;
 
 import javax.sql.DataSource;
@@ -40,22 +39,32 @@ import java.util.Optional;
 public final class DataSourceMetaDataLoader {
     
     /**
-     * Load data source meta data.
+     * Load the meta data of one table.
      *
      * @param dataSource data source
      * @param databaseType database type
-     * @return datasource metadata
+     * @param tableName table name
+     * @return table meta data
      * @throws SQLException SQL exception
      */
-    public static DataSourceMetaData load(final DataSource dataSource, final DatabaseType databaseType) throws SQLException {
-        DataSourceMetaData result = new DataSourceMetaData();
+    public static Optional<TableMetaData> load(final DataSource dataSource, final DatabaseType databaseType, final String tableName) throws SQLException {
         try (MetaDataConnectionAdapter connectionAdapter = new MetaDataConnectionAdapter(databaseType, dataSource.getConnection())) {
-            for (String each : loadAllTableNames(connectionAdapter)) {
-                Optional<TableMetaData> tableMetaData = TableMetaDataLoader.load(connectionAdapter, each, databaseType);
-                tableMetaData.ifPresent(meta -> result.getTableMetaDataMap().put(each, meta));
-            }
+            return TableMetaDataLoader.load(connectionAdapter, tableName, databaseType);
+        }
+    }
+    
+    /**
+     * Load the names of all the tables of data source.
+     *
+     * @param dataSource data source
+     * @param databaseType database type
+     * @return table names
+     * @throws SQLException SQL exception
+     */
+    public static List<String> loadTableNames(final DataSource dataSource, final DatabaseType databaseType) throws SQLException {
+        try (MetaDataConnectionAdapter connectionAdapter = new MetaDataConnectionAdapter(databaseType, dataSource.getConnection())) {
+            return loadAllTableNames(connectionAdapter);
         }
-        return result;
     }
     
     private static List<String> loadAllTableNames(final MetaDataConnectionAdapter connectionAdapter) throws SQLException {
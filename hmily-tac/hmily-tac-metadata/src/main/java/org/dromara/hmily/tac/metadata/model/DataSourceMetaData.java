@@ -16,18 +16,83 @@
 
 package org.dromara.hmily.tac.metadata.model;
 
-import lombok.Getter;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.dromara.hmily.tac.common.database.type.DatabaseType;
+import org.dromara.hmily.tac.metadata.loader.DataSourceMetaDataLoader;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.Optional;
 
 /**
  * Data source metadata.
+ * The table metadata is loaded on the first lookup of each table, concurrent lookups of a table share one load.
+ * A table that is not found is not kept, it is looked up again until it exists.
  *
  * @author zhaojun
  */
-@Getter
 public final class DataSourceMetaData {
     
-    private final Map<String, TableMetaData> tableMetaDataMap = new LinkedHashMap<>();
+    private final LoadingCache<String, Optional<TableMetaData>> tableMetaDataCache;
+    
+    public DataSourceMetaData(final DataSource dataSource, final DatabaseType databaseType) {
+        this(new CacheLoader<String, Optional<TableMetaData>>() {
+            @Override
+            public Optional<TableMetaData> load(final String tableName) throws Exception {
+                return DataSourceMetaDataLoader.load(dataSource, databaseType, tableName);
+            }
+        });
+    }
+    
+    DataSourceMetaData(final CacheLoader<String, Optional<TableMetaData>> tableMetaDataLoader) {
+        tableMetaDataCache = CacheBuilder.newBuilder().build(tableMetaDataLoader);
+    }
+    
+    /**
+     * Get table metadata, loading it on the first lookup.
+     *
+     * @param tableName table name
+     * @return table metadata, null if the table does not exist
+     */
+    public TableMetaData getTableMetaData(final String tableName) {
+        Optional<TableMetaData> result;
+        try {
+            result = tableMetaDataCache.getUnchecked(tableName);
+        } catch (final UncheckedExecutionException ex) {
+            throw new IllegalStateException("failed in loading table metadata of " + tableName + " into hmily", ex.getCause());
+        }
+        if (!result.isPresent()) {
+            tableMetaDataCache.asMap().remove(tableName, result);
+        }
+        return result.orElse(null);
+    }
+    
+    /**
+     * Get table metadata, reloaded once when it misses a column, as after an alter table.
+     *
+     * @param tableName table name
+     * @param columnNames column names the table is expected to have
+     * @return table metadata, null if the table does not exist
+     */
+    public TableMetaData getTableMetaData(final String tableName, final Collection<String> columnNames) {
+        TableMetaData result = getTableMetaData(tableName);
+        if (null != result && columnNames.stream().anyMatch(each -> !result.getColumns().containsKey(each.toLowerCase()))) {
+            return refresh(tableName);
+        }
+        return result;
+    }
+    
+    /**
+     * Reload table metadata, for a table altered after it was loaded.
+     *
+     * @param tableName table name
+     * @return table metadata, null if the table does not exist
+     */
+    public TableMetaData refresh(final String tableName) {
+        tableMetaDataCache.invalidate(tableName);
+        return getTableMetaData(tableName);
+    }
 }
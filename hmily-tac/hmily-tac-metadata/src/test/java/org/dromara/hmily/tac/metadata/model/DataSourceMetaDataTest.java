@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.metadata.model;
+
+import com.google.common.cache.CacheLoader;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The type Data source meta data test.
+ *
+ * @author xiaoyu
+ */
+public final class DataSourceMetaDataTest {
+    
+    private final Map<String, TableMetaData> tables = new HashMap<>();
+    
+    private final AtomicInteger loads = new AtomicInteger();
+    
+    private final AtomicInteger failures = new AtomicInteger();
+    
+    private final DataSourceMetaData dataSourceMetaData = new DataSourceMetaData(new CacheLoader<String, Optional<TableMetaData>>() {
+        
+        @Override
+        public Optional<TableMetaData> load(final String tableName) throws SQLException {
+            loads.incrementAndGet();
+            if (failures.getAndUpdate(each -> Math.max(0, each - 1)) > 0) {
+                throw new SQLException("connection refused");
+            }
+            return Optional.ofNullable(tables.get(tableName));
+        }
+    });
+    
+    @Test
+    public void assertTableIsLoadedOnFirstLookup() {
+        tables.put("t_order", table("t_order", "id", "amount"));
+        assertEquals(0, loads.get());
+        TableMetaData actual = dataSourceMetaData.getTableMetaData("t_order");
+        assertSame(tables.get("t_order"), actual);
+        assertSame(actual, dataSourceMetaData.getTableMetaData("t_order"));
+        assertEquals(1, loads.get());
+    }
+    
+    @Test
+    public void assertFailedLoadIsRetried() {
+        tables.put("t_order", table("t_order", "id", "amount"));
+        failures.set(1);
+        try {
+            dataSourceMetaData.getTableMetaData("t_order");
+            fail();
+        } catch (final IllegalStateException ex) {
+            assertTrue(ex.getCause() instanceof SQLException);
+        }
+        assertSame(tables.get("t_order"), dataSourceMetaData.getTableMetaData("t_order"));
+        assertEquals(2, loads.get());
+    }
+    
+    @Test
+    public void assertMissingTableIsLookedUpAgain() {
+        assertNull(dataSourceMetaData.getTableMetaData("t_order"));
+        tables.put("t_order", table("t_order", "id", "amount"));
+        assertNotNull(dataSourceMetaData.getTableMetaData("t_order"));
+        assertEquals(2, loads.get());
+    }
+    
+    @Test
+    public void assertTableIsReloadedWhenColumnIsMissing() {
+        tables.put("t_order", table("t_order", "id", "amount"));
+        dataSourceMetaData.getTableMetaData("t_order");
+        tables.put("t_order", table("t_order", "id", "amount", "status"));
+        TableMetaData actual = dataSourceMetaData.getTableMetaData("t_order", Arrays.asList("id", "STATUS"));
+        assertTrue(actual.getColumns().containsKey("status"));
+        assertSame(actual, dataSourceMetaData.getTableMetaData("t_order", Collections.singletonList("amount")));
+        assertEquals(2, loads.get());
+    }
+    
+    private static TableMetaData table(final String tableName, final String... columnNames) {
+        ColumnMetaData[] columns = new ColumnMetaData[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            columns[i] = new ColumnMetaData(columnNames[i], Types.VARCHAR, "varchar", 0 == i, false, false);
+        }
+        return new TableMetaData(tableName, Arrays.asList(columns), Collections.emptyList());
+    }
+}
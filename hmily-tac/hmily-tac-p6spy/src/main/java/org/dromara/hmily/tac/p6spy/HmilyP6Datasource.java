@@ -16,11 +16,16 @@
 
 package org.dromara.hmily.tac.p6spy;
 
+import com.google.common.base.Splitter;
 import com.p6spy.engine.spy.P6DataSource;
 import lombok.Getter;
+import org.dromara.hmily.config.api.ConfigEnv;
+import org.dromara.hmily.config.api.entity.HmilyConfig;
+import org.dromara.hmily.core.repository.HmilyRepositoryFacade;
 import org.dromara.hmily.tac.common.HmilyResourceManager;
 import org.dromara.hmily.tac.common.HmilyTacResource;
 import org.dromara.hmily.tac.common.database.type.DatabaseTypeFactory;
+import org.dromara.hmily.tac.common.undo.HmilyTacUndoLogStore;
 import org.dromara.hmily.tac.common.utils.DatabaseTypes;
 import org.dromara.hmily.tac.common.utils.ResourceIdUtils;
 import org.dromara.hmily.tac.metadata.HmilyMetaDataManager;
@@ -62,8 +67,14 @@ public class HmilyP6Datasource extends P6DataSource implements HmilyTacResource
         } catch (SQLException e) {
             throw new IllegalStateException("can not init dataSource", e);
         }
+        HmilyConfig hmilyConfig = ConfigEnv.getInstance().getConfig(HmilyConfig.class);
         HmilyMetaDataManager.register(this, DatabaseTypes.INSTANCE.getDatabaseType());
+        HmilyMetaDataManager.preload(this, DatabaseTypes.INSTANCE.getDatabaseType(),
+                Splitter.on(',').trimResults().omitEmptyStrings().splitToList(hmilyConfig.getTacMetaDataPreloadTables()), hmilyConfig.getTacMetaDataPreloadParallelism());
         HmilyResourceManager.register(this);
+        if (hmilyConfig.isTacUndoLogColocated()) {
+            HmilyRepositoryFacade.getInstance().setUndoLogStore(HmilyTacUndoLogStore.INSTANCE);
+        }
         HmilyTacRollbackExecutor.getInstance();
     }
     
@@ -22,12 +22,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.dromara.hmily.annotation.TransTypeEnum;
 import org.dromara.hmily.common.enums.HmilyActionEnum;
 import org.dromara.hmily.common.utils.IdWorkerUtils;
+import org.dromara.hmily.config.api.ConfigEnv;
+import org.dromara.hmily.config.api.entity.HmilyConfig;
 import org.dromara.hmily.core.context.HmilyContextHolder;
 import org.dromara.hmily.core.context.HmilyTransactionContext;
 import org.dromara.hmily.core.repository.HmilyRepositoryStorage;
 import org.dromara.hmily.repository.spi.entity.HmilyDataSnapshot;
 import org.dromara.hmily.repository.spi.entity.HmilyLock;
+import org.dromara.hmily.repository.spi.entity.HmilyLockKey;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.tac.common.constants.DatabaseConstant;
+import org.dromara.hmily.tac.common.database.type.DatabaseType;
+import org.dromara.hmily.tac.common.enums.SelectLockCheckEnum;
+import org.dromara.hmily.tac.common.undo.HmilyTacUndoLogStore;
 import org.dromara.hmily.tac.common.utils.DatabaseTypes;
 import org.dromara.hmily.tac.common.utils.ResourceIdUtils;
 import org.dromara.hmily.tac.core.cache.HmilyParticipantUndoCacheManager;
@@ -35,6 +42,7 @@ import org.dromara.hmily.tac.core.cache.HmilyUndoContextCacheManager;
 import org.dromara.hmily.tac.core.context.HmilyUndoContext;
 import org.dromara.hmily.tac.core.lock.HmilyLockManager;
 import org.dromara.hmily.tac.p6spy.threadlocal.AutoCommitThreadLocal;
+import org.dromara.hmily.tac.p6spy.threadlocal.ColocatedUndoThreadLocal;
 import org.dromara.hmily.tac.sqlcompute.HmilySQLComputeEngine;
 import org.dromara.hmily.tac.sqlcompute.HmilySQLComputeEngineFactory;
 import org.dromara.hmily.tac.sqlparser.model.common.statement.HmilyStatement;
@@ -43,9 +51,11 @@ import org.dromara.hmily.tac.sqlparser.spi.HmilySqlParserEngineFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -59,6 +69,8 @@ public enum HmilyExecuteTemplate {
      */
     INSTANCE;
     
+    private volatile SelectLockCheckEnum selectLockCheck;
+    
     /**
      * Sets auto commit.
      *
@@ -98,6 +110,10 @@ public enum HmilyExecuteTemplate {
         } catch (final Exception ex) {
             return;
         }
+        if (statement instanceof HmilySelectStatement) {
+            checkLocks((HmilySelectStatement) statement, sql, parameters, connectionInformation);
+            return;
+        }
         String resourceId = ResourceIdUtils.INSTANCE.getResourceId(connectionInformation.getUrl());
         HmilySQLComputeEngine sqlComputeEngine = HmilySQLComputeEngineFactory.newInstance(statement);
         HmilyDataSnapshot snapshot = sqlComputeEngine.execute(sql, parameters, connectionInformation.getConnection(), resourceId);
@@ -105,9 +121,38 @@ public enum HmilyExecuteTemplate {
         HmilyUndoContext undoContext = buildUndoContext(HmilyContextHolder.get(), snapshot, resourceId);
         HmilyLockManager.INSTANCE.tryAcquireLocks(undoContext.getHmilyLocks());
         log.debug("TAC-try-lock ::: {}", undoContext.getHmilyLocks());
-        if (!(statement instanceof HmilySelectStatement)) {
-            HmilyUndoContextCacheManager.INSTANCE.set(undoContext);
+        HmilyUndoContextCacheManager.INSTANCE.set(undoContext);
+    }
+    
+    private void checkLocks(final HmilySelectStatement statement, final String sql, final List<Object> parameters, final ConnectionInformation connectionInformation) {
+        SelectLockCheckEnum lockCheck = getSelectLockCheck();
+        boolean checked = SelectLockCheckEnum.ALL == lockCheck || (SelectLockCheckEnum.FOR_UPDATE == lockCheck && statement.getLock().isPresent());
+        if (!checked) {
+            return;
+        }
+        String resourceId = ResourceIdUtils.INSTANCE.getResourceId(connectionInformation.getUrl());
+        HmilyDataSnapshot snapshot = HmilySQLComputeEngineFactory.newInstance(statement).execute(sql, parameters, connectionInformation.getConnection(), resourceId);
+        HmilyUndoContext undoContext = buildUndoContext(HmilyContextHolder.get(), snapshot, resourceId);
+        HmilyLockManager.INSTANCE.checkLocks(undoContext.getHmilyLocks());
+        log.debug("TAC-check-lock ::: {}", undoContext.getHmilyLocks());
+    }
+    
+    private SelectLockCheckEnum getSelectLockCheck() {
+        SelectLockCheckEnum result = selectLockCheck;
+        if (Objects.nonNull(result)) {
+            return result;
+        }
+        String type = ConfigEnv.getInstance().getConfig(HmilyConfig.class).getTacSelectLockCheck();
+        result = SelectLockCheckEnum.acquire(type).orElseGet(() -> {
+            log.warn("unknown tacSelectLockCheck {}, expected none, forUpdate or all, forUpdate is used", type);
+            return SelectLockCheckEnum.FOR_UPDATE;
+        });
+        DatabaseType databaseType = DatabaseTypes.INSTANCE.getDatabaseType();
+        if (SelectLockCheckEnum.FOR_UPDATE == result && Objects.nonNull(databaseType) && !DatabaseConstant.MYSQL.equals(databaseType.getName())) {
+            log.warn("tacSelectLockCheck forUpdate only sees the for update of MySQL statements, no select on {} is checked, use all to check them", databaseType.getName());
         }
+        selectLockCheck = result;
+        return result;
     }
     
     private HmilyUndoContext buildUndoContext(final HmilyTransactionContext transactionContext, final HmilyDataSnapshot dataSnapshot, final String resourceId) {
@@ -119,24 +164,57 @@ public enum HmilyExecuteTemplate {
         return result;
     }
     
+    /**
+     * Before commit, the undo records of the committing resource join the local transaction when the undo log is co-located.
+     *
+     * @param connectionInformation the connection information
+     */
+    @SneakyThrows
+    public void beforeCommit(final ConnectionInformation connectionInformation) {
+        if (check() || !ConfigEnv.getInstance().getConfig(HmilyConfig.class).isTacUndoLogColocated()) {
+            return;
+        }
+        List<HmilyParticipantUndo> undoList = buildUndoList(HmilyUndoContextCacheManager.INSTANCE.get());
+        List<HmilyParticipantUndo> colocatedUndoList = filterByResource(undoList, getResourceId(connectionInformation), true);
+        if (!colocatedUndoList.isEmpty()) {
+            HmilyRepositoryStorage.enlist();
+            HmilyTacUndoLogStore.INSTANCE.insert(connectionInformation.getConnection(), colocatedUndoList);
+        }
+        ColocatedUndoThreadLocal.INSTANCE.set(undoList);
+    }
+    
     /**
      * Commit.
      *
-     * @param connection the connection
+     * @param connectionInformation the connection information
      */
-    public void commit(final Connection connection) {
+    public void commit(final ConnectionInformation connectionInformation) {
         if (check()) {
             return;
         }
-        List<HmilyParticipantUndo> undoList = buildUndoList();
-        for (HmilyParticipantUndo undo : undoList) {
-            HmilyParticipantUndoCacheManager.getInstance().cacheHmilyParticipantUndo(undo);
-            HmilyRepositoryStorage.createHmilyParticipantUndo(undo);
+        List<HmilyUndoContext> contexts = HmilyUndoContextCacheManager.INSTANCE.get();
+        List<HmilyParticipantUndo> builtUndoList = ColocatedUndoThreadLocal.INSTANCE.get();
+        List<HmilyParticipantUndo> undoList = Objects.isNull(builtUndoList) ? buildUndoList(contexts) : builtUndoList;
+        if (!undoList.isEmpty()) {
+            HmilyParticipantUndoCacheManager.getInstance().cacheHmilyParticipantUndos(undoList.get(0).getParticipantId(), undoList);
+            // the records of the other resources were not inserted with the local transaction, the repository keeps them
+            List<HmilyParticipantUndo> repositoryUndoList = Objects.isNull(builtUndoList) ? undoList : filterByResource(undoList, getResourceId(connectionInformation), false);
+            if (!repositoryUndoList.isEmpty()) {
+                HmilyRepositoryStorage.createHmilyParticipantUndos(repositoryUndoList);
+            }
         }
         log.debug("TAC-persist-undo ::: {}", undoList);
-        clean(connection);
+        releaseCompactedLocks(contexts, undoList);
+        clean(connectionInformation.getConnection());
     }
     
+    private String getResourceId(final ConnectionInformation connectionInformation) {
+        return ResourceIdUtils.INSTANCE.getResourceId(connectionInformation.getUrl());
+    }
+    
+    private List<HmilyParticipantUndo> filterByResource(final List<HmilyParticipantUndo> undoList, final String resourceId, final boolean matched) {
+        return undoList.stream().filter(undo -> Objects.equals(resourceId, undo.getResourceId()) == matched).collect(Collectors.toList());
+    }
     
     /**
      * Rollback.
@@ -161,21 +239,34 @@ public enum HmilyExecuteTemplate {
         connection.setAutoCommit(AutoCommitThreadLocal.INSTANCE.get());
         HmilyUndoContextCacheManager.INSTANCE.remove();
         AutoCommitThreadLocal.INSTANCE.remove();
+        ColocatedUndoThreadLocal.INSTANCE.remove();
     }
     
-    private List<HmilyParticipantUndo> buildUndoList() {
-        List<HmilyUndoContext> contexts = HmilyUndoContextCacheManager.INSTANCE.get();
-        return contexts.stream().map(context -> {
+    private List<HmilyParticipantUndo> buildUndoList(final List<HmilyUndoContext> contexts) {
+        if (contexts.isEmpty()) {
+            return Collections.emptyList();
+        }
+        HmilyUndoContext first = contexts.get(0);
+        List<HmilyParticipantUndo> result = new LinkedList<>();
+        HmilyUndoCompactor.compact(contexts).forEach((resourceId, dataSnapshot) -> {
             HmilyParticipantUndo undo = new HmilyParticipantUndo();
-            undo.setResourceId(context.getResourceId());
+            undo.setResourceId(resourceId);
             undo.setUndoId(IdWorkerUtils.getInstance().createUUID());
-            undo.setParticipantId(context.getParticipantId());
-            undo.setTransId(context.getTransId());
-            undo.setDataSnapshot(context.getDataSnapshot());
+            undo.setParticipantId(first.getParticipantId());
+            undo.setTransId(first.getTransId());
+            undo.setDataSnapshot(dataSnapshot);
             undo.setStatus(HmilyActionEnum.TRYING.getCode());
-            return undo;
-        }).collect(Collectors.toList());
-        
+            result.add(undo);
+        });
+        return result;
+    }
+    
+    private void releaseCompactedLocks(final List<HmilyUndoContext> contexts, final List<HmilyParticipantUndo> undoList) {
+        Set<HmilyLockKey> retained = undoList.stream().flatMap(undo -> undo.getHmilyLocks().stream()).map(HmilyLock::getLockKey).collect(Collectors.toSet());
+        List<HmilyLock> released = contexts.stream().flatMap(context -> context.getHmilyLocks().stream()).filter(lock -> !retained.contains(lock.getLockKey())).collect(Collectors.toList());
+        if (!released.isEmpty()) {
+            HmilyLockManager.INSTANCE.releaseLocks(released);
+        }
     }
     
     private boolean check() {
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.p6spy.executor;
+
+import org.dromara.hmily.repository.spi.entity.HmilyDataSnapshot;
+import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLManipulation;
+import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLTuple;
+import org.dromara.hmily.tac.core.context.HmilyUndoContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compacts the undo contexts of one local transaction per row.
+ *
+ * <p>Tuples of the same resource, table and primary key are merged so that only the
+ * earliest before image and the latest after image survive: insert then update stays an
+ * insert, update then update stays one update, update then delete becomes one delete and
+ * insert then delete leaves nothing to revert. A delete, or an update changing the primary
+ * key, ends the chain of its row.
+ *
+ * @author xiaoyu
+ */
+final class HmilyUndoCompactor {
+    
+    private HmilyUndoCompactor() {
+    }
+    
+    /**
+     * Compact undo contexts into one data snapshot per resource.
+     *
+     * @param contexts undo contexts in execution order
+     * @return compacted data snapshots keyed by resource id, without empty snapshots
+     */
+    static Map<String, HmilyDataSnapshot> compact(final List<HmilyUndoContext> contexts) {
+        Map<String, List<HmilySQLTuple>> tuples = new LinkedHashMap<>();
+        for (HmilyUndoContext context : contexts) {
+            tuples.computeIfAbsent(context.getResourceId(), resourceId -> new LinkedList<>()).addAll(context.getDataSnapshot().getTuples());
+        }
+        Map<String, HmilyDataSnapshot> result = new LinkedHashMap<>();
+        tuples.forEach((resourceId, each) -> {
+            HmilyDataSnapshot snapshot = new HmilyDataSnapshot();
+            compact(each, snapshot);
+            if (!snapshot.getTuples().isEmpty()) {
+                result.put(resourceId, snapshot);
+            }
+        });
+        return result;
+    }
+    
+    private static void compact(final List<HmilySQLTuple> tuples, final HmilyDataSnapshot snapshot) {
+        List<HmilySQLTuple> merged = new ArrayList<>(tuples.size());
+        Map<List<Object>, Integer> chains = new HashMap<>();
+        for (HmilySQLTuple each : tuples) {
+            List<Object> rowKey = Arrays.asList(each.getTableName(), each.getPrimaryKeyValues());
+            Integer index = chains.remove(rowKey);
+            if (Objects.nonNull(index) && merge(merged, index, each)) {
+                if (Objects.nonNull(merged.get(index)) && isChainable(merged.get(index))) {
+                    chains.put(rowKey, index);
+                }
+                continue;
+            }
+            if (isChainable(each)) {
+                chains.put(rowKey, merged.size());
+            }
+            merged.add(each);
+        }
+        merged.stream().filter(Objects::nonNull).forEach(snapshot.getTuples()::add);
+    }
+    
+    private static boolean merge(final List<HmilySQLTuple> merged, final int index, final HmilySQLTuple current) {
+        HmilySQLTuple previous = merged.get(index);
+        if (HmilySQLManipulation.UPDATE == current.getManipulationType() && isChainable(current)) {
+            Map<String, Object> afterImage = new LinkedHashMap<>(previous.getAfterImage());
+            afterImage.putAll(current.getAfterImage());
+            Map<String, Object> beforeImage = new LinkedHashMap<>(previous.getBeforeImage());
+            if (HmilySQLManipulation.UPDATE == previous.getManipulationType()) {
+                current.getBeforeImage().forEach(beforeImage::putIfAbsent);
+            }
+            merged.set(index, copy(previous, previous.getManipulationType(), beforeImage, afterImage));
+            return true;
+        }
+        if (HmilySQLManipulation.DELETE == current.getManipulationType()) {
+            if (HmilySQLManipulation.INSERT == previous.getManipulationType()) {
+                merged.set(index, null);
+                return true;
+            }
+            Map<String, Object> beforeImage = new LinkedHashMap<>(current.getBeforeImage());
+            beforeImage.putAll(previous.getBeforeImage());
+            merged.set(index, copy(previous, HmilySQLManipulation.DELETE, beforeImage, new LinkedHashMap<>()));
+            return true;
+        }
+        return false;
+    }
+    
+    private static boolean isChainable(final HmilySQLTuple tuple) {
+        List<Object> primaryKeyValues = tuple.getPrimaryKeyValues();
+        if (Objects.isNull(primaryKeyValues) || primaryKeyValues.isEmpty() || primaryKeyValues.stream().anyMatch(Objects::isNull)) {
+            return false;
+        }
+        switch (tuple.getManipulationType()) {
+            case INSERT:
+                return true;
+            case UPDATE:
+                return tuple.getAfterImage().values().containsAll(primaryKeyValues);
+            default:
+                return false;
+        }
+    }
+    
+    private static HmilySQLTuple copy(final HmilySQLTuple origin, final HmilySQLManipulation manipulationType, final Map<String, Object> beforeImage, final Map<String, Object> afterImage) {
+        HmilySQLTuple result = new HmilySQLTuple();
+        result.setTableName(origin.getTableName());
+        result.setManipulationType(manipulationType);
+        result.setPrimaryKeyValues(origin.getPrimaryKeyValues());
+        result.setBeforeImage(beforeImage);
+        result.setAfterImage(afterImage);
+        return result;
+    }
+}
@@ -54,11 +54,17 @@ public class HmilyJdbcEventListener extends SimpleJdbcEventListener {
         HmilyExecuteTemplate.INSTANCE.execute(statementInformation.getSql(), getParameters(statementInformation), statementInformation.getConnectionInformation());
     }
     
+    @Override
+    public void onBeforeCommit(final ConnectionInformation connectionInformation) {
+        super.onBeforeCommit(connectionInformation);
+        HmilyExecuteTemplate.INSTANCE.beforeCommit(connectionInformation);
+    }
+    
     @Override
     public void onAfterCommit(final ConnectionInformation connectionInformation, final long timeElapsedNanos, final SQLException e) {
         super.onAfterCommit(connectionInformation, timeElapsedNanos, e);
         if (Objects.isNull(e)) {
-            HmilyExecuteTemplate.INSTANCE.commit(connectionInformation.getConnection());
+            HmilyExecuteTemplate.INSTANCE.commit(connectionInformation);
         } else {
             HmilyExecuteTemplate.INSTANCE.rollback(connectionInformation.getConnection());
         }
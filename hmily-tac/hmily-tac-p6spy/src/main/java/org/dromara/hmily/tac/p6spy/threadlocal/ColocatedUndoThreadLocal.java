@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.p6spy.threadlocal;
+
+import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+
+import java.util.List;
+
+/**
+ * The enum Colocated undo thread local, the undo records built before the local commit, those of the committing resource
+ * are inserted into its business database.
+ *
+ * @author xiaoyu
+ */
+public enum ColocatedUndoThreadLocal {
+    
+    /**
+     * Instance colocated undo thread local.
+     */
+    INSTANCE;
+    
+    private static final ThreadLocal<List<HmilyParticipantUndo>> CURRENT_LOCAL = new ThreadLocal<>();
+    
+    /**
+     * Set.
+     *
+     * @param undoList the undo records built before the local commit
+     */
+    public void set(final List<HmilyParticipantUndo> undoList) {
+        CURRENT_LOCAL.set(undoList);
+    }
+    
+    /**
+     * Get the undo records built before the local commit.
+     *
+     * @return the undo records, null when the undo log is not co-located
+     */
+    public List<HmilyParticipantUndo> get() {
+        return CURRENT_LOCAL.get();
+    }
+    
+    /**
+     * Remove.
+     */
+    public void remove() {
+        CURRENT_LOCAL.remove();
+    }
+}
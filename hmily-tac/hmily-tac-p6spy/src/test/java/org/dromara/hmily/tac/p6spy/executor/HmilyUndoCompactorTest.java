@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.p6spy.executor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.dromara.hmily.repository.spi.entity.HmilyDataSnapshot;
+import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLManipulation;
+import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLTuple;
+import org.dromara.hmily.tac.core.context.HmilyUndoContext;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Hmily undo compactor test.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyUndoCompactorTest {
+    
+    private static final String RESOURCE_ID = "resource";
+    
+    @Test
+    public void assertInsertThenUpdateStaysInsert() {
+        List<HmilySQLTuple> tuples = compact(
+                tuple(HmilySQLManipulation.INSERT, 1L, image(), image("id", 1L, "amount", 10)),
+                tuple(HmilySQLManipulation.UPDATE, 1L, image("amount", 10), image("id", 1L, "amount", 20)));
+        assertEquals(1, tuples.size());
+        assertEquals(HmilySQLManipulation.INSERT, tuples.get(0).getManipulationType());
+        assertTrue(tuples.get(0).getBeforeImage().isEmpty());
+        assertEquals(20, tuples.get(0).getAfterImage().get("amount"));
+    }
+    
+    @Test
+    public void assertUpdateThenUpdateKeepsEarliestBeforeAndLatestAfter() {
+        List<HmilySQLTuple> tuples = compact(
+                tuple(HmilySQLManipulation.UPDATE, 1L, image("amount", 10), image("id", 1L, "amount", 20)),
+                tuple(HmilySQLManipulation.UPDATE, 1L, image("amount", 20, "status", 0), image("id", 1L, "amount", 30, "status", 1)));
+        assertEquals(1, tuples.size());
+        assertEquals(HmilySQLManipulation.UPDATE, tuples.get(0).getManipulationType());
+        assertEquals(10, tuples.get(0).getBeforeImage().get("amount"));
+        assertEquals(0, tuples.get(0).getBeforeImage().get("status"));
+        assertEquals(30, tuples.get(0).getAfterImage().get("amount"));
+        assertEquals(1, tuples.get(0).getAfterImage().get("status"));
+    }
+    
+    @Test
+    public void assertUpdateThenDeleteBecomesDelete() {
+        List<HmilySQLTuple> tuples = compact(
+                tuple(HmilySQLManipulation.UPDATE, 1L, image("amount", 10), image("id", 1L, "amount", 20)),
+                tuple(HmilySQLManipulation.DELETE, 1L, image("id", 1L, "amount", 20, "status", 0), image()));
+        assertEquals(1, tuples.size());
+        assertEquals(HmilySQLManipulation.DELETE, tuples.get(0).getManipulationType());
+        assertEquals(10, tuples.get(0).getBeforeImage().get("amount"));
+        assertEquals(0, tuples.get(0).getBeforeImage().get("status"));
+        assertTrue(tuples.get(0).getAfterImage().isEmpty());
+    }
+    
+    @Test
+    public void assertInsertThenDeleteIsDropped() {
+        Map<String, HmilyDataSnapshot> snapshots = HmilyUndoCompactor.compact(Collections.singletonList(context(
+                tuple(HmilySQLManipulation.INSERT, 1L, image(), image("id", 1L, "amount", 10)),
+                tuple(HmilySQLManipulation.DELETE, 1L, image("id", 1L, "amount", 10), image()))));
+        assertTrue(snapshots.isEmpty());
+    }
+    
+    @Test
+    public void assertPrimaryKeyChangeEndsTheChain() {
+        List<HmilySQLTuple> tuples = compact(
+                tuple(HmilySQLManipulation.UPDATE, 1L, image("amount", 10), image("id", 1L, "amount", 20)),
+                tuple(HmilySQLManipulation.UPDATE, 1L, image("amount", 20), image("id", 2L)),
+                tuple(HmilySQLManipulation.UPDATE, 1L, image("amount", 20), image("id", 1L, "amount", 30)));
+        assertEquals(3, tuples.size());
+        assertEquals(10, tuples.get(0).getBeforeImage().get("amount"));
+        assertEquals(2L, tuples.get(1).getAfterImage().get("id"));
+        assertEquals(30, tuples.get(2).getAfterImage().get("amount"));
+    }
+    
+    @Test
+    public void assertRowsOfOtherResourcesAreNotMerged() {
+        HmilyUndoContext other = context(tuple(HmilySQLManipulation.UPDATE, 1L, image("amount", 10), image("id", 1L, "amount", 20)));
+        other.setResourceId("other");
+        Map<String, HmilyDataSnapshot> snapshots = HmilyUndoCompactor.compact(Arrays.asList(
+                context(tuple(HmilySQLManipulation.UPDATE, 1L, image("amount", 0), image("id", 1L, "amount", 10))), other));
+        assertEquals(2, snapshots.size());
+        assertEquals(1, snapshots.get(RESOURCE_ID).getTuples().size());
+        assertEquals(1, snapshots.get("other").getTuples().size());
+    }
+    
+    private static List<HmilySQLTuple> compact(final HmilySQLTuple... tuples) {
+        List<HmilyUndoContext> contexts = new ArrayList<>(tuples.length);
+        for (HmilySQLTuple each : tuples) {
+            contexts.add(context(each));
+        }
+        return new ArrayList<>(HmilyUndoCompactor.compact(contexts).get(RESOURCE_ID).getTuples());
+    }
+    
+    private static HmilyUndoContext context(final HmilySQLTuple... tuples) {
+        HmilyDataSnapshot snapshot = new HmilyDataSnapshot();
+        snapshot.getTuples().addAll(Arrays.asList(tuples));
+        HmilyUndoContext result = new HmilyUndoContext();
+        result.setResourceId(RESOURCE_ID);
+        result.setDataSnapshot(snapshot);
+        return result;
+    }
+    
+    private static HmilySQLTuple tuple(final HmilySQLManipulation manipulation, final Long primaryKey, final Map<String, Object> before, final Map<String, Object> after) {
+        HmilySQLTuple result = new HmilySQLTuple();
+        result.setTableName("t_order");
+        result.setManipulationType(manipulation);
+        result.setPrimaryKeyValues(Collections.singletonList(primaryKey));
+        result.setBeforeImage(before);
+        result.setAfterImage(after);
+        return result;
+    }
+    
+    private static Map<String, Object> image(final Object... columnValues) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int i = 0; i < columnValues.length; i += 2) {
+            result.put((String) columnValues[i], columnValues[i + 1]);
+        }
+        return result;
+    }
+}
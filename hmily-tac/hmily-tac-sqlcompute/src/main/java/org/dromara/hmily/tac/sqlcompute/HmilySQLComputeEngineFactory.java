@@ -16,6 +16,7 @@
 
 package org.dromara.hmily.tac.sqlcompute;
 
+import com.google.common.collect.MapMaker;
 import org.dromara.hmily.tac.sqlcompute.exception.SQLComputeException;
 import org.dromara.hmily.tac.sqlcompute.impl.HmilyDeleteSQLComputeEngine;
 import org.dromara.hmily.tac.sqlcompute.impl.HmilyInsertSQLComputeEngine;
@@ -27,21 +28,38 @@ import org.dromara.hmily.tac.sqlparser.model.dialect.mysql.dml.HmilyMySQLInsertS
 import org.dromara.hmily.tac.sqlparser.model.dialect.mysql.dml.HmilyMySQLSelectStatement;
 import org.dromara.hmily.tac.sqlparser.model.dialect.mysql.dml.HmilyMySQLUpdateStatement;
 
+import java.util.Map;
+import java.util.Objects;
+
 /**
  * Hmily SQL compute engine factory.
  *
  * @author zhaojun
  */
 public final class HmilySQLComputeEngineFactory {
+    
+    /**
+     * Engines of the statements still cached by the sql parser, each one keeps the image plans of its statement.
+     */
+    private static final Map<HmilyStatement, HmilySQLComputeEngine> ENGINES = new MapMaker().weakKeys().makeMap();
 
     /**
-     * Create new instance of hmily SQL compute engine.
+     * Create new instance of hmily SQL compute engine, or reuse the one of the same statement.
      *
      * @param hmilyStatement hmily statement
      * @return Hmily SQL compute engine
      * @throws SQLComputeException SQL compute Exception
      */
     public static HmilySQLComputeEngine newInstance(final HmilyStatement hmilyStatement) throws SQLComputeException {
+        HmilySQLComputeEngine result = ENGINES.get(hmilyStatement);
+        if (Objects.isNull(result)) {
+            result = createInstance(hmilyStatement);
+            ENGINES.putIfAbsent(hmilyStatement, result);
+        }
+        return result;
+    }
+    
+    private static HmilySQLComputeEngine createInstance(final HmilyStatement hmilyStatement) throws SQLComputeException {
         if (hmilyStatement instanceof HmilyMySQLInsertStatement) {
             return new HmilyInsertSQLComputeEngine((HmilyMySQLInsertStatement) hmilyStatement);
         } else if (hmilyStatement instanceof HmilyMySQLUpdateStatement) {
@@ -20,6 +20,8 @@ import lombok.RequiredArgsConstructor;
 import org.dromara.hmily.repository.spi.entity.HmilyDataSnapshot;
 import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLManipulation;
 import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLTuple;
+import org.dromara.hmily.tac.metadata.HmilyMetaDataManager;
+import org.dromara.hmily.tac.metadata.model.TableMetaData;
 import org.dromara.hmily.tac.sqlcompute.HmilySQLComputeEngine;
 import org.dromara.hmily.tac.sqlcompute.exception.SQLComputeException;
 
@@ -28,6 +30,8 @@ import java.sql.SQLException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Abstract hmily SQL compute engine.
@@ -37,17 +41,53 @@ import java.util.Map;
 @RequiredArgsConstructor
 public abstract class AbstractHmilySQLComputeEngine implements HmilySQLComputeEngine {
     
+    private final Map<String, HmilyImagePlan> plans = new ConcurrentHashMap<>();
+    
     @Override
     public HmilyDataSnapshot execute(final String sql, final List<Object> parameters, final Connection connection, final String resourceId) throws SQLComputeException {
         HmilyDataSnapshot result = new HmilyDataSnapshot();
         try {
-            result.getTuples().addAll(createTuples(sql, parameters, connection, resourceId));
+            HmilyImagePlan plan = getPlan(sql, resourceId);
+            result.getTuples().addAll(createTuples(plan, parameters, connection));
         } catch (final SQLException ex) {
             throw new SQLComputeException(ex);
         }
         return result;
     }
     
+    private HmilyImagePlan getPlan(final String sql, final String resourceId) {
+        // the engine is shared by the executions of one statement, so the sql is the same on every call
+        HmilyImagePlan result = plans.get(resourceId);
+        if (Objects.nonNull(result) && isStale(result, resourceId)) {
+            plans.remove(resourceId, result);
+            result = null;
+        }
+        if (Objects.isNull(result)) {
+            result = compile(sql, resourceId);
+            if (Objects.nonNull(result.getTableMetaData())) {
+                plans.putIfAbsent(resourceId, result);
+            }
+        }
+        return result;
+    }
+    
+    private boolean isStale(final HmilyImagePlan plan, final String resourceId) {
+        // a refresh of the table, as after an alter table, replaces its metadata, so the plan is compiled again against the new columns
+        return HmilyMetaDataManager.get(resourceId).getTableMetaData(plan.getTableName()) != plan.getTableMetaData();
+    }
+    
+    /**
+     * Get table metadata, reloaded once when it misses a column of the statement, as after an alter table.
+     *
+     * @param resourceId resource id
+     * @param tableName table name
+     * @param columnNames column names of the statement
+     * @return table metadata, null if the table does not exist
+     */
+    protected TableMetaData getTableMetaData(final String resourceId, final String tableName, final Collection<String> columnNames) {
+        return HmilyMetaDataManager.get(resourceId).getTableMetaData(tableName, columnNames);
+    }
+    
     /**
      * Build tuple.
      *
@@ -69,5 +109,7 @@ public abstract class AbstractHmilySQLComputeEngine implements HmilySQLComputeEn
         return result;
     }
     
-    abstract Collection<HmilySQLTuple> createTuples(String sql, List<Object> parameters, Connection connection, String resourceId) throws SQLException;
+    abstract HmilyImagePlan compile(String sql, String resourceId);
+    
+    abstract Collection<HmilySQLTuple> createTuples(HmilyImagePlan plan, List<Object> parameters, Connection connection) throws SQLException;
 }
@@ -27,6 +27,7 @@ import org.dromara.hmily.tac.sqlparser.model.dialect.mysql.dml.HmilyMySQLDeleteS
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -44,18 +45,22 @@ public final class HmilyDeleteSQLComputeEngine extends AbstractHmilySQLComputeEn
     private final HmilyMySQLDeleteStatement sqlStatement;
     
     @Override
-    Collection<HmilySQLTuple> createTuples(final String sql, final List<Object> parameters, final Connection connection, final String resourceId) throws SQLException {
-        Collection<HmilySQLTuple> result = new LinkedList<>();
+    HmilyImagePlan compile(final String sql, final String resourceId) {
         HmilySimpleTableSegment tableSegment = (HmilySimpleTableSegment) sqlStatement.getTableSegment();
-        String tableName = sql.substring(tableSegment.getStartIndex(), tableSegment.getStopIndex());
+        String tableName = sql.substring(tableSegment.getStartIndex(), tableSegment.getStopIndex() + 1);
+        String metaDataTableName = tableSegment.getTableName().getIdentifier().getValue();
         String selectSQL = String.format("SELECT %s FROM %s %s", HmilySQLComputeUtils.getAllColumns(tableSegment, tableName), tableName, getWhereCondition(sql));
-        Collection<Map<String, Object>> records = HmilySQLComputeUtils.executeQuery(connection, selectSQL, parameters);
-        result.addAll(doConvert(records, HmilyMetaDataManager.get(resourceId).getTableMetaDataMap().get(tableName)));
-        return result;
+        return new HmilyImagePlan(metaDataTableName, HmilyMetaDataManager.get(resourceId).getTableMetaData(metaDataTableName), selectSQL, null, Collections.emptyMap());
+    }
+    
+    @Override
+    Collection<HmilySQLTuple> createTuples(final HmilyImagePlan plan, final List<Object> parameters, final Connection connection) throws SQLException {
+        Collection<Map<String, Object>> records = HmilySQLComputeUtils.executeQuery(connection, plan.getSelectSQL(), plan.bind(parameters));
+        return doConvert(records, plan.getTableMetaData());
     }
     
     private String getWhereCondition(final String sql) {
-        return sqlStatement.getWhere().map(segment -> sql.substring(segment.getStartIndex(), segment.getStopIndex())).orElse("");
+        return sqlStatement.getWhere().map(segment -> sql.substring(segment.getStartIndex(), segment.getStopIndex() + 1)).orElse("");
     }
     
     private Collection<HmilySQLTuple> doConvert(final Collection<Map<String, Object>> records, final TableMetaData tableMetaData) {
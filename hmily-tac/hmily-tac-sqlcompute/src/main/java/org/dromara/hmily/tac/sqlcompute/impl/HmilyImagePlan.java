@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.sqlcompute.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import lombok.Getter;
+import org.dromara.hmily.tac.metadata.model.TableMetaData;
+
+/**
+ * Image plan, the part of an image computation that only depends on the statement and the table metadata.
+ * It is compiled on the first execution of a statement against a resource and reused by the later ones,
+ * which only bind the parameters and map the rows, until the metadata of the table is refreshed.
+ *
+ * @author xiaoyu
+ */
+@Getter
+final class HmilyImagePlan {
+    
+    private final String tableName;
+    
+    private final TableMetaData tableMetaData;
+    
+    private final String selectSQL;
+    
+    private final int[] parameterIndexes;
+    
+    private final Set<String> primaryKeyColumns;
+    
+    private final Map<String, String> derivedColumns;
+    
+    /**
+     * Instantiates a new image plan.
+     *
+     * @param tableName        the table name the metadata is looked up by
+     * @param tableMetaData    the table metadata
+     * @param selectSQL        the image query, null when the image is built from the statement only
+     * @param parameterIndexes the statement parameter bound to each marker of the image query, null to bind all parameters in order
+     * @param derivedColumns   the derived column labels of the image query and the column each one derives, null for the skipped ones
+     */
+    HmilyImagePlan(final String tableName, final TableMetaData tableMetaData, final String selectSQL, final int[] parameterIndexes, final Map<String, String> derivedColumns) {
+        this.tableName = tableName;
+        this.tableMetaData = tableMetaData;
+        this.selectSQL = selectSQL;
+        this.parameterIndexes = parameterIndexes;
+        this.primaryKeyColumns = Objects.isNull(tableMetaData) ? Collections.emptySet() : new HashSet<>(tableMetaData.getPrimaryKeyColumns());
+        this.derivedColumns = derivedColumns;
+    }
+    
+    /**
+     * Bind the statement parameters to the markers of the image query.
+     *
+     * @param parameters the statement parameters
+     * @return the image query parameters
+     */
+    List<Object> bind(final List<Object> parameters) {
+        if (Objects.isNull(parameterIndexes)) {
+            return parameters;
+        }
+        List<Object> result = new ArrayList<>(parameterIndexes.length);
+        for (int each : parameterIndexes) {
+            result.add(parameters.get(each));
+        }
+        return result;
+    }
+}
@@ -19,11 +19,11 @@ package org.dromara.hmily.tac.sqlcompute.impl;
 import lombok.RequiredArgsConstructor;
 import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLManipulation;
 import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLTuple;
-import org.dromara.hmily.tac.metadata.HmilyMetaDataManager;
 import org.dromara.hmily.tac.metadata.model.TableMetaData;
 import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.assignment.HmilyAssignmentSegment;
 import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.assignment.HmilyInsertValuesSegment;
 import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.assignment.HmilySetAssignmentSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.column.HmilyColumnSegment;
 import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.expr.HmilyExpressionSegment;
 import org.dromara.hmily.tac.sqlparser.model.dialect.mysql.dml.HmilyMySQLInsertStatement;
 
@@ -48,9 +48,20 @@ public final class HmilyInsertSQLComputeEngine extends AbstractHmilySQLComputeEn
     private final HmilyMySQLInsertStatement sqlStatement;
     
     @Override
-    Collection<HmilySQLTuple> createTuples(final String sql, final List<Object> parameters, final Connection connection, final String resourceId) {
-        String tableName = sql.substring(sqlStatement.getTable().getStartIndex(), sqlStatement.getTable().getStopIndex());
-        TableMetaData tableMetaData = HmilyMetaDataManager.get(resourceId).getTableMetaDataMap().get(tableName);
+    HmilyImagePlan compile(final String sql, final String resourceId) {
+        String tableName = sqlStatement.getTable().getTableName().getIdentifier().getValue();
+        return new HmilyImagePlan(tableName, getTableMetaData(resourceId, tableName, getColumnNames()), null, null, Collections.emptyMap());
+    }
+    
+    private Collection<String> getColumnNames() {
+        Collection<HmilyColumnSegment> columns = sqlStatement.getSetAssignment().isPresent()
+            ? sqlStatement.getSetAssignment().get().getAssignments().stream().map(HmilyAssignmentSegment::getColumn).collect(Collectors.toList()) : sqlStatement.getColumns();
+        return columns.stream().map(each -> each.getIdentifier().getValue()).collect(Collectors.toList());
+    }
+    
+    @Override
+    Collection<HmilySQLTuple> createTuples(final HmilyImagePlan plan, final List<Object> parameters, final Connection connection) {
+        TableMetaData tableMetaData = plan.getTableMetaData();
         return sqlStatement.getSetAssignment().isPresent()
             ? createTuplesBySet(parameters, sqlStatement.getSetAssignment().get(), tableMetaData) : createTuplesByValues(parameters, tableMetaData);
     }
@@ -13,6 +13,7 @@ import org.dromara.hmily.tac.sqlparser.model.dialect.mysql.dml.HmilyMySQLSelectS
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -30,16 +31,19 @@ public class HmilySelectSQLComputeEngine extends AbstractHmilySQLComputeEngine {
     private final HmilyMySQLSelectStatement sqlStatement;
 
     @Override
-    Collection<HmilySQLTuple> createTuples(final String sql, final List<Object> parameters, final Connection connection, final String resourceId) throws SQLException {
-        Collection<HmilySQLTuple> result = new LinkedList<>();
+    HmilyImagePlan compile(final String sql, final String resourceId) {
         HmilySimpleTableSegment tableSegment = (HmilySimpleTableSegment) sqlStatement.getTableSegment();
         String tableName = tableSegment.getTableName().getIdentifier().getValue();
-        List<String> primaryKeyColumns = HmilyMetaDataManager.get(resourceId).getTableMetaDataMap().get(tableName).getPrimaryKeyColumns();
-        String selectPKSQL = String.format("SELECT %s FROM %s %s %s %s", HmilySQLComputeUtils.getAllPKColumns(tableSegment, tableName, primaryKeyColumns), tableName,
+        TableMetaData tableMetaData = HmilyMetaDataManager.get(resourceId).getTableMetaData(tableName);
+        String selectPKSQL = String.format("SELECT %s FROM %s %s %s %s", HmilySQLComputeUtils.getAllPKColumns(tableSegment, tableName, tableMetaData.getPrimaryKeyColumns()), tableName,
                 getWhereCondition(sql), getOrderByCondition(sql), getLimitCondition(sql));
-        Collection<Map<String, Object>> records = HmilySQLComputeUtils.executeQuery(connection, selectPKSQL, parameters);
-        result.addAll(doConvert(records, HmilyMetaDataManager.get(resourceId).getTableMetaDataMap().get(tableName)));
-        return result;
+        return new HmilyImagePlan(tableName, tableMetaData, selectPKSQL, null, Collections.emptyMap());
+    }
+
+    @Override
+    Collection<HmilySQLTuple> createTuples(final HmilyImagePlan plan, final List<Object> parameters, final Connection connection) throws SQLException {
+        Collection<Map<String, Object>> records = HmilySQLComputeUtils.executeQuery(connection, plan.getSelectSQL(), plan.bind(parameters));
+        return doConvert(records, plan.getTableMetaData());
     }
 
     private String getWhereCondition(final String sql) {
@@ -20,7 +20,7 @@ import com.google.common.base.Joiner;
 import lombok.RequiredArgsConstructor;
 import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLManipulation;
 import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLTuple;
-import org.dromara.hmily.tac.metadata.HmilyMetaDataManager;
+import org.dromara.hmily.tac.metadata.model.ColumnMetaData;
 import org.dromara.hmily.tac.metadata.model.TableMetaData;
 import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.expr.HmilyBinaryOperationExpression;
 import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.expr.HmilyExpressionSegment;
@@ -31,11 +31,16 @@ import org.dromara.hmily.tac.sqlparser.model.dialect.mysql.dml.HmilyMySQLUpdateS
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * Hmily update SQL compute engine.
@@ -50,72 +55,95 @@ public final class HmilyUpdateSQLComputeEngine extends AbstractHmilySQLComputeEn
     private final HmilyMySQLUpdateStatement sqlStatement;
     
     @Override
-    Collection<HmilySQLTuple> createTuples(final String sql, final List<Object> parameters, final Connection connection, final String resourceId) throws SQLException {
-        Collection<HmilySQLTuple> result = new LinkedList<>();
+    HmilyImagePlan compile(final String sql, final String resourceId) {
         HmilySimpleTableSegment tableSegment = (HmilySimpleTableSegment) sqlStatement.getTableSegment();
         String tableName = sql.substring(tableSegment.getStartIndex(), tableSegment.getStopIndex() + 1);
-        String selectSQL = String.format("SELECT %s FROM %s %s", Joiner.on(", ").join(getSelectItems(parameters, tableSegment, tableName)), tableName, getWhereCondition(sql));
-        Collection<Map<String, Object>> records = HmilySQLComputeUtils.executeQuery(connection, selectSQL, getWhereParameters(parameters));
-        result.addAll(doConvert(records, HmilyMetaDataManager.get(resourceId).getTableMetaDataMap().get(tableSegment.getTableName().getIdentifier().getValue())));
-        return result;
+        String metaDataTableName = tableSegment.getTableName().getIdentifier().getValue();
+        TableMetaData tableMetaData = getTableMetaData(resourceId, metaDataTableName,
+            sqlStatement.getSetAssignment().getAssignments().stream().map(assignment -> assignment.getColumn().getIdentifier().getValue()).collect(Collectors.toList()));
+        List<Integer> parameterIndexes = new ArrayList<>();
+        String selectSQL = String.format("SELECT %s FROM %s %s", Joiner.on(", ").join(getSelectItems(tableSegment, tableName, parameterIndexes)), tableName, getWhereCondition(sql));
+        sqlStatement.getWhere().ifPresent(whereSegment -> getParameterIndexes(whereSegment.getExpr(), parameterIndexes));
+        return new HmilyImagePlan(metaDataTableName, tableMetaData, selectSQL, parameterIndexes.stream().mapToInt(Integer::intValue).toArray(), getDerivedColumns(tableMetaData));
+    }
+    
+    @Override
+    Collection<HmilySQLTuple> createTuples(final HmilyImagePlan plan, final List<Object> parameters, final Connection connection) throws SQLException {
+        Collection<Map<String, Object>> records = HmilySQLComputeUtils.executeQuery(connection, plan.getSelectSQL(), plan.bind(parameters));
+        return doConvert(records, plan);
     }
     
-    private List<String> getSelectItems(final List<Object> parameters, final HmilySimpleTableSegment tableSegment, final String tableName) {
+    private List<String> getSelectItems(final HmilySimpleTableSegment tableSegment, final String tableName, final List<Integer> parameterIndexes) {
         List<String> result = new LinkedList<>();
         result.add(HmilySQLComputeUtils.getAllColumns(tableSegment, tableName));
         sqlStatement.getSetAssignment().getAssignments().forEach(assignment -> result.add(
-            String.format("%s AS %s", ExpressionHandler.getValue(parameters, assignment.getValue()), assignment.getColumn().getIdentifier().getValue() + DERIVED_COLUMN)));
+            String.format("%s AS %s", getDerivedExpression(assignment.getValue(), parameterIndexes), assignment.getColumn().getIdentifier().getValue() + DERIVED_COLUMN)));
         return result;
     }
     
-    private String getWhereCondition(final String sql) {
-        return sqlStatement.getWhere().map(segment -> sql.substring(segment.getStartIndex(), segment.getStopIndex() + 1)).orElse("");
+    private String getDerivedExpression(final HmilyExpressionSegment hmilyExpressionSegment, final List<Integer> parameterIndexes) {
+        if (hmilyExpressionSegment instanceof HmilyParameterMarkerExpressionSegment) {
+            parameterIndexes.add(((HmilyParameterMarkerExpressionSegment) hmilyExpressionSegment).getParameterMarkerIndex());
+            return "?";
+        }
+        if (hmilyExpressionSegment instanceof HmilyBinaryOperationExpression) {
+            HmilyBinaryOperationExpression binaryOperationExpression = (HmilyBinaryOperationExpression) hmilyExpressionSegment;
+            return String.format("%s %s %s", getDerivedExpression(binaryOperationExpression.getLeft(), parameterIndexes),
+                binaryOperationExpression.getOperator(), getDerivedExpression(binaryOperationExpression.getRight(), parameterIndexes));
+        }
+        return String.valueOf(ExpressionHandler.getValue(Collections.emptyList(), hmilyExpressionSegment));
     }
     
-    private List<Object> getWhereParameters(final List<Object> parameters) {
-        List<Object> result = new LinkedList<>();
-        sqlStatement.getWhere().ifPresent(whereSegment -> {
-            HmilyExpressionSegment hmilyExpressionSegment = whereSegment.getExpr();
-            getParameters(hmilyExpressionSegment, parameters, result);
-        });
-        return result;
+    private String getWhereCondition(final String sql) {
+        return sqlStatement.getWhere().map(segment -> sql.substring(segment.getStartIndex(), segment.getStopIndex() + 1)).orElse("");
     }
     
-    private void getParameters(final HmilyExpressionSegment hmilyExpressionSegment, final List<Object> parameters, final List<Object> result) {
+    private void getParameterIndexes(final HmilyExpressionSegment hmilyExpressionSegment, final List<Integer> result) {
         if (hmilyExpressionSegment instanceof HmilyParameterMarkerExpressionSegment) {
-            int parameterMarkerIndex = ((HmilyParameterMarkerExpressionSegment) hmilyExpressionSegment).getParameterMarkerIndex();
-            result.add(parameters.get(parameterMarkerIndex));
+            result.add(((HmilyParameterMarkerExpressionSegment) hmilyExpressionSegment).getParameterMarkerIndex());
             return;
         }
         if (hmilyExpressionSegment instanceof HmilyBinaryOperationExpression) {
-            getParameters(((HmilyBinaryOperationExpression) hmilyExpressionSegment).getLeft(), parameters, result);
-            getParameters(((HmilyBinaryOperationExpression) hmilyExpressionSegment).getRight(), parameters, result);
+            getParameterIndexes(((HmilyBinaryOperationExpression) hmilyExpressionSegment).getLeft(), result);
+            getParameterIndexes(((HmilyBinaryOperationExpression) hmilyExpressionSegment).getRight(), result);
         }
     }
     
-    private Collection<HmilySQLTuple> doConvert(final Collection<Map<String, Object>> records, final TableMetaData tableMetaData) {
+    private Map<String, String> getDerivedColumns(final TableMetaData tableMetaData) {
+        // a null column marks a derived value not kept in the after image
+        Map<String, String> result = new HashMap<>();
+        if (Objects.isNull(tableMetaData)) {
+            return result;
+        }
+        sqlStatement.getSetAssignment().getAssignments().forEach(assignment -> {
+            String column = assignment.getColumn().getIdentifier().getValue();
+            ColumnMetaData columnMetaData = tableMetaData.getColumns().get(column);
+            boolean temporal = Objects.nonNull(columnMetaData) && (columnMetaData.getDataType() == Types.DATE || columnMetaData.getDataType() == Types.TIME || columnMetaData.getDataType() == Types.TIMESTAMP);
+            result.put(column + DERIVED_COLUMN, temporal ? null : column);
+        });
+        return result;
+    }
+    
+    private Collection<HmilySQLTuple> doConvert(final Collection<Map<String, Object>> records, final HmilyImagePlan plan) {
         Collection<HmilySQLTuple> result = new LinkedList<>();
         for (Map<String, Object> record : records) {
             List<Object> primaryKeyValues = new LinkedList<>();
             Map<String, Object> before = new LinkedHashMap<>();
             Map<String, Object> modified = new LinkedHashMap<>();
             for (Map.Entry<String, Object> entry : record.entrySet()) {
-                if (entry.getKey().contains(DERIVED_COLUMN)) {
-                    String key = entry.getKey().replace(DERIVED_COLUMN, "");
-                    if (tableMetaData.getColumns().get(key).getDataType() == Types.DATE
-                        || tableMetaData.getColumns().get(key).getDataType() == Types.TIME
-                        || tableMetaData.getColumns().get(key).getDataType() == Types.TIMESTAMP) {
-                        continue;
+                if (plan.getDerivedColumns().containsKey(entry.getKey())) {
+                    String key = plan.getDerivedColumns().get(entry.getKey());
+                    if (Objects.nonNull(key)) {
+                        modified.put(key, entry.getValue());
                     }
-                    modified.put(key, entry.getValue());
-                } else if (tableMetaData.getPrimaryKeyColumns().contains(entry.getKey())) {
+                } else if (plan.getPrimaryKeyColumns().contains(entry.getKey())) {
                     modified.put(entry.getKey(), entry.getValue());
                     primaryKeyValues.add(entry.getValue());
                 } else {
                     before.put(entry.getKey(), entry.getValue());
                 }
             }
-            result.add(buildTuple(tableMetaData.getTableName(), HmilySQLManipulation.UPDATE, primaryKeyValues, before, modified));
+            result.add(buildTuple(plan.getTableMetaData().getTableName(), HmilySQLManipulation.UPDATE, primaryKeyValues, before, modified));
         }
         return result;
     }
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.sqlcompute.fixture;
+
+import lombok.Getter;
+import org.dromara.hmily.tac.common.HmilyTacResource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixture database of one table, it serves the table metadata and the rows of the image queries and records the queries with their parameters.
+ *
+ * @author xiaoyu
+ */
+public final class FixtureDatabase implements HmilyTacResource {
+    
+    @Getter
+    private final String resourceId;
+    
+    private final String tableName;
+    
+    private final Map<String, Integer> columns = new LinkedHashMap<>();
+    
+    private final List<String> primaryKeys;
+    
+    @Getter
+    private final List<Map<String, Object>> rows = new LinkedList<>();
+    
+    @Getter
+    private final List<String> queries = new LinkedList<>();
+    
+    @Getter
+    private final List<List<Object>> parameters = new LinkedList<>();
+    
+    @Getter
+    private final AtomicInteger metaDataLoads = new AtomicInteger();
+    
+    public FixtureDatabase(final String resourceId, final String tableName, final String... primaryKeys) {
+        this.resourceId = resourceId;
+        this.tableName = tableName;
+        this.primaryKeys = Arrays.asList(primaryKeys);
+    }
+    
+    /**
+     * Add or alter a column of the table.
+     *
+     * @param columnName column name
+     * @param dataType the sql type of the column
+     * @return this database
+     */
+    public FixtureDatabase column(final String columnName, final int dataType) {
+        columns.put(columnName, dataType);
+        return this;
+    }
+    
+    /**
+     * Add a row returned by the image queries.
+     *
+     * @param row the row, by column label
+     * @return this database
+     */
+    public FixtureDatabase row(final Map<String, Object> row) {
+        rows.add(row);
+        return this;
+    }
+    
+    @Override
+    public DataSource getTargetDataSource() {
+        return proxy(DataSource.class, (method, args) -> "getConnection".equals(method) ? getConnection() : null);
+    }
+    
+    /**
+     * Get a connection to the database.
+     *
+     * @return connection
+     */
+    public Connection getConnection() {
+        return proxy(Connection.class, (method, args) -> {
+            switch (method) {
+                case "getMetaData":
+                    return getMetaData();
+                case "createStatement":
+                    return proxy(Statement.class, (statementMethod, statementArgs) -> "executeQuery".equals(statementMethod) ? resultSet(new ArrayList<>(columns.keySet()), Collections.emptyList()) : null);
+                case "prepareStatement":
+                    return prepareStatement((String) args[0]);
+                default:
+                    return null;
+            }
+        });
+    }
+    
+    private DatabaseMetaData getMetaData() {
+        return proxy(DatabaseMetaData.class, (method, args) -> {
+            switch (method) {
+                case "getTables":
+                    metaDataLoads.incrementAndGet();
+                    return resultSet(Collections.singletonList("TABLE_NAME"), tableName.equals(args[2]) ? Collections.singletonList(Collections.singletonMap("TABLE_NAME", tableName)) : Collections.emptyList());
+                case "getColumns":
+                    List<Map<String, Object>> columnRows = new LinkedList<>();
+                    columns.forEach((name, dataType) -> {
+                        Map<String, Object> row = new HashMap<>();
+                        row.put("TABLE_NAME", tableName);
+                        row.put("COLUMN_NAME", name);
+                        row.put("DATA_TYPE", dataType);
+                        row.put("TYPE_NAME", String.valueOf(dataType));
+                        columnRows.add(row);
+                    });
+                    return resultSet(Arrays.asList("TABLE_NAME", "COLUMN_NAME", "DATA_TYPE", "TYPE_NAME"), columnRows);
+                case "getPrimaryKeys":
+                    List<Map<String, Object>> primaryKeyRows = new LinkedList<>();
+                    primaryKeys.forEach(each -> primaryKeyRows.add(Collections.singletonMap("COLUMN_NAME", each)));
+                    return resultSet(Collections.singletonList("COLUMN_NAME"), primaryKeyRows);
+                case "getIndexInfo":
+                    return resultSet(Collections.singletonList("INDEX_NAME"), Collections.emptyList());
+                default:
+                    return null;
+            }
+        });
+    }
+    
+    private PreparedStatement prepareStatement(final String sql) {
+        List<Object> bound = new ArrayList<>();
+        queries.add(sql);
+        parameters.add(bound);
+        return proxy(PreparedStatement.class, (method, args) -> {
+            switch (method) {
+                case "setObject":
+                    int index = (Integer) args[0];
+                    while (bound.size() < index) {
+                        bound.add(null);
+                    }
+                    bound.set(index - 1, args[1]);
+                    return null;
+                case "executeQuery":
+                    return resultSet(rows.isEmpty() ? Collections.emptyList() : new ArrayList<>(rows.get(0).keySet()), rows);
+                default:
+                    return null;
+            }
+        });
+    }
+    
+    private static ResultSet resultSet(final List<String> labels, final List<Map<String, Object>> rows) {
+        AtomicInteger cursor = new AtomicInteger(-1);
+        ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (method, args) -> {
+            switch (method) {
+                case "getColumnCount":
+                    return labels.size();
+                case "getColumnLabel":
+                    return labels.get((Integer) args[0] - 1);
+                default:
+                    return null;
+            }
+        });
+        return proxy(ResultSet.class, (method, args) -> {
+            switch (method) {
+                case "next":
+                    return cursor.incrementAndGet() < rows.size();
+                case "getMetaData":
+                    return metaData;
+                case "findColumn":
+                    return labels.indexOf(args[0]) + 1;
+                case "getString":
+                case "getInt":
+                case "getObject":
+                    Object column = args[0] instanceof Integer ? labels.get((Integer) args[0] - 1) : args[0];
+                    return rows.get(cursor.get()).get(column);
+                default:
+                    return null;
+            }
+        });
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(final Class<T> type, final Invocation invocation) {
+        return (T) Proxy.newProxyInstance(FixtureDatabase.class.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            Object result = invocation.invoke(method.getName(), args);
+            if (null == result && boolean.class == method.getReturnType()) {
+                return false;
+            }
+            return null == result && int.class == method.getReturnType() ? (Object) 0 : result;
+        });
+    }
+    
+    private interface Invocation {
+        
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.sqlcompute.impl;
+
+import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLManipulation;
+import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLTuple;
+import org.dromara.hmily.tac.common.database.type.DatabaseTypeFactory;
+import org.dromara.hmily.tac.metadata.HmilyMetaDataManager;
+import org.dromara.hmily.tac.sqlcompute.fixture.FixtureDatabase;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.column.HmilyColumnSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.expr.HmilyBinaryOperationExpression;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.expr.simple.HmilyParameterMarkerExpressionSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.predicate.HmilyWhereSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.generic.table.HmilySimpleTableSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.value.identifier.HmilyIdentifierValue;
+import org.dromara.hmily.tac.sqlparser.model.dialect.mysql.dml.HmilyMySQLDeleteStatement;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Hmily delete SQL compute engine test.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyDeleteSQLComputeEngineTest {
+    
+    private static final String SQL = "DELETE FROM t_order WHERE id = ? AND status = ?";
+    
+    private final FixtureDatabase database = new FixtureDatabase("jdbc:mysql://localhost:3306/hmily_delete", "t_order", "id")
+            .column("id", Types.BIGINT).column("status", Types.INTEGER).column("amount", Types.DECIMAL);
+    
+    private final HmilyDeleteSQLComputeEngine engine = new HmilyDeleteSQLComputeEngine(createStatement());
+    
+    private final Map<String, Object> row = new LinkedHashMap<>();
+    
+    @Before
+    public void setUp() {
+        HmilyMetaDataManager.register(database, DatabaseTypeFactory.getDatabaseTypeByURL(database.getResourceId()));
+        row.put("id", 100L);
+        row.put("status", 1);
+        row.put("amount", 5);
+        database.row(row);
+    }
+    
+    @Test
+    public void assertImageQueryBindsWhereMarkers() {
+        HmilySQLTuple actual = engine.execute(SQL, Arrays.asList(100L, 1), database.getConnection(), database.getResourceId()).getTuples().iterator().next();
+        assertEquals(Collections.singletonList("SELECT t_order.* FROM t_order WHERE id = ? AND status = ?"), database.getQueries());
+        assertEquals(Collections.singletonList(Arrays.asList(100L, 1)), database.getParameters());
+        assertEquals("t_order", actual.getTableName());
+        assertEquals(HmilySQLManipulation.DELETE, actual.getManipulationType());
+        assertEquals(Collections.singletonList(100L), actual.getPrimaryKeyValues());
+        assertEquals(row, actual.getBeforeImage());
+        assertTrue(actual.getAfterImage().isEmpty());
+    }
+    
+    @Test
+    public void assertPlanIsReusedByLaterExecutions() {
+        engine.execute(SQL, Arrays.asList(100L, 1), database.getConnection(), database.getResourceId());
+        engine.execute(SQL, Arrays.asList(101L, 2), database.getConnection(), database.getResourceId());
+        assertEquals(1, database.getMetaDataLoads().get());
+        assertEquals(database.getQueries().get(0), database.getQueries().get(1));
+        assertEquals(Arrays.asList(101L, 2), database.getParameters().get(1));
+    }
+    
+    private static HmilyMySQLDeleteStatement createStatement() {
+        HmilyMySQLDeleteStatement result = new HmilyMySQLDeleteStatement();
+        result.setTableSegment(new HmilySimpleTableSegment(SQL.indexOf("t_order"), SQL.indexOf("t_order") + "t_order".length() - 1, new HmilyIdentifierValue("t_order")));
+        result.setWhere(new HmilyWhereSegment(SQL.indexOf("WHERE"), SQL.length() - 1, new HmilyBinaryOperationExpression(0, 0,
+                new HmilyBinaryOperationExpression(0, 0, column("id"), marker(0), "=", "id = ?"),
+                new HmilyBinaryOperationExpression(0, 0, column("status"), marker(1), "=", "status = ?"), "AND", "id = ? AND status = ?")));
+        return result;
+    }
+    
+    private static HmilyColumnSegment column(final String columnName) {
+        return new HmilyColumnSegment(0, 0, new HmilyIdentifierValue(columnName));
+    }
+    
+    private static HmilyParameterMarkerExpressionSegment marker(final int index) {
+        return new HmilyParameterMarkerExpressionSegment(0, 0, index);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.sqlcompute.impl;
+
+import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLManipulation;
+import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLTuple;
+import org.dromara.hmily.tac.common.database.type.DatabaseTypeFactory;
+import org.dromara.hmily.tac.metadata.HmilyMetaDataManager;
+import org.dromara.hmily.tac.sqlcompute.fixture.FixtureDatabase;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.assignment.HmilyAssignmentSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.assignment.HmilyInsertValuesSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.assignment.HmilySetAssignmentSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.column.HmilyColumnSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.column.HmilyInsertColumnsSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.expr.simple.HmilyLiteralExpressionSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.expr.simple.HmilyParameterMarkerExpressionSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.generic.table.HmilySimpleTableSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.value.identifier.HmilyIdentifierValue;
+import org.dromara.hmily.tac.sqlparser.model.dialect.mysql.dml.HmilyMySQLInsertStatement;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Hmily insert SQL compute engine test.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyInsertSQLComputeEngineTest {
+    
+    private final FixtureDatabase database = new FixtureDatabase("jdbc:mysql://localhost:3306/hmily_insert", "t_order", "id")
+            .column("id", Types.BIGINT).column("status", Types.INTEGER).column("amount", Types.DECIMAL);
+    
+    @Before
+    public void setUp() {
+        HmilyMetaDataManager.register(database, DatabaseTypeFactory.getDatabaseTypeByURL(database.getResourceId()));
+    }
+    
+    @Test
+    public void assertAfterImageIsBuiltFromSetAssignments() {
+        String sql = "INSERT INTO t_order SET id = ?, status = 1, amount = ?";
+        HmilyMySQLInsertStatement statement = new HmilyMySQLInsertStatement();
+        statement.setTable(table(sql));
+        statement.setSetAssignment(new HmilySetAssignmentSegment(sql.indexOf("id"), sql.length() - 1, Arrays.asList(
+                new HmilyAssignmentSegment(0, 0, column("id"), marker(0)),
+                new HmilyAssignmentSegment(0, 0, column("status"), new HmilyLiteralExpressionSegment(0, 0, 1)),
+                new HmilyAssignmentSegment(0, 0, column("amount"), marker(1)))));
+        HmilySQLTuple actual = new HmilyInsertSQLComputeEngine(statement)
+                .execute(sql, Arrays.asList(100L, 5), database.getConnection(), database.getResourceId()).getTuples().iterator().next();
+        assertTrue(database.getQueries().isEmpty());
+        assertEquals("t_order", actual.getTableName());
+        assertEquals(HmilySQLManipulation.INSERT, actual.getManipulationType());
+        assertEquals(Collections.singletonList(100L), actual.getPrimaryKeyValues());
+        assertTrue(actual.getBeforeImage().isEmpty());
+        assertEquals(record(100L, 1, 5), actual.getAfterImage());
+    }
+    
+    @Test
+    public void assertAfterImagesAreBuiltFromValues() {
+        String sql = "INSERT INTO t_order (id, status, amount) VALUES (?, ?, ?), (?, 0, ?)";
+        HmilyMySQLInsertStatement statement = new HmilyMySQLInsertStatement();
+        statement.setTable(table(sql));
+        statement.setInsertColumns(new HmilyInsertColumnsSegment(sql.indexOf('('), sql.indexOf(')'), Arrays.asList(column("id"), column("status"), column("amount"))));
+        statement.getValues().add(new HmilyInsertValuesSegment(0, 0, Arrays.asList(marker(0), marker(1), marker(2))));
+        statement.getValues().add(new HmilyInsertValuesSegment(0, 0, Arrays.asList(marker(3), new HmilyLiteralExpressionSegment(0, 0, 0), marker(4))));
+        HmilyInsertSQLComputeEngine engine = new HmilyInsertSQLComputeEngine(statement);
+        Iterator<HmilySQLTuple> actual = engine.execute(sql, Arrays.asList(100L, 1, 5, 101L, 6), database.getConnection(), database.getResourceId()).getTuples().iterator();
+        HmilySQLTuple first = actual.next();
+        assertEquals(Collections.singletonList(100L), first.getPrimaryKeyValues());
+        assertEquals(record(100L, 1, 5), first.getAfterImage());
+        HmilySQLTuple second = actual.next();
+        assertEquals(Collections.singletonList(101L), second.getPrimaryKeyValues());
+        assertEquals(record(101L, 0, 6), second.getAfterImage());
+        engine.execute(sql, Arrays.asList(102L, 1, 5, 103L, 6), database.getConnection(), database.getResourceId());
+        assertEquals(1, database.getMetaDataLoads().get());
+        assertTrue(database.getQueries().isEmpty());
+    }
+    
+    private static HmilySimpleTableSegment table(final String sql) {
+        return new HmilySimpleTableSegment(sql.indexOf("t_order"), sql.indexOf("t_order") + "t_order".length() - 1, new HmilyIdentifierValue("t_order"));
+    }
+    
+    private static HmilyColumnSegment column(final String columnName) {
+        return new HmilyColumnSegment(0, 0, new HmilyIdentifierValue(columnName));
+    }
+    
+    private static HmilyParameterMarkerExpressionSegment marker(final int index) {
+        return new HmilyParameterMarkerExpressionSegment(0, 0, index);
+    }
+    
+    private static Map<String, Object> record(final Object id, final Object status, final Object amount) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("id", id);
+        result.put("status", status);
+        result.put("amount", amount);
+        return result;
+    }
+}
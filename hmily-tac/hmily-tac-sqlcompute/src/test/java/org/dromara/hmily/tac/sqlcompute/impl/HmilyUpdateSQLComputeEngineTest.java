@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.sqlcompute.impl;
+
+import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLManipulation;
+import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLTuple;
+import org.dromara.hmily.tac.common.database.type.DatabaseTypeFactory;
+import org.dromara.hmily.tac.metadata.HmilyMetaDataManager;
+import org.dromara.hmily.tac.sqlcompute.fixture.FixtureDatabase;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.assignment.HmilyAssignmentSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.assignment.HmilySetAssignmentSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.column.HmilyColumnSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.expr.HmilyBinaryOperationExpression;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.expr.HmilyExpressionSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.expr.complex.HmilyCommonExpressionSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.expr.simple.HmilyParameterMarkerExpressionSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.predicate.HmilyWhereSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.generic.table.HmilySimpleTableSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.value.identifier.HmilyIdentifierValue;
+import org.dromara.hmily.tac.sqlparser.model.dialect.mysql.dml.HmilyMySQLUpdateStatement;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Hmily update SQL compute engine test.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyUpdateSQLComputeEngineTest {
+    
+    private static final String SQL = "UPDATE t_order SET status = ?, amount = amount + ?, update_time = now() WHERE id = ? AND status = ?";
+    
+    private final FixtureDatabase database = new FixtureDatabase("jdbc:mysql://localhost:3306/hmily_update", "t_order", "id")
+            .column("id", Types.BIGINT).column("status", Types.INTEGER).column("amount", Types.DECIMAL).column("update_time", Types.VARCHAR);
+    
+    private final HmilyUpdateSQLComputeEngine engine = new HmilyUpdateSQLComputeEngine(createStatement());
+    
+    @Before
+    public void setUp() {
+        HmilyMetaDataManager.register(database, DatabaseTypeFactory.getDatabaseTypeByURL(database.getResourceId()));
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 100L);
+        row.put("status", 0);
+        row.put("amount", 5);
+        row.put("update_time", "2021-01-01 00:00:00");
+        row.put("status_DERIVED", 1);
+        row.put("amount_DERIVED", 15);
+        row.put("update_time_DERIVED", "2021-01-02 00:00:00");
+        database.row(row);
+    }
+    
+    @Test
+    public void assertImageQueryBindsDerivedMarkersBeforeWhereMarkers() {
+        HmilySQLTuple actual = engine.execute(SQL, Arrays.asList(1, 10, 100L, 0), database.getConnection(), database.getResourceId()).getTuples().iterator().next();
+        assertEquals(Collections.singletonList(
+                "SELECT t_order.*, ? AS status_DERIVED, amount + ? AS amount_DERIVED, now() AS update_time_DERIVED FROM t_order WHERE id = ? AND status = ?"), database.getQueries());
+        assertEquals(Collections.singletonList(Arrays.asList(1, 10, 100L, 0)), database.getParameters());
+        assertEquals("t_order", actual.getTableName());
+        assertEquals(HmilySQLManipulation.UPDATE, actual.getManipulationType());
+        assertEquals(Collections.singletonList(100L), actual.getPrimaryKeyValues());
+        Map<String, Object> before = new HashMap<>();
+        before.put("status", 0);
+        before.put("amount", 5);
+        before.put("update_time", "2021-01-01 00:00:00");
+        assertEquals(before, actual.getBeforeImage());
+        Map<String, Object> after = new HashMap<>();
+        after.put("id", 100L);
+        after.put("status", 1);
+        after.put("amount", 15);
+        after.put("update_time", "2021-01-02 00:00:00");
+        assertEquals(after, actual.getAfterImage());
+    }
+    
+    @Test
+    public void assertPlanIsReusedUntilTableIsRefreshed() {
+        engine.execute(SQL, Arrays.asList(1, 10, 100L, 0), database.getConnection(), database.getResourceId());
+        engine.execute(SQL, Arrays.asList(2, 20, 101L, 1), database.getConnection(), database.getResourceId());
+        assertEquals(1, database.getMetaDataLoads().get());
+        assertEquals(Arrays.asList(1, 10, 100L, 0), database.getParameters().get(0));
+        assertEquals(Arrays.asList(2, 20, 101L, 1), database.getParameters().get(1));
+        assertTrue(engine.execute(SQL, Arrays.asList(1, 10, 100L, 0), database.getConnection(), database.getResourceId())
+                .getTuples().iterator().next().getAfterImage().containsKey("update_time"));
+        database.column("update_time", Types.TIMESTAMP);
+        HmilyMetaDataManager.get(database.getResourceId()).refresh("t_order");
+        HmilySQLTuple actual = engine.execute(SQL, Arrays.asList(1, 10, 100L, 0), database.getConnection(), database.getResourceId()).getTuples().iterator().next();
+        assertEquals(2, database.getMetaDataLoads().get());
+        assertFalse(actual.getAfterImage().containsKey("update_time"));
+    }
+    
+    private static HmilyMySQLUpdateStatement createStatement() {
+        HmilyMySQLUpdateStatement result = new HmilyMySQLUpdateStatement();
+        result.setTableSegment(new HmilySimpleTableSegment(SQL.indexOf("t_order"), SQL.indexOf("t_order") + "t_order".length() - 1, new HmilyIdentifierValue("t_order")));
+        result.setSetAssignment(new HmilySetAssignmentSegment(SQL.indexOf("status"), SQL.indexOf(" WHERE") - 1, Arrays.asList(
+                assignment("status", marker(0)),
+                assignment("amount", new HmilyBinaryOperationExpression(0, 0, column("amount"), marker(1), "+", "amount + ?")),
+                assignment("update_time", new HmilyCommonExpressionSegment(0, 0, "now()")))));
+        result.setWhere(new HmilyWhereSegment(SQL.indexOf("WHERE"), SQL.length() - 1,
+                new HmilyBinaryOperationExpression(0, 0, new HmilyBinaryOperationExpression(0, 0, column("id"), marker(2), "=", "id = ?"),
+                        new HmilyBinaryOperationExpression(0, 0, column("status"), marker(3), "=", "status = ?"), "AND", "id = ? AND status = ?")));
+        return result;
+    }
+    
+    private static HmilyAssignmentSegment assignment(final String columnName, final HmilyExpressionSegment value) {
+        return new HmilyAssignmentSegment(0, 0, column(columnName), value);
+    }
+    
+    private static HmilyColumnSegment column(final String columnName) {
+        return new HmilyColumnSegment(0, 0, new HmilyIdentifierValue(columnName));
+    }
+    
+    private static HmilyParameterMarkerExpressionSegment marker(final int index) {
+        return new HmilyParameterMarkerExpressionSegment(0, 0, index);
+    }
+}
@@ -4,6 +4,7 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.order.HmilyOrderBySegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.predicate.HmilyLockSegment;
 import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.predicate.HmilyWhereSegment;
 import org.dromara.hmily.tac.sqlparser.model.common.segment.generic.table.HmilyTableSegment;
 import org.dromara.hmily.tac.sqlparser.model.common.statement.AbstractHmilyStatement;
@@ -26,6 +27,8 @@ public abstract class HmilySelectStatement extends AbstractHmilyStatement implem
 
     private HmilyOrderBySegment orderBy;
 
+    private HmilyLockSegment lock;
+
     /**
      * Get where.
      *
@@ -43,4 +46,14 @@ public abstract class HmilySelectStatement extends AbstractHmilyStatement implem
     public Optional<HmilyOrderBySegment> gteOrderBy() {
         return Optional.ofNullable(orderBy);
     }
+
+    /**
+     * Get lock, present for a locking read like select for update.
+     * Only the MySQL parser executor sets it, the selects of the other dialects never carry it.
+     *
+     * @return lock segment
+     */
+    public Optional<HmilyLockSegment> getLock() {
+        return Optional.ofNullable(lock);
+    }
 }
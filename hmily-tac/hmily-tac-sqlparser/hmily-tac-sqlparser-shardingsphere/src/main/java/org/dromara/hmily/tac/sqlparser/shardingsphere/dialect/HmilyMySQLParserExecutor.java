@@ -24,6 +24,7 @@ import org.apache.shardingsphere.sql.parser.sql.common.statement.dml.UpdateState
 import org.apache.shardingsphere.sql.parser.sql.dialect.statement.mysql.dml.MySQLSelectStatement;
 import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.pagination.HmilyPaginationValueSegment;
 import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.pagination.limit.HmilyLimitSegment;
+import org.dromara.hmily.tac.sqlparser.model.common.segment.dml.predicate.HmilyLockSegment;
 import org.dromara.hmily.tac.sqlparser.model.common.statement.HmilyStatement;
 import org.dromara.hmily.tac.sqlparser.model.dialect.mysql.dml.HmilyMySQLDeleteStatement;
 import org.dromara.hmily.tac.sqlparser.model.dialect.mysql.dml.HmilyMySQLInsertStatement;
@@ -75,6 +76,8 @@ public final class HmilyMySQLParserExecutor extends AbstractHmilySQLParserExecut
             HmilyLimitSegment hmilyLimitSegment = new HmilyLimitSegment(limitSegment.getStartIndex(), limitSegment.getStopIndex(), offset, rowCount);
             hmilyMySQLSelectStatement.setLimit(hmilyLimitSegment);
         }
+        // only the MySQL statements carry their lock, the selects of the other dialect executors never do
+        mySQLSelectStatement.getLock().ifPresent(lockSegment -> hmilyMySQLSelectStatement.setLock(new HmilyLockSegment(lockSegment.getStartIndex(), lockSegment.getStopIndex())));
         return hmilyMySQLSelectStatement;
     }
 }
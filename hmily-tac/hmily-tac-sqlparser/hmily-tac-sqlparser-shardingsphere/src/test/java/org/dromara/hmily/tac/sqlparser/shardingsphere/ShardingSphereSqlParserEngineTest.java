@@ -23,8 +23,10 @@ import org.apache.shardingsphere.sql.parser.sql.dialect.statement.mysql.dml.MySQ
 import org.dromara.hmily.tac.common.constants.DatabaseConstant;
 import org.dromara.hmily.tac.common.database.type.MySQLDatabaseType;
 import org.dromara.hmily.tac.sqlparser.model.common.statement.HmilyStatement;
+import org.dromara.hmily.tac.sqlparser.model.common.statement.dml.HmilySelectStatement;
 import org.junit.Test;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class ShardingSphereSqlParserEngineTest {
@@ -62,4 +64,13 @@ public class ShardingSphereSqlParserEngineTest {
         HmilyStatement hmilyStatement = shardingSphereSqlParserEngine.parser(sql, new MySQLDatabaseType());
         System.out.println(hmilyStatement);
     }
+    
+    @Test
+    public void assertHmilySelectForUpdateCarriesLock() {
+        ShardingSphereSqlParserEngine shardingSphereSqlParserEngine = new ShardingSphereSqlParserEngine();
+        HmilySelectStatement forUpdate = (HmilySelectStatement) shardingSphereSqlParserEngine.parser("select * from t_order where id =? for update", new MySQLDatabaseType());
+        assertTrue(forUpdate.getLock().isPresent());
+        HmilySelectStatement plain = (HmilySelectStatement) shardingSphereSqlParserEngine.parser("select * from t_order where id =?", new MySQLDatabaseType());
+        assertFalse(plain.getLock().isPresent());
+    }
 }
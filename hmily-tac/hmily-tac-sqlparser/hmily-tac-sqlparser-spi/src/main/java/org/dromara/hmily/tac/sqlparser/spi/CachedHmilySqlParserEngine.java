@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.sqlparser.spi;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.dromara.hmily.metrics.constant.LabelNames;
+import org.dromara.hmily.metrics.reporter.MetricsReporter;
+import org.dromara.hmily.tac.common.database.type.DatabaseType;
+import org.dromara.hmily.tac.sqlparser.model.common.statement.HmilyStatement;
+import org.dromara.hmily.tac.sqlparser.spi.exception.SqlParserException;
+
+/**
+ * Sql parser engine that keeps the statements parsed by the delegate per (database type, sql),
+ * so the same prepared sql is only parsed on first sight.
+ * The cached statements are shared by every caller and must not be changed after parsing.
+ * When the cache is full, statements not looked up since the last sweep are evicted first.
+ *
+ * @author xiaoyu
+ */
+public final class CachedHmilySqlParserEngine implements HmilySqlParserEngine {
+    
+    private static final String[] HIT = {"hit"};
+    
+    private static final String[] MISS = {"miss"};
+    
+    private static final String[] EVICTION = {"eviction"};
+    
+    private final Map<StatementKey, CachedStatement> statements = new ConcurrentHashMap<>();
+    
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    
+    private final LongAdder hits = new LongAdder();
+    
+    private final LongAdder misses = new LongAdder();
+    
+    private final HmilySqlParserEngine delegate;
+    
+    private final int maximumSize;
+    
+    /**
+     * Instantiates a new cached hmily sql parser engine.
+     *
+     * @param delegate    the engine parsing the statements not cached yet
+     * @param maximumSize the maximum number of cached statements
+     */
+    public CachedHmilySqlParserEngine(final HmilySqlParserEngine delegate, final int maximumSize) {
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        MetricsReporter.registerCounter(LabelNames.SQL_PARSER_CACHE, new String[]{"result"}, "hmily tac parsed statement cache hits, misses and evictions");
+    }
+    
+    @Override
+    public HmilyStatement parser(final String sql, final DatabaseType databaseType) throws SqlParserException {
+        StatementKey key = new StatementKey(databaseType.getName(), sql);
+        CachedStatement cached = statements.get(key);
+        if (Objects.nonNull(cached)) {
+            cached.referenced = true;
+            hits.increment();
+            MetricsReporter.counterIncrement(LabelNames.SQL_PARSER_CACHE, HIT);
+            return cached.statement;
+        }
+        misses.increment();
+        MetricsReporter.counterIncrement(LabelNames.SQL_PARSER_CACHE, MISS);
+        HmilyStatement result = delegate.parser(sql, databaseType);
+        statements.putIfAbsent(key, new CachedStatement(result));
+        if (statements.size() > maximumSize) {
+            evict();
+        }
+        return result;
+    }
+    
+    /**
+     * The share of lookups served from the cache.
+     *
+     * @return the hit rate, 0 before the first lookup
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+    
+    /**
+     * The number of cached statements.
+     *
+     * @return the size
+     */
+    public int size() {
+        return statements.size();
+    }
+    
+    private void evict() {
+        // one sweeping thread is enough, the others keep parsing
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            Iterator<CachedStatement> iterator = statements.values().iterator();
+            boolean secondChance = true;
+            while (statements.size() > maximumSize) {
+                if (!iterator.hasNext()) {
+                    // statements still looked up concurrently do not get a third chance
+                    iterator = statements.values().iterator();
+                    secondChance = false;
+                    continue;
+                }
+                CachedStatement each = iterator.next();
+                if (secondChance && each.referenced) {
+                    each.referenced = false;
+                } else {
+                    iterator.remove();
+                    MetricsReporter.counterIncrement(LabelNames.SQL_PARSER_CACHE, EVICTION);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    @RequiredArgsConstructor
+    @EqualsAndHashCode
+    private static final class StatementKey {
+        
+        private final String databaseType;
+        
+        private final String sql;
+    }
+    
+    @RequiredArgsConstructor
+    private static final class CachedStatement {
+        
+        private final HmilyStatement statement;
+        
+        private volatile boolean referenced;
+    }
+}
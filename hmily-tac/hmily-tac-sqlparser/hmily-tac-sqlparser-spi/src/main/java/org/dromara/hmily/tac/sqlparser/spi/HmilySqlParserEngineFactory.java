@@ -39,7 +39,8 @@ public class HmilySqlParserEngineFactory {
             synchronized (HmilySqlParserEngineFactory.class) {
                 if (hmilySqlParserEngine == null) {
                     HmilyConfig config = ConfigEnv.getInstance().getConfig(HmilyConfig.class);
-                    hmilySqlParserEngine = ExtensionLoaderFactory.load(HmilySqlParserEngine.class, config.getSqlParserType());
+                    HmilySqlParserEngine engine = ExtensionLoaderFactory.load(HmilySqlParserEngine.class, config.getSqlParserType());
+                    hmilySqlParserEngine = config.getSqlParserCacheSize() > 0 ? new CachedHmilySqlParserEngine(engine, config.getSqlParserCacheSize()) : engine;
                 }
             }
         }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.sqlparser.spi;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dromara.hmily.tac.common.database.type.MySQLDatabaseType;
+import org.dromara.hmily.tac.common.database.type.PostgreSQLDatabaseType;
+import org.dromara.hmily.tac.sqlparser.model.common.statement.HmilyStatement;
+import org.dromara.hmily.tac.sqlparser.spi.exception.SqlParserException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * The type Cached hmily sql parser engine test.
+ *
+ * @author xiaoyu
+ */
+public final class CachedHmilySqlParserEngineTest {
+    
+    private final AtomicInteger parsed = new AtomicInteger();
+    
+    private final HmilySqlParserEngine delegate = (sql, databaseType) -> {
+        int parameterCount = parsed.incrementAndGet();
+        if (sql.startsWith("invalid")) {
+            throw new SqlParserException(sql);
+        }
+        return () -> parameterCount;
+    };
+    
+    @Test
+    public void assertHitAndMiss() {
+        CachedHmilySqlParserEngine engine = new CachedHmilySqlParserEngine(delegate, 16);
+        assertEquals(0, engine.getHitRate(), 0);
+        HmilyStatement statement = engine.parser("select 1", new MySQLDatabaseType());
+        assertSame(statement, engine.parser("select 1", new MySQLDatabaseType()));
+        assertEquals(1, parsed.get());
+        assertEquals(0.5, engine.getHitRate(), 0);
+        assertNotSame(statement, engine.parser("select 1", new PostgreSQLDatabaseType()));
+        assertEquals(2, parsed.get());
+        assertEquals(2, engine.size());
+    }
+    
+    @Test
+    public void assertFailedParseIsNotCached() {
+        CachedHmilySqlParserEngine engine = new CachedHmilySqlParserEngine(delegate, 16);
+        for (int i = 0; i < 2; i++) {
+            try {
+                engine.parser("invalid", new MySQLDatabaseType());
+                fail();
+            } catch (SqlParserException ignored) {
+            }
+        }
+        assertEquals(2, parsed.get());
+        assertEquals(0, engine.size());
+    }
+    
+    @Test
+    public void assertEvictsStatementsNotLookedUpSinceLastSweep() {
+        CachedHmilySqlParserEngine engine = new CachedHmilySqlParserEngine(delegate, 2);
+        HmilyStatement statement = engine.parser("select 1", new MySQLDatabaseType());
+        engine.parser("select 2", new MySQLDatabaseType());
+        engine.parser("select 1", new MySQLDatabaseType());
+        engine.parser("select 3", new MySQLDatabaseType());
+        assertEquals(2, engine.size());
+        assertSame(statement, engine.parser("select 1", new MySQLDatabaseType()));
+        assertEquals(3, parsed.get());
+    }
+    
+    @Test
+    public void assertEvictsWhenEveryStatementWasLookedUp() {
+        CachedHmilySqlParserEngine engine = new CachedHmilySqlParserEngine(delegate, 2);
+        engine.parser("select 1", new MySQLDatabaseType());
+        engine.parser("select 2", new MySQLDatabaseType());
+        engine.parser("select 1", new MySQLDatabaseType());
+        engine.parser("select 2", new MySQLDatabaseType());
+        engine.parser("select 3", new MySQLDatabaseType());
+        assertEquals(2, engine.size());
+    }
+}
@@ -17,10 +17,14 @@
 package org.dromara.hmily.tac.sqlrevert.core;
 
 import lombok.extern.slf4j.Slf4j;
+import org.dromara.hmily.config.api.ConfigEnv;
+import org.dromara.hmily.config.api.entity.HmilyConfig;
 import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLManipulation;
 import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLTuple;
 import org.dromara.hmily.spi.HmilySPI;
 import org.dromara.hmily.tac.common.HmilyResourceManager;
+import org.dromara.hmily.tac.common.undo.HmilyTacUndoLogStore;
 import org.dromara.hmily.tac.sqlrevert.core.image.RevertSQLUnit;
 import org.dromara.hmily.tac.sqlrevert.core.image.SQLImageMapperFactory;
 import org.dromara.hmily.tac.sqlrevert.spi.HmilySQLRevertEngine;
@@ -29,7 +33,11 @@ import org.dromara.hmily.tac.sqlrevert.spi.exception.SQLRevertException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.Collection;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * The type Default SQL revert engine.
@@ -43,38 +51,104 @@ public class DefaultSQLRevertEngine implements HmilySQLRevertEngine {
     
     @Override
     public boolean revert(final HmilyParticipantUndo participantUndo) throws SQLRevertException {
+        HmilyConfig hmilyConfig = ConfigEnv.getInstance().getConfig(HmilyConfig.class);
         try (Connection connection = HmilyResourceManager.get(participantUndo.getResourceId()).getTargetDataSource().getConnection()) {
-            return doRevertInTransaction(connection, participantUndo.getDataSnapshot().getTuples());
+            connection.setAutoCommit(false);
+            boolean result = revertTuples(connection, participantUndo, Math.max(1, hmilyConfig.getTacRevertBatchSize()))
+                    && (!hmilyConfig.isTacUndoLogColocated() || deleteUndoLog(connection, participantUndo.getUndoId()));
+            if (result) {
+                connection.commit();
+            } else {
+                connection.rollback();
+            }
+            return result;
         } catch (final SQLException ex) {
             log.error("hmily tac rollback exception -> ", ex);
             return false;
         }
     }
     
-    private boolean doRevertInTransaction(final Connection connection, final Collection<HmilySQLTuple> tuples) throws SQLException {
-        connection.setAutoCommit(false);
-        for (HmilySQLTuple tuple : tuples) {
-            if (executeUpdate(connection, SQLImageMapperFactory.newInstance(tuple).cast()) == 0) {
-                connection.rollback();
-                return false;
+    /**
+     * Revert the tuples of the undo, consecutive statements of the same sql are sent in batches of at most the batch size.
+     *
+     * @param connection      the connection, left uncommitted
+     * @param participantUndo the participant undo
+     * @param batchSize       the batch size
+     * @return true if every statement reverted its row
+     */
+    boolean revertTuples(final Connection connection, final HmilyParticipantUndo participantUndo, final int batchSize) {
+        List<RevertSQLUnit> batch = new ArrayList<>();
+        boolean insertBatch = false;
+        for (HmilySQLTuple tuple : participantUndo.getDataSnapshot().getTuples()) {
+            RevertSQLUnit unit = SQLImageMapperFactory.newInstance(tuple).cast();
+            if (!batch.isEmpty() && (batch.size() >= batchSize || !batch.get(0).getSql().equals(unit.getSql()))) {
+                if (!executeBatch(connection, batch, insertBatch)) {
+                    return false;
+                }
+                batch.clear();
             }
+            // a deleted row is reverted with an insert
+            insertBatch = HmilySQLManipulation.DELETE == tuple.getManipulationType();
+            batch.add(unit);
         }
-        connection.commit();
-        return true;
+        return batch.isEmpty() || executeBatch(connection, batch, insertBatch);
     }
     
-    private int executeUpdate(final Connection connection, final RevertSQLUnit unit) {
-        log.debug("TAC-revert-sql :::: {}", unit.toString());
-        try (PreparedStatement preparedStatement = connection.prepareStatement(unit.getSql())) {
-            int index = 1;
-            for (Object each : unit.getParameters()) {
-                preparedStatement.setObject(index, each);
-                index++;
+    private boolean executeBatch(final Connection connection, final List<RevertSQLUnit> units, final boolean insertBatch) {
+        log.debug("TAC-revert-sql :::: {} x {}", units.get(0).getSql(), units.size());
+        try (PreparedStatement preparedStatement = connection.prepareStatement(units.get(0).getSql())) {
+            if (units.size() == 1) {
+                return executeUpdate(preparedStatement, units.get(0));
+            }
+            for (RevertSQLUnit each : units) {
+                setParameters(preparedStatement, each);
+                preparedStatement.addBatch();
             }
-            return preparedStatement.executeUpdate();
+            Savepoint savepoint = insertBatch ? null : connection.setSavepoint();
+            int[] counts = preparedStatement.executeBatch();
+            if (Arrays.stream(counts).anyMatch(count -> count == 0 || count == Statement.EXECUTE_FAILED)) {
+                return false;
+            }
+            // drivers rewriting a batch report SUCCESS_NO_INFO instead of the affected rows. A rewritten insert is
+            // one multi-row statement that inserts every row or fails, the other statements are run again one
+            // at a time, so a row changed since the undo was taken is still seen
+            if (insertBatch || Arrays.stream(counts).noneMatch(count -> count == Statement.SUCCESS_NO_INFO)) {
+                return true;
+            }
+            connection.rollback(savepoint);
+            for (RevertSQLUnit each : units) {
+                if (!executeUpdate(preparedStatement, each)) {
+                    return false;
+                }
+            }
+            return true;
         } catch (SQLException ex) {
             log.error("hmily tac rollback exception -> ", ex);
-            return 0;
+            return false;
+        }
+    }
+    
+    private boolean executeUpdate(final PreparedStatement preparedStatement, final RevertSQLUnit unit) throws SQLException {
+        setParameters(preparedStatement, unit);
+        return preparedStatement.executeUpdate() > 0;
+    }
+    
+    private boolean deleteUndoLog(final Connection connection, final Long undoId) {
+        // the co-located undo record goes away in the transaction reverting its data
+        try {
+            HmilyTacUndoLogStore.INSTANCE.delete(connection, undoId);
+            return true;
+        } catch (SQLException ex) {
+            log.error("hmily tac rollback exception -> ", ex);
+            return false;
+        }
+    }
+    
+    private void setParameters(final PreparedStatement preparedStatement, final RevertSQLUnit unit) throws SQLException {
+        int index = 1;
+        for (Object each : unit.getParameters()) {
+            preparedStatement.setObject(index, each);
+            index++;
         }
     }
 }
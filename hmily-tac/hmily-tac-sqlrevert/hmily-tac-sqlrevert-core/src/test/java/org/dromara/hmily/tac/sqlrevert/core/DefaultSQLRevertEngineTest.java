@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tac.sqlrevert.core;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.dromara.hmily.config.api.ConfigEnv;
+import org.dromara.hmily.config.api.entity.HmilyConfig;
+import org.dromara.hmily.repository.spi.entity.HmilyDataSnapshot;
+import org.dromara.hmily.repository.spi.entity.HmilyParticipantUndo;
+import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLManipulation;
+import org.dromara.hmily.repository.spi.entity.tuple.HmilySQLTuple;
+import org.dromara.hmily.tac.common.HmilyResourceManager;
+import org.dromara.hmily.tac.common.HmilyTacResource;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The type Default SQL revert engine test.
+ *
+ * @author xiaoyu
+ */
+public final class DefaultSQLRevertEngineTest {
+    
+    private static final String UPDATE_ORDER = "UPDATE `t_order` SET amount=? WHERE id=?";
+    
+    private static final String UPDATE_USER = "UPDATE `t_user` SET amount=? WHERE id=?";
+    
+    private static final String DELETE_UNDO_LOG = "DELETE FROM hmily_undo_log WHERE undo_id = ?";
+    
+    private final DefaultSQLRevertEngine revertEngine = new DefaultSQLRevertEngine();
+    
+    private final Connection connection = mock(Connection.class);
+    
+    private final PreparedStatement preparedStatement = mock(PreparedStatement.class);
+    
+    private final AtomicInteger batched = new AtomicInteger();
+    
+    private int rowCount = 1;
+    
+    @Before
+    public void setUp() throws SQLException {
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.setSavepoint()).thenReturn(mock(Savepoint.class));
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+        doAnswer(invocation -> batched.incrementAndGet()).when(preparedStatement).addBatch();
+        when(preparedStatement.executeBatch()).thenAnswer(invocation -> {
+            int[] result = new int[batched.getAndSet(0)];
+            Arrays.fill(result, rowCount);
+            return result;
+        });
+    }
+    
+    @Test
+    public void assertBatchSplitOnBatchSize() throws SQLException {
+        assertTrue(revertEngine.revertTuples(connection, undo(update("t_order", 1), update("t_order", 2), update("t_order", 3), update("t_order", 4), update("t_order", 5)), 2));
+        verify(connection, times(3)).prepareStatement(UPDATE_ORDER);
+        verify(preparedStatement, times(4)).addBatch();
+        verify(preparedStatement, times(2)).executeBatch();
+        verify(preparedStatement).executeUpdate();
+    }
+    
+    @Test
+    public void assertBatchSplitOnSqlChange() throws SQLException {
+        assertTrue(revertEngine.revertTuples(connection, undo(update("t_order", 1), update("t_order", 2), update("t_user", 3), update("t_order", 4)), 10));
+        InOrder inOrder = inOrder(connection);
+        inOrder.verify(connection).prepareStatement(UPDATE_ORDER);
+        inOrder.verify(connection).prepareStatement(UPDATE_USER);
+        inOrder.verify(connection).prepareStatement(UPDATE_ORDER);
+        verify(preparedStatement).executeBatch();
+        verify(preparedStatement, times(2)).executeUpdate();
+    }
+    
+    @Test
+    public void assertBatchWithoutRowCountsRunsAgainOneByOne() throws SQLException {
+        rowCount = Statement.SUCCESS_NO_INFO;
+        assertTrue(revertEngine.revertTuples(connection, undo(update("t_order", 1), update("t_order", 2)), 10));
+        verify(connection).rollback(any(Savepoint.class));
+        verify(preparedStatement, times(2)).executeUpdate();
+    }
+    
+    @Test
+    public void assertInsertBatchWithoutRowCountsIsReverted() throws SQLException {
+        rowCount = Statement.SUCCESS_NO_INFO;
+        assertTrue(revertEngine.revertTuples(connection, undo(delete("t_order", 1), delete("t_order", 2)), 10));
+        verify(connection, never()).setSavepoint();
+        verify(preparedStatement, never()).executeUpdate();
+    }
+    
+    @Test
+    public void assertBatchMissingARowFails() throws SQLException {
+        rowCount = 0;
+        assertFalse(revertEngine.revertTuples(connection, undo(update("t_order", 1), update("t_order", 2), update("t_order", 3)), 2));
+        verify(preparedStatement).executeBatch();
+        verify(preparedStatement, never()).executeUpdate();
+    }
+    
+    @Test
+    public void assertRevertDeletesColocatedUndoLogInTheSameTransaction() throws SQLException {
+        ConfigEnv.getInstance().registerConfig(new HmilyConfig());
+        ConfigEnv.getInstance().getConfig(HmilyConfig.class).setTacUndoLogColocated(true);
+        try {
+            DataSource dataSource = mock(DataSource.class);
+            when(dataSource.getConnection()).thenReturn(connection);
+            HmilyTacResource resource = mock(HmilyTacResource.class);
+            when(resource.getResourceId()).thenReturn("revert-resource");
+            when(resource.getTargetDataSource()).thenReturn(dataSource);
+            HmilyResourceManager.register(resource);
+            HmilyParticipantUndo participantUndo = undo(update("t_order", 1));
+            participantUndo.setUndoId(1L);
+            participantUndo.setResourceId("revert-resource");
+            assertTrue(revertEngine.revert(participantUndo));
+            InOrder inOrder = inOrder(connection, preparedStatement);
+            inOrder.verify(connection).setAutoCommit(false);
+            inOrder.verify(connection).prepareStatement(UPDATE_ORDER);
+            inOrder.verify(connection).prepareStatement(DELETE_UNDO_LOG);
+            inOrder.verify(preparedStatement).setLong(1, 1L);
+            inOrder.verify(connection).commit();
+            verify(connection, never()).rollback();
+        } finally {
+            ConfigEnv.getInstance().getConfig(HmilyConfig.class).setTacUndoLogColocated(false);
+        }
+    }
+    
+    private static HmilyParticipantUndo undo(final HmilySQLTuple... tuples) {
+        HmilyDataSnapshot snapshot = new HmilyDataSnapshot();
+        snapshot.getTuples().addAll(Arrays.asList(tuples));
+        HmilyParticipantUndo result = new HmilyParticipantUndo();
+        result.setDataSnapshot(snapshot);
+        return result;
+    }
+    
+    private static HmilySQLTuple update(final String tableName, final long id) {
+        return tuple(tableName, HmilySQLManipulation.UPDATE, Collections.singletonMap("amount", 10), Collections.singletonMap("id", id));
+    }
+    
+    private static HmilySQLTuple delete(final String tableName, final long id) {
+        Map<String, Object> beforeImage = new LinkedHashMap<>();
+        beforeImage.put("id", id);
+        beforeImage.put("amount", 10);
+        return tuple(tableName, HmilySQLManipulation.DELETE, beforeImage, Collections.emptyMap());
+    }
+    
+    private static HmilySQLTuple tuple(final String tableName, final HmilySQLManipulation manipulation, final Map<String, Object> beforeImage, final Map<String, Object> afterImage) {
+        HmilySQLTuple result = new HmilySQLTuple();
+        result.setTableName(tableName);
+        result.setManipulationType(manipulation);
+        result.setPrimaryKeyValues(Collections.singletonList(afterImage.getOrDefault("id", beforeImage.get("id"))));
+        result.setBeforeImage(beforeImage);
+        result.setAfterImage(afterImage);
+        return result;
+    }
+}
@@ -16,15 +16,27 @@
 
 package org.dromara.hmily.tcc.executor;
 
-import com.google.common.collect.Lists;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.dromara.hmily.annotation.HmilyTCC;
 import org.dromara.hmily.annotation.TransTypeEnum;
+import org.dromara.hmily.common.concurrent.HmilyThreadFactory;
 import org.dromara.hmily.common.enums.ExecutorTypeEnum;
 import org.dromara.hmily.common.enums.HmilyActionEnum;
 import org.dromara.hmily.common.enums.HmilyRoleEnum;
@@ -33,10 +45,14 @@ import org.dromara.hmily.common.utils.CollectionUtils;
 import org.dromara.hmily.common.utils.IdWorkerUtils;
 import org.dromara.hmily.common.utils.LogUtil;
 import org.dromara.hmily.common.utils.StringUtils;
+import org.dromara.hmily.config.api.ConfigEnv;
+import org.dromara.hmily.config.api.entity.HmilyConfig;
 import org.dromara.hmily.core.cache.HmilyParticipantCacheManager;
 import org.dromara.hmily.core.context.HmilyContextHolder;
 import org.dromara.hmily.core.context.HmilyTransactionContext;
 import org.dromara.hmily.core.holder.HmilyTransactionHolder;
+import org.dromara.hmily.core.reflect.HmilyMethodMetadata;
+import org.dromara.hmily.core.reflect.HmilyMethodRegistry;
 import org.dromara.hmily.core.reflect.HmilyReflector;
 import org.dromara.hmily.core.repository.HmilyRepositoryStorage;
 import org.dromara.hmily.repository.spi.entity.HmilyInvocation;
@@ -56,6 +72,8 @@ public final class HmilyTccTransactionExecutor {
     
     private static final HmilyTccTransactionExecutor INSTANCE = new HmilyTccTransactionExecutor();
     
+    private volatile ExecutorService phaseTwoExecutor;
+    
     private HmilyTccTransactionExecutor() {
     }
     
@@ -78,8 +96,13 @@ public final class HmilyTccTransactionExecutor {
         LogUtil.debug(LOGGER, () -> "......hmily tcc transaction starter....");
         //build tccTransaction
         HmilyTransaction hmilyTransaction = createHmilyTransaction();
-        HmilyRepositoryStorage.createHmilyTransaction(hmilyTransaction);
         HmilyParticipant hmilyParticipant = buildHmilyParticipant(point, null, null, HmilyRoleEnum.START.getCode(), hmilyTransaction.getTransId());
+        if (ConfigEnv.getInstance().getConfig(HmilyConfig.class).isLazyStarterLog()) {
+            // written by the first participant to enlist
+            hmilyTransaction.setDeferred(true);
+            Optional.ofNullable(hmilyParticipant).ifPresent(participant -> participant.setDeferred(true));
+        }
+        HmilyRepositoryStorage.createHmilyTransaction(hmilyTransaction);
         HmilyRepositoryStorage.createHmilyParticipant(hmilyParticipant);
         hmilyTransaction.registerParticipant(hmilyParticipant);
         //save tccTransaction in threadLocal
@@ -130,24 +153,15 @@ public final class HmilyTccTransactionExecutor {
         currentTransaction.setStatus(HmilyActionEnum.CONFIRMING.getCode());
         HmilyRepositoryStorage.updateHmilyTransactionStatus(currentTransaction);
         final List<HmilyParticipant> hmilyParticipants = currentTransaction.getHmilyParticipants();
-        List<Boolean> successList = new ArrayList<>();
-        for (HmilyParticipant hmilyParticipant : hmilyParticipants) {
-            try {
-                if (hmilyParticipant.getRole() == HmilyRoleEnum.START.getCode()) {
-                    HmilyReflector.executor(HmilyActionEnum.CONFIRMING, ExecutorTypeEnum.LOCAL, hmilyParticipant);
-                    HmilyRepositoryStorage.removeHmilyParticipant(hmilyParticipant);
-                } else {
-                    HmilyReflector.executor(HmilyActionEnum.CONFIRMING, ExecutorTypeEnum.RPC, hmilyParticipant);
-                }
-                successList.add(true);
-            } catch (Throwable e) {
-                successList.add(false);
-                LOGGER.error("HmilyParticipant confirm exception param:{} ", hmilyParticipant.toString(), e);
-            } finally {
-                HmilyContextHolder.remove();
+        List<PhaseTwoResult> results = executePhaseTwo(HmilyActionEnum.CONFIRMING, hmilyParticipants, e -> e.getRole() == HmilyRoleEnum.START.getCode(), false);
+        boolean success = true;
+        for (int i = 0; i < results.size(); i++) {
+            if (Objects.nonNull(results.get(i).getError())) {
+                success = false;
+                LOGGER.error("HmilyParticipant confirm exception param:{} ", hmilyParticipants.get(i).toString(), results.get(i).getError());
             }
         }
-        if (successList.stream().allMatch(e -> e)) {
+        if (success) {
             // remove global
             HmilyRepositoryStorage.removeHmilyTransaction(currentTransaction);
         }
@@ -164,25 +178,14 @@ public final class HmilyTccTransactionExecutor {
         if (CollectionUtils.isEmpty(hmilyParticipantList)) {
             return null;
         }
-        List<Object> results = Lists.newArrayListWithCapacity(hmilyParticipantList.size());
-        for (HmilyParticipant hmilyParticipant : hmilyParticipantList) {
-            try {
-                if (hmilyParticipant.getParticipantId().equals(selfParticipantId)) {
-                    final Object result = HmilyReflector.executor(HmilyActionEnum.CONFIRMING, ExecutorTypeEnum.LOCAL, hmilyParticipant);
-                    results.add(result);
-                    HmilyRepositoryStorage.removeHmilyParticipant(hmilyParticipant);
-                } else {
-                    final Object result = HmilyReflector.executor(HmilyActionEnum.CONFIRMING, ExecutorTypeEnum.RPC, hmilyParticipant);
-                    results.add(result);
-                }
-            } catch (Throwable throwable) {
-                throw new HmilyRuntimeException(" hmilyParticipant execute confirm exception:" + hmilyParticipant.toString());
-            } finally {
-                HmilyContextHolder.remove();
+        List<PhaseTwoResult> results = executePhaseTwo(HmilyActionEnum.CONFIRMING, hmilyParticipantList, e -> e.getParticipantId().equals(selfParticipantId), true);
+        for (int i = 0; i < results.size(); i++) {
+            if (Objects.nonNull(results.get(i).getError())) {
+                throw new HmilyRuntimeException(" hmilyParticipant execute confirm exception:" + hmilyParticipantList.get(i).toString());
             }
         }
         HmilyParticipantCacheManager.getInstance().removeByKey(selfParticipantId);
-        return results.get(0);
+        return results.get(0).getResult();
     }
     
     /**
@@ -199,18 +202,10 @@ public final class HmilyTccTransactionExecutor {
         //update cancel
         HmilyRepositoryStorage.updateHmilyTransactionStatus(currentTransaction);
         final List<HmilyParticipant> hmilyParticipants = currentTransaction.getHmilyParticipants();
-        for (HmilyParticipant hmilyParticipant : hmilyParticipants) {
-            try {
-                if (hmilyParticipant.getRole() == HmilyRoleEnum.START.getCode()) {
-                    HmilyReflector.executor(HmilyActionEnum.CANCELING, ExecutorTypeEnum.LOCAL, hmilyParticipant);
-                    HmilyRepositoryStorage.removeHmilyParticipant(hmilyParticipant);
-                } else {
-                    HmilyReflector.executor(HmilyActionEnum.CANCELING, ExecutorTypeEnum.RPC, hmilyParticipant);
-                }
-            } catch (Throwable e) {
-                LOGGER.error("HmilyParticipant cancel exception :{}", hmilyParticipant.toString(), e);
-            } finally {
-                HmilyContextHolder.remove();
+        List<PhaseTwoResult> results = executePhaseTwo(HmilyActionEnum.CANCELING, hmilyParticipants, e -> e.getRole() == HmilyRoleEnum.START.getCode(), false);
+        for (int i = 0; i < results.size(); i++) {
+            if (Objects.nonNull(results.get(i).getError())) {
+                LOGGER.error("HmilyParticipant cancel exception :{}", hmilyParticipants.get(i).toString(), results.get(i).getError());
             }
         }
     }
@@ -234,25 +229,117 @@ public final class HmilyTccTransactionExecutor {
             selfHmilyParticipant.setStatus(HmilyActionEnum.CANCELING.getCode());
             HmilyRepositoryStorage.updateHmilyParticipantStatus(selfHmilyParticipant);
         }
-        List<Object> results = Lists.newArrayListWithCapacity(hmilyParticipants.size());
+        List<PhaseTwoResult> results = executePhaseTwo(HmilyActionEnum.CANCELING, hmilyParticipants, e -> e.getParticipantId().equals(selfParticipantId), true);
+        for (int i = 0; i < results.size(); i++) {
+            if (Objects.nonNull(results.get(i).getError())) {
+                throw new HmilyRuntimeException(" hmilyParticipant execute cancel exception:" + hmilyParticipants.get(i).toString());
+            }
+        }
+        HmilyParticipantCacheManager.getInstance().removeByKey(selfParticipantId);
+        return results.get(0).getResult();
+    }
+    
+    /**
+     * Run the confirm or cancel of every participant, the local one on the calling thread and the remote ones either one after another,
+     * or with tccParallelPhaseTwo concurrently on the phase two pool.
+     */
+    private List<PhaseTwoResult> executePhaseTwo(final HmilyActionEnum action, final List<HmilyParticipant> hmilyParticipants,
+                                                 final Predicate<HmilyParticipant> local, final boolean failFast) {
+        HmilyConfig hmilyConfig = ConfigEnv.getInstance().getConfig(HmilyConfig.class);
+        Function<HmilyParticipant, PhaseTwoResult> localPhaseTwo = each -> executePhaseTwo(action, each, true);
+        Function<HmilyParticipant, PhaseTwoResult> remotePhaseTwo = each -> executePhaseTwo(action, each, false);
+        if (!hmilyConfig.isTccParallelPhaseTwo() || hmilyParticipants.size() < 2) {
+            return executeSequentially(hmilyParticipants, local, localPhaseTwo, remotePhaseTwo, failFast);
+        }
+        return executeConcurrently(hmilyParticipants, local, localPhaseTwo, remotePhaseTwo, phaseTwoExecutor(hmilyConfig), hmilyConfig.getTccPhaseTwoTimeout());
+    }
+    
+    /**
+     * Run the phase two of the participants one after another, in participant order.
+     * A fail fast run stops at the first failure and leaves the participants after it unset.
+     */
+    static List<PhaseTwoResult> executeSequentially(final List<HmilyParticipant> hmilyParticipants, final Predicate<HmilyParticipant> local,
+                                                    final Function<HmilyParticipant, PhaseTwoResult> localPhaseTwo,
+                                                    final Function<HmilyParticipant, PhaseTwoResult> remotePhaseTwo, final boolean failFast) {
+        List<PhaseTwoResult> results = new ArrayList<>(hmilyParticipants.size());
         for (HmilyParticipant hmilyParticipant : hmilyParticipants) {
+            PhaseTwoResult result = local.test(hmilyParticipant) ? localPhaseTwo.apply(hmilyParticipant) : remotePhaseTwo.apply(hmilyParticipant);
+            results.add(result);
+            if (failFast && Objects.nonNull(result.getError())) {
+                break;
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Run the phase two of the remote participants concurrently on the executor while the local ones run on the calling thread.
+     * The remote calls are bounded by the timeout counted once the local participants are done, a call that times out counts as failed.
+     * Every remote call is under way before any result is known, so there is no fail fast, every participant gets a result, in participant order.
+     */
+    static List<PhaseTwoResult> executeConcurrently(final List<HmilyParticipant> hmilyParticipants, final Predicate<HmilyParticipant> local,
+                                                    final Function<HmilyParticipant, PhaseTwoResult> localPhaseTwo,
+                                                    final Function<HmilyParticipant, PhaseTwoResult> remotePhaseTwo,
+                                                    final ExecutorService executor, final long timeout) {
+        PhaseTwoResult[] results = new PhaseTwoResult[hmilyParticipants.size()];
+        List<Future<PhaseTwoResult>> futures = new ArrayList<>(hmilyParticipants.size());
+        for (HmilyParticipant hmilyParticipant : hmilyParticipants) {
+            futures.add(local.test(hmilyParticipant) ? null : executor.submit(() -> remotePhaseTwo.apply(hmilyParticipant)));
+        }
+        for (int i = 0; i < hmilyParticipants.size(); i++) {
+            if (Objects.isNull(futures.get(i))) {
+                results[i] = localPhaseTwo.apply(hmilyParticipants.get(i));
+            }
+        }
+        long deadline = System.currentTimeMillis() + timeout;
+        for (int i = 0; i < hmilyParticipants.size(); i++) {
+            Future<PhaseTwoResult> future = futures.get(i);
+            if (Objects.isNull(future)) {
+                continue;
+            }
             try {
-                if (hmilyParticipant.getParticipantId().equals(selfParticipantId)) {
-                    final Object result = HmilyReflector.executor(HmilyActionEnum.CANCELING, ExecutorTypeEnum.LOCAL, hmilyParticipant);
-                    results.add(result);
-                    HmilyRepositoryStorage.removeHmilyParticipant(hmilyParticipant);
-                } else {
-                    final Object result = HmilyReflector.executor(HmilyActionEnum.CANCELING, ExecutorTypeEnum.RPC, hmilyParticipant);
-                    results.add(result);
+                results[i] = future.get(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                results[i] = new PhaseTwoResult(null, e);
+            } catch (ExecutionException | TimeoutException e) {
+                future.cancel(true);
+                results[i] = new PhaseTwoResult(null, e);
+            }
+        }
+        return Arrays.asList(results);
+    }
+    
+    private PhaseTwoResult executePhaseTwo(final HmilyActionEnum action, final HmilyParticipant hmilyParticipant, final boolean local) {
+        try {
+            if (local) {
+                Object result = HmilyReflector.executor(action, ExecutorTypeEnum.LOCAL, hmilyParticipant);
+                HmilyRepositoryStorage.removeHmilyParticipant(hmilyParticipant);
+                return new PhaseTwoResult(result, null);
+            }
+            return new PhaseTwoResult(HmilyReflector.executor(action, ExecutorTypeEnum.RPC, hmilyParticipant), null);
+        } catch (Throwable e) {
+            return new PhaseTwoResult(null, e);
+        } finally {
+            // the reflector sets the context of the participant on the thread that runs it
+            HmilyContextHolder.remove();
+        }
+    }
+    
+    private ExecutorService phaseTwoExecutor(final HmilyConfig hmilyConfig) {
+        if (Objects.isNull(phaseTwoExecutor)) {
+            synchronized (this) {
+                if (Objects.isNull(phaseTwoExecutor)) {
+                    int threads = Math.max(1, hmilyConfig.getTccPhaseTwoThreads());
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(threads << 6), HmilyThreadFactory.create("hmily-tcc-phase-two", true), new ThreadPoolExecutor.CallerRunsPolicy());
+                    executor.allowCoreThreadTimeOut(true);
+                    phaseTwoExecutor = executor;
                 }
-            } catch (Throwable throwable) {
-                throw new HmilyRuntimeException(" hmilyParticipant execute cancel exception:" + hmilyParticipant.toString());
-            } finally {
-                HmilyContextHolder.remove();
             }
         }
-        HmilyParticipantCacheManager.getInstance().removeByKey(selfParticipantId);
-        return results.get(0);
+        return phaseTwoExecutor;
     }
     
     /**
@@ -261,6 +348,10 @@ public final class HmilyTccTransactionExecutor {
      * @param hmilyTransaction {@linkplain HmilyTransaction}
      */
     public void updateStartStatus(final HmilyTransaction hmilyTransaction) {
+        if (hmilyTransaction.getHmilyParticipants().size() > 1) {
+            // participants registered without passing the rpc mediator on this thread
+            HmilyRepositoryStorage.enlist(hmilyTransaction);
+        }
         HmilyRepositoryStorage.updateHmilyTransactionStatus(hmilyTransaction);
         HmilyParticipant hmilyParticipant = filterStartHmilyParticipant(hmilyTransaction);
         if (Objects.nonNull(hmilyParticipant)) {
@@ -307,9 +398,9 @@ public final class HmilyTccTransactionExecutor {
         MethodSignature signature = (MethodSignature) point.getSignature();
         Method method = signature.getMethod();
         Object[] args = point.getArgs();
-        final HmilyTCC hmilyTCC = method.getAnnotation(HmilyTCC.class);
-        String confirmMethodName = hmilyTCC.confirmMethod();
-        String cancelMethodName = hmilyTCC.cancelMethod();
+        final HmilyMethodMetadata metadata = HmilyMethodRegistry.getInstance().find(method);
+        String confirmMethodName = metadata.getConfirmMethod();
+        String cancelMethodName = metadata.getCancelMethod();
         if (StringUtils.isBlank(confirmMethodName) || StringUtils.isBlank(cancelMethodName)) {
             return null;
         }
@@ -323,6 +414,7 @@ public final class HmilyTccTransactionExecutor {
             hmilyParticipant.setParticipantRefId(participantRefId);
         }
         Class<?> clazz = point.getTarget().getClass();
+        Class<?> targetInterface = HmilyMethodRegistry.getInstance().findInterface(clazz);
         hmilyParticipant.setTransId(transId);
         hmilyParticipant.setTransType(TransTypeEnum.TCC.name());
         hmilyParticipant.setStatus(HmilyActionEnum.PRE_TRY.getCode());
@@ -331,14 +423,23 @@ public final class HmilyTccTransactionExecutor {
         hmilyParticipant.setTargetMethod(method.getName());
         if (StringUtils.isNoneBlank(confirmMethodName)) {
             hmilyParticipant.setConfirmMethod(confirmMethodName);
-            HmilyInvocation confirmInvocation = new HmilyInvocation(clazz.getInterfaces()[0], method.getName(), method.getParameterTypes(), args);
+            HmilyInvocation confirmInvocation = new HmilyInvocation(targetInterface, method.getName(), method.getParameterTypes(), args);
             hmilyParticipant.setConfirmHmilyInvocation(confirmInvocation);
         }
         if (StringUtils.isNoneBlank(cancelMethodName)) {
             hmilyParticipant.setCancelMethod(cancelMethodName);
-            HmilyInvocation cancelInvocation = new HmilyInvocation(clazz.getInterfaces()[0], method.getName(), method.getParameterTypes(), args);
+            HmilyInvocation cancelInvocation = new HmilyInvocation(targetInterface, method.getName(), method.getParameterTypes(), args);
             hmilyParticipant.setCancelHmilyInvocation(cancelInvocation);
         }
         return hmilyParticipant;
     }
+    
+    @Getter
+    @AllArgsConstructor
+    static final class PhaseTwoResult {
+        
+        private final Object result;
+        
+        private final Throwable error;
+    }
 }
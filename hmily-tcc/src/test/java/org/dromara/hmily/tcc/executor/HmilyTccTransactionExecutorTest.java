@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017-2021 Dromara.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hmily.tcc.executor;
+
+import org.dromara.hmily.repository.spi.entity.HmilyParticipant;
+import org.dromara.hmily.tcc.executor.HmilyTccTransactionExecutor.PhaseTwoResult;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The tcc transaction executor phase two test.
+ *
+ * @author xiaoyu
+ */
+public final class HmilyTccTransactionExecutorTest {
+    
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    
+    private final List<HmilyParticipant> hmilyParticipants = buildParticipants(3);
+    
+    private final Predicate<HmilyParticipant> local = each -> each.getParticipantId() == 0L;
+    
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+    
+    @Test
+    public void assertSequentialFailFastStopsAtFirstFailure() {
+        AtomicInteger calls = new AtomicInteger();
+        Function<HmilyParticipant, PhaseTwoResult> remote = each -> {
+            calls.incrementAndGet();
+            return each.getParticipantId() == 1L ? new PhaseTwoResult(null, new IllegalStateException()) : new PhaseTwoResult(each.getParticipantId(), null);
+        };
+        assertEquals(2, HmilyTccTransactionExecutor.executeSequentially(hmilyParticipants, local, this::succeed, remote, true).size());
+        assertEquals(1, calls.get());
+        assertEquals(3, HmilyTccTransactionExecutor.executeSequentially(hmilyParticipants, local, this::succeed, remote, false).size());
+        assertEquals(3, calls.get());
+    }
+    
+    @Test
+    public void assertConcurrentRunsEveryParticipantInOrder() {
+        List<PhaseTwoResult> results = HmilyTccTransactionExecutor.executeConcurrently(hmilyParticipants, local, this::succeed, this::succeed, executor, 1000L);
+        assertEquals(3, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals((long) i, results.get(i).getResult());
+            assertNull(results.get(i).getError());
+        }
+    }
+    
+    @Test
+    public void assertConcurrentDoesNotFailFast() {
+        AtomicInteger calls = new AtomicInteger();
+        Function<HmilyParticipant, PhaseTwoResult> remote = each -> {
+            calls.incrementAndGet();
+            return each.getParticipantId() == 1L ? new PhaseTwoResult(null, new IllegalStateException()) : new PhaseTwoResult(each.getParticipantId(), null);
+        };
+        List<PhaseTwoResult> results = HmilyTccTransactionExecutor.executeConcurrently(hmilyParticipants, local, this::succeed, remote, executor, 1000L);
+        assertEquals(3, results.size());
+        assertEquals(2, calls.get());
+        assertTrue(results.get(1).getError() instanceof IllegalStateException);
+        assertEquals(2L, results.get(2).getResult());
+    }
+    
+    @Test
+    public void assertConcurrentTimeoutCountsAsFailed() {
+        Function<HmilyParticipant, PhaseTwoResult> remote = each -> {
+            sleep(each.getParticipantId() == 1L ? 1000L : 0L);
+            return succeed(each);
+        };
+        List<PhaseTwoResult> results = HmilyTccTransactionExecutor.executeConcurrently(hmilyParticipants, local, this::succeed, remote, executor, 50L);
+        assertTrue(results.get(1).getError() instanceof TimeoutException);
+        assertEquals(2L, results.get(2).getResult());
+    }
+    
+    @Test
+    public void assertConcurrentTimeoutStartsAfterLocalParticipant() {
+        Function<HmilyParticipant, PhaseTwoResult> localPhaseTwo = each -> {
+            sleep(300L);
+            return succeed(each);
+        };
+        Function<HmilyParticipant, PhaseTwoResult> remote = each -> {
+            sleep(400L);
+            return succeed(each);
+        };
+        List<PhaseTwoResult> results = HmilyTccTransactionExecutor.executeConcurrently(hmilyParticipants, local, localPhaseTwo, remote, executor, 250L);
+        assertNull(results.get(1).getError());
+        assertNull(results.get(2).getError());
+    }
+    
+    private PhaseTwoResult succeed(final HmilyParticipant hmilyParticipant) {
+        return new PhaseTwoResult(hmilyParticipant.getParticipantId(), null);
+    }
+    
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static List<HmilyParticipant> buildParticipants(final int size) {
+        List<HmilyParticipant> result = new ArrayList<>(size);
+        for (long i = 0; i < size; i++) {
+            HmilyParticipant hmilyParticipant = new HmilyParticipant();
+            hmilyParticipant.setParticipantId(i);
+            result.add(hmilyParticipant);
+        }
+        return result;
+    }
+}
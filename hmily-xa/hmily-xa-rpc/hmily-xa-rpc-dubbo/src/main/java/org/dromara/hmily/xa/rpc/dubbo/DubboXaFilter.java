@@ -24,8 +24,7 @@ import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Result;
 import org.apache.dubbo.rpc.RpcException;
-import org.dromara.hmily.annotation.Hmily;
-import org.dromara.hmily.common.utils.LogUtil;
+import org.dromara.hmily.core.reflect.HmilyMethodRegistry;
 import org.dromara.hmily.xa.core.TransactionImpl;
 import org.dromara.hmily.xa.core.TransactionManagerImpl;
 import org.slf4j.Logger;
@@ -35,8 +34,6 @@ import javax.transaction.RollbackException;
 import javax.transaction.SystemException;
 import javax.transaction.Transaction;
 import javax.transaction.xa.XAResource;
-import java.lang.reflect.Method;
-import java.util.Objects;
 
 /**
  * DubboXaFilter .
@@ -54,14 +51,7 @@ public class DubboXaFilter implements Filter {
         Class<?> clazz = invoker.getInterface();
         Class<?>[] args = invocation.getParameterTypes();
         String methodName = invocation.getMethodName();
-        try {
-            Method method = clazz.getMethod(methodName, args);
-            Hmily hmily = method.getAnnotation(Hmily.class);
-            if (Objects.isNull(hmily)) {
-                return invoker.invoke(invocation);
-            }
-        } catch (Exception ex) {
-            LogUtil.error(LOGGER, "hmily find method error {} ", ex::getMessage);
+        if (!HmilyMethodRegistry.getInstance().find(clazz, methodName, args).isHmily()) {
             return invoker.invoke(invocation);
         }
         //If it is an xa transaction that can be processed.
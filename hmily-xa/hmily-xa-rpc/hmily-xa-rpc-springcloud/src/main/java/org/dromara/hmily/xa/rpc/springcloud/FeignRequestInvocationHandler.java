@@ -16,8 +16,7 @@
 
 package org.dromara.hmily.xa.rpc.springcloud;
 
-import org.dromara.hmily.annotation.Hmily;
-import org.dromara.hmily.common.utils.LogUtil;
+import org.dromara.hmily.core.reflect.HmilyMethodRegistry;
 import org.dromara.hmily.xa.core.TransactionImpl;
 import org.dromara.hmily.xa.core.TransactionManagerImpl;
 import org.slf4j.Logger;
@@ -29,7 +28,6 @@ import javax.transaction.Transaction;
 import javax.transaction.xa.XAResource;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.util.Objects;
 
 /**
  * 拦截Feign rpc，如果有事务，则为其创建一个{@link XAResource}.
@@ -50,13 +48,7 @@ public class FeignRequestInvocationHandler implements InvocationHandler {
 
     @Override
     public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
-        try {
-            Hmily hmily = method.getAnnotation(Hmily.class);
-            if (Objects.isNull(hmily)) {
-                return method.invoke(target, args);
-            }
-        } catch (Exception ex) {
-            LogUtil.error(LOGGER, "hmily find method error {} ", ex::getMessage);
+        if (!HmilyMethodRegistry.getInstance().find(method).isHmily()) {
             return method.invoke(target, args);
         }
 